@@ -0,0 +1,237 @@
+package main.gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import model.AutoScheduler;
+import model.Event;
+import model.ScheduleCommandQueue;
+import model.SchedulingConstraints;
+import model.SchedulingTask;
+
+/**
+ * Dialog that lets the user describe repeated sessions, such as study blocks, and
+ * places them into free time automatically instead of adding each one by hand.
+ */
+public class AutoScheduleDialog extends JDialog {
+    /** Maximum time the solver may spend improving a placement */
+    private static final Duration SOLVER_BUDGET = Duration.ofMillis(500);
+    /** Queue that applies the placed sessions to the schedule */
+    private final ScheduleCommandQueue commandQueue;
+    /** Field for the session title */
+    private JTextField titleField;
+    /** Field for the session location */
+    private JTextField locationField;
+    /** Spinner for the number of sessions */
+    private JSpinner countSpinner;
+    /** Spinner for the session length in minutes */
+    private JSpinner durationSpinner;
+    /** Spinner for the first allowed date */
+    private JSpinner firstDateSpinner;
+    /** Spinner for the last allowed date */
+    private JSpinner lastDateSpinner;
+    /** Spinner for the earliest start time */
+    private JSpinner earliestSpinner;
+    /** Spinner for the latest end time */
+    private JSpinner latestSpinner;
+    /** Spinner for the maximum number of sessions per day */
+    private JSpinner maxPerDaySpinner;
+    /** Button that starts placing sessions, disabled while the solver runs */
+    private JButton scheduleButton;
+
+    /**
+     * Constructs and shows the auto-schedule dialog.
+     * @param owner the window that owns the dialog
+     * @param commandQueue the queue that applies changes to the schedule
+     */
+    public AutoScheduleDialog(Window owner, ScheduleCommandQueue commandQueue) {
+        super(owner, "Auto-Schedule Sessions", ModalityType.APPLICATION_MODAL);
+        this.commandQueue = commandQueue;
+        initializeComponents();
+        pack();
+        setLocationRelativeTo(owner);
+        setVisible(true);
+    }
+
+    /**
+     * Initializes all components of the dialog.
+     */
+    private void initializeComponents() {
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        formPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        titleField = new JTextField(20);
+        locationField = new JTextField(20);
+        countSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 1000, 1));
+        durationSpinner = new JSpinner(new SpinnerNumberModel(90, AutoScheduler.SLOT_MINUTES, 24 * 60, AutoScheduler.SLOT_MINUTES));
+        firstDateSpinner = createDateSpinner(new Date());
+        Calendar inFourWeeks = Calendar.getInstance();
+        inFourWeeks.add(Calendar.WEEK_OF_YEAR, 4);
+        lastDateSpinner = createDateSpinner(inFourWeeks.getTime());
+        earliestSpinner = createTimeSpinner(9);
+        latestSpinner = createTimeSpinner(18);
+        maxPerDaySpinner = new JSpinner(new SpinnerNumberModel(2, 1, 24, 1));
+
+        Object[][] rows = {
+            {"Title:", titleField},
+            {"Location:", locationField},
+            {"Sessions:", countSpinner},
+            {"Minutes each:", durationSpinner},
+            {"From date:", firstDateSpinner},
+            {"To date:", lastDateSpinner},
+            {"Not before:", earliestSpinner},
+            {"End by:", latestSpinner},
+            {"Max per day:", maxPerDaySpinner}
+        };
+        for (int i = 0; i < rows.length; i++) {
+            gbc.gridx = 0;
+            gbc.gridy = i;
+            gbc.weightx = 0.0;
+            JLabel label = new JLabel((String) rows[i][0]);
+            label.setFont(label.getFont().deriveFont(Font.BOLD));
+            formPanel.add(label, gbc);
+            gbc.gridx = 1;
+            gbc.weightx = 1.0;
+            formPanel.add((Component) rows[i][1], gbc);
+        }
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        scheduleButton = new JButton("Schedule");
+        JButton cancelButton = new JButton("Cancel");
+        scheduleButton.addActionListener(e -> placeSessions());
+        cancelButton.addActionListener(e -> dispose());
+        buttonPanel.add(scheduleButton);
+        buttonPanel.add(cancelButton);
+
+        setLayout(new BorderLayout());
+        add(formPanel, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Creates a spinner for choosing a date.
+     * @param initial the initial date
+     * @return the configured spinner
+     */
+    private JSpinner createDateSpinner(Date initial) {
+        JSpinner spinner = new JSpinner(new SpinnerDateModel(initial, null, null, Calendar.DAY_OF_MONTH));
+        spinner.setEditor(new JSpinner.DateEditor(spinner, "MMM d, yyyy"));
+        return spinner;
+    }
+
+    /**
+     * Creates a spinner for choosing a time of day.
+     * @param hour the initial hour
+     * @return the configured spinner
+     */
+    private JSpinner createTimeSpinner(int hour) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.HOUR_OF_DAY, hour);
+        calendar.set(Calendar.MINUTE, 0);
+        JSpinner spinner = new JSpinner(new SpinnerDateModel(calendar.getTime(), null, null, Calendar.MINUTE));
+        spinner.setEditor(new JSpinner.DateEditor(spinner, "h:mm a"));
+        return spinner;
+    }
+
+    /**
+     * Runs the solver in the background, without holding the schedule's lock, and then
+     * adds the placed sessions.
+     */
+    private void placeSessions() {
+        if (titleField.getText().isEmpty() || locationField.getText().isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please fill in all fields!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        SchedulingTask task;
+        SchedulingConstraints constraints;
+        try {
+            task = new SchedulingTask(titleField.getText(), locationField.getText(),
+                Duration.ofMinutes((Integer) durationSpinner.getValue()), (Integer) countSpinner.getValue());
+            constraints = new SchedulingConstraints(toDate(firstDateSpinner), toDate(lastDateSpinner),
+                toTime(earliestSpinner), toTime(latestSpinner), (Integer) maxPerDaySpinner.getValue());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        scheduleButton.setEnabled(false);
+        new SwingWorker<List<Event>, Void>() {
+            @Override
+            protected List<Event> doInBackground() {
+                return new AutoScheduler(commandQueue.getSchedule()).schedule(task, constraints, SOLVER_BUDGET);
+            }
+
+            @Override
+            protected void done() {
+                List<Event> sessions;
+                try {
+                    sessions = get();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(AutoScheduleDialog.this, "Failed to place sessions: " + e.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                    scheduleButton.setEnabled(true);
+                    return;
+                }
+                addSessions(sessions, task.getCount());
+            }
+        }.execute();
+    }
+
+    /**
+     * Adds placed sessions on the schedule writer thread. Each session is checked again
+     * as it is added, since the schedule may have changed while the solver ran; sessions
+     * that now conflict are left out.
+     * @param sessions the placed sessions
+     * @param wanted the number of sessions asked for
+     */
+    private void addSessions(List<Event> sessions, int wanted) {
+        commandQueue.submit(schedule -> {
+            int added = 0;
+            for (Event session : sessions) {
+                if (schedule.addEvent(session)) {
+                    added++;
+                }
+            }
+            return added;
+        }, added -> {
+            if (added < wanted) {
+                JOptionPane.showMessageDialog(this,
+                    String.format("Only %d of %d sessions fit into the free time.", added, wanted),
+                    "Warning", JOptionPane.WARNING_MESSAGE);
+            }
+            dispose();
+        }, e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Failed to add sessions: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            scheduleButton.setEnabled(true);
+        });
+    }
+
+    /**
+     * Reads the date of a date spinner.
+     * @param spinner the spinner to read
+     * @return the selected date
+     */
+    private LocalDate toDate(JSpinner spinner) {
+        return ((Date) spinner.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * Reads the time of a time spinner.
+     * @param spinner the spinner to read
+     * @return the selected time, to the minute
+     */
+    private LocalTime toTime(JSpinner spinner) {
+        return ((Date) spinner.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalTime().withSecond(0).withNano(0);
+    }
+}
@@ -0,0 +1,248 @@
+package main.gui;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import model.ConflictAnalyzer;
+import model.ConflictReport;
+import model.Schedule;
+import model.ScheduleChange;
+import model.ScheduleListener;
+
+/**
+ * Lists every pair of overlapping events in the schedule and the clusters they form.
+ * The analysis runs in the background when the user asks for it; both tables can be
+ * sorted by any column. The panel notes when the schedule has changed since the last run.
+ */
+public class ConflictReportPanel extends JPanel implements ScheduleListener {
+    /** Format of times shown in the tables */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy h:mm a");
+    private static final Color HEADER_BACKGROUND = MainFrame.SOFT_PINK;
+    private static final Color ALTERNATE_ROW_COLOR = new Color(245, 240, 240);
+    /** The schedule to analyse */
+    private final Schedule schedule;
+    /** Rows of the pairs table */
+    private final ConflictTableModel conflictModel = new ConflictTableModel();
+    /** Rows of the clusters table */
+    private final ClusterTableModel clusterModel = new ClusterTableModel();
+    /** Button that starts an analysis */
+    private JButton analyzeButton;
+    /** Summary of the last analysis */
+    private JLabel statusLabel;
+    /** Whether a report is shown */
+    private boolean analyzed;
+
+    /**
+     * Creates the panel.
+     * @param schedule the schedule to analyse
+     */
+    public ConflictReportPanel(Schedule schedule) {
+        this.schedule = schedule;
+        setLayout(new BorderLayout(5, 5));
+        add(createControls(), BorderLayout.NORTH);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(createTable(conflictModel)), new JScrollPane(createTable(clusterModel)));
+        split.setResizeWeight(0.7);
+        add(split, BorderLayout.CENTER);
+    }
+
+    /**
+     * Creates the analyse button and the summary line.
+     * @return the configured control panel
+     */
+    private JPanel createControls() {
+        JPanel controls = new JPanel(new BorderLayout(10, 0));
+        analyzeButton = new JButton("Analyze Conflicts");
+        analyzeButton.setBackground(MainFrame.SOFT_PINK);
+        analyzeButton.addActionListener(e -> analyze());
+        statusLabel = new JLabel("Press Analyze Conflicts to list overlapping events.");
+        controls.add(analyzeButton, BorderLayout.WEST);
+        controls.add(statusLabel, BorderLayout.CENTER);
+        return controls;
+    }
+
+    /**
+     * Creates a sortable table styled like the event table.
+     * @param model the table model
+     * @return the table
+     */
+    private JTable createTable(AbstractTableModel model) {
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setRowHeight(25);
+        table.setFont(new Font("Arial", Font.PLAIN, 12));
+        table.setShowGrid(true);
+        table.setGridColor(Color.LIGHT_GRAY);
+        table.setSelectionBackground(ALTERNATE_ROW_COLOR);
+        table.setSelectionForeground(Color.BLACK);
+        table.getTableHeader().setBackground(HEADER_BACKGROUND);
+        table.getTableHeader().setForeground(Color.BLACK);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value,
+                    boolean isSelected, boolean hasFocus, int row, int column) {
+                Object shown = value instanceof LocalDateTime ? ((LocalDateTime) value).format(TIME_FORMAT) : value;
+                Component c = super.getTableCellRendererComponent(table, shown, isSelected, hasFocus, row, column);
+                if (!isSelected) {
+                    c.setBackground(row % 2 == 0 ? Color.WHITE : ALTERNATE_ROW_COLOR);
+                }
+                return c;
+            }
+        });
+        return table;
+    }
+
+    /**
+     * Runs the analysis on a background thread and shows the report when done.
+     */
+    private void analyze() {
+        analyzeButton.setEnabled(false);
+        statusLabel.setText("Analyzing...");
+        long started = System.nanoTime();
+        new SwingWorker<ConflictReport, Void>() {
+            @Override
+            protected ConflictReport doInBackground() {
+                return ConflictAnalyzer.analyze(schedule);
+            }
+
+            @Override
+            protected void done() {
+                analyzeButton.setEnabled(true);
+                try {
+                    ConflictReport report = get();
+                    conflictModel.show(report.getConflicts());
+                    clusterModel.show(report.getClusters());
+                    analyzed = true;
+                    statusLabel.setText(report.getConflicts().size() + " overlapping pairs in "
+                        + report.getClusters().size() + " clusters among " + report.getEventCount()
+                        + " events (" + (System.nanoTime() - started) / 1_000_000 + " ms)");
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                    statusLabel.setText("Analysis failed: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Notes that the shown report may be out of date.
+     * @param change the changes made to the schedule
+     */
+    @Override
+    public void scheduleChanged(ScheduleChange change) {
+        if (analyzed && !statusLabel.getText().endsWith(" changed since.")) {
+            statusLabel.setText(statusLabel.getText() + " The schedule has changed since.");
+        }
+    }
+
+    /**
+     * Table rows for the overlapping pairs of a report.
+     */
+    private static class ConflictTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {"First Event", "Second Event", "Overlap Starts", "Overlap (min)", "Cluster"};
+        private static final Class<?>[] COLUMN_CLASSES = {String.class, String.class, LocalDateTime.class, Long.class, Integer.class};
+        /** The pairs shown */
+        private List<ConflictReport.Conflict> conflicts = List.of();
+
+        /**
+         * Replaces the rows.
+         * @param conflicts the pairs to show
+         */
+        void show(List<ConflictReport.Conflict> conflicts) {
+            this.conflicts = conflicts;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return conflicts.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return COLUMN_CLASSES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ConflictReport.Conflict conflict = conflicts.get(row);
+            switch (column) {
+                case 0: return conflict.getFirst().getTitle() + " (" + conflict.getFirst().getLocation() + ")";
+                case 1: return conflict.getSecond().getTitle() + " (" + conflict.getSecond().getLocation() + ")";
+                case 2: return conflict.getOverlapStart();
+                case 3: return conflict.getOverlap().toMinutes();
+                default: return conflict.getCluster() + 1;
+            }
+        }
+    }
+
+    /**
+     * Table rows for the clusters of a report.
+     */
+    private static class ClusterTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {"Cluster", "Events", "Pairs", "Most at Once", "Starts", "Ends", "Contested (min)"};
+        private static final Class<?>[] COLUMN_CLASSES = {Integer.class, Integer.class, Integer.class, Integer.class,
+            LocalDateTime.class, LocalDateTime.class, Long.class};
+        /** The clusters shown */
+        private List<ConflictReport.Cluster> clusters = List.of();
+
+        /**
+         * Replaces the rows.
+         * @param clusters the clusters to show
+         */
+        void show(List<ConflictReport.Cluster> clusters) {
+            this.clusters = clusters;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return clusters.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return COLUMN_CLASSES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ConflictReport.Cluster cluster = clusters.get(row);
+            switch (column) {
+                case 0: return row + 1;
+                case 1: return cluster.getEvents().size();
+                case 2: return cluster.getPairCount();
+                case 3: return cluster.getPeak();
+                case 4: return cluster.getStart();
+                case 5: return cluster.getEnd();
+                default: return cluster.getContestedTime().toMinutes();
+            }
+        }
+    }
+}
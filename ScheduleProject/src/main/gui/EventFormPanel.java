@@ -3,23 +3,29 @@ package main.gui;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.DayOfWeek;
 import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Date;
-import model.Schedule;
 import model.Event;
+import model.RecurrenceRule;
 import model.RecurringEvent;
+import model.ScheduleCommandQueue;
+import model.ZonedEvent;
 
 /**
  * The <code>EventFormPanel</code> class provides a GUI panel with a form to create 
  * and configure new events or recurring events.
  */
 public class EventFormPanel extends JPanel {
-    /** The schedule containing events to manage */
-    private final Schedule schedule;
-    /** The panel displaying events in table format */
+    /** Choices of how a recurring event repeats */
+    private static final String[] REPEAT_OPTIONS = {"Weekly on selected days", "Monthly on the same date", "Monthly on the same weekday"};
+    /** Queue that applies changes to the schedule off the event thread */
+    private final ScheduleCommandQueue commandQueue;
+    /** The panel displaying events in table format, used to find the selected event */
     private final EventTablePanel eventTablePanel;
     /** Field for entering event title */
     private JTextField titleField;
@@ -35,13 +41,13 @@ public class EventFormPanel extends JPanel {
     private JSpinner endTimeSpinner;
 
     /**
-     * Constructs an EventFormPanel with the specified schedule and table panel.
+     * Constructs an EventFormPanel with the specified command queue and table panel.
      *
-     * @param schedule the schedule to manage events for
-     * @param eventTablePanel the table panel to refresh after changes
+     * @param commandQueue the queue that applies changes to the schedule
+     * @param eventTablePanel the table panel used to find the selected event
      */
-    public EventFormPanel(Schedule schedule, EventTablePanel eventTablePanel) {
-        this.schedule = schedule;
+    public EventFormPanel(ScheduleCommandQueue commandQueue, EventTablePanel eventTablePanel) {
+        this.commandQueue = commandQueue;
         this.eventTablePanel = eventTablePanel;
         setLayout(new GridBagLayout());
         setBorder(BorderFactory.createTitledBorder("Add New Event"));
@@ -125,10 +131,12 @@ public class EventFormPanel extends JPanel {
         
         JButton addButton = createStyledButton("Add Event");
         JButton addRecurringButton = createStyledButton("Add Recurring Event");
+        JButton autoScheduleButton = createStyledButton("Auto-Schedule...");
         JButton removeButton = createStyledButton("Remove Event");
 
         buttonPanel.add(addButton);
         buttonPanel.add(addRecurringButton);
+        buttonPanel.add(autoScheduleButton);
         buttonPanel.add(removeButton);
 
         gbc.gridx = 0; gbc.gridy = 4;
@@ -139,6 +147,7 @@ public class EventFormPanel extends JPanel {
         
         addButton.addActionListener(e -> addEvent());
         addRecurringButton.addActionListener(e -> showRecurringEventDialog());
+        autoScheduleButton.addActionListener(e -> new AutoScheduleDialog(SwingUtilities.getWindowAncestor(this), commandQueue));
         removeButton.addActionListener(e -> removeSelectedEvent());
     }
 
@@ -232,13 +241,21 @@ public class EventFormPanel extends JPanel {
                 ((Date) endTimeSpinner.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalTime()
             );
 
-            Event event = new Event(titleField.getText(), start, end, locationField.getText());
-            if (schedule.addEvent(event)) {
-                eventTablePanel.refreshTable();
-                clearForm();
-            } else {
-                JOptionPane.showMessageDialog(this, "Event overlaps with existing events!", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            Event event = new ZonedEvent(titleField.getText(), start, end, locationField.getText(), ZoneId.systemDefault());
+            commandQueue.submit(schedule -> {
+                if (schedule.addEvent(event)) return null;
+                Event booked = schedule.findRoomConflict(event);
+                if (booked != null) {
+                    return "Location " + event.getLocation() + " is already booked for " + booked.getTitle() + " at that time!";
+                }
+                return "Event overlaps with existing events!";
+            }, error -> {
+                if (error == null) {
+                    clearForm();
+                } else {
+                    JOptionPane.showMessageDialog(this, error, "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, this::showUpdateFailure);
         }
     }
 
@@ -258,6 +275,29 @@ public class EventFormPanel extends JPanel {
             checkBoxPanel.add(dayCheckboxes[i]);
         }
 
+        JComboBox<String> repeatBox = new JComboBox<>(REPEAT_OPTIONS);
+        JSpinner intervalSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 52, 1));
+        JSpinner countSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 10000, 1));
+        JTextField exceptionsField = new JTextField(15);
+        exceptionsField.setToolTipText("Dates to skip as yyyy-mm-dd, separated by commas");
+        repeatBox.addActionListener(e -> {
+            boolean weekly = repeatBox.getSelectedIndex() == 0;
+            for (JCheckBox checkBox : dayCheckboxes) {
+                checkBox.setEnabled(weekly);
+            }
+        });
+
+        JPanel optionsPanel = new JPanel(new GridLayout(4, 2, 5, 5));
+        optionsPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        optionsPanel.add(new JLabel("Repeat:"));
+        optionsPanel.add(repeatBox);
+        optionsPanel.add(new JLabel("Every (weeks or months):"));
+        optionsPanel.add(intervalSpinner);
+        optionsPanel.add(new JLabel("Occurrences (0 = until end date):"));
+        optionsPanel.add(countSpinner);
+        optionsPanel.add(new JLabel("Skip dates:"));
+        optionsPanel.add(exceptionsField);
+
         JPanel buttonPanel = new JPanel();
         JButton okButton = createStyledButton("OK");
         JButton cancelButton = createStyledButton("Cancel");
@@ -265,12 +305,14 @@ public class EventFormPanel extends JPanel {
         buttonPanel.add(okButton);
         buttonPanel.add(cancelButton);
 
+        dialog.add(optionsPanel, BorderLayout.NORTH);
         dialog.add(checkBoxPanel, BorderLayout.CENTER);
         dialog.add(buttonPanel, BorderLayout.SOUTH);
 
         okButton.addActionListener(e -> {
             dialog.dispose();
-            addRecurringEvent(dayCheckboxes);
+            addRecurringEvent(dayCheckboxes, repeatBox.getSelectedIndex(), (Integer) intervalSpinner.getValue(),
+                (Integer) countSpinner.getValue(), exceptionsField.getText());
         });
         cancelButton.addActionListener(e -> dialog.dispose());
 
@@ -280,11 +322,15 @@ public class EventFormPanel extends JPanel {
     }
 
     /**
-     * Adds recurring events based on selected days.
+     * Adds recurring events based on the chosen recurrence.
      *
      * @param dayCheckboxes the array of day selection checkboxes
+     * @param repeat the index of the chosen entry of {@link #REPEAT_OPTIONS}
+     * @param interval the number of weeks or months between repetitions
+     * @param count the maximum number of occurrences, or 0 to repeat until the end date
+     * @param exceptions dates to skip as yyyy-mm-dd, separated by commas
      */
-    private void addRecurringEvent(JCheckBox[] dayCheckboxes) {
+    private void addRecurringEvent(JCheckBox[] dayCheckboxes, int repeat, int interval, int count, String exceptions) {
         if (validateForm()) {
             ArrayList<DayOfWeek> selectedDays = new ArrayList<>();
             for (int i = 0; i < dayCheckboxes.length; i++) {
@@ -293,7 +339,7 @@ public class EventFormPanel extends JPanel {
                 }
             }
 
-            if (selectedDays.isEmpty()) {
+            if (repeat == 0 && selectedDays.isEmpty()) {
                 JOptionPane.showMessageDialog(this, "Please select at least one day!", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
@@ -307,22 +353,47 @@ public class EventFormPanel extends JPanel {
                 ((Date) endTimeSpinner.getValue()).toInstant().atZone(ZoneId.systemDefault()).toLocalTime()
             );
 
+            LocalDate firstDate = start.toLocalDate();
+            RecurrenceRule rule;
+            if (repeat == 0) {
+                rule = RecurrenceRule.weekly(firstDate, interval, selectedDays.toArray(new DayOfWeek[0]));
+            } else if (repeat == 1) {
+                rule = RecurrenceRule.monthlyByDate(firstDate, interval);
+            } else {
+                int week = (firstDate.getDayOfMonth() - 1) / 7 + 1;
+                rule = RecurrenceRule.monthlyByWeekday(firstDate, interval, week > 4 ? -1 : week, firstDate.getDayOfWeek());
+            }
+            rule = rule.withUntil(end.toLocalDate()).withCount(count);
+
+            ArrayList<LocalDate> skipped = new ArrayList<>();
+            for (String text : exceptions.split(",")) {
+                if (text.isBlank()) continue;
+                try {
+                    skipped.add(LocalDate.parse(text.trim()));
+                } catch (DateTimeParseException e) {
+                    JOptionPane.showMessageDialog(this, "Invalid date to skip: " + text.trim(), "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+            }
+            rule = rule.withExceptions(skipped);
+
             RecurringEvent recurringEvent = new RecurringEvent(
                 titleField.getText(),
                 start,
                 end,
                 locationField.getText(),
-                selectedDays.toArray(new DayOfWeek[0]),
-                start.toLocalDate(),
-                end.toLocalDate()
+                rule
             );
 
-            for (Event event : recurringEvent.generateOccurrences()) {
-                if (schedule.addEvent(event)) {
-                    eventTablePanel.refreshTable();
+            commandQueue.submit(schedule -> {
+                int added = 0;
+                for (Event event : recurringEvent.generateOccurrences(ZoneId.systemDefault())) {
+                    if (schedule.addEvent(event)) {
+                        added++;
+                    }
                 }
-            }
-            clearForm();
+                return added;
+            }, added -> clearForm(), this::showUpdateFailure);
         }
     }
 
@@ -330,16 +401,24 @@ public class EventFormPanel extends JPanel {
      * Removes the currently selected event from the table.
      */
     private void removeSelectedEvent() {
-        int selectedRow = eventTablePanel.getEventTable().getSelectedRow();
-        if (selectedRow != -1) {
-            String title = (String) eventTablePanel.getEventTable().getValueAt(selectedRow, 0);
-            schedule.removeEvent(title);
-            eventTablePanel.refreshTable();
+        Event selected = eventTablePanel.getSelectedEvent();
+        if (selected != null) {
+            commandQueue.submit(schedule -> schedule.removeEvent(selected), null, this::showUpdateFailure);
         } else {
             JOptionPane.showMessageDialog(this, "Please select an event to remove!", "Warning", JOptionPane.WARNING_MESSAGE);
         }
     }
 
+    /**
+     * Tells the user that a change to the schedule failed.
+     *
+     * @param e the exception thrown by the change
+     */
+    private void showUpdateFailure(RuntimeException e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(this, "Failed to update schedule: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    }
+
     /**
      * Validates that all required form fields are filled.
      *
@@ -4,21 +4,45 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableColumnModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
 import model.Schedule;
+import model.ScheduleChange;
+import model.ScheduleListener;
 import model.Event;
 
 /**
  * The <code>EventTablePanel</code> class displays a table view of all events 
  * in the current schedule using a JTable with custom styling.
+ * The table is kept up to date by applying schedule changes row by row.
  */
-public class EventTablePanel extends JPanel {
+public class EventTablePanel extends JPanel implements ScheduleListener {
     /** The schedule containing events to display */
     private final Schedule schedule;
     /** The table displaying events */
     private JTable eventTable;
     /** The table model backing the event table */
     private DefaultTableModel tableModel;
+    /** The event shown in each table row, in row order */
+    private final List<Event> rowEvents = new ArrayList<>();
+    /** The row showing each displayed event */
+    private final Map<Event, Integer> rowIndex = new IdentityHashMap<>();
+    /** Field for filtering the table by title or location */
+    private JTextField searchField;
+    /** Delays searching until the user pauses typing */
+    private Timer searchTimer;
+    /** The search currently running in the background, if any */
+    private SwingWorker<List<Event>, Void> searchWorker;
+    /** Delay in milliseconds between the last keystroke and running the search */
+    private static final int SEARCH_DELAY_MS = 200;
     private static final String[] COLUMN_NAMES = {"Title", "Location", "Date", "Time"};
     private static final int[] COLUMN_WIDTHS = {300, 250, 120, 150};
     private static final Color HEADER_BACKGROUND = MainFrame.SOFT_PINK;
@@ -33,6 +57,7 @@ public class EventTablePanel extends JPanel {
         this.schedule = schedule;
         setLayout(new BorderLayout());
         createTable();
+        add(createSearchPanel(), BorderLayout.NORTH);
         add(new JScrollPane(eventTable), BorderLayout.CENTER);
         refreshTable();
     }
@@ -97,18 +122,220 @@ public class EventTablePanel extends JPanel {
     }
 
     /**
-     * Refreshes the table with current events from the schedule.
+     * Creates the search bar that filters the table as the user types.
+     *
+     * @return the configured search panel
+     */
+    private JPanel createSearchPanel() {
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
+        searchPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 5, 0));
+        JLabel label = new JLabel("Search:");
+        label.setFont(label.getFont().deriveFont(Font.BOLD));
+        searchField = new JTextField();
+        searchField.setPreferredSize(new Dimension(searchField.getPreferredSize().width, 25));
+
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> runSearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            /**
+             * Restarts the search delay when text is inserted.
+             *
+             * @param e the document event
+             */
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            /**
+             * Restarts the search delay when text is removed.
+             *
+             * @param e the document event
+             */
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            /**
+             * Ignores attribute changes, which do not alter the text.
+             *
+             * @param e the document event
+             */
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        searchPanel.add(label, BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        return searchPanel;
+    }
+
+    /**
+     * Runs the current search on a background thread and shows the results when done.
+     * A search that is superseded by newer typing is cancelled and its results ignored.
+     */
+    private void runSearch() {
+        if (searchWorker != null) {
+            searchWorker.cancel(false);
+        }
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            searchWorker = null;
+            showEvents(schedule.getEvents());
+            return;
+        }
+        searchWorker = new SwingWorker<List<Event>, Void>() {
+            @Override
+            protected List<Event> doInBackground() {
+                return schedule.search(query);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || searchWorker != this) return;
+                try {
+                    showEvents(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        searchWorker.execute();
+    }
+
+    /**
+     * Refreshes the table with current events from the schedule, keeping any active search filter.
      */
     public void refreshTable() {
+        if (searchField.getText().trim().isEmpty()) {
+            showEvents(schedule.getEvents());
+        } else {
+            runSearch();
+        }
+    }
+
+    /**
+     * Replaces the table rows with the given events.
+     *
+     * @param events the events to display
+     */
+    private void showEvents(List<Event> events) {
         tableModel.setRowCount(0);
-        for (Event event : schedule.getEvents()) {
-            tableModel.addRow(new Object[]{
-                event.getTitle(),
-                event.getLocation(),
-                event.getFormattedStartDate(),
-                event.getFormattedStartTime() + " - " + event.getFormattedEndTime()
-            });
+        rowEvents.clear();
+        rowIndex.clear();
+        addRows(events);
+    }
+
+    /**
+     * Updates only the rows affected by a schedule change. Removed events lose their rows
+     * and modified events are redrawn in place. New events are appended, or picked up by
+     * re-running the search when a filter is active. Archived events were not deleted and
+     * keep their rows.
+     *
+     * @param change the changes made to the schedule
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void scheduleChanged(ScheduleChange change) {
+        removeRows(change.getRemoved());
+        Vector<Vector> data = tableModel.getDataVector();
+        for (ScheduleChange.Modification m : change.getModified()) {
+            int row = rowOf(m.getEvent());
+            if (row >= 0) {
+                data.set(row, new Vector<>(Arrays.asList(rowValues(m.getEvent()))));
+                tableModel.fireTableRowsUpdated(row, row);
+            }
+        }
+        boolean filtered = !searchField.getText().trim().isEmpty();
+        if (filtered && (!change.getAdded().isEmpty() || !change.getModified().isEmpty())) {
+            searchTimer.restart();
+        } else if (!filtered) {
+            addRows(change.getAdded());
+        }
+    }
+
+    /**
+     * Appends rows for events, notifying the table once for all of them so that large
+     * pages of loaded events do not cause one layout pass per row.
+     *
+     * @param events the events to show
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void addRows(List<Event> events) {
+        if (events.isEmpty()) return;
+        int firstRow = tableModel.getRowCount();
+        Vector<Vector> data = tableModel.getDataVector();
+        for (Event event : events) {
+            rowIndex.put(event, rowEvents.size());
+            rowEvents.add(event);
+            data.add(new Vector<>(Arrays.asList(rowValues(event))));
+        }
+        tableModel.fireTableRowsInserted(firstRow, tableModel.getRowCount() - 1);
+    }
+
+    /**
+     * Drops the rows of removed events, rebuilding the rows once and notifying the table
+     * once however many rows go.
+     *
+     * @param events the removed events
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void removeRows(List<Event> events) {
+        boolean shown = false;
+        for (Event event : events) {
+            if (rowIndex.remove(event) != null) shown = true;
+        }
+        if (!shown) return;
+        Vector<Vector> data = tableModel.getDataVector();
+        Vector<Vector> kept = new Vector<>(rowIndex.size());
+        List<Event> keptEvents = new ArrayList<>(rowIndex.size());
+        for (int row = 0; row < rowEvents.size(); row++) {
+            Event event = rowEvents.get(row);
+            if (!rowIndex.containsKey(event)) continue;
+            rowIndex.put(event, keptEvents.size());
+            keptEvents.add(event);
+            kept.add(data.get(row));
         }
+        rowEvents.clear();
+        rowEvents.addAll(keptEvents);
+        data.clear();
+        data.addAll(kept);
+        tableModel.fireTableDataChanged();
+    }
+
+    /**
+     * Builds the cell values shown for an event.
+     *
+     * @param event the event to show
+     * @return the values for each column
+     */
+    private Object[] rowValues(Event event) {
+        return new Object[]{
+            event.getTitle(),
+            event.getLocation(),
+            event.getFormattedStartDate(),
+            event.getFormattedStartTime() + " - " + event.getFormattedEndTime()
+        };
+    }
+
+    /**
+     * Finds the row showing the given event.
+     *
+     * @param event the event to look for
+     * @return the row index, or -1 if the event is not shown
+     */
+    private int rowOf(Event event) {
+        Integer row = rowIndex.get(event);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Returns the event shown in the selected row.
+     *
+     * @return the selected event, or null if no row is selected
+     */
+    public Event getSelectedEvent() {
+        int row = eventTable.getSelectedRow();
+        return row >= 0 && row < rowEvents.size() ? rowEvents.get(row) : null;
     }
 
     /**
@@ -0,0 +1,236 @@
+package main.gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import model.DayAggregates;
+import model.ScheduleChange;
+import model.ScheduleListener;
+
+/**
+ * Dialog that shows a whole year as a heatmap of busy days, one cell per day.
+ * Cell colours, tooltips and the yearly totals are read from precomputed per-day
+ * aggregates, so painting never scans the schedule.
+ */
+public class HeatmapDialog extends JDialog implements ScheduleListener {
+    /** Size in pixels of one day cell */
+    private static final int CELL_SIZE = 16;
+    /** Gap in pixels between day cells */
+    private static final int CELL_GAP = 2;
+    /** Width in pixels reserved for the weekday labels */
+    private static final int LABEL_WIDTH = 40;
+    /** Height in pixels reserved for the month labels */
+    private static final int HEADER_HEIGHT = 20;
+    /** Colour of a day without events */
+    private static final Color FREE_COLOR = new Color(240, 240, 240);
+    /** Colour of the busiest day */
+    private static final Color BUSY_COLOR = new Color(150, 60, 60);
+    /** Reference to the main application frame */
+    private final MainFrame mainFrame;
+    /** Per-day totals the heatmap is drawn from */
+    private final DayAggregates aggregates;
+    /** The displayed year */
+    private int year;
+    /** Label showing the displayed year */
+    private JLabel yearLabel;
+    /** Label showing the totals for the displayed year */
+    private JLabel summaryLabel;
+    /** Component that paints the day cells */
+    private HeatmapPanel heatmapPanel;
+
+    /**
+     * Constructs the heatmap dialog for the current year.
+     * @param mainFrame the parent MainFrame instance
+     */
+    public HeatmapDialog(MainFrame mainFrame) {
+        super(mainFrame, "Year Heatmap", true);
+        this.mainFrame = mainFrame;
+        this.aggregates = mainFrame.getDayAggregates();
+        this.year = LocalDate.now().getYear();
+        setLocationRelativeTo(mainFrame);
+        initializeComponents();
+    }
+
+    /**
+     * Initializes all components of the dialog.
+     */
+    private void initializeComponents() {
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel navigationPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        JButton previousButton = new JButton("<");
+        JButton nextButton = new JButton(">");
+        yearLabel = new JLabel();
+        yearLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        previousButton.addActionListener(e -> showYear(year - 1));
+        nextButton.addActionListener(e -> showYear(year + 1));
+        navigationPanel.add(previousButton);
+        navigationPanel.add(yearLabel);
+        navigationPanel.add(nextButton);
+
+        heatmapPanel = new HeatmapPanel();
+        ToolTipManager.sharedInstance().registerComponent(heatmapPanel);
+
+        summaryLabel = new JLabel("", JLabel.CENTER);
+        summaryLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+
+        mainPanel.add(navigationPanel, BorderLayout.NORTH);
+        mainPanel.add(heatmapPanel, BorderLayout.CENTER);
+        mainPanel.add(summaryLabel, BorderLayout.SOUTH);
+        add(mainPanel);
+
+        showYear(year);
+        pack();
+        setLocationRelativeTo(mainFrame);
+        mainFrame.getChangeNotifier().addViewListener(this);
+        setVisible(true);
+    }
+
+    /**
+     * Displays the given year and updates the totals.
+     * @param newYear the year to display
+     */
+    private void showYear(int newYear) {
+        year = newYear;
+        yearLabel.setText(String.valueOf(year));
+        updateSummary();
+        heatmapPanel.repaint();
+    }
+
+    /**
+     * Updates the summary label from range totals of the displayed year.
+     */
+    private void updateSummary() {
+        LocalDate first = LocalDate.of(year, 1, 1);
+        LocalDate last = LocalDate.of(year, 12, 31);
+        long events = aggregates.getEventCount(first, last);
+        long minutes = aggregates.getBusyMinutes(first, last);
+        summaryLabel.setText(String.format("%d events, %d hours %d minutes scheduled in %d",
+            events, minutes / 60, minutes % 60, year));
+    }
+
+    /**
+     * Repaints the heatmap when the schedule changes within the displayed year.
+     * @param change the changes made to the schedule
+     */
+    @Override
+    public void scheduleChanged(ScheduleChange change) {
+        if (change.affects(LocalDate.of(year, 1, 1).atStartOfDay(), LocalDate.of(year + 1, 1, 1).atStartOfDay())) {
+            updateSummary();
+            heatmapPanel.repaint();
+        }
+    }
+
+    /**
+     * Stops listening for schedule changes and closes the dialog.
+     */
+    @Override
+    public void dispose() {
+        mainFrame.getChangeNotifier().removeViewListener(this);
+        super.dispose();
+    }
+
+    /**
+     * Paints one column per week and one row per weekday for the displayed year.
+     */
+    private class HeatmapPanel extends JComponent {
+        /**
+         * Creates the panel with room for 54 week columns.
+         */
+        HeatmapPanel() {
+            setPreferredSize(new Dimension(LABEL_WIDTH + 54 * (CELL_SIZE + CELL_GAP),
+                HEADER_HEIGHT + 7 * (CELL_SIZE + CELL_GAP)));
+        }
+
+        /**
+         * Paints the month and weekday labels and a coloured cell for each day.
+         * @param g the graphics context
+         */
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setFont(new Font("Arial", Font.PLAIN, 10));
+            g2.setColor(Color.DARK_GRAY);
+            g2.drawString("Mon", 0, HEADER_HEIGHT + CELL_SIZE - 4);
+            g2.drawString("Thu", 0, HEADER_HEIGHT + 3 * (CELL_SIZE + CELL_GAP) + CELL_SIZE - 4);
+            g2.drawString("Sun", 0, HEADER_HEIGHT + 6 * (CELL_SIZE + CELL_GAP) + CELL_SIZE - 4);
+
+            LocalDate first = LocalDate.of(year, 1, 1);
+            LocalDate last = LocalDate.of(year, 12, 31);
+            long max = Math.max(1, aggregates.getMaxDailyMinutes(first, last));
+            DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MMM");
+
+            for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+                Rectangle cell = cellBounds(date);
+                if (date.getDayOfMonth() == 1) {
+                    g2.setColor(Color.DARK_GRAY);
+                    g2.drawString(date.format(monthFormat), cell.x, HEADER_HEIGHT - 6);
+                }
+                long minutes = aggregates.getBusyMinutes(date);
+                g2.setColor(minutes == 0 ? FREE_COLOR : blend((double) minutes / max));
+                g2.fillRect(cell.x, cell.y, cell.width, cell.height);
+            }
+        }
+
+        /**
+         * Describes the day under the mouse.
+         * @param e the mouse event
+         * @return the tooltip text, or null if the mouse is not over a day
+         */
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            LocalDate date = dateAt(e.getPoint());
+            if (date == null) return null;
+            long minutes = aggregates.getBusyMinutes(date);
+            return String.format("%s: %d events, %dh %02dm busy",
+                date.format(DateTimeFormatter.ofPattern("EEE, MMM d, yyyy")),
+                aggregates.getEventCount(date), minutes / 60, minutes % 60);
+        }
+
+        /**
+         * Computes where a day is drawn.
+         * @param date a day in the displayed year
+         * @return the bounds of the day cell
+         */
+        private Rectangle cellBounds(LocalDate date) {
+            LocalDate firstMonday = LocalDate.of(year, 1, 1).with(DayOfWeek.MONDAY);
+            int week = (int) ((date.toEpochDay() - firstMonday.toEpochDay()) / 7);
+            int day = date.getDayOfWeek().getValue() - 1;
+            return new Rectangle(LABEL_WIDTH + week * (CELL_SIZE + CELL_GAP),
+                HEADER_HEIGHT + day * (CELL_SIZE + CELL_GAP), CELL_SIZE, CELL_SIZE);
+        }
+
+        /**
+         * Finds the day drawn at a point.
+         * @param point the point in panel coordinates
+         * @return the day, or null if no day is drawn there
+         */
+        private LocalDate dateAt(Point point) {
+            int week = (point.x - LABEL_WIDTH) / (CELL_SIZE + CELL_GAP);
+            int day = (point.y - HEADER_HEIGHT) / (CELL_SIZE + CELL_GAP);
+            if (point.x < LABEL_WIDTH || point.y < HEADER_HEIGHT || day > 6) return null;
+            LocalDate firstMonday = LocalDate.of(year, 1, 1).with(DayOfWeek.MONDAY);
+            LocalDate date = firstMonday.plusDays(week * 7L + day);
+            return date.getYear() == year ? date : null;
+        }
+
+        /**
+         * Blends between the free and busy colours.
+         * @param ratio how busy the day is, from 0 to 1
+         * @return the cell colour
+         */
+        private Color blend(double ratio) {
+            double t = 0.25 + 0.75 * Math.min(1.0, ratio);
+            return new Color(
+                (int) (FREE_COLOR.getRed() + t * (BUSY_COLOR.getRed() - FREE_COLOR.getRed())),
+                (int) (FREE_COLOR.getGreen() + t * (BUSY_COLOR.getGreen() - FREE_COLOR.getGreen())),
+                (int) (FREE_COLOR.getBlue() + t * (BUSY_COLOR.getBlue() - FREE_COLOR.getBlue())));
+        }
+    }
+}
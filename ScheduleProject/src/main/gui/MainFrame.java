@@ -2,8 +2,21 @@ package main.gui;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import model.DayAggregates;
+import model.Event;
+import model.MappedEventStore;
+import model.ReminderScheduler;
 import model.Schedule;
+import model.ScheduleArchiver;
+import model.ScheduleCommandQueue;
 import model.ScheduleManager;
+import model.SegmentedEventStore;
 
 /**
  * The main application window that manages layout and coordination between GUI components.
@@ -14,10 +27,28 @@ public class MainFrame extends JFrame {
     private ScheduleManager scheduleManager;
     /** The currently displayed schedule */
     private Schedule currentSchedule;
+    /** Queue that applies schedule changes on a background writer thread */
+    private ScheduleCommandQueue commandQueue;
+    /** Delivers coalesced schedule changes to the views */
+    private ScheduleChangeNotifier changeNotifier;
+    /** Cached week layouts shared by weekly view dialogs */
+    private WeekLayoutCache weekLayoutCache;
+    /** Per-day totals used by the year heatmap */
+    private DayAggregates dayAggregates;
     /** Panel displaying events in table format */
     private EventTablePanel eventTablePanel;
+    /** Panel listing overlapping events */
+    private ConflictReportPanel conflictReportPanel;
     /** Panel containing event creation form */
     private EventFormPanel eventFormPanel;
+    /** Raises reminders before events start */
+    private ReminderScheduler reminderScheduler;
+    /** Moves finished events to cold storage once archiving is switched on, or null before the archive is opened */
+    private ScheduleArchiver scheduleArchiver;
+    /** How long before an event starts its reminder is shown */
+    private static final Duration REMINDER_LEAD_TIME = Duration.ofMinutes(10);
+    /** Format of start times shown in reminders */
+    private static final DateTimeFormatter REMINDER_TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a");
     /** Soft pink color used for UI elements */
     public static final Color SOFT_PINK = new Color(222, 184, 184); 
     /** Darker pink color used for hover effects */ 
@@ -28,8 +59,11 @@ public class MainFrame extends JFrame {
      */
     public MainFrame() {
         scheduleManager = new ScheduleManager();
-        currentSchedule = new Schedule("Weekly Schedule");
-        scheduleManager.addSchedule(currentSchedule);
+        currentSchedule = scheduleManager.getCurrentSchedule();
+        commandQueue = new ScheduleCommandQueue(currentSchedule, SwingUtilities::invokeLater);
+        changeNotifier = new ScheduleChangeNotifier(currentSchedule);
+        weekLayoutCache = new WeekLayoutCache(currentSchedule);
+        dayAggregates = new DayAggregates(currentSchedule);
 
         setTitle("Schedule Manager");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -45,6 +79,59 @@ public class MainFrame extends JFrame {
 
         initializeComponents();
         layoutComponents();
+
+        reminderScheduler = new ReminderScheduler(currentSchedule, REMINDER_LEAD_TIME,
+            reminder -> SwingUtilities.invokeLater(() -> showReminder(reminder)));
+        reminderScheduler.start();
+        attachArchive();
+    }
+
+    /**
+     * Attaches the archive left by an earlier session, if there is one, so that its events
+     * stay visible. Nothing is archived until archiving is switched on from the File menu.
+     */
+    private void attachArchive() {
+        if (!Files.isDirectory(ScheduleManager.DEFAULT_ARCHIVE_DIRECTORY)) return;
+        try {
+            openArchiver();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the archiver, opening the archive and attaching it to the schedule first if
+     * needed. The archiver is not started.
+     * @return the ScheduleArchiver instance
+     * @throws IOException if the archive cannot be opened
+     */
+    public ScheduleArchiver openArchiver() throws IOException {
+        if (scheduleArchiver == null) {
+            SegmentedEventStore archive = SegmentedEventStore.open(ScheduleManager.DEFAULT_ARCHIVE_DIRECTORY,
+                SegmentedEventStore.DEFAULT_MEMORY_BUDGET);
+            scheduleArchiver = new ScheduleArchiver(currentSchedule, archive, ScheduleArchiver.DEFAULT_RETENTION);
+        }
+        return scheduleArchiver;
+    }
+
+    /**
+     * Returns the archiver that moves finished events to cold storage.
+     * @return the ScheduleArchiver instance, or null if the archive has not been opened
+     */
+    public ScheduleArchiver getScheduleArchiver() {
+        return scheduleArchiver;
+    }
+
+    /**
+     * Shows a reminder that an event is about to start.
+     * @param reminder the reminder to show
+     */
+    private void showReminder(ReminderScheduler.Reminder reminder) {
+        Event event = reminder.getEvent();
+        String location = event.getLocation() == null || event.getLocation().isEmpty() ? "" : " at " + event.getLocation();
+        JOptionPane.showMessageDialog(this,
+            event.getTitle() + location + " starts at " + reminder.getStart().format(REMINDER_TIME_FORMAT) + ".",
+            "Reminder", JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
@@ -56,7 +143,10 @@ public class MainFrame extends JFrame {
 
         
         eventTablePanel = new EventTablePanel(currentSchedule);
-        eventFormPanel = new EventFormPanel(currentSchedule, eventTablePanel);
+        changeNotifier.addViewListener(eventTablePanel);
+        conflictReportPanel = new ConflictReportPanel(currentSchedule);
+        changeNotifier.addViewListener(conflictReportPanel);
+        eventFormPanel = new EventFormPanel(commandQueue, eventTablePanel);
     }
 
     /**
@@ -68,7 +158,10 @@ public class MainFrame extends JFrame {
         mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         
-        mainPanel.add(eventTablePanel, BorderLayout.CENTER);
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Events", eventTablePanel);
+        tabs.addTab("Conflicts", conflictReportPanel);
+        mainPanel.add(tabs, BorderLayout.CENTER);
         mainPanel.add(eventFormPanel, BorderLayout.SOUTH);
 
         add(mainPanel);
@@ -82,6 +175,38 @@ public class MainFrame extends JFrame {
         return scheduleManager;
     }
 
+    /**
+     * Returns the queue that applies changes to the current schedule.
+     * @return the ScheduleCommandQueue instance
+     */
+    public ScheduleCommandQueue getCommandQueue() {
+        return commandQueue;
+    }
+
+    /**
+     * Returns the notifier that delivers schedule changes to the views.
+     * @return the ScheduleChangeNotifier instance
+     */
+    public ScheduleChangeNotifier getChangeNotifier() {
+        return changeNotifier;
+    }
+
+    /**
+     * Returns the cache of week layouts used by the weekly view.
+     * @return the WeekLayoutCache instance
+     */
+    public WeekLayoutCache getWeekLayoutCache() {
+        return weekLayoutCache;
+    }
+
+    /**
+     * Returns the per-day totals of the current schedule.
+     * @return the DayAggregates instance
+     */
+    public DayAggregates getDayAggregates() {
+        return dayAggregates;
+    }
+
     /**
      * Returns the currently displayed schedule.
      * @return the current Schedule instance
@@ -91,12 +216,27 @@ public class MainFrame extends JFrame {
     }
 
     /**
-     * Entry point for the application.
-     * @param args command-line arguments (unused)
+     * Loads a saved event store into the schedule in the background, if it exists.
+     * @param store the base path of the event store
+     */
+    public void loadSchedule(Path store) {
+        if (MappedEventStore.exists(store)) {
+            new ScheduleLoadWorker(this, commandQueue, store).execute();
+        }
+    }
+
+    /**
+     * Starts the application. The window is shown first and the saved schedule is
+     * loaded into it afterwards.
+     * @param args optionally, the base path of the event store to load
      */
     public static void main(String[] args) {
+        Path store = args.length > 0 ? Paths.get(args[0]) : ScheduleManager.DEFAULT_STORE;
         SwingUtilities.invokeLater(() -> {
-            new MainFrame().setVisible(true);
+            MainFrame frame = new MainFrame();
+            frame.setVisible(true);
+            ScheduleLoadWorker.logStartupTime("Window shown");
+            frame.loadSchedule(store);
         });
     }
-}
\ No newline at end of file
+}
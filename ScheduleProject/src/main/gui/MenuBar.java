@@ -2,22 +2,21 @@ package main.gui;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.Comparator;
-import java.util.stream.Collectors;
-import java.util.ArrayList;
-import model.Event;
+import java.nio.file.Paths;
+import java.time.Duration;
+import main.server.ScheduleServer;
+import model.EventExporter;
+import model.ScheduleArchiver;
+import model.ScheduleManager;
 
 /**
  * Custom menu bar providing options for saving, exporting, and switching views.
  * Handles schedule persistence and view management operations.
  */
 public class MenuBar extends JMenuBar {
+    /** Embedded HTTP server, or null while it is not running */
+    private ScheduleServer server;
     /** Reference to the main application frame */
     private final MainFrame mainFrame;
     private static final Color HEADER_BACKGROUND = MainFrame.SOFT_PINK;
@@ -44,12 +43,37 @@ public class MenuBar extends JMenuBar {
         fileMenu.setForeground(HEADER_FOREGROUND);
         
         JMenuItem saveItem = new JMenuItem("Save Schedule");
+        JMenuItem storeItem = new JMenuItem("Save Event Store");
+        JMenuItem segmentsItem = new JMenuItem("Save Monthly Segments");
+        JMenuItem archiveItem = new JMenuItem("Export Schedule Archive (ZIP)");
+        JMenuItem csvItem = new JMenuItem("Export Events (CSV)");
+        JMenuItem ndjsonItem = new JMenuItem("Export Events (NDJSON)");
+        JMenuItem analyticsItem = new JMenuItem("Export Analytics (CSV)");
+        JCheckBoxMenuItem serverItem = new JCheckBoxMenuItem("Serve Schedule over HTTP");
+        JCheckBoxMenuItem archivingItem = new JCheckBoxMenuItem("Archive Events Ended Over "
+            + ScheduleArchiver.DEFAULT_RETENTION.toDays() + " Days Ago");
         JMenuItem exitItem = new JMenuItem("Exit");
         
         fileMenu.add(saveItem);
+        fileMenu.add(storeItem);
+        fileMenu.add(segmentsItem);
+        fileMenu.add(archiveItem);
+        fileMenu.add(csvItem);
+        fileMenu.add(ndjsonItem);
+        fileMenu.add(analyticsItem);
+        fileMenu.add(serverItem);
+        fileMenu.add(archivingItem);
         fileMenu.add(exitItem);
 
         saveItem.addActionListener(e -> mainFrame.getScheduleManager().saveSchedule());
+        storeItem.addActionListener(e -> saveEventStore());
+        segmentsItem.addActionListener(e -> saveSegments());
+        archiveItem.addActionListener(e -> exportArchive());
+        csvItem.addActionListener(e -> exportEvents(EventExporter.Format.CSV, "schedule_events.csv"));
+        ndjsonItem.addActionListener(e -> exportEvents(EventExporter.Format.NDJSON, "schedule_events.ndjson"));
+        analyticsItem.addActionListener(e -> exportAnalytics());
+        serverItem.addActionListener(e -> toggleServer(serverItem));
+        archivingItem.addActionListener(e -> toggleArchiving(archivingItem));
         exitItem.addActionListener(e -> System.exit(0));
 
         add(fileMenu);
@@ -63,122 +87,220 @@ public class MenuBar extends JMenuBar {
         viewMenu.setForeground(HEADER_FOREGROUND);
         
         JMenuItem weeklyViewItem = new JMenuItem("Weekly View");
+        JMenuItem heatmapItem = new JMenuItem("Year Heatmap");
         viewMenu.add(weeklyViewItem);
+        viewMenu.add(heatmapItem);
 
         weeklyViewItem.addActionListener(e -> new WeeklyViewDialog(mainFrame));
+        heatmapItem.addActionListener(e -> new HeatmapDialog(mainFrame));
 
         add(viewMenu);
     }
 
     /**
-     * Saves the current schedule by generating HTML files for each week.
+     * Writes the current schedule to the event store loaded at the next startup, in the background.
      */
-    private void saveSchedule() {
-        try {
-            
-            java.io.File scheduleDir = new java.io.File("weekly_schedules");
-            if (!scheduleDir.exists()) {
-                scheduleDir.mkdir();
+    private void saveEventStore() {
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                mainFrame.getScheduleManager().exportEventStore(ScheduleManager.DEFAULT_STORE);
+                return null;
             }
 
-            
-            List<Event> allEvents = mainFrame.getCurrentSchedule().getEvents();
-            
-            
-            Map<LocalDate, List<Event>> weeklyEvents = new TreeMap<>();
-            
-            for (Event event : allEvents) {
-                LocalDate eventDate = event.getStart().toLocalDate();
-                LocalDate weekStart = eventDate.with(java.time.DayOfWeek.MONDAY);
-                weeklyEvents.computeIfAbsent(weekStart, k -> new ArrayList<>()).add(event);
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Schedule has been saved and will be loaded at the next start!", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Failed to save schedule: " + e.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
             }
+        }.execute();
+    }
 
-            
-            for (Map.Entry<LocalDate, List<Event>> weekEntry : weeklyEvents.entrySet()) {
-                LocalDate weekStart = weekEntry.getKey();
-                LocalDate weekEnd = weekStart.plusDays(6);
-                String fileName = String.format("weekly_schedules/schedule_%s_to_%s.html", 
-                    weekStart.format(java.time.format.DateTimeFormatter.ISO_DATE),
-                    weekEnd.format(java.time.format.DateTimeFormatter.ISO_DATE));
+    /**
+     * Writes the current schedule to the monthly segment store in the background.
+     */
+    private void saveSegments() {
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                mainFrame.getScheduleManager().exportSegmentedStore(ScheduleManager.DEFAULT_SEGMENT_DIRECTORY);
+                return null;
+            }
 
-                try (FileWriter writer = new FileWriter(fileName)) {
-                    writer.write(generateWeeklyHtml(weekStart, weekEntry.getValue()));
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Schedule has been saved to " + ScheduleManager.DEFAULT_SEGMENT_DIRECTORY + "!", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Failed to save segments: " + e.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
                 }
             }
+        }.execute();
+    }
+
+    /**
+     * Writes all weekly schedule pages into a single ZIP archive in the background.
+     */
+    private void exportArchive() {
+        String fileName = "weekly_schedules.zip";
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                mainFrame.getScheduleManager().saveScheduleArchive(Paths.get(fileName));
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Schedule has been exported to '" + fileName + "'!", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Failed to export schedule: " + e.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Streams all events of the current schedule to a file in the background.
+     * @param format the line format
+     * @param fileName the file to write
+     */
+    private void exportEvents(EventExporter.Format format, String fileName) {
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                mainFrame.getScheduleManager().exportEvents(Paths.get(fileName), format);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Events have been exported to '" + fileName + "'!", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Failed to export events: " + e.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
 
+    /**
+     * Starts or stops the embedded HTTP server to match the state of its menu item.
+     * @param serverItem the check box menu item that was toggled
+     */
+    private void toggleServer(JCheckBoxMenuItem serverItem) {
+        if (!serverItem.isSelected()) {
+            if (server != null) {
+                server.stop();
+                server = null;
+            }
+            return;
+        }
+        try {
+            server = new ScheduleServer(mainFrame.getScheduleManager(), ScheduleServer.DEFAULT_PORT);
+            server.start();
             JOptionPane.showMessageDialog(mainFrame, 
-                "Weekly schedules have been generated in the 'weekly_schedules' directory!", 
+                "Schedule is available at http://localhost:" + server.getPort() + "/week", 
                 "Success", 
                 JOptionPane.INFORMATION_MESSAGE);
         } catch (IOException e) {
+            serverItem.setSelected(false);
             JOptionPane.showMessageDialog(mainFrame, 
-                "Failed to save schedules: " + e.getMessage(), 
+                "Failed to start server: " + e.getMessage(), 
                 "Error", 
                 JOptionPane.ERROR_MESSAGE);
         }
     }
 
     /**
-     * Generates HTML content for a weekly schedule view.
-     * @param weekStart the starting date of the week
-     * @param events the list of events for the week
-     * @return the generated HTML as a String
+     * Starts or stops moving finished events to the archive to match the state of its menu
+     * item. Events already archived stay visible either way.
+     * @param archivingItem the check box menu item that was toggled
      */
-    private String generateWeeklyHtml(LocalDate weekStart, List<Event> events) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>\n<html>\n<head>\n");
-        html.append("<style>\n");
-        html.append("table { border-collapse: collapse; width: 100%; }\n");
-        html.append("th, td { border: 1px solid #ddd; padding: 8px; text-align: left; }\n");
-        html.append("th { background-color: #9370DB; color: black; }\n");
-        html.append("tr:nth-child(even) { background-color: #f2f2f2; }\n");
-        html.append("</style>\n</head>\n<body>\n");
-        
-        html.append("<h2>Weekly Schedule: ")
-           .append(weekStart.format(java.time.format.DateTimeFormatter.ofPattern("MMM d, yyyy")))
-           .append(" to ")
-           .append(weekStart.plusDays(6).format(java.time.format.DateTimeFormatter.ofPattern("MMM d, yyyy")))
-           .append("</h2>\n");
-
-        
-        for (int i = 0; i < 7; i++) {
-            LocalDate currentDate = weekStart.plusDays(i);
-            html.append("<h3>").append(currentDate.getDayOfWeek()).append(" - ")
-                .append(currentDate.format(java.time.format.DateTimeFormatter.ofPattern("MMM d, yyyy")))
-                .append("</h3>\n");
-            
-            html.append("<table>\n");
-            html.append("<tr><th>Time</th><th>Event</th><th>Location</th></tr>\n");
-            
-            
-            List<Event> dayEvents = events.stream()
-                .filter(e -> e.getStart().toLocalDate().equals(currentDate))
-                .sorted(Comparator.comparing(Event::getStart))
-                .collect(Collectors.toList());
-            
-            for (Event event : dayEvents) {
-                html.append("<tr>\n");
-                html.append("<td>")
-                    .append(event.getStart().format(java.time.format.DateTimeFormatter.ofPattern("h:mm a")))
-                    .append(" - ")
-                    .append(event.getEnd().format(java.time.format.DateTimeFormatter.ofPattern("h:mm a")))
-                    .append("</td>\n");
-                html.append("<td>").append(event.getTitle()).append("</td>\n");
-                html.append("<td>").append(event.getLocation()).append("</td>\n");
-                html.append("</tr>\n");
+    private void toggleArchiving(JCheckBoxMenuItem archivingItem) {
+        if (!archivingItem.isSelected()) {
+            ScheduleArchiver archiver = mainFrame.getScheduleArchiver();
+            if (archiver != null) {
+                archiver.stop();
             }
-            
-            html.append("</table><br>\n");
+            return;
+        }
+        try {
+            ScheduleArchiver archiver = mainFrame.openArchiver();
+            archiver.start(Duration.ZERO, ScheduleArchiver.DEFAULT_PERIOD);
+            JOptionPane.showMessageDialog(mainFrame, 
+                "Events that ended more than " + archiver.getRetention().toDays() + " days ago will be moved to '"
+                    + ScheduleManager.DEFAULT_ARCHIVE_DIRECTORY + "' every hour. They stay visible in the weekly view.", 
+                "Success", 
+                JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            archivingItem.setSelected(false);
+            JOptionPane.showMessageDialog(mainFrame, 
+                "Failed to open archive: " + e.getMessage(), 
+                "Error", 
+                JOptionPane.ERROR_MESSAGE);
         }
-        
-        html.append("</body>\n</html>");
-        return html.toString();
     }
 
     /**
-     * Displays the weekly view dialog.
+     * Writes the utilisation report of the current schedule to a CSV file in the background.
      */
-    private void showWeeklyView() {
-        new WeeklyViewDialog(mainFrame);
+    private void exportAnalytics() {
+        String fileName = "schedule_analytics.csv";
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                mainFrame.getScheduleManager().exportAnalytics(fileName);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Analytics have been exported to '" + fileName + "'!", 
+                        "Success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(mainFrame, 
+                        "Failed to export analytics: " + e.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package main.gui;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import model.Schedule;
+import model.ScheduleChange;
+import model.ScheduleListener;
+
+/**
+ * Collects changes made to a schedule on any thread and delivers them to the views
+ * on the Swing event thread. Changes that arrive within one frame are merged into a
+ * single notification, so a burst of edits causes one repaint instead of many.
+ */
+public class ScheduleChangeNotifier implements ScheduleListener {
+    /** Time in milliseconds that changes are collected before views are notified */
+    private static final int FRAME_DELAY_MS = 16;
+    /** Views notified on the event thread */
+    private final List<ScheduleListener> viewListeners;
+    /** Fires once per frame to deliver the collected changes */
+    private final Timer frameTimer;
+    /** Changes collected since the last notification, or null if none */
+    private ScheduleChange.Builder pending;
+    /** Whether a delivery has already been scheduled for the pending changes */
+    private boolean deliveryScheduled;
+
+    /**
+     * Creates a notifier and registers it with the schedule.
+     *
+     * @param schedule the schedule to watch
+     */
+    public ScheduleChangeNotifier(Schedule schedule) {
+        this.viewListeners = new CopyOnWriteArrayList<>();
+        this.frameTimer = new Timer(FRAME_DELAY_MS, e -> deliver());
+        this.frameTimer.setRepeats(false);
+        schedule.addScheduleListener(this);
+    }
+
+    /**
+     * Registers a view to be notified on the event thread.
+     *
+     * @param listener the view to notify
+     */
+    public void addViewListener(ScheduleListener listener) {
+        viewListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a view.
+     *
+     * @param listener the view to remove
+     */
+    public void removeViewListener(ScheduleListener listener) {
+        viewListeners.remove(listener);
+    }
+
+    /**
+     * Records a change and schedules a delivery if none is scheduled yet.
+     *
+     * @param change the change made to the schedule
+     */
+    @Override
+    public void scheduleChanged(ScheduleChange change) {
+        synchronized (this) {
+            if (pending == null) pending = new ScheduleChange.Builder();
+            pending.add(change);
+            if (deliveryScheduled) return;
+            deliveryScheduled = true;
+        }
+        SwingUtilities.invokeLater(frameTimer::start);
+    }
+
+    /**
+     * Passes the collected changes to every view.
+     */
+    private void deliver() {
+        ScheduleChange change;
+        synchronized (this) {
+            change = pending == null ? null : pending.build();
+            pending = null;
+            deliveryScheduled = false;
+        }
+        if (change == null || change.isEmpty()) return;
+        for (ScheduleListener listener : viewListeners) {
+            listener.scheduleChanged(change);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package main.gui;
+
+import javax.swing.*;
+import java.awt.Component;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import model.Event;
+import model.MappedEventStore;
+import model.ScheduleCommandQueue;
+
+/**
+ * Loads a saved schedule in the background after the main window is shown. Events are
+ * read in pages and handed to the schedule writer one page at a time; the first page is
+ * only as large as the visible part of the table, so rows appear as soon as possible.
+ * The time from launch to the window, the first rows and the full schedule is logged at
+ * level FINE, which the logging configuration can turn on to measure startup.
+ */
+public class ScheduleLoadWorker extends SwingWorker<Long, Void> {
+    /** Logger receiving the startup timings */
+    private static final Logger LOGGER = Logger.getLogger(ScheduleLoadWorker.class.getName());
+    /** Number of events in the first page, about one screen of table rows */
+    private static final int FIRST_PAGE_EVENTS = 50;
+    /** Number of events in every later page */
+    private static final int PAGE_EVENTS = 5000;
+    /** Window shown while loading, used as the parent of error messages */
+    private final Component parent;
+    /** Queue that applies the loaded pages to the schedule */
+    private final ScheduleCommandQueue commandQueue;
+    /** Base path of the event store to load */
+    private final Path store;
+
+    /**
+     * Creates a loader.
+     * @param parent the window shown while loading
+     * @param commandQueue the queue that applies changes to the schedule
+     * @param store the base path of the event store to load
+     */
+    public ScheduleLoadWorker(Component parent, ScheduleCommandQueue commandQueue, Path store) {
+        this.parent = parent;
+        this.commandQueue = commandQueue;
+        this.store = store;
+    }
+
+    /**
+     * Gets the time since the virtual machine started.
+     * @return the uptime in milliseconds
+     */
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Logs how long after launch a step of startup was reached.
+     * @param step what has just happened, such as "Window shown"
+     */
+    static void logStartupTime(String step) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(step + " " + uptimeMillis() + " ms after launch");
+        }
+    }
+
+    /**
+     * Reads the store page by page and submits each page to the schedule writer.
+     * @return the number of events read
+     * @throws Exception if the store cannot be read
+     */
+    @Override
+    protected Long doInBackground() throws Exception {
+        long total;
+        try (MappedEventStore events = MappedEventStore.open(store)) {
+            total = events.size();
+            long position = 0;
+            int pageSize = FIRST_PAGE_EVENTS;
+            while (position < total && !isCancelled()) {
+                List<Event> page = events.read(position, pageSize);
+                boolean first = position == 0;
+                position += page.size();
+                boolean last = position >= total;
+                commandQueue.submit(schedule -> schedule.loadEvents(page), loaded -> {
+                    if (first) {
+                        logStartupTime("First " + loaded + " events shown");
+                    }
+                    if (last) {
+                        logStartupTime("Loaded " + total + " events");
+                    }
+                }, this::showFailure);
+                pageSize = PAGE_EVENTS;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reports a failed load.
+     */
+    @Override
+    protected void done() {
+        if (isCancelled()) return;
+        try {
+            get();
+        } catch (Exception e) {
+            showFailure(e);
+        }
+    }
+
+    /**
+     * Tells the user that reading the store or adding a page to the schedule failed.
+     * @param e the exception
+     */
+    private void showFailure(Exception e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(parent,
+            "Failed to load schedule: " + e.getMessage(),
+            "Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+}
@@ -0,0 +1,248 @@
+package main.gui;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import model.Event;
+import model.Schedule;
+import model.ScheduleChange;
+import model.ScheduleListener;
+
+/**
+ * A small least-recently-used cache of week layouts for the weekly view.
+ * A layout sorts the events of one week into their day and hour slots. Layouts are
+ * keyed by week, and a schedule change drops only the layouts of the weeks it affects,
+ * so a layout built before a change is never shown after it while other weeks stay
+ * cached. All layouts are built on a background thread, never on the event thread.
+ */
+public class WeekLayoutCache implements ScheduleListener {
+    /** Number of layouts kept in the cache */
+    private static final int CAPACITY = 8;
+    /** The schedule the layouts are built from */
+    private final Schedule schedule;
+    /** Layouts by week start, in least-recently-used order */
+    private final LinkedHashMap<LocalDate, WeekLayout> layouts;
+    /** Weeks whose layouts are being built, and whether a change has affected them since */
+    private final Map<LocalDate, Boolean> building;
+    /** Thread that builds layouts */
+    private final ExecutorService prefetcher;
+
+    /**
+     * The events of one week sorted into day and hour slots.
+     */
+    public static class WeekLayout {
+        /** The Monday of the week */
+        private final LocalDate weekStart;
+        /** The schedule version when the layout was built */
+        private final long version;
+        /** Events by day of week (0 = Monday) and hour */
+        private final List<List<List<Event>>> slots;
+
+        /**
+         * Builds the layout of a week from the schedule.
+         *
+         * @param schedule  the schedule to read
+         * @param weekStart the Monday of the week
+         */
+        WeekLayout(Schedule schedule, LocalDate weekStart) {
+            this.weekStart = weekStart;
+            this.version = schedule.getVersion();
+            List<Event> events = schedule.getEventsBetween(weekStart.atStartOfDay(), weekStart.plusDays(7).atStartOfDay());
+            this.slots = new ArrayList<>(7);
+            for (int day = 0; day < 7; day++) {
+                List<List<Event>> hours = new ArrayList<>(24);
+                for (int hour = 0; hour < 24; hour++) {
+                    hours.add(new ArrayList<>(0));
+                }
+                slots.add(hours);
+            }
+            for (Event event : events) {
+                int day = event.getStart().getDayOfWeek().getValue() - 1;
+                slots.get(day).get(event.getStart().getHour()).add(event);
+            }
+        }
+
+        /**
+         * Gets the Monday of the week.
+         *
+         * @return the week start date
+         */
+        public LocalDate getWeekStart() {
+            return weekStart;
+        }
+
+        /**
+         * Gets the schedule version when the layout was built.
+         *
+         * @return the schedule version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the events starting in one hour of one day, ordered by start time.
+         *
+         * @param day  the day of the week, 0 for Monday
+         * @param hour the hour of the day
+         * @return the events in the slot
+         */
+        public List<Event> getEvents(int day, int hour) {
+            return slots.get(day).get(hour);
+        }
+    }
+
+    /**
+     * Creates an empty cache for the given schedule and registers it with the schedule.
+     *
+     * @param schedule the schedule to build layouts from
+     */
+    public WeekLayoutCache(Schedule schedule) {
+        this.schedule = schedule;
+        this.layouts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, WeekLayout> eldest) {
+                return size() > CAPACITY;
+            }
+        };
+        this.building = new HashMap<>();
+        this.prefetcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "week-layout-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schedule.addScheduleListener(this);
+    }
+
+    /**
+     * Gets the cached layout of a week. If none is cached, the layout is built in the
+     * background and handed to the callback on the event thread once it is ready.
+     *
+     * @param weekStart the Monday of the week
+     * @param whenBuilt called on the event thread with the layout if it was not cached
+     * @return the cached layout, or null if it is being built
+     */
+    public WeekLayout get(LocalDate weekStart, Consumer<WeekLayout> whenBuilt) {
+        WeekLayout layout = getCached(weekStart);
+        if (layout == null) {
+            prefetcher.execute(() -> {
+                WeekLayout built = getCached(weekStart);
+                if (built == null) built = build(weekStart);
+                WeekLayout ready = built;
+                SwingUtilities.invokeLater(() -> whenBuilt.accept(ready));
+            });
+        }
+        return layout;
+    }
+
+    /**
+     * Builds the layouts of the given week and the weeks before and after it in the
+     * background, skipping those already cached.
+     *
+     * @param weekStart the Monday of the displayed week
+     */
+    public void prefetchAround(LocalDate weekStart) {
+        for (LocalDate week : new LocalDate[]{weekStart, weekStart.minusWeeks(1), weekStart.plusWeeks(1)}) {
+            prefetcher.execute(() -> {
+                if (getCached(week) == null) {
+                    build(week);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the layouts of the weeks a change affects, including the weeks of archived
+     * events, and marks layouts being built for those weeks as out of date. Called while
+     * the schedule is locked, so it only touches the cache.
+     *
+     * @param change the change made to the schedule
+     */
+    @Override
+    public synchronized void scheduleChanged(ScheduleChange change) {
+        for (Iterator<LocalDate> it = layouts.keySet().iterator(); it.hasNext(); ) {
+            if (affects(change, it.next())) it.remove();
+        }
+        for (Map.Entry<LocalDate, Boolean> entry : building.entrySet()) {
+            if (affects(change, entry.getKey())) entry.setValue(Boolean.TRUE);
+        }
+        for (Event event : change.getArchived()) {
+            if (event.getStart() == null) continue;
+            LocalDate week = event.getStart().toLocalDate().with(DayOfWeek.MONDAY);
+            layouts.remove(week);
+            building.computeIfPresent(week, (w, stale) -> Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Stops the background thread.
+     */
+    public void shutdown() {
+        prefetcher.shutdownNow();
+    }
+
+    /**
+     * Builds the layout of a week without holding the schedule lock and caches it. A
+     * layout that a change affected while it was being built is built again, so the
+     * returned layout reflects every change made before it was cached.
+     *
+     * @param weekStart the Monday of the week
+     * @return the new layout
+     */
+    private WeekLayout build(LocalDate weekStart) {
+        while (true) {
+            synchronized (this) {
+                building.put(weekStart, Boolean.FALSE);
+            }
+            WeekLayout layout = new WeekLayout(schedule, weekStart);
+            synchronized (this) {
+                if (!building.remove(weekStart)) {
+                    put(layout);
+                    return layout;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a change touches a week.
+     *
+     * @param change    the change made to the schedule
+     * @param weekStart the Monday of the week
+     * @return true if the change affects the week
+     */
+    private static boolean affects(ScheduleChange change, LocalDate weekStart) {
+        return change.affects(weekStart.atStartOfDay(), weekStart.plusDays(7).atStartOfDay());
+    }
+
+    /**
+     * Looks up a cached layout.
+     *
+     * @param weekStart the Monday of the week
+     * @return the cached layout, or null if it is missing or a change has dropped it
+     */
+    private synchronized WeekLayout getCached(LocalDate weekStart) {
+        return layouts.get(weekStart);
+    }
+
+    /**
+     * Stores a layout unless a newer one for the same week is already cached.
+     *
+     * @param layout the layout to store
+     */
+    private synchronized void put(WeekLayout layout) {
+        WeekLayout existing = layouts.get(layout.getWeekStart());
+        if (existing == null || existing.getVersion() <= layout.getVersion()) {
+            layouts.put(layout.getWeekStart(), layout);
+        }
+    }
+}
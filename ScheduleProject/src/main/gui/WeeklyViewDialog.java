@@ -6,17 +6,40 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.time.LocalDate;
 import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import model.Event;
+import model.ScheduleChange;
+import model.ScheduleListener;
 
 /**
  * Dialog that displays a visual weekly calendar of scheduled events.
  * Provides interactive time slots and event management capabilities.
+ * The user can page between weeks or jump to a date. The time slots are created once
+ * and refilled from cached week layouts; a week whose layout is still being built shows
+ * empty slots and a loading title until it is ready. Schedule changes are applied only
+ * to the time slots they affect.
  */
-public class WeeklyViewDialog extends JDialog {
+public class WeeklyViewDialog extends JDialog implements ScheduleListener {
     private static final Color HEADER_BACKGROUND = MainFrame.SOFT_PINK;
     private static final Color HEADER_FOREGROUND = Color.BLACK;
     /** Reference to the main application frame */
     private final MainFrame mainFrame;
+    /** The Monday of the displayed week */
+    private LocalDate weekStart;
+    /** Event panels of the time slots, indexed by day of week and hour */
+    private final JPanel[][] slotPanels = new JPanel[7][24];
+    /** The label shown for each displayed event */
+    private final Map<Event, JLabel> eventLabels = new IdentityHashMap<>();
+    /** Header labels showing the day names and dates */
+    private final JLabel[] dayLabels = new JLabel[7];
+    /** Label showing the range of the displayed week */
+    private JLabel weekTitleLabel;
+    /** Spinner for choosing a date to jump to */
+    private JSpinner jumpDateSpinner;
 
     /**
      * Constructs the weekly view dialog.
@@ -37,6 +60,8 @@ public class WeeklyViewDialog extends JDialog {
         JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
         mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
+        mainPanel.add(createNavigationPanel(), BorderLayout.NORTH);
+
         JPanel calendarPanel = createCalendarPanel();
         JScrollPane scrollPane = new JScrollPane(calendarPanel);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -46,9 +71,112 @@ public class WeeklyViewDialog extends JDialog {
         mainPanel.add(controlPanel, BorderLayout.SOUTH);
 
         add(mainPanel);
+        showWeek(LocalDate.now());
+        mainFrame.getChangeNotifier().addViewListener(this);
         setVisible(true);
     }
 
+    /**
+     * Creates the navigation panel with previous, next, today and jump-to-date controls.
+     * @return the configured navigation panel
+     */
+    private JPanel createNavigationPanel() {
+        JPanel navigationPanel = new JPanel(new BorderLayout(10, 0));
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton previousButton = createStyledButton("< Previous Week");
+        JButton todayButton = createStyledButton("Today");
+        JButton nextButton = createStyledButton("Next Week >");
+        previousButton.addActionListener(e -> showWeek(weekStart.minusWeeks(1)));
+        todayButton.addActionListener(e -> showWeek(LocalDate.now()));
+        nextButton.addActionListener(e -> showWeek(weekStart.plusWeeks(1)));
+        buttonPanel.add(previousButton);
+        buttonPanel.add(todayButton);
+        buttonPanel.add(nextButton);
+
+        weekTitleLabel = new JLabel("", JLabel.CENTER);
+        weekTitleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+
+        JPanel jumpPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        jumpDateSpinner = new JSpinner(new SpinnerDateModel());
+        jumpDateSpinner.setEditor(new JSpinner.DateEditor(jumpDateSpinner, "MMM d, yyyy"));
+        jumpDateSpinner.setPreferredSize(new Dimension(120, 25));
+        JButton goButton = createStyledButton("Go");
+        goButton.addActionListener(e -> showWeek(((Date) jumpDateSpinner.getValue()).toInstant()
+            .atZone(ZoneId.systemDefault()).toLocalDate()));
+        jumpPanel.add(new JLabel("Jump to:"));
+        jumpPanel.add(jumpDateSpinner);
+        jumpPanel.add(goButton);
+
+        navigationPanel.add(buttonPanel, BorderLayout.WEST);
+        navigationPanel.add(weekTitleLabel, BorderLayout.CENTER);
+        navigationPanel.add(jumpPanel, BorderLayout.EAST);
+        return navigationPanel;
+    }
+
+    /**
+     * Displays the week containing the given date, using a cached layout when one is
+     * available, and starts building the layouts of the neighbouring weeks. Without a
+     * cached layout the slots stay empty until the layout has been built.
+     * @param date any date within the week to show
+     */
+    private void showWeek(LocalDate date) {
+        weekStart = date.with(DayOfWeek.MONDAY);
+        for (int day = 0; day < 7; day++) {
+            LocalDate current = weekStart.plusDays(day);
+            dayLabels[day].setText(String.format("<html>%s<br>%s</html>",
+                current.getDayOfWeek(),
+                current.format(DateTimeFormatter.ofPattern("MMM d"))));
+        }
+
+        WeekLayoutCache.WeekLayout layout = mainFrame.getWeekLayoutCache().get(weekStart, this::showLayout);
+        if (layout != null) {
+            showLayout(layout);
+        } else {
+            weekTitleLabel.setText(weekTitle() + " (loading...)");
+            eventLabels.clear();
+            for (JPanel[] hours : slotPanels) {
+                for (JPanel eventPanel : hours) {
+                    eventPanel.removeAll();
+                    eventPanel.revalidate();
+                }
+            }
+            repaint();
+        }
+        mainFrame.getWeekLayoutCache().prefetchAround(weekStart);
+    }
+
+    /**
+     * Fills the time slots from a week layout, unless the user has moved to another week
+     * since it was requested.
+     * @param layout the layout of the week to show
+     */
+    private void showLayout(WeekLayoutCache.WeekLayout layout) {
+        if (!layout.getWeekStart().equals(weekStart)) return;
+        weekTitleLabel.setText(weekTitle());
+        eventLabels.clear();
+        for (int day = 0; day < 7; day++) {
+            for (int hour = 0; hour < 24; hour++) {
+                JPanel eventPanel = slotPanels[day][hour];
+                eventPanel.removeAll();
+                for (Event event : layout.getEvents(day, hour)) {
+                    addEventLabel(eventPanel, event);
+                }
+                eventPanel.revalidate();
+            }
+        }
+        repaint();
+    }
+
+    /**
+     * Formats the range of the displayed week for the title label.
+     * @return the first and last day of the week
+     */
+    private String weekTitle() {
+        DateTimeFormatter titleFormat = DateTimeFormatter.ofPattern("MMM d, yyyy");
+        return weekStart.format(titleFormat) + " - " + weekStart.plusDays(6).format(titleFormat);
+    }
+
     /**
      * Creates the calendar panel with time slots and events.
      * @return the configured calendar panel
@@ -61,16 +189,16 @@ public class WeeklyViewDialog extends JDialog {
         calendarPanel.add(createTimeLabel());
 
         
-        LocalDate weekStart = LocalDate.now().with(DayOfWeek.MONDAY);
         for (int i = 0; i < 7; i++) {
-            calendarPanel.add(createDayLabel(weekStart.plusDays(i)));
+            dayLabels[i] = createDayLabel();
+            calendarPanel.add(dayLabels[i]);
         }
 
         
         for (int hour = 0; hour < 24; hour++) {
             calendarPanel.add(createHourLabel(hour));
             for (int day = 0; day < 7; day++) {
-                calendarPanel.add(createTimeSlot(weekStart.plusDays(day), hour));
+                calendarPanel.add(createTimeSlot(day, hour));
             }
         }
 
@@ -88,14 +216,11 @@ public class WeeklyViewDialog extends JDialog {
     }
 
     /**
-     * Creates a day label for the calendar header.
-     * @param date the date to display
+     * Creates a day label for the calendar header; its text is set when a week is shown.
      * @return a configured JLabel instance
      */
-    private JLabel createDayLabel(LocalDate date) {
-        JLabel label = new JLabel(String.format("<html>%s<br>%s</html>", 
-            date.getDayOfWeek(),
-            date.format(java.time.format.DateTimeFormatter.ofPattern("MMM d"))));
+    private JLabel createDayLabel() {
+        JLabel label = new JLabel();
         styleHeaderLabel(label);
         return label;
     }
@@ -114,12 +239,12 @@ public class WeeklyViewDialog extends JDialog {
     }
 
     /**
-     * Creates a time slot panel for a specific date and hour.
-     * @param date the date for the time slot
+     * Creates an empty time slot panel for a day of the week and hour.
+     * @param day the day of the week, 0 for Monday
      * @param hour the hour for the time slot
      * @return a configured JPanel instance
      */
-    private JPanel createTimeSlot(LocalDate date, int hour) {
+    private JPanel createTimeSlot(int day, int hour) {
         JPanel cell = new JPanel(new BorderLayout());
         cell.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
         cell.setBackground(Color.WHITE);
@@ -128,17 +253,80 @@ public class WeeklyViewDialog extends JDialog {
         eventPanel.setLayout(new BoxLayout(eventPanel, BoxLayout.Y_AXIS));
         eventPanel.setBackground(Color.WHITE);
         
-        for (Event event : mainFrame.getCurrentSchedule().getEvents()) {
-            if (event.getStart().toLocalDate().equals(date) && 
-                event.getStart().getHour() == hour) {
-                eventPanel.add(createEventLabel(event));
-            }
-        }
-        
+        slotPanels[day][hour] = eventPanel;
         cell.add(eventPanel, BorderLayout.CENTER);
         return cell;
     }
 
+    /**
+     * Adds a label for an event to a time slot and remembers it for later updates.
+     * @param eventPanel the event panel of the time slot
+     * @param event the event to display
+     */
+    private void addEventLabel(JPanel eventPanel, Event event) {
+        JLabel label = createEventLabel(event);
+        eventLabels.put(event, label);
+        eventPanel.add(label);
+    }
+
+    /**
+     * Applies a schedule change to the time slots it affects.
+     * @param change the changes made to the schedule
+     */
+    @Override
+    public void scheduleChanged(ScheduleChange change) {
+        if (!change.affects(weekStart.atStartOfDay(), weekStart.plusDays(7).atStartOfDay())) return;
+        for (Event event : change.getRemoved()) {
+            removeEventLabel(event);
+        }
+        for (ScheduleChange.Modification m : change.getModified()) {
+            removeEventLabel(m.getEvent());
+            showEvent(m.getEvent());
+        }
+        for (Event event : change.getAdded()) {
+            showEvent(event);
+        }
+        mainFrame.getWeekLayoutCache().prefetchAround(weekStart);
+    }
+
+    /**
+     * Adds an event to its time slot if it starts in the displayed week. An event that is
+     * already shown, for example because the layout was built after the change, is moved.
+     * @param event the event to display
+     */
+    private void showEvent(Event event) {
+        removeEventLabel(event);
+        if (event.getStart() == null) return;
+        LocalDate date = event.getStart().toLocalDate();
+        if (date.isBefore(weekStart) || !date.isBefore(weekStart.plusDays(7))) return;
+        JPanel eventPanel = slotPanels[date.getDayOfWeek().getValue() - 1][event.getStart().getHour()];
+        addEventLabel(eventPanel, event);
+        eventPanel.revalidate();
+        eventPanel.repaint();
+    }
+
+    /**
+     * Removes the label of an event from its time slot, if it is displayed.
+     * @param event the event to remove
+     */
+    private void removeEventLabel(Event event) {
+        JLabel label = eventLabels.remove(event);
+        if (label == null) return;
+        Container parent = label.getParent();
+        parent.remove(label);
+        parent.revalidate();
+        parent.repaint();
+    }
+
+    /**
+     * Stops listening for schedule changes and closes the dialog.
+     */
+    @Override
+    public void dispose() {
+        mainFrame.getChangeNotifier().removeViewListener(this);
+        super.dispose();
+    }
+
     /**
      * Creates an event label for display in time slots.
      * @param event the event to display
@@ -0,0 +1,360 @@
+package main.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import model.Event;
+import model.ZonedEvent;
+
+/**
+ * The replicated state of one event: its values, or a tombstone once it is removed,
+ * together with who wrote it and when. Events held by a schedule can be changed in place,
+ * so entries keep copies of the values rather than the events themselves.
+ * <p>
+ * Times of plain events are wall-clock seconds; times of zoned events are epoch seconds
+ * with the zone kept alongside. Recurring events are replicated as plain events, the same
+ * way the event stores save them.
+ */
+final class ReplicaEntry {
+    /** The event the entry describes. */
+    private final Key key;
+    /** Whether the event has been removed. */
+    private final boolean tombstone;
+    /** Title of the event, or null for a tombstone. */
+    private final String title;
+    /** Location of the event, or null for a tombstone. */
+    private final String location;
+    /** Start of the event in seconds. */
+    private final long start;
+    /** End of the event in seconds. */
+    private final long end;
+    /** Zone id of a zoned event, or null. */
+    private final String zone;
+    /** Epoch day of the Monday of the week the event starts in. */
+    private final long week;
+    /** Replica that wrote the entry, or the empty string for events present at startup. */
+    private final String writer;
+    /** Sequence number of the change at the writer. */
+    private final long writerSequence;
+    /** Lamport time of the change, which orders concurrent writes. */
+    private final long lamport;
+    /** Hash of the encoded entry, computed when first needed. */
+    private long hash;
+    /** Whether {@link #hash} has been computed. */
+    private boolean hashed;
+
+    /**
+     * Identifies a replicated event: the replica that created it and a number unique there.
+     */
+    static final class Key implements Comparable<Key> {
+        /** Replica that created the event. */
+        final String origin;
+        /** Number of the event at its origin. */
+        final long number;
+
+        /**
+         * Creates a key.
+         *
+         * @param origin the creating replica
+         * @param number the number of the event at that replica
+         */
+        Key(String origin, long number) {
+            this.origin = origin;
+            this.number = number;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return number == other.number && origin.equals(other.origin);
+        }
+
+        @Override
+        public int hashCode() {
+            return origin.hashCode() * 31 + Long.hashCode(number);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byOrigin = origin.compareTo(other.origin);
+            return byOrigin != 0 ? byOrigin : Long.compare(number, other.number);
+        }
+
+        @Override
+        public String toString() {
+            return origin + "#" + number;
+        }
+    }
+
+    /**
+     * Creates an entry.
+     *
+     * @param key            the event the entry describes
+     * @param tombstone      whether the event has been removed
+     * @param title          the title, or null for a tombstone
+     * @param location       the location, or null for a tombstone
+     * @param start          the start in seconds
+     * @param end            the end in seconds
+     * @param zone           the zone id of a zoned event, or null
+     * @param week           the epoch day of the Monday of the event's week
+     * @param writer         the replica that wrote the entry
+     * @param writerSequence the sequence number of the change at the writer
+     * @param lamport        the Lamport time of the change
+     */
+    private ReplicaEntry(Key key, boolean tombstone, String title, String location, long start, long end,
+                         String zone, long week, String writer, long writerSequence, long lamport) {
+        this.key = key;
+        this.tombstone = tombstone;
+        this.title = title;
+        this.location = location;
+        this.start = start;
+        this.end = end;
+        this.zone = zone;
+        this.week = week;
+        this.writer = writer;
+        this.writerSequence = writerSequence;
+        this.lamport = lamport;
+    }
+
+    /**
+     * Creates an entry holding the current values of an event.
+     *
+     * @param key            the event's key
+     * @param event          the event; it must have a start and an end
+     * @param writer         the replica writing the entry
+     * @param writerSequence the sequence number of the change at the writer
+     * @param lamport        the Lamport time of the change
+     * @return the entry
+     */
+    static ReplicaEntry of(Key key, Event event, String writer, long writerSequence, long lamport) {
+        long start;
+        long end;
+        String zone = null;
+        if (event instanceof ZonedEvent) {
+            ZonedEvent zoned = (ZonedEvent) event;
+            start = zoned.getStartEpochSecond();
+            end = zoned.getEndEpochSecond();
+            zone = zoned.getZone().getId();
+        } else {
+            start = event.getStart().toEpochSecond(ZoneOffset.UTC);
+            end = event.getEnd().toEpochSecond(ZoneOffset.UTC);
+        }
+        return new ReplicaEntry(key, false, nullToEmpty(event.getTitle()), nullToEmpty(event.getLocation()),
+            start, end, zone, weekOf(event.getStart()), writer, writerSequence, lamport);
+    }
+
+    /**
+     * Creates a tombstone replacing this entry. The tombstone stays in the same week so
+     * that the week's digest changes where the event was.
+     *
+     * @param writer         the replica removing the event
+     * @param writerSequence the sequence number of the change at the writer
+     * @param lamport        the Lamport time of the change
+     * @return the tombstone
+     */
+    ReplicaEntry tombstone(String writer, long writerSequence, long lamport) {
+        return new ReplicaEntry(key, true, null, null, 0, 0, null, week, writer, writerSequence, lamport);
+    }
+
+    /**
+     * Gets the epoch day of the Monday of the week a date-time falls in.
+     *
+     * @param time the date-time
+     * @return the epoch day
+     */
+    static long weekOf(LocalDateTime time) {
+        return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay();
+    }
+
+    /**
+     * Checks whether this entry wins over another entry for the same event: the later
+     * Lamport time wins, and equal times are broken by writer id so that every replica
+     * keeps the same one.
+     *
+     * @param other the other entry, or null
+     * @return true if this entry should be kept
+     */
+    boolean supersedes(ReplicaEntry other) {
+        if (other == null) return true;
+        if (lamport != other.lamport) return lamport > other.lamport;
+        int byWriter = writer.compareTo(other.writer);
+        if (byWriter != 0) return byWriter > 0;
+        // The same write received twice.
+        return false;
+    }
+
+    /**
+     * Creates an event holding the entry's values.
+     *
+     * @return a new event, or null for a tombstone
+     */
+    Event toEvent() {
+        if (tombstone) return null;
+        if (zone != null) {
+            return new ZonedEvent(title, start, end, location, ZoneId.of(zone));
+        }
+        return new Event(title, LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC),
+            LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC), location);
+    }
+
+    /**
+     * Gets the event the entry describes.
+     *
+     * @return the key
+     */
+    Key getKey() {
+        return key;
+    }
+
+    /**
+     * Checks whether the event has been removed.
+     *
+     * @return true for a tombstone
+     */
+    boolean isTombstone() {
+        return tombstone;
+    }
+
+    /**
+     * Gets the title of the event.
+     *
+     * @return the title, or null for a tombstone
+     */
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the week the event starts in.
+     *
+     * @return the epoch day of the week's Monday
+     */
+    long getWeek() {
+        return week;
+    }
+
+    /**
+     * Gets the replica that wrote the entry.
+     *
+     * @return the replica id
+     */
+    String getWriter() {
+        return writer;
+    }
+
+    /**
+     * Gets the sequence number of the change at its writer.
+     *
+     * @return the sequence number
+     */
+    long getWriterSequence() {
+        return writerSequence;
+    }
+
+    /**
+     * Gets the Lamport time of the change.
+     *
+     * @return the Lamport time
+     */
+    long getLamport() {
+        return lamport;
+    }
+
+    /**
+     * Gets a hash of the whole entry, used to build the week digests.
+     *
+     * @return the hash
+     */
+    long hash() {
+        if (!hashed) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+                write(new DataOutputStream(bytes));
+                hash = ReplicationCodec.hash(bytes.toByteArray(), bytes.size());
+                hashed = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Gets a hash of an event's values alone, used to give events present at startup the
+     * same key on every replica.
+     *
+     * @param event the event
+     * @return the hash
+     */
+    static long contentHash(Event event) {
+        ReplicaEntry entry = of(new Key("", 0), event, "", 0, 0);
+        return entry.hash();
+    }
+
+    /**
+     * Writes the entry. The end is written as the duration so that it takes few bytes.
+     *
+     * @param out the output
+     * @throws IOException if the output cannot be written
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(key.origin);
+        ReplicationCodec.writeVarLong(out, key.number);
+        out.writeUTF(writer);
+        ReplicationCodec.writeVarLong(out, writerSequence);
+        ReplicationCodec.writeVarLong(out, lamport);
+        ReplicationCodec.writeVarLong(out, week);
+        out.writeBoolean(tombstone);
+        if (!tombstone) {
+            out.writeUTF(title);
+            out.writeUTF(location);
+            ReplicationCodec.writeVarLong(out, start);
+            ReplicationCodec.writeVarLong(out, end - start);
+            out.writeUTF(zone == null ? "" : zone);
+        }
+    }
+
+    /**
+     * Reads an entry written by {@link #write}.
+     *
+     * @param in the input
+     * @return the entry
+     * @throws IOException if the input cannot be read
+     */
+    static ReplicaEntry read(DataInputStream in) throws IOException {
+        Key key = new Key(in.readUTF(), ReplicationCodec.readVarLong(in));
+        String writer = in.readUTF();
+        long writerSequence = ReplicationCodec.readVarLong(in);
+        long lamport = ReplicationCodec.readVarLong(in);
+        long week = ReplicationCodec.readVarLong(in);
+        if (in.readBoolean()) {
+            return new ReplicaEntry(key, true, null, null, 0, 0, null, week, writer, writerSequence, lamport);
+        }
+        String title = in.readUTF();
+        String location = in.readUTF();
+        long start = ReplicationCodec.readVarLong(in);
+        long end = start + ReplicationCodec.readVarLong(in);
+        String zone = in.readUTF();
+        return new ReplicaEntry(key, false, title, location, start, end, zone.isEmpty() ? null : zone,
+            week, writer, writerSequence, lamport);
+    }
+
+    /**
+     * Replaces a missing string with the empty string.
+     *
+     * @param s the string, or null
+     * @return the string, or the empty string
+     */
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+}
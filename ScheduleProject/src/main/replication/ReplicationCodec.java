@@ -0,0 +1,99 @@
+package main.replication;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Message types and the compact number encoding used by the replication protocol.
+ * <p>
+ * Every message is one type byte, a four-byte payload length and the payload. Numbers in
+ * payloads are written as zig-zag variable-length integers, so small counters and
+ * durations take one or two bytes instead of eight.
+ */
+final class ReplicationCodec {
+    /** Introduces a replica: its id. */
+    static final byte HELLO = 1;
+    /** Changes made at one replica: the writer, its sequence number, its version vector and the entries written. */
+    static final byte DELTA = 2;
+    /** Top level of the summary tree: one hash per year. */
+    static final byte YEAR_DIGEST = 3;
+    /** Second level of the summary tree: one hash per week, for the years whose hashes differed. */
+    static final byte WEEK_DIGEST = 4;
+    /** Every entry of the weeks whose hashes differed, with the sender's version vector. */
+    static final byte WEEK_STATE = 5;
+    /** Largest payload accepted, guarding against a corrupt length. */
+    static final int MAX_PAYLOAD = 256 << 20;
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private ReplicationCodec() {
+    }
+
+    /**
+     * Writes a number as a zig-zag variable-length integer.
+     *
+     * @param out   the output
+     * @param value the number
+     * @throws IOException if the output cannot be written
+     */
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarLong}.
+     *
+     * @param in the input
+     * @return the number
+     * @throws IOException if the input ends or the number is too long
+     */
+    static long readVarLong(DataInput in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed number");
+    }
+
+    /**
+     * Hashes bytes to 64 bits with FNV-1a followed by a final mix, the same on every JVM.
+     *
+     * @param bytes  the bytes
+     * @param length the number of bytes to hash
+     * @return the hash
+     */
+    static long hash(byte[] bytes, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            h ^= bytes[i] & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Scrambles the bits of a number so that sums of hashes do not cancel out by accident.
+     *
+     * @param h the number
+     * @return the mixed number
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,815 @@
+package main.replication;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import main.gui.MainFrame;
+import model.Event;
+import model.Schedule;
+import model.ScheduleChange;
+import model.ScheduleListener;
+
+/**
+ * Keeps a schedule in step with copies of it held by other instances of the application.
+ * <p>
+ * Every change made to the local schedule is sent to the connected peers as a compact
+ * binary delta holding only the events written. Each replicated event has a key that
+ * stays the same across edits, and each write carries its writer's sequence number and a
+ * Lamport time. Writes to the same event are resolved the same way on every replica: the
+ * write with the later Lamport time wins, and ties go to the higher writer id. Version
+ * vectors record which writes each replica has seen, so that edits made without seeing
+ * each other are recognised as concurrent and reported.
+ * <p>
+ * When two replicas connect, and whenever a connection has been idle for a while, they
+ * compare a two-level hash tree of their entries (see {@link WeekDigest}) and exchange
+ * the entries of the weeks that differ. Replicas that missed deltas while disconnected
+ * therefore catch up by transferring only those weeks. Deltas are not forwarded to other
+ * peers; replicas that are not connected directly converge through these comparisons.
+ * <p>
+ * Locks are always taken schedule first, then node: local changes arrive through
+ * {@link #scheduleChanged} while the schedule lock is held, and remote changes take the
+ * schedule lock before the node lock. Messages are only queued while the locks are held
+ * and are written by one sender thread per connection.
+ */
+public class ReplicationNode implements ScheduleListener {
+    /** How long to wait before reconnecting to a peer that went away. */
+    private static final long RECONNECT_MILLIS = 2000;
+    /** How long a connection may stay idle before the replicas compare digests again. */
+    private static final long ANTI_ENTROPY_MILLIS = 10000;
+    /** Logger receiving connection events, catch-ups and resolved concurrent edits. */
+    private static final Logger LOGGER = Logger.getLogger(ReplicationNode.class.getName());
+
+    /** Id of this replica, which must be unique among the replicas and between runs. */
+    private final String replicaId;
+    /** The replicated schedule. */
+    private final Schedule schedule;
+    /** Port this replica accepts connections on. */
+    private final int port;
+    /** Writes seen from each replica. */
+    private final VersionVector seen = new VersionVector();
+    /** Latest entry of every event ever replicated, including tombstones. */
+    private final Map<ReplicaEntry.Key, ReplicaEntry> entries = new HashMap<>();
+    /** Keys of the entries of each week, for sending whole weeks. */
+    private final TreeMap<Long, Set<ReplicaEntry.Key>> keysByWeek = new TreeMap<>();
+    /** The schedule's event for each live key. */
+    private final Map<ReplicaEntry.Key, Event> eventsByKey = new HashMap<>();
+    /** The key of each event held by the schedule, by identity. */
+    private final Map<Event, ReplicaEntry.Key> keysByEvent = new IdentityHashMap<>();
+    /** Hash tree over {@link #entries}. */
+    private final WeekDigest digest = new WeekDigest();
+    /** Open connections. */
+    private final List<Peer> peers = new CopyOnWriteArrayList<>();
+    /** Number of local writes so far. */
+    private long sequence;
+    /** Number of events created here so far. */
+    private long created;
+    /** Lamport clock. */
+    private long lamport;
+    /** Whether remote changes are being applied, so that they are not sent back out. */
+    private boolean applyingRemote;
+    /** Socket accepting peers, or null before {@link #start}. */
+    private ServerSocket serverSocket;
+    /** Whether the node has been stopped. */
+    private volatile boolean stopped;
+
+    /**
+     * Creates a replication node. Call {@link #start} to begin replicating.
+     *
+     * @param replicaId the id of this replica
+     * @param schedule  the schedule to replicate
+     * @param port      the port to accept peers on, or 0 to accept none
+     */
+    public ReplicationNode(String replicaId, Schedule schedule, int port) {
+        if (replicaId == null || replicaId.isEmpty()) {
+            throw new IllegalArgumentException("Replica id must not be empty");
+        }
+        this.replicaId = replicaId;
+        this.schedule = schedule;
+        this.port = port;
+    }
+
+    /**
+     * Records the events already in the schedule, starts listening for changes and opens
+     * the port. Events present at startup get keys derived from their values, so that
+     * replicas starting from the same saved schedule agree on them.
+     *
+     * @throws IOException if the port cannot be opened
+     */
+    public void start() throws IOException {
+        synchronized (schedule) {
+            synchronized (this) {
+                for (Event event : schedule.getEvents()) {
+                    if (!replicable(event)) continue;
+                    long number = ReplicaEntry.contentHash(event);
+                    while (entries.containsKey(new ReplicaEntry.Key("", number))) {
+                        number++;
+                    }
+                    ReplicaEntry.Key key = new ReplicaEntry.Key("", number);
+                    store(ReplicaEntry.of(key, event, "", 0, 0));
+                    track(key, event);
+                }
+            }
+            schedule.addScheduleListener(this);
+        }
+        if (port > 0) {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::acceptPeers, "replication-accept-" + replicaId);
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+        LOGGER.info("Replica " + replicaId + " started with " + entries.size() + " events"
+            + (port > 0 ? " on port " + port : ""));
+    }
+
+    /**
+     * Keeps a connection to a peer open, reconnecting whenever it is lost.
+     *
+     * @param host the peer's host
+     * @param peerPort the peer's port
+     */
+    public void connect(String host, int peerPort) {
+        Thread connector = new Thread(() -> {
+            while (!stopped) {
+                try (Socket socket = new Socket(host, peerPort)) {
+                    new Peer(socket).run();
+                } catch (IOException e) {
+                    // The peer is not up yet or went away; try again shortly.
+                }
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "replication-connect-" + replicaId + "-" + peerPort);
+        connector.setDaemon(true);
+        connector.start();
+    }
+
+    /**
+     * Closes the port and every connection.
+     */
+    public void stop() {
+        stopped = true;
+        schedule.removeScheduleListener(this);
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Peer peer : peers) {
+            peer.close();
+        }
+    }
+
+    /**
+     * Accepts peers until the node is stopped.
+     */
+    private void acceptPeers() {
+        while (!stopped) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread reader = new Thread(() -> {
+                    try (socket) {
+                        new Peer(socket).run();
+                    } catch (IOException e) {
+                        // Connection lost; the peer reconnects.
+                    }
+                }, "replication-peer-" + replicaId);
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (!stopped) e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Turns a local change into a delta and queues it for every peer.
+     *
+     * @param change the changes made to the schedule
+     */
+    @Override
+    public synchronized void scheduleChanged(ScheduleChange change) {
+        if (applyingRemote) return;
+        // Archived events were only moved to this replica's cold storage; peers keep them.
+        for (Event event : change.getArchived()) {
+            untrack(event);
+        }
+        long writeSequence = ++sequence;
+        List<ReplicaEntry> written = new ArrayList<>();
+        for (Event event : change.getRemoved()) {
+            ReplicaEntry.Key key = untrack(event);
+            if (key == null) continue;
+            written.add(entries.get(key).tombstone(replicaId, writeSequence, ++lamport));
+        }
+        for (Event event : change.getAdded()) {
+            if (!replicable(event)) continue;
+            ReplicaEntry.Key key = new ReplicaEntry.Key(replicaId, ++created);
+            written.add(ReplicaEntry.of(key, event, replicaId, writeSequence, ++lamport));
+            track(key, event);
+        }
+        for (ScheduleChange.Modification modification : change.getModified()) {
+            Event event = modification.getEvent();
+            if (!replicable(event)) continue;
+            ReplicaEntry.Key key = keysByEvent.get(event);
+            if (key == null) {
+                key = new ReplicaEntry.Key(replicaId, ++created);
+                track(key, event);
+            }
+            written.add(ReplicaEntry.of(key, event, replicaId, writeSequence, ++lamport));
+        }
+        if (written.isEmpty()) {
+            sequence--;
+            return;
+        }
+        for (ReplicaEntry entry : written) {
+            store(entry);
+        }
+        seen.advance(replicaId, writeSequence);
+        broadcast(ReplicationCodec.DELTA, out -> {
+            out.writeUTF(replicaId);
+            ReplicationCodec.writeVarLong(out, writeSequence);
+            seen.write(out);
+            writeEntries(out, written);
+        });
+    }
+
+    /**
+     * Merges entries received from a peer into the replica and applies the winning ones
+     * to the schedule as one change.
+     *
+     * @param received the entries
+     * @param writerVector the writer's version vector when it made the writes, for
+     *                     reporting concurrent edits, or null if unknown
+     */
+    private void mergeEntries(List<ReplicaEntry> received, VersionVector writerVector) {
+        synchronized (schedule) {
+            synchronized (this) {
+                List<Event> removed = new ArrayList<>();
+                List<Event> added = new ArrayList<>();
+                for (ReplicaEntry entry : received) {
+                    lamport = Math.max(lamport, entry.getLamport());
+                    ReplicaEntry current = entries.get(entry.getKey());
+                    if (writerVector != null && current != null && concurrent(current, entry, writerVector)) {
+                        ReplicaEntry winner = entry.supersedes(current) ? entry : current;
+                        LOGGER.info("Concurrent edits of event " + entry.getKey() + " by "
+                            + current.getWriter() + " and " + entry.getWriter() + "; keeping " + winner.getWriter() + "'s");
+                    }
+                    if (!entry.supersedes(current)) continue;
+                    store(entry);
+                    Event old = eventsByKey.get(entry.getKey());
+                    if (old != null) {
+                        untrack(old);
+                        removed.add(old);
+                    }
+                    Event event = entry.toEvent();
+                    if (event != null) {
+                        track(entry.getKey(), event);
+                        added.add(event);
+                    }
+                }
+                if (removed.isEmpty() && added.isEmpty()) return;
+                applyingRemote = true;
+                try {
+                    schedule.applyChanges(removed, added);
+                } finally {
+                    applyingRemote = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a received write was made without seeing the write it competes with.
+     *
+     * @param current the entry held here
+     * @param entry   the received entry
+     * @param writerVector the writes the received entry's writer had seen
+     * @return true if the two writes are concurrent
+     */
+    private static boolean concurrent(ReplicaEntry current, ReplicaEntry entry, VersionVector writerVector) {
+        return !current.getWriter().isEmpty() && !current.getWriter().equals(entry.getWriter())
+            && !writerVector.covers(current.getWriter(), current.getWriterSequence());
+    }
+
+    /**
+     * Replaces the entry of an event, keeping the week index and digest up to date.
+     *
+     * @param entry the new entry
+     */
+    private void store(ReplicaEntry entry) {
+        ReplicaEntry previous = entries.put(entry.getKey(), entry);
+        if (previous != null) {
+            digest.remove(previous);
+            Set<ReplicaEntry.Key> keys = keysByWeek.get(previous.getWeek());
+            keys.remove(previous.getKey());
+            if (keys.isEmpty()) keysByWeek.remove(previous.getWeek());
+        }
+        digest.add(entry);
+        keysByWeek.computeIfAbsent(entry.getWeek(), w -> new HashSet<>()).add(entry.getKey());
+    }
+
+    /**
+     * Records that the schedule holds an event under a key.
+     *
+     * @param key   the key
+     * @param event the event
+     */
+    private void track(ReplicaEntry.Key key, Event event) {
+        eventsByKey.put(key, event);
+        keysByEvent.put(event, key);
+    }
+
+    /**
+     * Forgets the key of an event that left the schedule.
+     *
+     * @param event the event
+     * @return the event's key, or null if it was not replicated
+     */
+    private ReplicaEntry.Key untrack(Event event) {
+        ReplicaEntry.Key key = keysByEvent.remove(event);
+        if (key != null) eventsByKey.remove(key);
+        return key;
+    }
+
+    /**
+     * Checks whether an event can be replicated.
+     *
+     * @param event the event
+     * @return true if it has a start and an end
+     */
+    private static boolean replicable(Event event) {
+        return event != null && event.getStart() != null && event.getEnd() != null;
+    }
+
+    /**
+     * Writes a list of entries.
+     *
+     * @param out     the output
+     * @param written the entries
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeEntries(DataOutputStream out, Collection<ReplicaEntry> written) throws IOException {
+        ReplicationCodec.writeVarLong(out, written.size());
+        for (ReplicaEntry entry : written) {
+            entry.write(out);
+        }
+    }
+
+    /**
+     * Reads a list of entries written by {@link #writeEntries}.
+     *
+     * @param in the input
+     * @return the entries
+     * @throws IOException if the input cannot be read
+     */
+    private static List<ReplicaEntry> readEntries(DataInputStream in) throws IOException {
+        int count = (int) ReplicationCodec.readVarLong(in);
+        List<ReplicaEntry> read = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            read.add(ReplicaEntry.read(in));
+        }
+        return read;
+    }
+
+    /**
+     * Encodes a message and queues it for every peer.
+     *
+     * @param type    the message type
+     * @param payload writes the payload
+     */
+    private void broadcast(byte type, Payload payload) {
+        if (peers.isEmpty()) return;
+        byte[] message = encode(type, payload);
+        for (Peer peer : peers) {
+            peer.send(message);
+        }
+    }
+
+    /**
+     * Encodes a message as its type, payload length and payload.
+     *
+     * @param type    the message type
+     * @param payload writes the payload
+     * @return the encoded message
+     */
+    private static byte[] encode(byte type, Payload payload) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeInt(0);
+            payload.write(out);
+            out.flush();
+            byte[] message = bytes.toByteArray();
+            int length = message.length - 5;
+            message[1] = (byte) (length >>> 24);
+            message[2] = (byte) (length >>> 16);
+            message[3] = (byte) (length >>> 8);
+            message[4] = (byte) length;
+            return message;
+        } catch (IOException e) {
+            // Writing to memory does not fail.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encodes the year level of the hash tree.
+     *
+     * @return the message
+     */
+    private synchronized byte[] yearDigest() {
+        Map<Integer, Long> years = digest.getYearHashes();
+        return encode(ReplicationCodec.YEAR_DIGEST, out -> {
+            ReplicationCodec.writeVarLong(out, years.size());
+            for (Map.Entry<Integer, Long> year : years.entrySet()) {
+                ReplicationCodec.writeVarLong(out, year.getKey());
+                out.writeLong(year.getValue());
+            }
+        });
+    }
+
+    /**
+     * Compares a peer's year hashes with ours and encodes the week level of the years
+     * that differ.
+     *
+     * @param in the peer's year digest
+     * @return the message, or null if every year matches
+     * @throws IOException if the digest cannot be read
+     */
+    private synchronized byte[] weekDigestFor(DataInputStream in) throws IOException {
+        Map<Integer, Long> theirs = new HashMap<>();
+        long count = ReplicationCodec.readVarLong(in);
+        for (long i = 0; i < count; i++) {
+            theirs.put((int) ReplicationCodec.readVarLong(in), in.readLong());
+        }
+        Map<Integer, Long> ours = digest.getYearHashes();
+        Set<Integer> differing = new TreeSet<>();
+        for (Map.Entry<Integer, Long> year : theirs.entrySet()) {
+            if (!year.getValue().equals(ours.get(year.getKey()))) differing.add(year.getKey());
+        }
+        for (Integer year : ours.keySet()) {
+            if (!theirs.containsKey(year)) differing.add(year);
+        }
+        if (differing.isEmpty()) return null;
+        TreeMap<Long, Long> weeks = digest.getWeekHashes(differing);
+        return encode(ReplicationCodec.WEEK_DIGEST, out -> {
+            ReplicationCodec.writeVarLong(out, differing.size());
+            for (int year : differing) {
+                ReplicationCodec.writeVarLong(out, year);
+            }
+            ReplicationCodec.writeVarLong(out, weeks.size());
+            for (Map.Entry<Long, Long> week : weeks.entrySet()) {
+                ReplicationCodec.writeVarLong(out, week.getKey());
+                out.writeLong(week.getValue());
+            }
+        });
+    }
+
+    /**
+     * Compares a peer's week hashes with ours and encodes our entries of the weeks that
+     * differ.
+     *
+     * @param in the peer's week digest
+     * @return the message, or null if every week matches
+     * @throws IOException if the digest cannot be read
+     */
+    private synchronized byte[] weekStateFor(DataInputStream in) throws IOException {
+        List<Integer> years = new ArrayList<>();
+        long yearCount = ReplicationCodec.readVarLong(in);
+        for (long i = 0; i < yearCount; i++) {
+            years.add((int) ReplicationCodec.readVarLong(in));
+        }
+        Map<Long, Long> theirs = new HashMap<>();
+        long weekCount = ReplicationCodec.readVarLong(in);
+        for (long i = 0; i < weekCount; i++) {
+            theirs.put(ReplicationCodec.readVarLong(in), in.readLong());
+        }
+        List<ReplicaEntry> differing = new ArrayList<>();
+        for (Map.Entry<Long, Long> week : digest.getWeekHashes(years).entrySet()) {
+            if (week.getValue().equals(theirs.get(week.getKey()))) continue;
+            for (ReplicaEntry.Key key : keysByWeek.get(week.getKey())) {
+                differing.add(entries.get(key));
+            }
+        }
+        if (differing.isEmpty()) return null;
+        VersionVector vector = seen.copy();
+        return encode(ReplicationCodec.WEEK_STATE, out -> {
+            vector.write(out);
+            writeEntries(out, differing);
+        });
+    }
+
+    /**
+     * Handles one message from a peer.
+     *
+     * @param peer    the connection the message came on
+     * @param type    the message type
+     * @param payload the payload
+     * @throws IOException if the payload is malformed
+     */
+    private void handle(Peer peer, byte type, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        switch (type) {
+            case ReplicationCodec.HELLO:
+                peer.remoteId = in.readUTF();
+                LOGGER.info("Replica " + replicaId + " connected to " + peer.remoteId);
+                break;
+            case ReplicationCodec.DELTA: {
+                String writer = in.readUTF();
+                long writeSequence = ReplicationCodec.readVarLong(in);
+                VersionVector vector = VersionVector.read(in);
+                mergeEntries(readEntries(in), vector);
+                synchronized (this) {
+                    seen.advance(writer, writeSequence);
+                }
+                break;
+            }
+            case ReplicationCodec.YEAR_DIGEST: {
+                byte[] reply = weekDigestFor(in);
+                if (reply != null) peer.send(reply);
+                break;
+            }
+            case ReplicationCodec.WEEK_DIGEST: {
+                byte[] reply = weekStateFor(in);
+                if (reply != null) peer.send(reply);
+                break;
+            }
+            case ReplicationCodec.WEEK_STATE: {
+                VersionVector vector = VersionVector.read(in);
+                List<ReplicaEntry> received = readEntries(in);
+                mergeEntries(received, null);
+                synchronized (this) {
+                    seen.merge(vector);
+                }
+                LOGGER.fine("Replica " + replicaId + " caught up " + received.size()
+                    + " entries from " + peer.remoteId);
+                break;
+            }
+            default:
+                throw new IOException("Unknown message type " + type);
+        }
+    }
+
+    /**
+     * Gets the id of this replica.
+     *
+     * @return the replica id
+     */
+    public String getReplicaId() {
+        return replicaId;
+    }
+
+    /**
+     * Gets the writes seen from each replica.
+     *
+     * @return a copy of the version vector
+     */
+    public synchronized VersionVector getVersionVector() {
+        return seen.copy();
+    }
+
+    /**
+     * Gets a hash over every replicated entry. Replicas that have converged report the
+     * same hash.
+     *
+     * @return the hash
+     */
+    public synchronized long getDigest() {
+        return digest.getTotal();
+    }
+
+    /**
+     * Gets the number of connected peers.
+     *
+     * @return the peer count
+     */
+    public int getPeerCount() {
+        return peers.size();
+    }
+
+    /**
+     * Writes the payload of a message.
+     */
+    @FunctionalInterface
+    private interface Payload {
+        /**
+         * Writes the payload.
+         *
+         * @param out the output
+         * @throws IOException if the output cannot be written
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A connection to another replica. The thread that runs the peer reads messages;
+     * a second thread writes queued messages and starts a digest comparison when the
+     * connection has been idle for a while.
+     */
+    private class Peer {
+        /** The connection. */
+        private final Socket socket;
+        /** Messages waiting to be written. */
+        private final LinkedBlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>();
+        /** Id of the replica at the other end, once it has said hello. */
+        private volatile String remoteId = "?";
+
+        /**
+         * Creates a peer over an open connection.
+         *
+         * @param socket the connection
+         */
+        Peer(Socket socket) {
+            this.socket = socket;
+        }
+
+        /**
+         * Queues a message.
+         *
+         * @param message the encoded message
+         */
+        void send(byte[] message) {
+            outbox.add(message);
+        }
+
+        /**
+         * Closes the connection.
+         */
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Says hello, starts a digest comparison and reads messages until the connection
+         * is lost.
+         *
+         * @throws IOException if the connection fails
+         */
+        void run() throws IOException {
+            socket.setTcpNoDelay(true);
+            send(encode(ReplicationCodec.HELLO, out -> out.writeUTF(replicaId)));
+            peers.add(this);
+            // Queued after joining the peer list, so deltas made from here on are sent too.
+            send(yearDigest());
+            Thread sender = new Thread(this::writeMessages, "replication-send-" + replicaId);
+            sender.setDaemon(true);
+            sender.start();
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (!stopped) {
+                    byte type = in.readByte();
+                    int length = in.readInt();
+                    if (length < 0 || length > ReplicationCodec.MAX_PAYLOAD) {
+                        throw new IOException("Bad message length " + length);
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    handle(this, type, payload);
+                }
+            } catch (SocketException | EOFException e) {
+                // The peer went away.
+            } finally {
+                peers.remove(this);
+                sender.interrupt();
+                close();
+                LOGGER.info("Replica " + replicaId + " lost connection to " + remoteId);
+            }
+        }
+
+        /**
+         * Writes queued messages until the connection is closed.
+         */
+        private void writeMessages() {
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                while (!socket.isClosed()) {
+                    byte[] message = outbox.poll(ANTI_ENTROPY_MILLIS, TimeUnit.MILLISECONDS);
+                    if (message == null) {
+                        message = yearDigest();
+                    }
+                    out.write(message);
+                    if (outbox.isEmpty()) out.flush();
+                }
+            } catch (InterruptedException | IOException e) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Runs a replica from the command line. Start two on localhost to try replication:
+     * <pre>
+     * java main.replication.ReplicationNode a 7701
+     * java main.replication.ReplicationNode b 7702 7701
+     * </pre>
+     * Commands: <code>add yyyy-MM-ddTHH:mm minutes title</code>, <code>remove title</code>,
+     * <code>list</code>, <code>digest</code> and <code>quit</code>. With <code>--gui</code>
+     * the replica opens the main window and replicates its schedule instead; the window
+     * starts empty and fills from its peers.
+     *
+     * @param args the replica id, the port to listen on, optionally the port of a peer,
+     *             and optionally --gui
+     * @throws Exception if the replica cannot start
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: ReplicationNode <replica-id> <port> [peer-port] [--gui]");
+            return;
+        }
+        boolean gui = List.of(args).contains("--gui");
+        Schedule schedule;
+        if (gui) {
+            MainFrame[] frame = new MainFrame[1];
+            SwingUtilities.invokeAndWait(() -> {
+                frame[0] = new MainFrame();
+                frame[0].setTitle("Schedule Manager - " + args[0]);
+                frame[0].setVisible(true);
+            });
+            schedule = frame[0].getCurrentSchedule();
+        } else {
+            schedule = new Schedule(args[0]);
+        }
+        ReplicationNode node = new ReplicationNode(args[0], schedule, Integer.parseInt(args[1]));
+        node.start();
+        if (args.length > 2 && !args[2].equals("--gui")) {
+            node.connect("localhost", Integer.parseInt(args[2]));
+        }
+        if (gui) return;
+
+        BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = console.readLine()) != null) {
+            String[] parts = line.trim().split("\\s+", 4);
+            try {
+                switch (parts[0]) {
+                    case "add": {
+                        LocalDateTime start = LocalDateTime.parse(parts[1]);
+                        LocalDateTime end = start.plus(Duration.ofMinutes(Long.parseLong(parts[2])));
+                        System.out.println(schedule.addEvent(new Event(parts[3], start, end, "")) ? "Added" : "Not added");
+                        break;
+                    }
+                    case "remove":
+                        String title = line.trim().substring("remove".length()).trim();
+                        System.out.println(schedule.removeEvent(title) ? "Removed" : "No such event");
+                        break;
+                    case "list":
+                        schedule.getEvents().stream()
+                            .sorted(Comparator.comparing(Event::getStart))
+                            .forEach(e -> System.out.println("  " + e.getStart() + " " + e.getTitle()));
+                        break;
+                    case "digest":
+                        System.out.println(schedule.getEvents().size() + " events, digest "
+                            + Long.toHexString(node.getDigest()) + ", seen " + node.getVersionVector()
+                            + ", " + node.getPeerCount() + " peers");
+                        break;
+                    case "quit":
+                        node.stop();
+                        return;
+                    case "":
+                        break;
+                    default:
+                        System.out.println("Commands: add <yyyy-MM-ddTHH:mm> <minutes> <title>, remove <title>, list, digest, quit");
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Could not run command: " + e.getMessage());
+            }
+        }
+        node.stop();
+    }
+}
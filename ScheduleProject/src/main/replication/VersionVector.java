@@ -0,0 +1,112 @@
+package main.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records, for each replica, how many of its changes have been seen. A change made at
+ * one replica is concurrent with a change made at another if neither replica had seen
+ * the other's change when making its own.
+ * <p>
+ * Version vectors are not thread-safe; the replication node guards its own.
+ */
+public class VersionVector {
+    /** Number of changes seen from each replica, by replica id. */
+    private final Map<String, Long> counters = new TreeMap<>();
+
+    /**
+     * Gets how many changes of a replica have been seen.
+     *
+     * @param replica the replica id
+     * @return the sequence number of the latest change seen, or 0
+     */
+    public long get(String replica) {
+        return counters.getOrDefault(replica, 0L);
+    }
+
+    /**
+     * Checks whether a change has been seen.
+     *
+     * @param replica  the replica that made the change
+     * @param sequence the replica's sequence number of the change
+     * @return true if the change or a later one of the replica has been seen
+     */
+    public boolean covers(String replica, long sequence) {
+        return get(replica) >= sequence;
+    }
+
+    /**
+     * Records that changes of a replica up to a sequence number have been seen.
+     *
+     * @param replica  the replica id
+     * @param sequence the sequence number
+     */
+    public void advance(String replica, long sequence) {
+        counters.merge(replica, sequence, Math::max);
+    }
+
+    /**
+     * Records every change seen by another vector.
+     *
+     * @param other the other vector
+     */
+    public void merge(VersionVector other) {
+        for (Map.Entry<String, Long> entry : other.counters.entrySet()) {
+            advance(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Creates a copy of the vector.
+     *
+     * @return the copy
+     */
+    public VersionVector copy() {
+        VersionVector copy = new VersionVector();
+        copy.counters.putAll(counters);
+        return copy;
+    }
+
+    /**
+     * Writes the vector.
+     *
+     * @param out the output
+     * @throws IOException if the output cannot be written
+     */
+    void write(DataOutputStream out) throws IOException {
+        ReplicationCodec.writeVarLong(out, counters.size());
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            out.writeUTF(entry.getKey());
+            ReplicationCodec.writeVarLong(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads a vector written by {@link #write}.
+     *
+     * @param in the input
+     * @return the vector
+     * @throws IOException if the input cannot be read
+     */
+    static VersionVector read(DataInputStream in) throws IOException {
+        VersionVector vector = new VersionVector();
+        long size = ReplicationCodec.readVarLong(in);
+        for (long i = 0; i < size; i++) {
+            vector.counters.put(in.readUTF(), ReplicationCodec.readVarLong(in));
+        }
+        return vector;
+    }
+
+    /**
+     * Lists the counters.
+     *
+     * @return the counters as <code>{replica=sequence, ...}</code>
+     */
+    @Override
+    public String toString() {
+        return counters.toString();
+    }
+}
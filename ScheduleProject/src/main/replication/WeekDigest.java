@@ -0,0 +1,122 @@
+package main.replication;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A two-level hash tree over the replicated entries: one hash per week, and one hash
+ * per year over its weeks. Two replicas compare their year hashes first and then only
+ * the week hashes of the years that differ, so catching up after a disconnect transfers
+ * only the weeks that changed.
+ * <p>
+ * Each hash is the sum of the hashes of the entries below it. Sums can be updated in
+ * constant time as entries are added and replaced, unlike hashes over sorted children,
+ * and entry hashes are mixed well enough that unequal sets rarely sum alike.
+ */
+final class WeekDigest {
+    /** Sum of entry hashes by week, keyed by the epoch day of the week's Monday. */
+    private final TreeMap<Long, Long> weeks = new TreeMap<>();
+    /** Sum of entry hashes by year. */
+    private final Map<Integer, Long> years = new HashMap<>();
+    /** Number of entries by week, so that empty weeks can be dropped. */
+    private final Map<Long, Integer> counts = new HashMap<>();
+
+    /**
+     * Adds an entry to its week.
+     *
+     * @param entry the entry
+     */
+    void add(ReplicaEntry entry) {
+        update(entry.getWeek(), entry.hash(), 1);
+    }
+
+    /**
+     * Removes an entry from its week.
+     *
+     * @param entry the entry, which must have been added
+     */
+    void remove(ReplicaEntry entry) {
+        update(entry.getWeek(), -entry.hash(), -1);
+    }
+
+    /**
+     * Adds a hash to a week and its year.
+     *
+     * @param week  the week
+     * @param delta the hash to add, or the negated hash to remove
+     * @param count the change in the number of entries
+     */
+    private void update(long week, long delta, int count) {
+        int remaining = counts.merge(week, count, Integer::sum);
+        if (remaining == 0) {
+            counts.remove(week);
+            weeks.remove(week);
+        } else {
+            weeks.merge(week, delta, Long::sum);
+        }
+        int year = yearOf(week);
+        years.merge(year, delta, Long::sum);
+        if (weeksIn(year).isEmpty()) {
+            years.remove(year);
+        }
+    }
+
+    /**
+     * Gets the hash of every year holding entries.
+     *
+     * @return a copy of the year hashes
+     */
+    Map<Integer, Long> getYearHashes() {
+        return new HashMap<>(years);
+    }
+
+    /**
+     * Gets the hash of every week in the given years.
+     *
+     * @param selectedYears the years
+     * @return the week hashes, ordered by week
+     */
+    TreeMap<Long, Long> getWeekHashes(Collection<Integer> selectedYears) {
+        TreeMap<Long, Long> selected = new TreeMap<>();
+        for (int year : selectedYears) {
+            selected.putAll(weeksIn(year));
+        }
+        return selected;
+    }
+
+    /**
+     * Gets the weeks of a year that hold entries.
+     *
+     * @param year the year
+     * @return a view of the week hashes of the year
+     */
+    private Map<Long, Long> weeksIn(int year) {
+        return weeks.subMap(LocalDate.of(year, 1, 1).toEpochDay(), true, LocalDate.of(year, 12, 31).toEpochDay(), true);
+    }
+
+    /**
+     * Gets the year a week is filed under: the year of its Monday.
+     *
+     * @param week the epoch day of the week's Monday
+     * @return the year
+     */
+    static int yearOf(long week) {
+        return LocalDate.ofEpochDay(week).getYear();
+    }
+
+    /**
+     * Gets a hash over all entries, for comparing replicas by eye.
+     *
+     * @return the sum of the year hashes
+     */
+    long getTotal() {
+        long total = 0;
+        for (long hash : years.values()) {
+            total += hash;
+        }
+        return total;
+    }
+}
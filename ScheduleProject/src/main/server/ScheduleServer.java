@@ -0,0 +1,560 @@
+package main.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.logging.Logger;
+import model.Event;
+import model.EventExporter;
+import model.Schedule;
+import model.ScheduleChange;
+import model.ScheduleChangePublisher;
+import model.ScheduleManager;
+import model.Utf8Buffer;
+import model.WeeklyHtmlRenderer;
+
+/**
+ * An optional HTTP server on the loopback interface that lets other tools read the
+ * current schedule. It serves:
+ * <ul>
+ * <li><code>/week?date=2024-01-31</code> - the HTML page of the week containing the date</li>
+ * <li><code>/events?from=...&amp;to=...</code> - events starting in a range, as NDJSON</li>
+ * <li><code>/freebusy?from=...&amp;to=...</code> - merged busy intervals in a range, as JSON</li>
+ * <li><code>/changes</code> - a stream with one JSON line per change made to the schedule
+ * while the client is connected: the new version, the affected range and the number of
+ * events added, removed, modified and archived</li>
+ * </ul>
+ * Dates are ISO dates or date-times. Every response carries an ETag made from the schedule's
+ * version, and rendered bodies are cached until the schedule changes, so a client polling
+ * with <code>If-None-Match</code> gets a 304 without anything being rendered. A client that
+ * follows <code>/changes</code> instead can fetch just the affected range from
+ * <code>/events</code>; it is disconnected if it reads too slowly to keep up.
+ */
+public class ScheduleServer {
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 8765;
+    /** Maximum number of cached responses. */
+    private static final int CACHE_CAPACITY = 256;
+    /** Logger receiving a line when the server starts. */
+    private static final Logger LOGGER = Logger.getLogger(ScheduleServer.class.getName());
+    /** Source of the schedule being served. */
+    private final ScheduleManager scheduleManager;
+    /** The underlying JDK server. */
+    private final HttpServer server;
+    /** Threads that handle requests. */
+    private final ExecutorService executor;
+    /** Publisher feeding the <code>/changes</code> streams, or null while the server is stopped. */
+    private volatile ScheduleChangePublisher changeFeed;
+    /** Rendered responses by request path and query, least recently used first. */
+    private final Map<String, CachedResponse> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
+    /**
+     * A rendered response body and the ETag it was rendered for.
+     */
+    private static class CachedResponse {
+        /** The entity tag of the schedule state the body was rendered from. */
+        private final String etag;
+        /** The content type of the body. */
+        private final String contentType;
+        /** The encoded body. */
+        private final byte[] body;
+
+        /**
+         * Constructs a cached response.
+         *
+         * @param etag        the entity tag
+         * @param contentType the content type
+         * @param body        the encoded body
+         */
+        private CachedResponse(String etag, String contentType, byte[] body) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Thrown when a request has missing or malformed parameters.
+     */
+    private static class BadRequestException extends Exception {
+        /**
+         * Constructs the exception.
+         *
+         * @param message the reason sent to the client
+         */
+        private BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Creates a server bound to the loopback interface. The server is not started.
+     *
+     * @param scheduleManager the manager whose current schedule is served
+     * @param port            the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ScheduleServer(ScheduleManager scheduleManager, int port) throws IOException {
+        this.scheduleManager = scheduleManager;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = createExecutor();
+        server.setExecutor(executor);
+        server.createContext("/week", exchange -> handle(exchange, ScheduleServer::resolveWeek, this::renderWeek));
+        server.createContext("/events", exchange -> handle(exchange, parameters -> parameters, this::renderEvents));
+        server.createContext("/freebusy", exchange -> handle(exchange, parameters -> parameters, this::renderFreeBusy));
+        server.createContext("/changes", this::streamChanges);
+    }
+
+    /**
+     * Starts serving requests. Changes are streamed for the schedule that is current now.
+     */
+    public void start() {
+        changeFeed = new ScheduleChangePublisher(scheduleManager.getCurrentSchedule(), executor,
+            Flow.defaultBufferSize(), ScheduleChangePublisher.OverflowPolicy.CONFLATE);
+        server.start();
+        LOGGER.info("Schedule server listening on http://localhost:" + getPort() + "/");
+    }
+
+    /**
+     * Stops the server, letting requests in progress finish for up to a second.
+     */
+    public void stop() {
+        ScheduleChangePublisher feed = changeFeed;
+        changeFeed = null;
+        if (feed != null) {
+            feed.close();
+        }
+        server.stop(1);
+        executor.shutdown();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Creates the request threads. Each request gets a virtual thread when the runtime
+     * supports them; otherwise a cached pool of daemon threads is used.
+     *
+     * @return the executor for request handling
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "schedule-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Renders a response body for a request.
+     */
+    private interface Renderer {
+        /**
+         * Renders a body into a buffer.
+         *
+         * @param schedule   the schedule to read
+         * @param parameters the query parameters
+         * @param out        the buffer to write the body to
+         * @return the content type of the body
+         * @throws BadRequestException if the parameters are missing or malformed
+         * @throws IOException         if the body cannot be written
+         */
+        String render(Schedule schedule, Map<String, String> parameters, Utf8Buffer out)
+            throws BadRequestException, IOException;
+    }
+
+    /**
+     * Fills in the defaults of a request's parameters, such as today's date, so that the
+     * ETag and the cache key name what is actually rendered.
+     */
+    private interface Resolver {
+        /**
+         * Resolves the parameters of a request.
+         *
+         * @param parameters the query parameters as sent
+         * @return the parameters with their defaults filled in
+         * @throws BadRequestException if the parameters are malformed
+         */
+        Map<String, String> resolve(Map<String, String> parameters) throws BadRequestException;
+    }
+
+    /**
+     * Answers a request from the cache, with a 304, or by rendering a new body.
+     * <p>
+     * The cache key is the path with the resolved parameters, and the ETag names both the
+     * schedule state and that key, so a request whose defaults resolve differently, such
+     * as a week without a date on another day, is never answered from an old response.
+     *
+     * @param exchange the request and response
+     * @param resolver fills in the defaults of the parameters
+     * @param renderer the renderer for the requested resource
+     * @throws IOException if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange, Resolver resolver, Renderer renderer) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            Map<String, String> parameters;
+            try {
+                parameters = resolver.resolve(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (BadRequestException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            String key = exchange.getRequestURI().getPath() + "?" + new TreeMap<>(parameters);
+            Schedule schedule = scheduleManager.getCurrentSchedule();
+            String etag = "\"" + Integer.toHexString(System.identityHashCode(schedule)) + "-" + schedule.getVersion()
+                + "-" + Integer.toHexString(key.hashCode()) + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getResponseHeaders().set("ETag", etag);
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            CachedResponse response;
+            synchronized (cache) {
+                response = cache.get(key);
+            }
+            if (response == null || !response.etag.equals(etag)) {
+                Utf8Buffer body = new Utf8Buffer();
+                String contentType;
+                try {
+                    contentType = renderer.render(schedule, parameters, body);
+                } catch (BadRequestException e) {
+                    sendError(exchange, 400, e.getMessage());
+                    return;
+                }
+                response = new CachedResponse(etag, contentType, body.toByteArray());
+                synchronized (cache) {
+                    cache.put(key, response);
+                }
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            exchange.getResponseHeaders().set("ETag", response.etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, response.body.length);
+            exchange.getResponseBody().write(response.body);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts streaming schedule changes to a client. The response stays open until the
+     * client disconnects, falls too far behind, or the server stops.
+     *
+     * @param exchange the request and response
+     * @throws IOException if the response cannot be started
+     */
+    private void streamChanges(HttpExchange exchange) throws IOException {
+        ScheduleChangePublisher feed = changeFeed;
+        if (!"GET".equals(exchange.getRequestMethod()) || feed == null) {
+            try (exchange) {
+                sendError(exchange, 405, "Only GET is supported");
+            }
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        feed.subscribe(new ChangeStream(exchange));
+    }
+
+    /**
+     * Writes the changes it receives to one <code>/changes</code> client, asking for the
+     * next change only once the previous one has been written, so a slow client holds
+     * back its own stream and nothing else.
+     */
+    private static class ChangeStream implements Flow.Subscriber<ScheduleChange> {
+        /** The open response to the client. */
+        private final HttpExchange exchange;
+        /** The subscription to the change feed. */
+        private Flow.Subscription subscription;
+
+        /**
+         * Constructs a stream for a client.
+         *
+         * @param exchange the open response to write to
+         */
+        private ChangeStream(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        /**
+         * Requests the first change.
+         *
+         * @param subscription the subscription to the change feed
+         */
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        /**
+         * Writes a change as one JSON line and requests the next, or ends the stream if the
+         * client has gone away.
+         *
+         * @param change the change to write
+         */
+        @Override
+        public void onNext(ScheduleChange change) {
+            Utf8Buffer line = new Utf8Buffer();
+            line.write("{\"version\":").writeLong(change.getVersion());
+            if (change.getRangeStart() != null) {
+                line.write(",\"from\":\"").writeIsoDateTime(change.getRangeStart())
+                    .write("\",\"to\":\"").writeIsoDateTime(change.getRangeEnd()).writeAscii('"');
+            }
+            line.write(",\"added\":").writeLong(change.getAdded().size())
+                .write(",\"removed\":").writeLong(change.getRemoved().size())
+                .write(",\"modified\":").writeLong(change.getModified().size())
+                .write(",\"archived\":").writeLong(change.getArchived().size())
+                .write("}\n");
+            try {
+                OutputStream out = exchange.getResponseBody();
+                line.writeTo(out);
+                out.flush();
+            } catch (IOException e) {
+                subscription.cancel();
+                exchange.close();
+                return;
+            }
+            subscription.request(1);
+        }
+
+        /**
+         * Ends the stream after the client was dropped for falling behind.
+         *
+         * @param error the reason the subscription ended
+         */
+        @Override
+        public void onError(Throwable error) {
+            exchange.close();
+        }
+
+        /**
+         * Ends the stream when the server stops.
+         */
+        @Override
+        public void onComplete() {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Resolves the parameters of a week request: <code>date</code> becomes the start of the
+     * week it falls in, defaulting to the current week.
+     *
+     * @param parameters the query parameters as sent
+     * @return the parameters with <code>date</code> set to the week's start
+     * @throws BadRequestException if the date is malformed
+     */
+    private static Map<String, String> resolveWeek(Map<String, String> parameters) throws BadRequestException {
+        LocalDate date = parameters.containsKey("date") ? parseDate(parameters.get("date")) : LocalDate.now();
+        Map<String, String> resolved = new HashMap<>(parameters);
+        resolved.put("date", Schedule.getStartOfWeek(date).toString());
+        return resolved;
+    }
+
+    /**
+     * Renders the HTML page of a week.
+     *
+     * @param schedule   the schedule to read
+     * @param parameters the query parameters; <code>date</code> is any day in the week, defaulting to today
+     * @param out        the buffer to write the body to
+     * @return the content type
+     * @throws BadRequestException if the date is malformed
+     */
+    private String renderWeek(Schedule schedule, Map<String, String> parameters, Utf8Buffer out)
+            throws BadRequestException {
+        LocalDate date = parameters.containsKey("date") ? parseDate(parameters.get("date")) : LocalDate.now();
+        LocalDate weekStart = Schedule.getStartOfWeek(date);
+        List<Event> events = schedule.getEventsBetween(weekStart.atStartOfDay(), weekStart.plusDays(7).atStartOfDay());
+        WeeklyHtmlRenderer.render(out, weekStart, events, true);
+        return "text/html; charset=utf-8";
+    }
+
+    /**
+     * Renders the events starting in a range as NDJSON.
+     *
+     * @param schedule   the schedule to read
+     * @param parameters the query parameters; <code>from</code> and <code>to</code> are required
+     * @param out        the buffer to write the body to
+     * @return the content type
+     * @throws BadRequestException if the range is missing or malformed
+     * @throws IOException         if the body cannot be written
+     */
+    private String renderEvents(Schedule schedule, Map<String, String> parameters, Utf8Buffer out)
+            throws BadRequestException, IOException {
+        LocalDateTime from = parseDateTime(parameters, "from");
+        LocalDateTime to = parseDateTime(parameters, "to");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (EventExporter exporter = new EventExporter(EventExporter.Format.NDJSON, body)) {
+            exporter.setRange(from, to);
+            exporter.export(schedule);
+        }
+        out.write(body.toByteArray());
+        return "application/x-ndjson; charset=utf-8";
+    }
+
+    /**
+     * Renders the busy intervals in a range as JSON. Overlapping and touching events are
+     * merged, and intervals are clipped to the range.
+     *
+     * @param schedule   the schedule to read
+     * @param parameters the query parameters; <code>from</code> and <code>to</code> are required
+     * @param out        the buffer to write the body to
+     * @return the content type
+     * @throws BadRequestException if the range is missing or malformed
+     */
+    private String renderFreeBusy(Schedule schedule, Map<String, String> parameters, Utf8Buffer out)
+            throws BadRequestException {
+        LocalDateTime from = parseDateTime(parameters, "from");
+        LocalDateTime to = parseDateTime(parameters, "to");
+        out.write("{\"from\":\"").writeIsoDateTime(from).write("\",\"to\":\"").writeIsoDateTime(to)
+            .write("\",\"busy\":[");
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = null;
+        boolean first = true;
+        for (Event event : schedule.getEventsOverlapping(from, to)) {
+            LocalDateTime start = event.getStart().isBefore(from) ? from : event.getStart();
+            LocalDateTime end = event.getEnd().isAfter(to) ? to : event.getEnd();
+            if (busyEnd != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd)) busyEnd = end;
+                continue;
+            }
+            if (busyStart != null) {
+                writeInterval(out, busyStart, busyEnd, first);
+                first = false;
+            }
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyStart != null) {
+            writeInterval(out, busyStart, busyEnd, first);
+        }
+        out.write("]}\n");
+        return "application/json; charset=utf-8";
+    }
+
+    /**
+     * Writes one busy interval as a JSON object.
+     *
+     * @param out   the buffer to write to
+     * @param start the start of the interval
+     * @param end   the end of the interval
+     * @param first true if this is the first interval in the array
+     */
+    private static void writeInterval(Utf8Buffer out, LocalDateTime start, LocalDateTime end, boolean first) {
+        if (!first) out.writeAscii(',');
+        out.write("{\"start\":\"").writeIsoDateTime(start).write("\",\"end\":\"").writeIsoDateTime(end).write("\"}");
+    }
+
+    /**
+     * Splits a raw query string into decoded parameters.
+     *
+     * @param rawQuery the query string, or null
+     * @return the parameters by name
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return parameters;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Parses an ISO date.
+     *
+     * @param text the text to parse
+     * @return the date
+     * @throws BadRequestException if the text is not an ISO date
+     */
+    private static LocalDate parseDate(String text) throws BadRequestException {
+        try {
+            return LocalDate.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date '" + text + "', expected yyyy-MM-dd");
+        }
+    }
+
+    /**
+     * Parses a required parameter holding an ISO date-time or a date, which means its start of day.
+     *
+     * @param parameters the query parameters
+     * @param name       the parameter name
+     * @return the date-time
+     * @throws BadRequestException if the parameter is missing or malformed
+     */
+    private static LocalDateTime parseDateTime(Map<String, String> parameters, String name) throws BadRequestException {
+        String text = parameters.get(name);
+        if (text == null) {
+            throw new BadRequestException("Missing parameter '" + name + "'");
+        }
+        try {
+            return text.indexOf('T') >= 0 ? LocalDateTime.parse(text) : LocalDate.parse(text).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid " + name + " '" + text + "', expected yyyy-MM-dd or yyyy-MM-ddTHH:mm");
+        }
+    }
+
+    /**
+     * Sends a plain-text error response.
+     *
+     * @param exchange the request and response
+     * @param status   the HTTP status code
+     * @param message  the error message
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package main.tools;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size histogram of non-negative values, such as latencies in nanoseconds, that
+ * many threads can record into without locking. Values are counted in log-linear buckets:
+ * each power of two is split into {@value #SUB_BUCKETS} equal buckets, so percentiles are
+ * reported to within about 6% of the true value.
+ */
+public class LatencyHistogram {
+    /** Log2 of the number of buckets per power of two. */
+    private static final int SUB_BUCKET_BITS = 4;
+    /** Number of buckets per power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Counts per bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+    /**
+     * Records one value.
+     *
+     * @param value the value; negative values are recorded as 0
+     */
+    public void record(long value) {
+        counts.incrementAndGet(bucketOf(Math.max(0, value)));
+    }
+
+    /**
+     * Takes the current counts and resets the histogram, so the next snapshot covers only
+     * the values recorded after this one.
+     *
+     * @return the counts recorded since the last reset
+     */
+    public Snapshot snapshotAndReset() {
+        long[] taken = new long[counts.length()];
+        for (int i = 0; i < taken.length; i++) {
+            taken[i] = counts.getAndSet(i, 0);
+        }
+        return new Snapshot(taken);
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param value a non-negative value
+     * @return the bucket index
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the upper bound of the bucket
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long base = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+
+    /**
+     * Counts taken from a histogram at one moment. Snapshots can be merged to cover a
+     * longer period.
+     */
+    public static class Snapshot {
+        /** Counts per bucket. */
+        private final long[] counts;
+        /** Total number of values. */
+        private final long total;
+
+        /**
+         * Creates a snapshot.
+         *
+         * @param counts the counts per bucket
+         */
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long sum = 0;
+            for (long count : counts) sum += count;
+            this.total = sum;
+        }
+
+        /**
+         * Creates a snapshot holding the counts of two snapshots.
+         *
+         * @param other the snapshot to add
+         * @return the combined snapshot
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = counts.clone();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(merged);
+        }
+
+        /**
+         * Gets the number of values.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            return total;
+        }
+
+        /**
+         * Gets a percentile.
+         *
+         * @param percentile the percentile from 0 to 100
+         * @return the upper bound of the bucket holding the percentile, or 0 if there are no values
+         */
+        public long getPercentile(double percentile) {
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return upperBoundOf(i);
+            }
+            return upperBoundOf(counts.length - 1);
+        }
+
+        /**
+         * Gets the largest value, to bucket precision.
+         *
+         * @return the upper bound of the highest non-empty bucket, or 0 if there are no values
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) return upperBoundOf(i);
+            }
+            return 0;
+        }
+    }
+}
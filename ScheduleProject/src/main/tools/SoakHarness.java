@@ -0,0 +1,346 @@
+package main.tools;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import model.Event;
+import model.EventExporter;
+import model.Schedule;
+
+/**
+ * Runs a mix of adds, removes, range queries, searches and exports against one schedule
+ * from several threads for a long time, and reports how the schedule holds up: latency
+ * percentiles per operation, the allocation rate and garbage collection pauses.
+ * <p>
+ * Usage: <code>java main.tools.SoakHarness [minutes] [initial events] [threads] [seed]
+ * [report seconds]</code>. Reports are written to standard error, because the schedule
+ * prints rejected overlaps to standard output; redirect standard output to discard them.
+ */
+public class SoakHarness {
+    /** Operations in the mix, in the order their shares are listed. */
+    private enum Operation { ADD, REMOVE, RANGE_QUERY, SEARCH, EXPORT }
+    /** Share of each operation in percent, in the order of {@link Operation}. */
+    private static final int[] SHARES = {40, 20, 25, 10, 5};
+
+    /** The schedule under load. */
+    private final Schedule schedule = new Schedule("Soak");
+    /** Latencies in nanoseconds, one histogram per operation. */
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    /** Latencies since the start of the run, one snapshot per operation. */
+    private final LatencyHistogram.Snapshot[] totals = new LatencyHistogram.Snapshot[Operation.values().length];
+    /** Longest stop-the-world pause since the last report, in milliseconds. */
+    private final AtomicLong longestPause = new AtomicLong();
+    /** Longest stop-the-world pause of the run, in milliseconds. */
+    private long longestPauseOverall;
+    /** Number of stop-the-world pauses since the last report. */
+    private final AtomicLong pauseCount = new AtomicLong();
+    /** Total stop-the-world pause time since the last report, in milliseconds. */
+    private final AtomicLong pauseMillis = new AtomicLong();
+    /** The worker threads. */
+    private final List<Thread> workers = new ArrayList<>();
+    /** Whether the workers should stop. */
+    private volatile boolean stopping;
+
+    /**
+     * Creates a harness.
+     */
+    public SoakHarness() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Fills the schedule, runs the workers for the given time and prints a report at each
+     * interval and at the end.
+     *
+     * @param duration      how long to run
+     * @param initialEvents the number of events to add before the run
+     * @param threads       the number of worker threads
+     * @param seed          the seed of the random choices
+     * @param interval      the time between reports
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void run(Duration duration, int initialEvents, int threads, long seed, Duration interval)
+        throws InterruptedException {
+        LocalDate firstDay = LocalDate.now().minusMonths(6);
+        int spanDays = Math.max(365, initialEvents / 4);
+        WorkloadGenerator filler = new WorkloadGenerator(seed);
+        filler.setEventCount(initialEvents);
+        filler.setSpan(firstDay, spanDays);
+        filler.generate(schedule);
+        listenForPauses();
+
+        CountDownLatch started = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            WorkloadGenerator generator = new WorkloadGenerator(seed + 1 + i);
+            generator.setSpan(firstDay, spanDays);
+            Random random = new Random(seed - 1 - i);
+            Thread worker = new Thread(() -> {
+                started.countDown();
+                work(generator, random, firstDay, spanDays);
+            }, "soak-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        started.await();
+        System.err.printf("Soak started: %d events, %d threads, %s%n",
+            schedule.getEvents().size(), threads, duration);
+
+        long runStart = System.nanoTime();
+        long end = runStart + duration.toNanos();
+        long reportStart = runStart;
+        long allocatedAtReport = allocatedBytes();
+        GcTotals gcAtReport = GcTotals.now();
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.max(1, Math.min(interval.toMillis(), (end - System.nanoTime()) / 1_000_000)));
+            long now = System.nanoTime();
+            long allocated = allocatedBytes();
+            GcTotals gc = GcTotals.now();
+            report("Last " + (now - reportStart) / 1_000_000_000 + " s", takeSnapshots(), now - reportStart,
+                allocated - allocatedAtReport, gc.minus(gcAtReport));
+            reportStart = now;
+            allocatedAtReport = allocated;
+            gcAtReport = gc;
+        }
+        stopping = true;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        takeSnapshots();
+        report("Whole run", totals, System.nanoTime() - runStart, -1, null);
+        System.err.printf("Longest pause of the run: %d ms; %d events at the end%n",
+            longestPauseOverall, schedule.getEvents().size());
+    }
+
+    /**
+     * Runs operations on the schedule until the harness stops.
+     *
+     * @param generator the source of new events
+     * @param random    the source of operation choices
+     * @param firstDay  the first day of the schedule
+     * @param spanDays  the number of days the schedule covers
+     */
+    private void work(WorkloadGenerator generator, Random random, LocalDate firstDay, int spanDays) {
+        while (!stopping) {
+            Operation operation = pick(random.nextInt(100));
+            LocalDateTime day = firstDay.plusDays(random.nextInt(spanDays)).atStartOfDay();
+            long start = System.nanoTime();
+            try {
+                switch (operation) {
+                    case ADD:
+                        schedule.addEvent(generator.nextEvent());
+                        break;
+                    case REMOVE:
+                        List<Event> onDay = schedule.getEventsOverlapping(day, day.plusDays(1));
+                        if (!onDay.isEmpty()) {
+                            schedule.removeEvent(onDay.get(random.nextInt(onDay.size())));
+                        }
+                        break;
+                    case RANGE_QUERY:
+                        schedule.getEventsOverlapping(day, day.plusDays(7));
+                        break;
+                    case SEARCH:
+                        schedule.search(generator.nextTitle());
+                        break;
+                    case EXPORT:
+                        try (EventExporter exporter = new EventExporter(EventExporter.Format.NDJSON,
+                                OutputStream.nullOutputStream())) {
+                            exporter.setRange(day, day.plusMonths(1));
+                            exporter.export(schedule);
+                        }
+                        break;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Picks the operation for a roll of the dice.
+     *
+     * @param roll a number from 0 to 99
+     * @return the operation whose share covers the roll
+     */
+    private static Operation pick(int roll) {
+        for (int i = 0; i < SHARES.length; i++) {
+            roll -= SHARES[i];
+            if (roll < 0) return Operation.values()[i];
+        }
+        return Operation.EXPORT;
+    }
+
+    /**
+     * Takes the latencies recorded since the last call and adds them to the run totals.
+     *
+     * @return the latencies since the last call, one snapshot per operation
+     */
+    private LatencyHistogram.Snapshot[] takeSnapshots() {
+        LatencyHistogram.Snapshot[] snapshots = new LatencyHistogram.Snapshot[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            snapshots[i] = latencies[i].snapshotAndReset();
+            totals[i] = totals[i] == null ? snapshots[i] : totals[i].merge(snapshots[i]);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Prints latency percentiles per operation, and the allocation rate and pauses if given.
+     *
+     * @param label     the name of the period
+     * @param snapshots the latencies of the period, one snapshot per operation
+     * @param nanos     the length of the period
+     * @param allocated the bytes allocated in the period, or -1 to leave them out
+     * @param gc        the collector totals of the period, or null to leave them out
+     */
+    private void report(String label, LatencyHistogram.Snapshot[] snapshots, long nanos, long allocated, GcTotals gc) {
+        double seconds = Math.max(1e-9, nanos / 1e9);
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("== %s ==%n", label));
+        out.append(String.format("%-12s %10s %10s %10s %10s %10s %10s %10s%n",
+            "operation", "count", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot s = snapshots[operation.ordinal()];
+            out.append(String.format("%-12s %10d %10.0f %10d %10d %10d %10d %10d%n",
+                operation, s.getCount(), s.getCount() / seconds,
+                s.getPercentile(50) / 1000, s.getPercentile(90) / 1000, s.getPercentile(99) / 1000,
+                s.getPercentile(99.9) / 1000, s.getMax() / 1000));
+        }
+        if (allocated >= 0) {
+            out.append(String.format("allocation   %.1f MB/s by workers%n", allocated / seconds / (1 << 20)));
+        }
+        if (gc != null) {
+            long pause = longestPause.getAndSet(0);
+            longestPauseOverall = Math.max(longestPauseOverall, pause);
+            out.append(String.format("gc           %d collections, %d ms collecting; %d pauses, %d ms paused, longest %d ms%n",
+                gc.count, gc.millis, pauseCount.getAndSet(0), pauseMillis.getAndSet(0), pause));
+        }
+        System.err.print(out);
+    }
+
+    /**
+     * Gets the bytes allocated so far by the worker threads.
+     *
+     * @return the allocated bytes, or 0 if the virtual machine does not measure them
+     */
+    private long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return 0;
+        long[] ids = new long[workers.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = workers.get(i).getId();
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids)) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    /**
+     * Records the length of every stop-the-world collection as it is reported. Collections
+     * that run concurrently with the application, such as the cycles of G1's or ZGC's
+     * concurrent collectors, are not pauses and are left out.
+     */
+    private void listenForPauses() {
+        NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (info.getGcName().contains("Concurrent") || info.getGcCause().contains("Concurrent")) {
+                return;
+            }
+            long millis = info.getGcInfo().getDuration();
+            pauseCount.incrementAndGet();
+            pauseMillis.addAndGet(millis);
+            longestPause.accumulateAndGet(millis, Math::max);
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    /**
+     * Collection counts and times summed over all collectors.
+     */
+    private static class GcTotals {
+        /** Number of collections. */
+        private final long count;
+        /** Time spent collecting, in milliseconds. */
+        private final long millis;
+
+        /**
+         * Creates totals.
+         *
+         * @param count  the number of collections
+         * @param millis the time spent collecting
+         */
+        private GcTotals(long count, long millis) {
+            this.count = count;
+            this.millis = millis;
+        }
+
+        /**
+         * Reads the current totals.
+         *
+         * @return the totals since the virtual machine started
+         */
+        private static GcTotals now() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            return new GcTotals(count, millis);
+        }
+
+        /**
+         * Subtracts earlier totals.
+         *
+         * @param earlier the earlier totals
+         * @return the totals of the period in between
+         */
+        private GcTotals minus(GcTotals earlier) {
+            return new GcTotals(count - earlier.count, millis - earlier.millis);
+        }
+    }
+
+    /**
+     * Runs the soak test.
+     *
+     * @param args the minutes to run, the initial events, the threads, the seed and the
+     *             seconds between reports, all optional
+     * @throws InterruptedException if interrupted while running
+     */
+    public static void main(String[] args) throws InterruptedException {
+        double minutes = args.length > 0 ? Double.parseDouble(args[0]) : 60;
+        int initialEvents = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        int reportSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 60;
+        new SoakHarness().run(Duration.ofMillis((long) (minutes * 60_000)), initialEvents, threads, seed,
+            Duration.ofSeconds(reportSeconds));
+    }
+}
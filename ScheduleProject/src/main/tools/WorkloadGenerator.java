@@ -0,0 +1,275 @@
+package main.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+import model.Event;
+import model.MappedEventStore;
+import model.RecurrenceRule;
+import model.RecurringEvent;
+import model.Schedule;
+
+/**
+ * Builds synthetic schedules that look like real ones, for reproducing production-scale
+ * behaviour locally. Events are added through the normal {@link Schedule} API, so overlap
+ * checks, indexes and listeners do the same work they would for a user.
+ * <p>
+ * Most events fall on weekdays in working hours and last 15 minutes to two hours. The mix
+ * can be tuned: the share of events that come from recurring series, the share that span
+ * several days, how many distinct titles there are, and how often an event is placed on
+ * top of an existing one so that the overlap check rejects it. Titles are chosen with a
+ * skew, so a few titles are very common and most are rare.
+ * <p>
+ * Run as a program to write a generated schedule to an event store:
+ * <code>java main.tools.WorkloadGenerator [events] [store] [seed]</code>.
+ */
+public class WorkloadGenerator {
+    /** Words combined into event titles. */
+    private static final String[] TITLE_WORDS = {
+        "Standup", "Review", "Planning", "Lecture", "Seminar", "Lab", "Workshop", "Sync",
+        "Interview", "Demo", "Retro", "Tutorial", "Office Hours", "Training", "Lunch", "Gym"
+    };
+    /** Logger receiving a summary of each generated workload. */
+    private static final Logger LOGGER = Logger.getLogger(WorkloadGenerator.class.getName());
+    /** Source of randomness; seeded so runs can be repeated. */
+    private final Random random;
+    /** Number of events to add. */
+    private int eventCount = 10_000;
+    /** Share of placements that deliberately overlap an existing event. */
+    private double overlapDensity = 0.05;
+    /** Share of events that come from recurring series. */
+    private double recurringShare = 0.3;
+    /** Share of single events that span several days. */
+    private double multiDayShare = 0.02;
+    /** Titles to choose from. */
+    private String[] titles;
+    /** Locations to choose from. */
+    private String[] locations;
+    /** First day of the generated schedule. */
+    private LocalDate firstDay = LocalDate.of(2024, 1, 1);
+    /** Number of days the generated schedule covers. */
+    private int spanDays = 365;
+    /** Events added so far, used to aim deliberate overlaps. */
+    private final List<Event> placed = new ArrayList<>();
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed the seed of the random choices
+     */
+    public WorkloadGenerator(long seed) {
+        this.random = new Random(seed);
+        setTitleCardinality(200);
+    }
+
+    /**
+     * Sets the number of events to add.
+     *
+     * @param eventCount the number of events
+     */
+    public void setEventCount(int eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    /**
+     * Sets the share of placements that deliberately overlap an existing event.
+     *
+     * @param overlapDensity a share from 0 to 1
+     */
+    public void setOverlapDensity(double overlapDensity) {
+        this.overlapDensity = overlapDensity;
+    }
+
+    /**
+     * Sets the share of events that come from recurring series.
+     *
+     * @param recurringShare a share from 0 to 1
+     */
+    public void setRecurringShare(double recurringShare) {
+        this.recurringShare = recurringShare;
+    }
+
+    /**
+     * Sets the share of single events that span several days.
+     *
+     * @param multiDayShare a share from 0 to 1
+     */
+    public void setMultiDayShare(double multiDayShare) {
+        this.multiDayShare = multiDayShare;
+    }
+
+    /**
+     * Sets the number of distinct titles. Locations are drawn from about the square root
+     * as many rooms.
+     *
+     * @param cardinality the number of titles
+     */
+    public void setTitleCardinality(int cardinality) {
+        titles = new String[Math.max(1, cardinality)];
+        for (int i = 0; i < titles.length; i++) {
+            titles[i] = TITLE_WORDS[i % TITLE_WORDS.length] + " " + (i / TITLE_WORDS.length + 1);
+        }
+        locations = new String[Math.max(1, (int) Math.sqrt(titles.length))];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = "Room " + (100 + i);
+        }
+    }
+
+    /**
+     * Sets the days the generated schedule covers.
+     *
+     * @param firstDay the first day
+     * @param spanDays the number of days
+     */
+    public void setSpan(LocalDate firstDay, int spanDays) {
+        this.firstDay = firstDay;
+        this.spanDays = Math.max(1, spanDays);
+    }
+
+    /**
+     * Adds events to a schedule until the configured number were accepted, or until ten
+     * times that many placements were tried.
+     *
+     * @param schedule the schedule to fill
+     * @return the number of events added
+     */
+    public int generate(Schedule schedule) {
+        int added = 0;
+        long attempts = 0;
+        long rejected = 0;
+        long started = System.nanoTime();
+        while (added < eventCount && attempts < 10L * eventCount) {
+            List<Event> batch = random.nextDouble() < recurringShare
+                ? nextSeries().generateOccurrences()
+                : List.of(nextEvent());
+            for (Event event : batch) {
+                if (added >= eventCount) break;
+                attempts++;
+                if (schedule.addEvent(event)) {
+                    placed.add(event);
+                    added++;
+                } else {
+                    rejected++;
+                }
+            }
+        }
+        LOGGER.info(String.format("Generated %d events (%d rejected as overlapping) in %d ms",
+            added, rejected, (System.nanoTime() - started) / 1_000_000));
+        return added;
+    }
+
+    /**
+     * Creates one single event. With the configured overlap density it is placed on top of
+     * an event added earlier.
+     *
+     * @return the event
+     */
+    public Event nextEvent() {
+        if (!placed.isEmpty() && random.nextDouble() < overlapDensity) {
+            Event target = placed.get(random.nextInt(placed.size()));
+            LocalDateTime start = target.getStart().plusMinutes(15L * random.nextInt(2));
+            return new Event(nextTitle(), start, start.plusMinutes(30), nextLocation());
+        }
+        LocalDate day = nextWorkday();
+        LocalDateTime start = day.atTime(8 + random.nextInt(10), 15 * random.nextInt(4));
+        LocalDateTime end = random.nextDouble() < multiDayShare
+            ? day.plusDays(1 + random.nextInt(4)).atTime(17, 0)
+            : start.plusMinutes(15L * (1 + random.nextInt(8)));
+        return new Event(nextTitle(), start, end, nextLocation());
+    }
+
+    /**
+     * Creates one recurring series: weekly on one to three days, or monthly, with five to
+     * twenty occurrences.
+     *
+     * @return the series
+     */
+    public RecurringEvent nextSeries() {
+        LocalDate day = nextWorkday();
+        RecurrenceRule rule;
+        if (random.nextInt(5) == 0) {
+            rule = RecurrenceRule.monthlyByWeekday(day, 1, 1 + random.nextInt(4), day.getDayOfWeek());
+        } else {
+            int dayCount = 1 + random.nextInt(3);
+            DayOfWeek[] days = new DayOfWeek[dayCount];
+            for (int i = 0; i < dayCount; i++) {
+                days[i] = DayOfWeek.of(1 + random.nextInt(5));
+            }
+            rule = RecurrenceRule.weekly(day, 1 + random.nextInt(2), days);
+        }
+        rule = rule.withCount(5 + random.nextInt(16));
+        LocalTime time = LocalTime.of(8 + random.nextInt(10), 15 * random.nextInt(4));
+        return new RecurringEvent(nextTitle(), day.atTime(time),
+            day.atTime(time).plusMinutes(15L * (2 + random.nextInt(6))), nextLocation(), rule);
+    }
+
+    /**
+     * Picks a title, favouring the first titles so that a few are very common.
+     *
+     * @return the title
+     */
+    public String nextTitle() {
+        double skewed = random.nextDouble();
+        return titles[(int) (skewed * skewed * skewed * titles.length)];
+    }
+
+    /**
+     * Picks a location.
+     *
+     * @return the location
+     */
+    public String nextLocation() {
+        return locations[random.nextInt(locations.length)];
+    }
+
+    /**
+     * Picks a day within the span, moving weekends to the following Monday nine times out of ten.
+     *
+     * @return the day
+     */
+    public LocalDate nextWorkday() {
+        LocalDate day = firstDay.plusDays(random.nextInt(spanDays));
+        if (day.getDayOfWeek().getValue() > 5 && random.nextInt(10) != 0) {
+            day = day.with(java.time.temporal.TemporalAdjusters.next(DayOfWeek.MONDAY));
+        }
+        return day;
+    }
+
+    /**
+     * Picks one of the events added so far.
+     *
+     * @return an event, or null if none were added
+     */
+    public Event randomPlacedEvent() {
+        return placed.isEmpty() ? null : placed.get(random.nextInt(placed.size()));
+    }
+
+    /**
+     * Generates a schedule and writes it to an event store.
+     *
+     * @param args the number of events, the base path of the store and the seed, all optional
+     * @throws IOException if the store cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path store = Paths.get(args.length > 1 ? args[1] : "schedule_store");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        generator.setEventCount(events);
+        generator.setSpan(LocalDate.now().minusYears(1), Math.max(365, events / 4));
+        Schedule schedule = new Schedule("Generated");
+        generator.generate(schedule);
+        try (MappedEventStore out = MappedEventStore.create(store, schedule.getEvents())) {
+            System.out.println("Wrote " + out.size() + " events to " + store);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Places repeated sessions of a task into the free time of a schedule.
+ * Existing events are fixed blockers. A greedy pass first spreads the sessions
+ * round-robin over the allowed days, taking the earliest free slot on each day.
+ * Several local searches then run in parallel, each moving single sessions to other
+ * free slots while that lowers the cost, until the time budget runs out. The best
+ * result is returned.
+ * <p>
+ * The cost prefers an even number of sessions per day, and then earlier start times.
+ * Sessions start on a {@value #SLOT_MINUTES}-minute grid.
+ * <p>
+ * The schedule is read once, in a single query under its lock, and the search works on
+ * that snapshot, so the solver can run on any thread without holding the lock. Events
+ * added meanwhile are not seen, so the sessions are checked again when they are added.
+ */
+public class AutoScheduler {
+    /** Granularity of session start times in minutes. */
+    public static final int SLOT_MINUTES = 15;
+    /** Minutes in one day. */
+    private static final int DAY_MINUTES = 24 * 60;
+    /** Cost weight of the squared number of sessions on a day. */
+    private static final long DAY_LOAD_WEIGHT = 1000;
+    /** Maximum number of moves tried by one local search. */
+    private static final int MAX_MOVES = 200_000;
+    /** The schedule whose events block time. */
+    private final Schedule schedule;
+
+    /**
+     * Creates a scheduler for the given schedule.
+     *
+     * @param schedule the schedule whose events are treated as fixed
+     */
+    public AutoScheduler(Schedule schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Places the sessions of a task within the constraints.
+     * The returned events do not overlap each other or any event in the schedule,
+     * so each can be passed to {@link Schedule#addEvent}. If there is not enough free
+     * time, fewer sessions than requested are returned.
+     *
+     * @param task        the task to place
+     * @param constraints where sessions may be placed
+     * @param budget      the maximum time to spend improving the placement
+     * @return the placed sessions, ordered by start time
+     */
+    public List<Event> schedule(SchedulingTask task, SchedulingConstraints constraints, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        LocalDateTime origin = constraints.getFirstDate().atStartOfDay();
+        int days = (int) ChronoUnit.DAYS.between(constraints.getFirstDate(), constraints.getLastDate()) + 1;
+        int length = (int) task.getDuration().toMinutes();
+        int earliest = constraints.getEarliestStart().toSecondOfDay() / 60;
+
+        int[][] candidates = freeStarts(origin, days, length, constraints);
+        int[] greedy = greedy(candidates, task.getCount(), length, constraints.getMaxPerDay());
+
+        Problem problem = new Problem(candidates, length, constraints.getMaxPerDay(), earliest, days);
+        int[] best = greedy;
+        if (greedy.length > 1 && System.nanoTime() < deadline) {
+            int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+            best = IntStream.range(0, workers).parallel()
+                .mapToObj(seed -> problem.improve(greedy.clone(), new Random(seed), deadline))
+                .min(Comparator.comparingLong(problem::cost))
+                .orElse(greedy);
+        }
+
+        List<Event> sessions = new ArrayList<>();
+        int[] sorted = best.clone();
+        Arrays.sort(sorted);
+        for (int start : sorted) {
+            LocalDateTime s = origin.plusMinutes(start);
+            sessions.add(new Event(task.getTitle(), s, s.plusMinutes(length), task.getLocation()));
+        }
+        return sessions;
+    }
+
+    /**
+     * Lists for each day the start minutes, counted from the window origin, at which a
+     * session fits within the allowed hours without overlapping an existing event.
+     *
+     * @param origin      the start of the first day
+     * @param days        the number of days in the window
+     * @param length      the session length in minutes
+     * @param constraints the daily time limits
+     * @return the free start minutes of each day, in increasing order
+     */
+    private int[][] freeStarts(LocalDateTime origin, int days, int length, SchedulingConstraints constraints) {
+        LocalDateTime windowEnd = origin.plusDays(days);
+        List<long[]> blockers = new ArrayList<>();
+        for (Event e : schedule.query().between(origin, windowEnd).list()) {
+            blockers.add(new long[]{
+                ChronoUnit.MINUTES.between(origin, e.getStart()),
+                ChronoUnit.MINUTES.between(origin, e.getEnd())
+            });
+        }
+        blockers.sort(Comparator.comparingLong(b -> b[0]));
+
+        int earliest = constraints.getEarliestStart().toSecondOfDay() / 60;
+        int latest = constraints.getLatestEnd().toSecondOfDay() / 60;
+        int firstSlot = (earliest + SLOT_MINUTES - 1) / SLOT_MINUTES * SLOT_MINUTES;
+        int[][] candidates = new int[days][];
+        int blockerIndex = 0;
+        for (int day = 0; day < days; day++) {
+            int dayStart = day * DAY_MINUTES;
+            while (blockerIndex < blockers.size() && blockers.get(blockerIndex)[1] <= dayStart) {
+                blockerIndex++;
+            }
+            List<Integer> starts = new ArrayList<>();
+            for (int minute = firstSlot; minute + length <= latest; minute += SLOT_MINUTES) {
+                long s = dayStart + minute;
+                long e = s + length;
+                boolean free = true;
+                for (int b = blockerIndex; b < blockers.size() && blockers.get(b)[0] < e; b++) {
+                    if (blockers.get(b)[1] > s) {
+                        free = false;
+                        break;
+                    }
+                }
+                if (free) starts.add((int) s);
+            }
+            candidates[day] = starts.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return candidates;
+    }
+
+    /**
+     * Spreads sessions round-robin over the days, taking the earliest free slot each time.
+     *
+     * @param candidates the free start minutes of each day
+     * @param count      the number of sessions wanted
+     * @param length     the session length in minutes
+     * @param maxPerDay  the maximum number of sessions on one day
+     * @return the start minutes of the placed sessions
+     */
+    private static int[] greedy(int[][] candidates, int count, int length, int maxPerDay) {
+        List<Integer> placed = new ArrayList<>();
+        List<List<Integer>> byDay = new ArrayList<>();
+        for (int day = 0; day < candidates.length; day++) {
+            byDay.add(new ArrayList<>());
+        }
+        for (int round = 0; round < maxPerDay && placed.size() < count; round++) {
+            for (int day = 0; day < candidates.length && placed.size() < count; day++) {
+                for (int start : candidates[day]) {
+                    if (!overlaps(byDay.get(day), start, length)) {
+                        byDay.get(day).add(start);
+                        placed.add(start);
+                        break;
+                    }
+                }
+            }
+        }
+        return placed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Checks whether a session overlaps any of the given sessions.
+     *
+     * @param starts the start minutes of the other sessions
+     * @param start  the start minute of the session to check
+     * @param length the session length in minutes
+     * @return true if they overlap
+     */
+    private static boolean overlaps(List<Integer> starts, int start, int length) {
+        for (int other : starts) {
+            if (start < other + length && other < start + length) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The fixed data of one scheduling run, shared read-only by the parallel searches.
+     */
+    private static class Problem {
+        /** Free start minutes of each day. */
+        private final int[][] candidates;
+        /** Session length in minutes. */
+        private final int length;
+        /** Maximum number of sessions on one day. */
+        private final int maxPerDay;
+        /** Earliest allowed start, in minutes after midnight. */
+        private final int earliest;
+        /** Number of days in the window. */
+        private final int days;
+
+        /**
+         * Creates the problem description.
+         *
+         * @param candidates the free start minutes of each day
+         * @param length     the session length in minutes
+         * @param maxPerDay  the maximum number of sessions on one day
+         * @param earliest   the earliest allowed start in minutes after midnight
+         * @param days       the number of days in the window
+         */
+        Problem(int[][] candidates, int length, int maxPerDay, int earliest, int days) {
+            this.candidates = candidates;
+            this.length = length;
+            this.maxPerDay = maxPerDay;
+            this.earliest = earliest;
+            this.days = days;
+        }
+
+        /**
+         * Computes the cost of a placement: squared daily loads, then lateness in the day.
+         *
+         * @param starts the start minutes of the sessions
+         * @return the cost, lower is better
+         */
+        long cost(int[] starts) {
+            int[] perDay = new int[days];
+            long cost = 0;
+            for (int start : starts) {
+                perDay[start / DAY_MINUTES]++;
+                cost += lateness(start);
+            }
+            for (int load : perDay) {
+                cost += DAY_LOAD_WEIGHT * load * load;
+            }
+            return cost;
+        }
+
+        /**
+         * Gets how far after the earliest allowed time a session starts, in slots.
+         *
+         * @param start the start minute of the session
+         * @return the number of slots after the earliest start
+         */
+        private long lateness(int start) {
+            return Math.max(0, start % DAY_MINUTES - earliest) / SLOT_MINUTES;
+        }
+
+        /**
+         * Improves a placement by moving single sessions to other free slots while that
+         * lowers the cost, until the deadline passes or the move limit is reached.
+         *
+         * @param starts   the placement to improve; it is modified in place
+         * @param random   the source of random moves
+         * @param deadline the {@link System#nanoTime()} value at which to stop
+         * @return the improved placement
+         */
+        int[] improve(int[] starts, Random random, long deadline) {
+            int[] perDay = new int[days];
+            for (int start : starts) {
+                perDay[start / DAY_MINUTES]++;
+            }
+            for (int move = 0; move < MAX_MOVES; move++) {
+                if ((move & 255) == 0 && System.nanoTime() >= deadline) break;
+
+                int task = random.nextInt(starts.length);
+                int day = random.nextInt(days);
+                if (candidates[day].length == 0) continue;
+                int target = candidates[day][random.nextInt(candidates[day].length)];
+                int oldDay = starts[task] / DAY_MINUTES;
+                if (day != oldDay && perDay[day] >= maxPerDay) continue;
+                if (collides(starts, task, target)) continue;
+
+                long delta = lateness(target) - lateness(starts[task]);
+                if (day != oldDay) {
+                    delta += DAY_LOAD_WEIGHT * (2L * perDay[day] + 1 - (2L * perDay[oldDay] - 1));
+                }
+                if (delta < 0) {
+                    perDay[oldDay]--;
+                    perDay[day]++;
+                    starts[task] = target;
+                }
+            }
+            return starts;
+        }
+
+        /**
+         * Checks whether moving a session to a new start would overlap another session.
+         *
+         * @param starts the start minutes of all sessions
+         * @param task   the index of the session being moved
+         * @param target the new start minute
+         * @return true if the move would cause an overlap
+         */
+        private boolean collides(int[] starts, int task, int target) {
+            for (int i = 0; i < starts.length; i++) {
+                if (i != task && target < starts[i] + length && starts[i] < target + length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
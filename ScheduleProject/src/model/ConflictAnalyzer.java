@@ -0,0 +1,318 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Finds every pair of overlapping events in a schedule, for auditing schedules that were
+ * imported or merged without overlap checks.
+ * <p>
+ * Two zoned events overlap if their instants do; any other two events overlap if their
+ * wall-clock times do. The pairs are found with two sweep lines. The first passes over all
+ * events in order of wall-clock start and finds the pairs that involve a plain event; the
+ * second passes over the zoned events in order of start instant and finds the pairs of
+ * zoned events. Each sweep keeps the events still running in heaps ordered by end on its
+ * own time line, drops the events that ended before the next one starts, and reports every
+ * event left that the next one can overlap: a plain event is checked against every running
+ * event, and a zoned event only against running plain events in the first sweep. Sorting
+ * takes O(n log n), each event enters and leaves each heap at most once, and every event
+ * checked in a heap is a reported pair, so the analysis takes O(n log n + k) time for k
+ * overlapping pairs. Clusters are the connected groups of the pairs, joined with a
+ * union-find, and their contested time is measured by instant, reading plain events in
+ * the system zone.
+ */
+public class ConflictAnalyzer {
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private ConflictAnalyzer() {
+    }
+
+    /**
+     * Analyses the events of a schedule, archived ones included.
+     *
+     * @param schedule the schedule to analyse
+     * @return the report
+     */
+    public static ConflictReport analyze(Schedule schedule) {
+        return analyze(schedule.getAllEvents());
+    }
+
+    /**
+     * Analyses a collection of events. Events without a start or end are ignored.
+     *
+     * @param events the events to analyse, in any order
+     * @return the report
+     */
+    public static ConflictReport analyze(Collection<Event> events) {
+        Event[] sorted = events.stream()
+            .filter(e -> e != null && e.getStart() != null && e.getEnd() != null)
+            .sorted(Comparator.comparing(Event::getStart))
+            .toArray(Event[]::new);
+
+        List<int[]> pairs = new ArrayList<>();
+        sweepWallClock(sorted, pairs);
+        sweepInstants(sorted, pairs);
+
+        // Order the pairs by the start of the later event with a counting sort, in O(n + k).
+        int[] firstPairOf = new int[sorted.length + 1];
+        for (int[] pair : pairs) {
+            firstPairOf[pair[1] + 1]++;
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            firstPairOf[i + 1] += firstPairOf[i];
+        }
+        int[][] ordered = new int[pairs.size()][];
+        for (int[] pair : pairs) {
+            ordered[firstPairOf[pair[1]]++] = pair;
+        }
+
+        int[] parent = new int[sorted.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        List<ConflictReport.Conflict> conflicts = new ArrayList<>(ordered.length);
+        for (int[] pair : ordered) {
+            conflicts.add(conflict(sorted[pair[0]], sorted[pair[1]]));
+            union(parent, pair[0], pair[1]);
+        }
+
+        // Group the events that took part in a conflict by their union-find root.
+        int[] clusterOfRoot = new int[sorted.length];
+        Arrays.fill(clusterOfRoot, -1);
+        List<List<Event>> members = new ArrayList<>();
+        boolean[] involved = new boolean[sorted.length];
+        for (int[] pair : ordered) {
+            involved[pair[0]] = true;
+            involved[pair[1]] = true;
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            if (!involved[i]) continue;
+            int root = find(parent, i);
+            if (clusterOfRoot[root] < 0) {
+                clusterOfRoot[root] = members.size();
+                members.add(new ArrayList<>());
+            }
+            members.get(clusterOfRoot[root]).add(sorted[i]);
+        }
+        int[] pairsAt = new int[members.size()];
+        for (int k = 0; k < conflicts.size(); k++) {
+            int cluster = clusterOfRoot[find(parent, ordered[k][0])];
+            conflicts.get(k).setCluster(cluster);
+            pairsAt[cluster]++;
+        }
+        List<ConflictReport.Cluster> clusters = new ArrayList<>(members.size());
+        for (int c = 0; c < members.size(); c++) {
+            clusters.add(cluster(members.get(c), pairsAt[c]));
+        }
+        return new ConflictReport(conflicts, clusters, sorted.length);
+    }
+
+    /**
+     * Finds the overlapping pairs that involve a plain event, comparing wall-clock times.
+     * Plain and zoned events running are kept in separate heaps, so that a zoned event is
+     * only checked against plain ones.
+     *
+     * @param sorted the events, ordered by wall-clock start
+     * @param pairs  receives each pair as the indexes of the earlier and the later event
+     */
+    private static void sweepWallClock(Event[] sorted, List<int[]> pairs) {
+        Comparator<Integer> byEnd = Comparator.comparing((Integer i) -> sorted[i].getEnd());
+        PriorityQueue<Integer> plainRunning = new PriorityQueue<>(byEnd);
+        PriorityQueue<Integer> zonedRunning = new PriorityQueue<>(byEnd);
+        for (int i = 0; i < sorted.length; i++) {
+            Event event = sorted[i];
+            while (!plainRunning.isEmpty() && !sorted[plainRunning.peek()].getEnd().isAfter(event.getStart())) {
+                plainRunning.poll();
+            }
+            while (!zonedRunning.isEmpty() && !sorted[zonedRunning.peek()].getEnd().isAfter(event.getStart())) {
+                zonedRunning.poll();
+            }
+            boolean zoned = event instanceof ZonedEvent;
+            addOverlaps(sorted, plainRunning, i, pairs);
+            if (!zoned) {
+                addOverlaps(sorted, zonedRunning, i, pairs);
+            }
+            (zoned ? zonedRunning : plainRunning).add(i);
+        }
+    }
+
+    /**
+     * Finds the overlapping pairs of zoned events, comparing instants.
+     *
+     * @param sorted the events, ordered by wall-clock start
+     * @param pairs  receives each pair as the indexes of the event starting first and the
+     *               event starting second by wall clock
+     */
+    private static void sweepInstants(Event[] sorted, List<int[]> pairs) {
+        Integer[] zoned = IntStream.range(0, sorted.length)
+            .filter(i -> sorted[i] instanceof ZonedEvent)
+            .boxed()
+            .sorted(Comparator.comparingLong((Integer i) -> ((ZonedEvent) sorted[i]).getStartEpochSecond()))
+            .toArray(Integer[]::new);
+        PriorityQueue<Integer> running = new PriorityQueue<>(
+            Comparator.comparingLong((Integer i) -> ((ZonedEvent) sorted[i]).getEndEpochSecond()));
+        for (int i : zoned) {
+            long start = ((ZonedEvent) sorted[i]).getStartEpochSecond();
+            while (!running.isEmpty() && ((ZonedEvent) sorted[running.peek()]).getEndEpochSecond() <= start) {
+                running.poll();
+            }
+            for (int j : running) {
+                if (sorted[j].overlaps(sorted[i])) {
+                    pairs.add(new int[]{Math.min(i, j), Math.max(i, j)});
+                }
+            }
+            running.add(i);
+        }
+    }
+
+    /**
+     * Records the running events that overlap an event.
+     *
+     * @param sorted  the events, ordered by wall-clock start
+     * @param running the running events, all starting no later than the event
+     * @param i       the index of the event
+     * @param pairs   receives each pair as the indexes of the earlier and the later event
+     */
+    private static void addOverlaps(Event[] sorted, PriorityQueue<Integer> running, int i, List<int[]> pairs) {
+        for (int j : running) {
+            if (sorted[j].overlaps(sorted[i])) {
+                pairs.add(new int[]{j, i});
+            }
+        }
+    }
+
+    /**
+     * Describes the overlap of two events.
+     *
+     * @param earlier the event starting first
+     * @param later   the event starting second
+     * @return the conflict
+     */
+    private static ConflictReport.Conflict conflict(Event earlier, Event later) {
+        Duration overlap;
+        LocalDateTime overlapStart;
+        if (earlier instanceof ZonedEvent && later instanceof ZonedEvent) {
+            ZonedEvent a = (ZonedEvent) earlier;
+            ZonedEvent b = (ZonedEvent) later;
+            long start = Math.max(a.getStartEpochSecond(), b.getStartEpochSecond());
+            long end = Math.min(a.getEndEpochSecond(), b.getEndEpochSecond());
+            overlap = Duration.ofSeconds(end - start);
+            overlapStart = b.getStart().plusSeconds(start - b.getStartEpochSecond());
+        } else {
+            overlapStart = later.getStart();
+            LocalDateTime end = earlier.getEnd().isBefore(later.getEnd()) ? earlier.getEnd() : later.getEnd();
+            overlap = Duration.between(overlapStart, end);
+        }
+        return new ConflictReport.Conflict(earlier, later, overlapStart, overlap);
+    }
+
+    /**
+     * Summarises a cluster by sweeping over its start and end instants.
+     *
+     * @param events    the events of the cluster, ordered by start
+     * @param pairCount the number of overlapping pairs in the cluster
+     * @return the cluster
+     */
+    private static ConflictReport.Cluster cluster(List<Event> events, int pairCount) {
+        long[] starts = new long[events.size()];
+        long[] ends = new long[events.size()];
+        Event first = events.get(0);
+        Event last = events.get(0);
+        for (int i = 0; i < starts.length; i++) {
+            Event event = events.get(i);
+            starts[i] = startSecond(event);
+            ends[i] = endSecond(event);
+            if (starts[i] < startSecond(first)) first = event;
+            if (ends[i] > endSecond(last)) last = event;
+        }
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+        long contested = 0;
+        int depth = 0;
+        int peak = 0;
+        long previous = 0;
+        int s = 0;
+        int e = 0;
+        while (e < ends.length) {
+            // Ends are taken before starts at the same time, since events touching end to start do not overlap.
+            boolean isStart = s < starts.length && starts[s] < ends[e];
+            long next = isStart ? starts[s] : ends[e];
+            if (depth >= 2) {
+                contested += next - previous;
+            }
+            if (isStart) {
+                depth++;
+                s++;
+            } else {
+                depth--;
+                e++;
+            }
+            peak = Math.max(peak, depth);
+            previous = next;
+        }
+        return new ConflictReport.Cluster(events, pairCount, first.getStart(), last.getEnd(),
+            Duration.ofSeconds(contested), peak);
+    }
+
+    /**
+     * Gets the start of an event as an instant. Plain events are read in the system zone.
+     *
+     * @param event the event
+     * @return the start in epoch seconds
+     */
+    private static long startSecond(Event event) {
+        if (event instanceof ZonedEvent) return ((ZonedEvent) event).getStartEpochSecond();
+        return event.getStart().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Gets the end of an event as an instant, read as by {@link #startSecond}.
+     *
+     * @param event the event
+     * @return the end in epoch seconds
+     */
+    private static long endSecond(Event event) {
+        if (event instanceof ZonedEvent) return ((ZonedEvent) event).getEndEpochSecond();
+        return event.getEnd().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Finds the root of an element in the union-find, halving paths on the way.
+     *
+     * @param parent the parent of each element
+     * @param i      the element
+     * @return the root
+     */
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Joins the groups of two elements in the union-find.
+     *
+     * @param parent the parent of each element
+     * @param a      one element
+     * @param b      the other element
+     */
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The overlapping events of a schedule, as found by {@link ConflictAnalyzer}: every pair
+ * of events that share time, and the clusters of events linked by such pairs.
+ */
+public class ConflictReport {
+    /** Every overlapping pair, ordered by the start of the later event. */
+    private final List<Conflict> conflicts;
+    /** Every cluster, ordered by start. */
+    private final List<Cluster> clusters;
+    /** Number of events analysed. */
+    private final int eventCount;
+
+    /**
+     * Creates a report.
+     *
+     * @param conflicts  the overlapping pairs
+     * @param clusters   the clusters
+     * @param eventCount the number of events analysed
+     */
+    ConflictReport(List<Conflict> conflicts, List<Cluster> clusters, int eventCount) {
+        this.conflicts = Collections.unmodifiableList(conflicts);
+        this.clusters = Collections.unmodifiableList(clusters);
+        this.eventCount = eventCount;
+    }
+
+    /**
+     * Gets every pair of overlapping events.
+     *
+     * @return the pairs, ordered by the start of the later event
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Gets the clusters of events linked by overlaps.
+     *
+     * @return the clusters, ordered by start
+     */
+    public List<Cluster> getClusters() {
+        return clusters;
+    }
+
+    /**
+     * Gets the number of events that were analysed.
+     *
+     * @return the event count
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Two events that share time.
+     */
+    public static class Conflict {
+        /** The event starting first. */
+        private final Event first;
+        /** The event starting second. */
+        private final Event second;
+        /** When the shared time begins. */
+        private final LocalDateTime overlapStart;
+        /** How long the events share. */
+        private final Duration overlap;
+        /** Position of the pair's cluster in the report. */
+        private int cluster;
+
+        /**
+         * Creates a conflict.
+         *
+         * @param first        the event starting first
+         * @param second       the event starting second
+         * @param overlapStart when the shared time begins
+         * @param overlap      how long the events share
+         */
+        Conflict(Event first, Event second, LocalDateTime overlapStart, Duration overlap) {
+            this.first = first;
+            this.second = second;
+            this.overlapStart = overlapStart;
+            this.overlap = overlap;
+        }
+
+        /**
+         * Gets the event starting first.
+         *
+         * @return the first event
+         */
+        public Event getFirst() {
+            return first;
+        }
+
+        /**
+         * Gets the event starting second.
+         *
+         * @return the second event
+         */
+        public Event getSecond() {
+            return second;
+        }
+
+        /**
+         * Gets when the shared time begins, in the wall-clock time of the second event.
+         *
+         * @return the start of the overlap
+         */
+        public LocalDateTime getOverlapStart() {
+            return overlapStart;
+        }
+
+        /**
+         * Gets how long the two events share.
+         *
+         * @return the length of the overlap
+         */
+        public Duration getOverlap() {
+            return overlap;
+        }
+
+        /**
+         * Gets the position of the cluster holding both events.
+         *
+         * @return the cluster index in {@link ConflictReport#getClusters()}
+         */
+        public int getCluster() {
+            return cluster;
+        }
+
+        /**
+         * Sets the position of the cluster holding both events.
+         *
+         * @param cluster the cluster index
+         */
+        void setCluster(int cluster) {
+            this.cluster = cluster;
+        }
+    }
+
+    /**
+     * A group of events in which each event overlaps at least one other, directly or
+     * through other events of the group.
+     */
+    public static class Cluster {
+        /** The events, ordered by start. */
+        private final List<Event> events;
+        /** Number of overlapping pairs among the events. */
+        private final int pairCount;
+        /** The earliest start of the events. */
+        private final LocalDateTime start;
+        /** The latest end of the events. */
+        private final LocalDateTime end;
+        /** Time during which at least two of the events run. */
+        private final Duration contestedTime;
+        /** Largest number of the events running at once. */
+        private final int peak;
+
+        /**
+         * Creates a cluster.
+         *
+         * @param events        the events, ordered by start
+         * @param pairCount     the number of overlapping pairs
+         * @param start         the earliest start
+         * @param end           the latest end
+         * @param contestedTime the time during which at least two events run
+         * @param peak          the largest number of events running at once
+         */
+        Cluster(List<Event> events, int pairCount, LocalDateTime start, LocalDateTime end,
+                Duration contestedTime, int peak) {
+            this.events = Collections.unmodifiableList(events);
+            this.pairCount = pairCount;
+            this.start = start;
+            this.end = end;
+            this.contestedTime = contestedTime;
+            this.peak = peak;
+        }
+
+        /**
+         * Gets the events of the cluster.
+         *
+         * @return the events, ordered by start
+         */
+        public List<Event> getEvents() {
+            return events;
+        }
+
+        /**
+         * Gets the number of overlapping pairs in the cluster.
+         *
+         * @return the pair count
+         */
+        public int getPairCount() {
+            return pairCount;
+        }
+
+        /**
+         * Gets the earliest start of the cluster's events.
+         *
+         * @return the start
+         */
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        /**
+         * Gets the latest end of the cluster's events.
+         *
+         * @return the end
+         */
+        public LocalDateTime getEnd() {
+            return end;
+        }
+
+        /**
+         * Gets the time during which at least two of the cluster's events run.
+         *
+         * @return the contested time
+         */
+        public Duration getContestedTime() {
+            return contestedTime;
+        }
+
+        /**
+         * Gets the largest number of the cluster's events running at the same time.
+         *
+         * @return the peak
+         */
+        public int getPeak() {
+            return peak;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keeps running per-day totals of busy minutes and event counts for a schedule.
+ * The totals are stored in Fenwick (binary indexed) trees indexed by day, so the
+ * total for any range of days is computed in O(log n) and a change to one event
+ * costs O(log n) per day it covers. The totals are updated from schedule change
+ * notifications, so they never require a scan of the schedule after construction.
+ * <p>
+ * Busy minutes of an event that spans midnight are split between the days it covers.
+ * An event is counted once, on the day it starts.
+ */
+public class DayAggregates implements ScheduleListener {
+    /** Number of days covered when the first event is recorded. */
+    private static final int INITIAL_CAPACITY = 512;
+    /** Epoch day of the first tracked day. */
+    private long baseDay;
+    /** Number of tracked days. */
+    private int capacity;
+    /** Busy minutes per day, indexed from the base day. */
+    private long[] minutes;
+    /** Event counts per day, indexed from the base day. */
+    private long[] counts;
+    /** Fenwick tree over {@link #minutes}. */
+    private long[] minutesTree;
+    /** Fenwick tree over {@link #counts}. */
+    private long[] countsTree;
+
+    /**
+     * Creates aggregates for the current contents of a schedule and keeps them up to date.
+     *
+     * @param schedule the schedule to track
+     */
+    public DayAggregates(Schedule schedule) {
+        synchronized (schedule) {
+            synchronized (this) {
+                for (Event event : schedule.getEvents()) {
+                    record(event, 1);
+                }
+            }
+            schedule.addScheduleListener(this);
+        }
+    }
+
+    /**
+     * Updates the totals for a schedule change. Archived events stay counted, since they
+     * remain part of the schedule's history.
+     *
+     * @param change the changes made to the schedule
+     */
+    @Override
+    public synchronized void scheduleChanged(ScheduleChange change) {
+        for (Event event : change.getAdded()) {
+            record(event, 1);
+        }
+        for (Event event : change.getRemoved()) {
+            record(event, -1);
+        }
+        for (ScheduleChange.Modification m : change.getModified()) {
+            record(m.getPrevious(), -1);
+            record(m.getEvent(), 1);
+        }
+    }
+
+    /**
+     * Gets the busy minutes on one day.
+     *
+     * @param date the day
+     * @return the number of minutes covered by events on that day
+     */
+    public synchronized long getBusyMinutes(LocalDate date) {
+        int i = indexOf(date.toEpochDay());
+        return i < 0 ? 0 : minutes[i];
+    }
+
+    /**
+     * Gets the number of events starting on one day.
+     *
+     * @param date the day
+     * @return the number of events starting that day
+     */
+    public synchronized long getEventCount(LocalDate date) {
+        int i = indexOf(date.toEpochDay());
+        return i < 0 ? 0 : counts[i];
+    }
+
+    /**
+     * Gets the busy minutes over a range of days in O(log n).
+     *
+     * @param from the first day, inclusive
+     * @param to   the last day, inclusive
+     * @return the number of busy minutes in the range
+     */
+    public synchronized long getBusyMinutes(LocalDate from, LocalDate to) {
+        return rangeSum(minutesTree, from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Gets the number of events starting in a range of days in O(log n).
+     *
+     * @param from the first day, inclusive
+     * @param to   the last day, inclusive
+     * @return the number of events starting in the range
+     */
+    public synchronized long getEventCount(LocalDate from, LocalDate to) {
+        return rangeSum(countsTree, from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Gets the largest number of busy minutes on any single day in a range.
+     *
+     * @param from the first day, inclusive
+     * @param to   the last day, inclusive
+     * @return the maximum daily busy minutes
+     */
+    public synchronized long getMaxDailyMinutes(LocalDate from, LocalDate to) {
+        long max = 0;
+        for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+            int i = indexOf(day);
+            if (i >= 0) max = Math.max(max, minutes[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Adds or subtracts an event's contribution to the totals.
+     *
+     * @param event the event
+     * @param sign  1 to add the event, -1 to subtract it
+     */
+    private void record(Event event, int sign) {
+        LocalDateTime start = event.getStart();
+        LocalDateTime end = event.getEnd();
+        if (start == null || end == null || end.isBefore(start)) return;
+
+        long firstDay = start.toLocalDate().toEpochDay();
+        long lastDay = end.toLocalDate().toEpochDay();
+        ensureRange(firstDay, lastDay);
+        update(firstDay, 0, sign);
+
+        LocalDateTime dayStart = start;
+        for (long day = firstDay; day <= lastDay; day++) {
+            LocalDateTime nextDay = LocalDate.ofEpochDay(day + 1).atStartOfDay();
+            LocalDateTime dayEnd = end.isBefore(nextDay) ? end : nextDay;
+            long dayMinutes = ChronoUnit.MINUTES.between(dayStart, dayEnd);
+            if (dayMinutes > 0) {
+                update(day, sign * dayMinutes, 0);
+            }
+            dayStart = nextDay;
+        }
+    }
+
+    /**
+     * Adds values to one day in both the point arrays and the trees.
+     *
+     * @param day          the epoch day
+     * @param minutesDelta the change in busy minutes
+     * @param countDelta   the change in event count
+     */
+    private void update(long day, long minutesDelta, long countDelta) {
+        int i = indexOf(day);
+        minutes[i] += minutesDelta;
+        counts[i] += countDelta;
+        for (int node = i + 1; node <= capacity; node += node & -node) {
+            minutesTree[node] += minutesDelta;
+            countsTree[node] += countDelta;
+        }
+    }
+
+    /**
+     * Sums a tree over a range of epoch days, clipped to the tracked range.
+     *
+     * @param tree the Fenwick tree to read
+     * @param from the first epoch day, inclusive
+     * @param to   the last epoch day, inclusive
+     * @return the sum over the range
+     */
+    private long rangeSum(long[] tree, long from, long to) {
+        if (tree == null || to < from) return 0;
+        long first = Math.max(from - baseDay, 0);
+        long last = Math.min(to - baseDay, capacity - 1);
+        if (first > last) return 0;
+        return prefixSum(tree, (int) last) - prefixSum(tree, (int) first - 1);
+    }
+
+    /**
+     * Sums a tree from the first tracked day up to an index.
+     *
+     * @param tree the Fenwick tree to read
+     * @param i    the last index, inclusive; -1 for an empty sum
+     * @return the prefix sum
+     */
+    private long prefixSum(long[] tree, int i) {
+        long sum = 0;
+        for (int node = i + 1; node > 0; node -= node & -node) {
+            sum += tree[node];
+        }
+        return sum;
+    }
+
+    /**
+     * Converts an epoch day to an array index.
+     *
+     * @param day the epoch day
+     * @return the index, or -1 if the day is not tracked
+     */
+    private int indexOf(long day) {
+        if (minutes == null || day < baseDay || day >= baseDay + capacity) return -1;
+        return (int) (day - baseDay);
+    }
+
+    /**
+     * Grows the tracked range so it includes the given days, rebuilding the trees
+     * in linear time. The range at least doubles each time, so growth is amortised.
+     *
+     * @param firstDay the first epoch day that must be tracked
+     * @param lastDay  the last epoch day that must be tracked
+     */
+    private void ensureRange(long firstDay, long lastDay) {
+        if (minutes == null) {
+            baseDay = firstDay - INITIAL_CAPACITY / 2;
+            capacity = (int) Math.max(INITIAL_CAPACITY, lastDay - baseDay + 1);
+            minutes = new long[capacity];
+            counts = new long[capacity];
+            minutesTree = new long[capacity + 1];
+            countsTree = new long[capacity + 1];
+            return;
+        }
+        if (firstDay >= baseDay && lastDay < baseDay + capacity) return;
+
+        long newBase = Math.min(baseDay, firstDay - capacity / 2);
+        long newEnd = Math.max(baseDay + capacity, lastDay + 1 + capacity / 2);
+        int newCapacity = (int) Math.max(newEnd - newBase, 2L * capacity);
+        long[] newMinutes = new long[newCapacity];
+        long[] newCounts = new long[newCapacity];
+        int offset = (int) (baseDay - newBase);
+        System.arraycopy(minutes, 0, newMinutes, offset, capacity);
+        System.arraycopy(counts, 0, newCounts, offset, capacity);
+
+        baseDay = newBase;
+        capacity = newCapacity;
+        minutes = newMinutes;
+        counts = newCounts;
+        minutesTree = buildTree(minutes);
+        countsTree = buildTree(counts);
+    }
+
+    /**
+     * Builds a Fenwick tree from point values in linear time.
+     *
+     * @param values the point values
+     * @return the tree, indexed from 1
+     */
+    private static long[] buildTree(long[] values) {
+        long[] tree = new long[values.length + 1];
+        for (int i = 1; i <= values.length; i++) {
+            tree[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= values.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        return tree;
+    }
+}
@@ -3,6 +3,7 @@ package model;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Objects;
 
 /**
  * Represents a basic calendar event with a title, location, start, and end time.
@@ -190,13 +191,55 @@ public class Event {
 
         for (Event current : events) {
             if (current == null || current.start == null || current.end == null) continue;
-            if (start.isBefore(current.end) && end.isAfter(current.start)) {
+            if (overlaps(current)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Checks if this event overlaps with another event. Both events must have a start and end.
+     *
+     * @param other the event to compare with
+     * @return true if the two events share any time
+     */
+    protected boolean overlaps(Event other) {
+        if (other instanceof ZonedEvent) {
+            return ((ZonedEvent) other).overlaps(this);
+        }
+        return start.isBefore(other.end) && end.isAfter(other.start);
+    }
+
+    /**
+     * Checks whether another object is an event of the same class with the same title,
+     * location, start and end. Events are mutable, so an event's hash code changes when it
+     * is edited; the schedule and its views track events by identity for that reason.
+     *
+     * @param o the object to compare with
+     * @return true if the object describes the same event
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Event that = (Event) o;
+        return Objects.equals(title, that.title)
+            && Objects.equals(location, that.location)
+            && Objects.equals(start, that.start)
+            && Objects.equals(end, that.end);
+    }
+
+    /**
+     * Computes a hash code from the title, location, start and end.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(title, location, start, end);
+    }
+
     /**
      * Returns a string representation of the event.
      *
@@ -0,0 +1,295 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Streams events to an output stream as NDJSON or CSV, one event per line, for data
+ * pipelines that consume schedules. Lines are encoded into a reusable {@link Utf8Buffer}
+ * that is flushed to the stream in large blocks; numbers and dates are written digit by
+ * digit, so no strings are created per field.
+ * <p>
+ * Recurring series are expanded into their occurrences by default. When expansion is turned
+ * off, each series is written as a single line carrying its recurrence rule and date range.
+ */
+public class EventExporter implements Closeable {
+    /** Output formats. */
+    public enum Format {
+        /** One JSON object per line. */
+        NDJSON,
+        /** Comma-separated values with a header line. */
+        CSV
+    }
+
+    /** Buffered bytes at which the buffer is written to the stream. */
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+    /** Column names of the CSV format. */
+    private static final String[] CSV_COLUMNS = {"title", "location", "start", "end", "zone", "rule", "seriesStart", "seriesEnd"};
+    /** Header line of the CSV format. */
+    private static final byte[] CSV_HEADER = Utf8Buffer.encode(String.join(",", CSV_COLUMNS) + "\n");
+    /** The format written. */
+    private final Format format;
+    /** The stream written to. */
+    private final OutputStream out;
+    /** Buffer holding encoded lines not yet written. */
+    private final Utf8Buffer buffer = new Utf8Buffer(FLUSH_THRESHOLD + 4096);
+    /** Start of the exported range, inclusive, or null for no lower bound. */
+    private LocalDateTime from;
+    /** End of the exported range, exclusive, or null for no upper bound. */
+    private LocalDateTime to;
+    /** Whether recurring series are written as their occurrences. */
+    private boolean expandRecurring = true;
+    /** Whether the CSV header has been written. */
+    private boolean headerWritten;
+    /** Number of lines written. */
+    private long count;
+    /** Number of fields of the current CSV line already ended by a comma. */
+    private int csvFieldsEnded;
+
+    /**
+     * Constructs an exporter.
+     *
+     * @param format the format to write
+     * @param out    the stream to write to; it is closed when the exporter is closed
+     */
+    public EventExporter(Format format, OutputStream out) {
+        this.format = format;
+        this.out = out;
+    }
+
+    /**
+     * Restricts the export to events that start within a range. A recurring series that is
+     * not expanded is exported if any of its dates fall in the range.
+     *
+     * @param from the start of the range, inclusive, or null for no lower bound
+     * @param to   the end of the range, exclusive, or null for no upper bound
+     */
+    public void setRange(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Sets whether recurring series are written as their occurrences or as one line each.
+     *
+     * @param expandRecurring true to expand series, false to write them unexpanded
+     */
+    public void setExpandRecurring(boolean expandRecurring) {
+        this.expandRecurring = expandRecurring;
+    }
+
+    /**
+     * Writes the events of a schedule that fall in the range, archived ones included.
+     *
+     * @param schedule the schedule to export
+     * @throws IOException if the stream cannot be written
+     */
+    public void export(Schedule schedule) throws IOException {
+        if (from != null && to != null) {
+            export(schedule.getEventsBetween(from, to));
+        } else {
+            export(schedule.getAllEvents());
+        }
+    }
+
+    /**
+     * Writes events that fall in the range.
+     *
+     * @param events the events to export
+     * @throws IOException if the stream cannot be written
+     */
+    public void export(Iterable<? extends Event> events) throws IOException {
+        for (Event event : events) {
+            write(event);
+        }
+    }
+
+    /**
+     * Writes one event if it falls in the range.
+     *
+     * @param event the event to write
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(Event event) throws IOException {
+        if (event instanceof RecurringEvent) {
+            RecurringEvent series = (RecurringEvent) event;
+            if (expandRecurring) {
+                List<Event> occurrences = from != null && to != null
+                    ? series.generateOccurrences(from.toLocalDate(), to.toLocalDate())
+                    : series.generateOccurrences();
+                for (Event occurrence : occurrences) {
+                    write(occurrence);
+                }
+                return;
+            }
+            if (!seriesInRange(series)) return;
+        } else if (!inRange(event.getStart())) {
+            return;
+        }
+        if (format == Format.CSV) {
+            writeCsv(event);
+        } else {
+            writeJson(event);
+        }
+        count++;
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    /**
+     * Gets the number of lines written, not counting the CSV header.
+     *
+     * @return the number of exported events and series
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes buffered lines to the stream and flushes it.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public void flush() throws IOException {
+        if (format == Format.CSV && !headerWritten) {
+            buffer.write(CSV_HEADER);
+            headerWritten = true;
+        }
+        buffer.writeTo(out);
+        buffer.reset();
+        out.flush();
+    }
+
+    /**
+     * Flushes buffered lines and closes the stream.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Checks whether a start time falls in the range.
+     *
+     * @param start the start time
+     * @return true if the start is in the range
+     */
+    private boolean inRange(LocalDateTime start) {
+        return (from == null || !start.isBefore(from)) && (to == null || start.isBefore(to));
+    }
+
+    /**
+     * Checks whether any occurrence of a series falls on a date in the range.
+     *
+     * @param series the recurring series
+     * @return true if the series and the range share a date
+     */
+    private boolean seriesInRange(RecurringEvent series) {
+        LocalDate first = series.getRule().firstOccurrenceOnOrAfter(from == null ? series.getStartDate() : from.toLocalDate());
+        return first != null && (to == null || first.atStartOfDay().isBefore(to));
+    }
+
+    /**
+     * Encodes an event as one NDJSON line.
+     *
+     * @param event the event to encode
+     */
+    private void writeJson(Event event) {
+        buffer.writeAscii('{').write("\"title\":\"").writeJsonEscaped(event.getTitle())
+            .write("\",\"location\":\"").writeJsonEscaped(event.getLocation())
+            .write("\",\"start\":\"").writeIsoDateTime(event.getStart())
+            .write("\",\"end\":\"").writeIsoDateTime(event.getEnd()).writeAscii('"');
+        ZoneId zone = zoneOf(event);
+        if (zone != null) {
+            buffer.write(",\"zone\":\"").writeJsonEscaped(zone.getId()).writeAscii('"');
+        }
+        if (event instanceof RecurringEvent) {
+            RecurringEvent series = (RecurringEvent) event;
+            buffer.write(",\"recurrence\":{\"rule\":\"").writeJsonEscaped(series.getRule().toString())
+                .write("\",\"seriesStart\":\"").writeIsoDate(series.getStartDate()).writeAscii('"');
+            LocalDate seriesEnd = series.getEndDate();
+            if (seriesEnd != null) {
+                buffer.write(",\"seriesEnd\":\"").writeIsoDate(seriesEnd).writeAscii('"');
+            }
+            buffer.writeAscii('}');
+        }
+        buffer.write("}\n");
+    }
+
+    /**
+     * Encodes an event as one CSV line, with one field for each header column; fields that
+     * do not apply to the event are left empty.
+     *
+     * @param event the event to encode
+     * @throws IllegalStateException if the line does not have as many fields as the header
+     */
+    private void writeCsv(Event event) {
+        if (!headerWritten) {
+            buffer.write(CSV_HEADER);
+            headerWritten = true;
+        }
+        csvFieldsEnded = 0;
+        buffer.writeCsvField(event.getTitle());
+        endCsvField();
+        buffer.writeCsvField(event.getLocation());
+        endCsvField();
+        buffer.writeIsoDateTime(event.getStart());
+        endCsvField();
+        buffer.writeIsoDateTime(event.getEnd());
+        endCsvField();
+        ZoneId zone = zoneOf(event);
+        if (zone != null) {
+            buffer.writeCsvField(zone.getId());
+        }
+        endCsvField();
+        if (event instanceof RecurringEvent) {
+            RecurringEvent series = (RecurringEvent) event;
+            buffer.writeCsvField(series.getRule().toString());
+            endCsvField();
+            buffer.writeIsoDate(series.getStartDate());
+            endCsvField();
+            LocalDate seriesEnd = series.getEndDate();
+            if (seriesEnd != null) {
+                buffer.writeIsoDate(seriesEnd);
+            }
+        } else {
+            endCsvField();
+            endCsvField();
+        }
+        if (csvFieldsEnded != CSV_COLUMNS.length - 1) {
+            throw new IllegalStateException("CSV line has " + (csvFieldsEnded + 1) + " fields but the header has "
+                + CSV_COLUMNS.length);
+        }
+        buffer.writeAscii('\n');
+    }
+
+    /**
+     * Ends a field of the current CSV line with a comma.
+     */
+    private void endCsvField() {
+        buffer.writeAscii(',');
+        csvFieldsEnded++;
+    }
+
+    /**
+     * Gets the zone of a zoned event.
+     *
+     * @param event the event
+     * @return the event's zone, or null if it is not zoned
+     */
+    private static ZoneId zoneOf(Event event) {
+        return event instanceof ZonedEvent ? ((ZonedEvent) event).getZone() : null;
+    }
+}
@@ -0,0 +1,236 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index over event titles and locations.
+ * Every word of a title or location maps to the set of events containing it, and
+ * the words are kept in sorted order so that a prefix lookup is a single range query.
+ * The index is updated incrementally as events are added and removed, and may be
+ * queried from any thread.
+ */
+public class EventIndex {
+    /** Sorted map from a lower-case word to the events containing it; used as the prefix trie. */
+    private final TreeMap<String, Set<Event>> postings;
+    /** Words that were indexed for each event, so removal does not depend on the event's current fields. */
+    private final Map<Event, String[]> indexedWords;
+    /** Guards the index so searches can run off the thread that mutates the schedule. */
+    private final ReadWriteLock lock;
+
+    /**
+     * Creates an empty index.
+     */
+    public EventIndex() {
+        this.postings = new TreeMap<>();
+        this.indexedWords = new IdentityHashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adds an event's title and location words to the index.
+     *
+     * @param event the event to index
+     */
+    public void add(Event event) {
+        if (event == null) return;
+        String[] words = tokenize(event.getTitle() + " " + event.getLocation());
+        lock.writeLock().lock();
+        try {
+            if (indexedWords.containsKey(event)) return;
+            indexedWords.put(event, words);
+            for (String word : words) {
+                postings.computeIfAbsent(word, k -> newIdentitySet()).add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an event from the index.
+     *
+     * @param event the event to remove
+     */
+    public void remove(Event event) {
+        if (event == null) return;
+        lock.writeLock().lock();
+        try {
+            String[] words = indexedWords.remove(event);
+            if (words == null) return;
+            for (String word : words) {
+                Set<Event> events = postings.get(word);
+                if (events != null) {
+                    events.remove(event);
+                    if (events.isEmpty()) {
+                        postings.remove(word);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every event from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            indexedWords.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds events whose title or location contains a word starting with each word of the query.
+     * For example "alg lec" matches "Algorithms Lecture". Results are sorted by start time.
+     *
+     * @param query the search text
+     * @return the matching events, or an empty list if the query has no words
+     */
+    public List<Event> search(String query) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0) return new ArrayList<>();
+        // Longer prefixes match fewer words, so start with them to keep the intersection small.
+        Arrays.sort(terms, Comparator.comparingInt(String::length).reversed());
+
+        lock.readLock().lock();
+        try {
+            Set<Event> result = null;
+            for (String term : terms) {
+                Set<Event> matches = prefixMatches(term, result);
+                if (matches.isEmpty()) return new ArrayList<>();
+                result = matches;
+            }
+            List<Event> sorted = new ArrayList<>(result);
+            sorted.sort(Comparator.comparing(Event::getStart, Comparator.nullsLast(Comparator.naturalOrder())));
+            return sorted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed events.
+     *
+     * @return the number of events in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexedWords.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the events filed under words starting with a prefix. An event with several
+     * such words is counted once for each, so the count is an upper bound.
+     *
+     * @param prefix the lower-case prefix
+     * @return the number of postings under the prefix
+     */
+    int countPrefix(String prefix) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Set<Event> events : postings.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                count += events.size();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the events having a word that starts with a prefix.
+     *
+     * @param prefix the lower-case prefix
+     * @return the matching events, in no particular order
+     */
+    Set<Event> findPrefix(String prefix) {
+        lock.readLock().lock();
+        try {
+            return prefixMatches(prefix, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Collects events having a word that starts with the given prefix.
+     * When a previous result is given only events in it are kept, which keeps
+     * multi-word queries proportional to the smallest match set.
+     *
+     * @param prefix   the lower-case prefix
+     * @param restrict the events allowed in the result, or null for no restriction
+     * @return the matching events
+     */
+    private Set<Event> prefixMatches(String prefix, Set<Event> restrict) {
+        SortedMap<String, Set<Event>> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        Set<Event> matches = newIdentitySet();
+        for (Set<Event> events : range.values()) {
+            if (restrict == null) {
+                matches.addAll(events);
+            } else {
+                for (Event event : events) {
+                    if (restrict.contains(event)) {
+                        matches.add(event);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Splits text into lower-case words on any non letter-or-digit character.
+     *
+     * @param text the text to split
+     * @return the distinct words, possibly empty
+     */
+    static String[] tokenize(String text) {
+        if (text == null) return new String[0];
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Creates a set that compares events by identity.
+     *
+     * @return a new empty identity set
+     */
+    private static Set<Event> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+}
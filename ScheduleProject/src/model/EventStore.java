@@ -0,0 +1,46 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Storage for events outside the in-memory {@link Schedule} list, such as large
+ * archives kept on disk. Stores answer range queries and conflict checks directly,
+ * without loading every event.
+ */
+public interface EventStore extends Closeable {
+    /**
+     * Gets the events that start within the given range, ordered by start time.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the events starting in the range
+     */
+    List<Event> getEventsBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Checks whether any stored event overlaps the given time span.
+     *
+     * @param start the start of the span
+     * @param end   the end of the span
+     * @return true if a stored event shares any time with the span
+     */
+    boolean hasConflict(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Adds an event to the store.
+     *
+     * @param event the event to add
+     * @throws IOException if the store cannot be written
+     */
+    void append(Event event) throws IOException;
+
+    /**
+     * Gets the number of stored events.
+     *
+     * @return the event count
+     */
+    long size();
+}
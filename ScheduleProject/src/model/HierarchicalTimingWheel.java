@@ -0,0 +1,226 @@
+package model;
+
+import java.util.function.Consumer;
+
+/**
+ * Holds timers that expire at given times, with O(1) insertion and cancellation however
+ * many timers are pending.
+ * <p>
+ * Time is counted in ticks. The wheel has up to {@link #MAX_LEVELS} levels of 64 buckets;
+ * a bucket of level k spans 64<sup>k</sup> ticks. A timer goes into the level of the
+ * highest base-64 digit in which its expiry tick differs from the current tick, in the
+ * bucket given by that digit of its expiry. When the current tick reaches a bucket of a
+ * higher level, the bucket's timers are moved down into finer levels, and the level-0
+ * bucket of the current tick holds exactly the timers that expire now. Each timer is moved
+ * at most once per level, and each bucket is a doubly linked list, so a timer can be
+ * unlinked in constant time.
+ * <p>
+ * The wheel is not thread-safe; callers guard it with their own lock.
+ *
+ * @param <T> the type of value carried by the timers
+ */
+public class HierarchicalTimingWheel<T> {
+    /** Number of bits of the tick taken by each level. */
+    private static final int LEVEL_BITS = 6;
+    /** Number of buckets in each level. */
+    private static final int WHEEL_SIZE = 1 << LEVEL_BITS;
+    /** Mask selecting the bucket digit of a level. */
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    /** Number of levels needed to cover every tick. */
+    private static final int MAX_LEVELS = (63 + LEVEL_BITS - 1) / LEVEL_BITS;
+
+    /** Length of one tick in milliseconds. */
+    private final long tickMillis;
+    /** Buckets of each level, each the sentinel of a circular list; created when first used. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Timer<T>[][] levels = new Timer[MAX_LEVELS][];
+    /** The current tick: every timer expiring at or before it has expired. */
+    private long currentTick;
+    /** Number of pending timers. */
+    private int size;
+
+    /**
+     * A pending timer. Cancel it with {@link HierarchicalTimingWheel#cancel}.
+     *
+     * @param <T> the type of value carried by the timer
+     */
+    public static class Timer<T> {
+        /** The value carried. */
+        private final T value;
+        /** Tick at which the timer expires. */
+        private long expiryTick;
+        /** Previous timer in the bucket. */
+        private Timer<T> prev;
+        /** Next timer in the bucket. */
+        private Timer<T> next;
+
+        /**
+         * Creates a timer, or a bucket sentinel when the value is null.
+         *
+         * @param value      the value carried
+         * @param expiryTick the tick at which the timer expires
+         */
+        private Timer(T value, long expiryTick) {
+            this.value = value;
+            this.expiryTick = expiryTick;
+            prev = this;
+            next = this;
+        }
+
+        /**
+         * Gets the value carried by the timer.
+         *
+         * @return the value
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * Checks whether the timer is still waiting to expire.
+         *
+         * @return true if the timer has neither expired nor been cancelled
+         */
+        public boolean isPending() {
+            return next != this;
+        }
+
+        /**
+         * Removes the timer from its bucket.
+         */
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the length of one tick in milliseconds
+     * @param nowMillis  the current time in milliseconds
+     */
+    public HierarchicalTimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Adds a timer. A timer whose time has already come expires on the next tick.
+     *
+     * @param expiryMillis the time at which the timer expires, in milliseconds
+     * @param value        the value to carry
+     * @return the timer
+     */
+    public Timer<T> schedule(long expiryMillis, T value) {
+        // Rounded up, so that a timer never expires before its time.
+        long expiryTick = Math.max(-Math.floorDiv(-expiryMillis, tickMillis), currentTick + 1);
+        Timer<T> timer = new Timer<>(value, expiryTick);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a pending timer.
+     *
+     * @param timer the timer
+     * @return true if the timer was pending, false if it had expired or was already cancelled
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || !timer.isPending()) return false;
+        timer.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to a time, passing the value of every timer that expires to
+     * a consumer in order of expiry.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @param expired   receives the values of the expired timers
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            for (int level = MAX_LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (LEVEL_BITS * level)) - 1)) == 0 && levels[level] != null) {
+                    cascade(levels[level][(int) (currentTick >>> (LEVEL_BITS * level)) & WHEEL_MASK]);
+                }
+            }
+            if (levels[0] == null) continue;
+            Timer<T> bucket = levels[0][(int) currentTick & WHEEL_MASK];
+            while (bucket.next != bucket) {
+                Timer<T> timer = bucket.next;
+                timer.unlink();
+                size--;
+                expired.accept(timer.value);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return the timer count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the time of the next tick, when {@link #advance} should next be called.
+     *
+     * @return the time in milliseconds
+     */
+    public long getNextTickMillis() {
+        return (currentTick + 1) * tickMillis;
+    }
+
+    /**
+     * Moves the timers of a bucket into the levels their expiry now calls for.
+     *
+     * @param bucket the bucket's sentinel
+     */
+    private void cascade(Timer<T> bucket) {
+        while (bucket.next != bucket) {
+            Timer<T> timer = bucket.next;
+            timer.unlink();
+            insert(timer);
+        }
+    }
+
+    /**
+     * Links a timer into the bucket its expiry calls for.
+     *
+     * @param timer the timer, expiring after the current tick
+     */
+    private void insert(Timer<T> timer) {
+        long differing = timer.expiryTick ^ currentTick;
+        int level = (63 - Long.numberOfLeadingZeros(differing)) / LEVEL_BITS;
+        if (levels[level] == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Timer<T>[] buckets = new Timer[WHEEL_SIZE];
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                buckets[i] = new Timer<>(null, 0);
+            }
+            levels[level] = buckets;
+        }
+        Timer<T> bucket = levels[level][(int) (timer.expiryTick >>> (LEVEL_BITS * level)) & WHEEL_MASK];
+        timer.prev = bucket.prev;
+        timer.next = bucket;
+        bucket.prev.next = timer;
+        bucket.prev = timer;
+    }
+}
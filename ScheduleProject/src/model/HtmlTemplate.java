@@ -0,0 +1,134 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A precompiled HTML template. The template text is parsed once into named fragments,
+ * and each fragment into constant UTF-8 byte segments separated by slots. Rendering a
+ * fragment copies the constant bytes straight into a {@link Utf8Buffer} and writes each
+ * slot value HTML-escaped between them.
+ * <p>
+ * A fragment starts with a line of the form <code>{{@name}}</code> and runs until the next
+ * fragment marker. Slots are written <code>{{name}}</code> and are filled in the order they
+ * appear in the fragment.
+ */
+public class HtmlTemplate {
+    /** Compiled fragments, by name. */
+    private final Map<String, Fragment> fragments = new HashMap<>();
+
+    /**
+     * A compiled piece of a template: constant segments with one slot between each pair.
+     */
+    public static class Fragment {
+        /** The name of the fragment. */
+        private final String name;
+        /** Constant bytes, one more than the number of slots. */
+        private final byte[][] segments;
+        /** Names of the slots, in order. */
+        private final String[] slots;
+
+        /**
+         * Compiles the text of one fragment.
+         *
+         * @param name the name of the fragment
+         * @param text the fragment text
+         */
+        private Fragment(String name, String text) {
+            List<byte[]> parsedSegments = new ArrayList<>();
+            List<String> parsedSlots = new ArrayList<>();
+            int position = 0;
+            int open;
+            while ((open = text.indexOf("{{", position)) >= 0) {
+                int close = text.indexOf("}}", open);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed slot in fragment '" + name + "'");
+                }
+                parsedSegments.add(Utf8Buffer.encode(text.substring(position, open)));
+                parsedSlots.add(text.substring(open + 2, close).trim());
+                position = close + 2;
+            }
+            parsedSegments.add(Utf8Buffer.encode(text.substring(position)));
+            this.name = name;
+            this.segments = parsedSegments.toArray(new byte[0][]);
+            this.slots = parsedSlots.toArray(new String[0]);
+        }
+
+        /**
+         * Renders the fragment.
+         *
+         * @param out    the buffer to write to
+         * @param values the slot values in order; each is HTML-escaped
+         * @throws IllegalArgumentException if the number of values does not match the slots
+         */
+        public void render(Utf8Buffer out, CharSequence... values) {
+            if (values.length != slots.length) {
+                throw new IllegalArgumentException("Fragment '" + name + "' expects " + slots.length
+                    + " values but got " + values.length);
+            }
+            out.write(segments[0]);
+            for (int i = 0; i < slots.length; i++) {
+                out.writeHtmlEscaped(values[i]);
+                out.write(segments[i + 1]);
+            }
+        }
+
+        /**
+         * Gets the names of the slots.
+         *
+         * @return the slot names in order
+         */
+        public String[] getSlots() {
+            return slots.clone();
+        }
+    }
+
+    /**
+     * Parses a template into its fragments.
+     *
+     * @param text the template text
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    public HtmlTemplate(String text) {
+        String name = null;
+        int bodyStart = 0;
+        int position = 0;
+        while (true) {
+            int marker = text.indexOf("{{@", position);
+            if (name != null) {
+                String body = text.substring(bodyStart, marker < 0 ? text.length() : marker);
+                fragments.put(name, new Fragment(name, body));
+            } else if (marker > 0 && !text.substring(0, marker).isBlank()) {
+                throw new IllegalArgumentException("Text before the first fragment marker");
+            }
+            if (marker < 0) break;
+            int close = text.indexOf("}}", marker);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed fragment marker");
+            }
+            name = text.substring(marker + 3, close).trim();
+            bodyStart = close + 2;
+            if (bodyStart < text.length() && text.charAt(bodyStart) == '\n') {
+                bodyStart++;
+            }
+            position = bodyStart;
+        }
+    }
+
+    /**
+     * Gets a compiled fragment.
+     *
+     * @param name the name of the fragment
+     * @return the fragment
+     * @throws IllegalArgumentException if the template has no such fragment
+     */
+    public Fragment fragment(String name) {
+        Fragment fragment = fragments.get(name);
+        if (fragment == null) {
+            throw new IllegalArgumentException("No fragment named '" + name + "'");
+        }
+        return fragment;
+    }
+}
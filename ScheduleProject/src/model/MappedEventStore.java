@@ -0,0 +1,516 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An event store that keeps fixed-width event records in a memory-mapped file. It is the
+ * schedule's save file: a schedule is written to it in one pass and read back from it
+ * page by page, and the file can be queried by range without reading it whole. It is not
+ * a backing store for a live schedule; a loaded schedule holds all of its events in memory.
+ * <p>
+ * Each record is {@value #RECORD_BYTES} bytes: the start and end, the dictionary ids of
+ * the title and location, and the dictionary id of the time zone. A zoned event keeps its
+ * start and end as instants in epoch seconds and is read back as a {@link ZonedEvent} in
+ * its zone; a plain event keeps its wall-clock times as if they were in UTC and has no
+ * zone. Records are kept sorted by that start. A sparse in-heap index holds the start of
+ * every {@value #SPARSE_INTERVAL}th record, so a range query does a binary search over
+ * the index and then scans one block of records straight from the mapped pages. Range
+ * queries and conflict checks compare wall-clock times, as the schedule does; when the
+ * store holds zoned events they scan a further 18 hours on both sides, since the
+ * wall-clock time of an instant differs from it by at most that much. Conflict
+ * checks never create event objects.
+ * <p>
+ * The store uses two files next to the given base path: <code>.events</code> for the
+ * records and <code>.dict</code> for the title, location and zone strings, each written
+ * as its length followed by its UTF-8 bytes.
+ */
+public class MappedEventStore implements EventStore {
+    /** Size of one event record in bytes. */
+    static final int RECORD_BYTES = 32;
+    /** Size of the file header in bytes. */
+    private static final int HEADER_BYTES = 64;
+    /** Marker at the start of every events file. */
+    private static final int MAGIC = 0x53434845;
+    /** Version of the file layout. */
+    private static final int FORMAT_VERSION = 1;
+    /** Zone id of a record for a plain event. */
+    private static final int NO_ZONE = -1;
+    /** Largest difference in seconds between an instant and its wall-clock time in any zone. */
+    private static final long MAX_OFFSET_SECONDS = ZoneOffset.MAX.getTotalSeconds();
+    /** Log2 of the number of records in one mapped segment. */
+    private static final int SEGMENT_SHIFT = 18;
+    /** Number of records in one mapped segment. */
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    /** Number of records between two entries of the sparse index. */
+    private static final int SPARSE_INTERVAL = 1024;
+    /** Channel of the events file. */
+    private final FileChannel channel;
+    /** Mapped header holding the record count, longest event duration and zoned record count. */
+    private final MappedByteBuffer header;
+    /** Mapped segments of records, in file order. */
+    private final List<MappedByteBuffer> segments;
+    /** Strings by dictionary id. */
+    private final List<String> strings;
+    /** Dictionary ids by string. */
+    private final Map<String, Integer> stringIds;
+    /** Transition tables of the zones by dictionary id, resolved when first read. */
+    private final Map<Integer, ZoneTransitionTable> zones;
+    /** Appends new strings to the dictionary file. */
+    private final DataOutputStream dictionaryOut;
+    /** Start of every {@value #SPARSE_INTERVAL}th record. */
+    private long[] sparseStarts;
+    /** Number of records. */
+    private long count;
+    /** Longest event duration in seconds, which bounds how far back a conflict check looks. */
+    private long maxDurationSeconds;
+    /** Number of records of zoned events. */
+    private long zonedCount;
+
+    /**
+     * Opens or creates the store files.
+     *
+     * @param base the base path of the store files
+     * @throws IOException if the files cannot be opened or are not a valid store
+     */
+    private MappedEventStore(Path base) throws IOException {
+        Path eventsPath = base.resolveSibling(base.getFileName() + ".events");
+        Path dictionaryPath = base.resolveSibling(base.getFileName() + ".dict");
+        boolean exists = Files.exists(eventsPath);
+
+        this.channel = FileChannel.open(eventsPath, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        this.segments = new ArrayList<>();
+        this.strings = new ArrayList<>();
+        this.stringIds = new HashMap<>();
+        this.zones = new HashMap<>();
+        this.sparseStarts = new long[16];
+
+        if (exists) {
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                channel.close();
+                throw new IOException("Not an event store: " + eventsPath);
+            }
+            count = header.getLong(8);
+            maxDurationSeconds = header.getLong(16);
+            zonedCount = header.getLong(24);
+            readDictionary(dictionaryPath);
+            for (long i = 0; i < count; i += SPARSE_INTERVAL) {
+                addSparseEntry(i, startAt(i));
+            }
+        } else {
+            header.putInt(0, MAGIC);
+            header.putInt(4, FORMAT_VERSION);
+            header.putLong(8, 0);
+            header.putLong(16, 0);
+            header.putLong(24, 0);
+        }
+        this.dictionaryOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dictionaryPath,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Opens an existing store, or creates an empty one.
+     *
+     * @param base the base path of the store files
+     * @return the opened store
+     * @throws IOException if the files cannot be opened or are not a valid store
+     */
+    public static MappedEventStore open(Path base) throws IOException {
+        return new MappedEventStore(base);
+    }
+
+    /**
+     * Checks whether store files exist at a base path.
+     *
+     * @param base the base path of the store files
+     * @return true if the events file exists
+     */
+    public static boolean exists(Path base) {
+        return Files.exists(base.resolveSibling(base.getFileName() + ".events"));
+    }
+
+    /**
+     * Creates a new store holding the given events, replacing any existing store files.
+     *
+     * @param base   the base path of the store files
+     * @param events the events to store, in any order
+     * @return the new store, open for further appends
+     * @throws IOException if the files cannot be written
+     */
+    public static MappedEventStore create(Path base, Collection<Event> events) throws IOException {
+        Files.deleteIfExists(base.resolveSibling(base.getFileName() + ".events"));
+        Files.deleteIfExists(base.resolveSibling(base.getFileName() + ".dict"));
+        Event[] sorted = events.stream()
+            .filter(e -> e.getStart() != null && e.getEnd() != null)
+            .toArray(Event[]::new);
+        Arrays.sort(sorted, Comparator.comparingLong(MappedEventStore::startKey));
+
+        MappedEventStore store = new MappedEventStore(base);
+        for (Event event : sorted) {
+            store.append(event);
+        }
+        return store;
+    }
+
+    /**
+     * Adds an event after all stored events. Events must be appended in order of start: the
+     * start instant of a zoned event, or the wall-clock start of a plain event read as UTC.
+     *
+     * @param event the event to add
+     * @throws IOException if the file cannot be extended
+     * @throws IllegalArgumentException if the event starts before the last stored event
+     */
+    @Override
+    public synchronized void append(Event event) throws IOException {
+        boolean zoned = event instanceof ZonedEvent;
+        long start = zoned ? ((ZonedEvent) event).getStartEpochSecond() : toSeconds(event.getStart());
+        long end = zoned ? ((ZonedEvent) event).getEndEpochSecond() : toSeconds(event.getEnd());
+        if (count > 0 && start < startAt(count - 1)) {
+            throw new IllegalArgumentException("Events must be appended in order of start time.");
+        }
+        int titleId = idOf(event.getTitle());
+        int locationId = idOf(event.getLocation());
+        int zoneId = zoned ? idOf(((ZonedEvent) event).getZone().getId()) : NO_ZONE;
+
+        long index = count;
+        MappedByteBuffer segment = segmentFor(index);
+        int offset = offsetOf(index);
+        segment.putLong(offset, start);
+        segment.putLong(offset + 8, end);
+        segment.putInt(offset + 16, titleId);
+        segment.putInt(offset + 20, locationId);
+        segment.putInt(offset + 24, zoneId);
+
+        if (index % SPARSE_INTERVAL == 0) {
+            addSparseEntry(index, start);
+        }
+        count++;
+        maxDurationSeconds = Math.max(maxDurationSeconds, end - start);
+        header.putLong(8, count);
+        header.putLong(16, maxDurationSeconds);
+        if (zoned) {
+            zonedCount++;
+            header.putLong(24, zonedCount);
+        }
+    }
+
+    /**
+     * Gets the events that start within the given range, creating event objects only
+     * for the records in the range.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the events starting in the range, ordered by start time
+     */
+    @Override
+    public synchronized List<Event> getEventsBetween(LocalDateTime from, LocalDateTime to) {
+        List<Event> result = new ArrayList<>();
+        long fromSeconds = toSeconds(from);
+        long toSeconds = toSeconds(to);
+        long slack = zonedCount > 0 ? MAX_OFFSET_SECONDS : 0;
+        for (long i = firstAtOrAfter(fromSeconds - slack); i < count; i++) {
+            if (startAt(i) >= toSeconds + slack) break;
+            long start = wallClock(startAt(i), i);
+            if (start >= fromSeconds && start < toSeconds) {
+                result.add(readEvent(i));
+            }
+        }
+        if (slack > 0) {
+            result.sort(Comparator.comparing(Event::getStart));
+        }
+        return result;
+    }
+
+    /**
+     * Reads consecutive events in start order, for loading a store page by page.
+     *
+     * @param first the index of the first event to read
+     * @param max   the maximum number of events to read
+     * @return the events, fewer than <code>max</code> at the end of the store
+     */
+    public synchronized List<Event> read(long first, int max) {
+        long end = Math.min(count, first + max);
+        List<Event> result = new ArrayList<>((int) Math.max(0, end - first));
+        for (long i = Math.max(0, first); i < end; i++) {
+            result.add(readEvent(i));
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether any stored event overlaps the given span by wall-clock time, reading
+     * only the time fields of events that start at most the longest stored duration, and
+     * the zone offsets, before the span.
+     *
+     * @param start the start of the span
+     * @param end   the end of the span
+     * @return true if a stored event shares any time with the span
+     */
+    @Override
+    public synchronized boolean hasConflict(LocalDateTime start, LocalDateTime end) {
+        long startSeconds = toSeconds(start);
+        long endSeconds = toSeconds(end);
+        long slack = zonedCount > 0 ? MAX_OFFSET_SECONDS : 0;
+        for (long i = firstAtOrAfter(startSeconds - maxDurationSeconds - slack); i < count; i++) {
+            if (startAt(i) >= endSeconds + slack) break;
+            if (wallClock(startAt(i), i) < endSeconds && wallClock(endAt(i), i) > startSeconds) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of stored events.
+     *
+     * @return the event count
+     */
+    @Override
+    public synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Writes pending changes to disk and closes the files. The mapped pages are released
+     * by the garbage collector.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+        dictionaryOut.close();
+        channel.close();
+    }
+
+    /**
+     * Finds the first record starting at or after a time, using the sparse index to
+     * skip to the right block.
+     *
+     * @param seconds the time as stored in records
+     * @return the record index, or the record count if there is none
+     */
+    private long firstAtOrAfter(long seconds) {
+        int entries = (int) ((count + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL);
+        int low = 0;
+        int high = entries - 1;
+        int block = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (sparseStarts[mid] < seconds) {
+                block = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long i = (long) block * SPARSE_INTERVAL;
+        while (i < count && startAt(i) < seconds) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Reads a full event record into a new event.
+     *
+     * @param index the record index
+     * @return the event
+     */
+    private Event readEvent(long index) {
+        MappedByteBuffer segment = segmentFor(index);
+        int offset = offsetOf(index);
+        String title = strings.get(segment.getInt(offset + 16));
+        String location = strings.get(segment.getInt(offset + 20));
+        ZoneTransitionTable zone = zoneAt(index);
+        if (zone != null) {
+            return new ZonedEvent(title, segment.getLong(offset), segment.getLong(offset + 8), location, zone.getZone());
+        }
+        return new Event(
+            title,
+            LocalDateTime.ofEpochSecond(segment.getLong(offset), 0, ZoneOffset.UTC),
+            LocalDateTime.ofEpochSecond(segment.getLong(offset + 8), 0, ZoneOffset.UTC),
+            location);
+    }
+
+    /**
+     * Gets the transition table of the zone of a record.
+     *
+     * @param index the record index
+     * @return the cached table, or null for a plain event
+     */
+    private ZoneTransitionTable zoneAt(long index) {
+        int id = segmentFor(index).getInt(offsetOf(index) + 24);
+        if (id == NO_ZONE) return null;
+        return zones.computeIfAbsent(id, k -> ZoneTransitionTable.of(ZoneId.of(strings.get(k))));
+    }
+
+    /**
+     * Converts a time read from a record to wall-clock epoch seconds.
+     *
+     * @param seconds the start or end of the record
+     * @param index   the record index
+     * @return the wall-clock time as if it were in UTC
+     */
+    private long wallClock(long seconds, long index) {
+        ZoneTransitionTable zone = zonedCount > 0 ? zoneAt(index) : null;
+        if (zone == null) return seconds;
+        return seconds + zone.offsetAt(seconds);
+    }
+
+    /**
+     * Reads the start of a record.
+     *
+     * @param index the record index
+     * @return the start as stored: an instant for a zoned event, the wall-clock time otherwise
+     */
+    private long startAt(long index) {
+        return segmentFor(index).getLong(offsetOf(index));
+    }
+
+    /**
+     * Reads the end of a record.
+     *
+     * @param index the record index
+     * @return the end as stored, like {@link #startAt}
+     */
+    private long endAt(long index) {
+        return segmentFor(index).getLong(offsetOf(index) + 8);
+    }
+
+    /**
+     * Gets the mapped segment holding a record, mapping new segments as the file grows.
+     *
+     * @param index the record index
+     * @return the mapped segment
+     */
+    private MappedByteBuffer segmentFor(long index) {
+        int segment = (int) (index >>> SEGMENT_SHIFT);
+        while (segments.size() <= segment) {
+            long position = HEADER_BYTES + (long) segments.size() * SEGMENT_RECORDS * RECORD_BYTES;
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) SEGMENT_RECORDS * RECORD_BYTES));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments.get(segment);
+    }
+
+    /**
+     * Gets the byte offset of a record within its segment.
+     *
+     * @param index the record index
+     * @return the offset in bytes
+     */
+    private int offsetOf(long index) {
+        return (int) (index & (SEGMENT_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    /**
+     * Records the start of a record in the sparse index.
+     *
+     * @param index the record index, a multiple of {@value #SPARSE_INTERVAL}
+     * @param start the start of the record
+     */
+    private void addSparseEntry(long index, long start) {
+        int entry = (int) (index / SPARSE_INTERVAL);
+        if (entry >= sparseStarts.length) {
+            sparseStarts = Arrays.copyOf(sparseStarts, sparseStarts.length * 2);
+        }
+        sparseStarts[entry] = start;
+    }
+
+    /**
+     * Gets the dictionary id of a string, adding it to the dictionary if needed.
+     *
+     * @param value the string
+     * @return the dictionary id
+     * @throws IOException if the dictionary file cannot be written
+     */
+    private int idOf(String value) throws IOException {
+        String key = value == null ? "" : value;
+        Integer id = stringIds.get(key);
+        if (id == null) {
+            id = strings.size();
+            strings.add(key);
+            stringIds.put(key, id);
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            dictionaryOut.writeInt(bytes.length);
+            dictionaryOut.write(bytes);
+            dictionaryOut.flush();
+        }
+        return id;
+    }
+
+    /**
+     * Loads the dictionary strings.
+     *
+     * @param path the dictionary file
+     * @throws IOException if the file cannot be read
+     */
+    private void readDictionary(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            while (true) {
+                String value;
+                try {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    value = new String(bytes, StandardCharsets.UTF_8);
+                } catch (EOFException e) {
+                    break;
+                }
+                stringIds.put(value, strings.size());
+                strings.add(value);
+            }
+        }
+    }
+
+    /**
+     * Converts a local date-time to wall-clock epoch seconds.
+     *
+     * @param time the date-time
+     * @return the seconds since 1970-01-01T00:00 in the same wall-clock time
+     */
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Gets the start of an event as stored in a record, by which records are ordered.
+     *
+     * @param event the event
+     * @return the start instant of a zoned event, or the wall-clock start of a plain event
+     */
+    private static long startKey(Event event) {
+        if (event instanceof ZonedEvent) return ((ZonedEvent) event).getStartEpochSecond();
+        return toSeconds(event.getStart());
+    }
+}
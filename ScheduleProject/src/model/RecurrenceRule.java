@@ -0,0 +1,517 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Describes the dates on which a recurring event takes place: weekly on chosen days every
+ * N weeks, monthly on a date, or monthly on a weekday such as the second Tuesday or the last
+ * Friday. A series may be limited by a number of occurrences, an end date or both, and
+ * single dates can be excluded.
+ * <p>
+ * Occurrences are numbered from the start of the series, and the date of any occurrence is
+ * computed directly from its number. Finding the k-th occurrence or the first occurrence on
+ * or after a date therefore takes constant time, however long the series, apart from a
+ * binary search over the excluded dates. As in iCalendar, excluded dates still count towards
+ * the occurrence limit.
+ * <p>
+ * Rules are immutable; the <code>with</code> methods return changed copies.
+ */
+public class RecurrenceRule {
+    /** How the series repeats. */
+    public enum Frequency {
+        /** On chosen days of the week, every N weeks. */
+        WEEKLY,
+        /** On the same day of the month, every N months. Days past the end of a month move to its last day. */
+        MONTHLY_BY_DATE,
+        /** On the n-th or last given weekday of the month, every N months. */
+        MONTHLY_BY_WEEKDAY
+    }
+
+    /** How the series repeats. */
+    private final Frequency frequency;
+    /** Number of weeks or months between repetitions. */
+    private final int interval;
+    /** The first date of the series; no occurrence is earlier. */
+    private final LocalDate start;
+    /** ISO day numbers of the weekdays, in increasing order. */
+    private final int[] weekdays;
+    /** Day of the month, for monthly rules by date. */
+    private final int dayOfMonth;
+    /** Week of the month from 1 to 4, or -1 for the last, for monthly rules by weekday. */
+    private final int ordinal;
+    /** Maximum number of occurrences including excluded ones, or 0 for no limit. */
+    private final long count;
+    /** Last date an occurrence may fall on, or null for no end date. */
+    private final LocalDate until;
+    /** Excluded dates. */
+    private final TreeSet<LocalDate> exceptions;
+    /** Occurrence numbers of the excluded dates, in increasing order. */
+    private final long[] exceptionIndices;
+    /** Number of positions in the first period that fall before the start date. */
+    private final long skip;
+    /** Number of occurrences including excluded ones, or Long.MAX_VALUE if the series has no end. */
+    private final long limit;
+
+    /**
+     * Constructs a rule. Use the static factory methods instead.
+     *
+     * @param frequency  how the series repeats
+     * @param interval   number of weeks or months between repetitions
+     * @param start      the first date of the series
+     * @param weekdays   ISO day numbers in increasing order
+     * @param dayOfMonth day of the month for monthly rules by date
+     * @param ordinal    week of the month for monthly rules by weekday
+     * @param count      maximum number of occurrences, or 0 for no limit
+     * @param until      last possible date, or null
+     * @param exceptions excluded dates
+     */
+    private RecurrenceRule(Frequency frequency, int interval, LocalDate start, int[] weekdays, int dayOfMonth,
+                           int ordinal, long count, LocalDate until, Collection<LocalDate> exceptions) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.start = start;
+        this.weekdays = weekdays;
+        this.dayOfMonth = dayOfMonth;
+        this.ordinal = ordinal;
+        this.count = count;
+        this.until = until;
+        this.exceptions = new TreeSet<>(exceptions);
+
+        if (frequency == Frequency.WEEKLY) {
+            long before = 0;
+            for (int day : weekdays) {
+                if (day < start.getDayOfWeek().getValue()) before++;
+            }
+            this.skip = before;
+        } else {
+            this.skip = dateAtPosition(0).isBefore(start) ? 1 : 0;
+        }
+
+        long bound = count > 0 ? count : Long.MAX_VALUE;
+        if (until != null) {
+            bound = Math.min(bound, Math.max(0, unboundedIndexOnOrAfter(until.plusDays(1))));
+        }
+        this.limit = bound;
+
+        long[] indices = new long[this.exceptions.size()];
+        int found = 0;
+        for (LocalDate date : this.exceptions) {
+            long index = unboundedIndexOnOrAfter(date);
+            if (index < limit && dateAt(index).equals(date)) {
+                indices[found++] = index;
+            }
+        }
+        this.exceptionIndices = Arrays.copyOf(indices, found);
+    }
+
+    /**
+     * Creates a rule repeating on the given weekdays every N weeks.
+     *
+     * @param start         the first date of the series
+     * @param intervalWeeks the number of weeks between repetitions
+     * @param days          the weekdays of the occurrences
+     * @return the rule, without an end
+     * @throws IllegalArgumentException if no days are given or the interval is below 1
+     */
+    public static RecurrenceRule weekly(LocalDate start, int intervalWeeks, DayOfWeek... days) {
+        int[] weekdays = Arrays.stream(days).mapToInt(DayOfWeek::getValue).distinct().sorted().toArray();
+        if (weekdays.length == 0) {
+            throw new IllegalArgumentException("At least one day of the week is required");
+        }
+        return new RecurrenceRule(Frequency.WEEKLY, intervalWeeks, start, weekdays, 0, 0, 0, null, List.of());
+    }
+
+    /**
+     * Creates a rule repeating on the start date's day of the month every N months. In months
+     * that are too short the occurrence falls on the last day of the month.
+     *
+     * @param start          the first date of the series
+     * @param intervalMonths the number of months between repetitions
+     * @return the rule, without an end
+     * @throws IllegalArgumentException if the interval is below 1
+     */
+    public static RecurrenceRule monthlyByDate(LocalDate start, int intervalMonths) {
+        return new RecurrenceRule(Frequency.MONTHLY_BY_DATE, intervalMonths, start, new int[0],
+            start.getDayOfMonth(), 0, 0, null, List.of());
+    }
+
+    /**
+     * Creates a rule repeating on the n-th or last given weekday of the month every N months.
+     *
+     * @param start          the first date of the series
+     * @param intervalMonths the number of months between repetitions
+     * @param ordinal        the week of the month from 1 to 4, or -1 for the last
+     * @param day            the weekday
+     * @return the rule, without an end
+     * @throws IllegalArgumentException if the ordinal or interval is out of range
+     */
+    public static RecurrenceRule monthlyByWeekday(LocalDate start, int intervalMonths, int ordinal, DayOfWeek day) {
+        if (ordinal != -1 && (ordinal < 1 || ordinal > 4)) {
+            throw new IllegalArgumentException("Ordinal must be 1 to 4, or -1 for the last weekday");
+        }
+        return new RecurrenceRule(Frequency.MONTHLY_BY_WEEKDAY, intervalMonths, start, new int[] {day.getValue()},
+            0, ordinal, 0, null, List.of());
+    }
+
+    /**
+     * Returns a copy limited to a number of occurrences. Excluded dates count towards the limit.
+     *
+     * @param count the maximum number of occurrences, or 0 for no limit
+     * @return the limited rule
+     */
+    public RecurrenceRule withCount(long count) {
+        return new RecurrenceRule(frequency, interval, start, weekdays, dayOfMonth, ordinal, count, until, exceptions);
+    }
+
+    /**
+     * Returns a copy that ends on a date.
+     *
+     * @param until the last date an occurrence may fall on, or null for no end date
+     * @return the limited rule
+     */
+    public RecurrenceRule withUntil(LocalDate until) {
+        return new RecurrenceRule(frequency, interval, start, weekdays, dayOfMonth, ordinal, count, until, exceptions);
+    }
+
+    /**
+     * Returns a copy with additional excluded dates. Dates that are not occurrences are ignored.
+     *
+     * @param dates the dates to exclude
+     * @return the rule with the dates excluded
+     */
+    public RecurrenceRule withExceptions(Collection<LocalDate> dates) {
+        TreeSet<LocalDate> all = new TreeSet<>(exceptions);
+        all.addAll(dates);
+        return new RecurrenceRule(frequency, interval, start, weekdays, dayOfMonth, ordinal, count, until, all);
+    }
+
+    /**
+     * Gets the date of an occurrence, skipping excluded dates.
+     *
+     * @param k the number of the occurrence, starting at 0
+     * @return the date, or null if the series has fewer than k + 1 occurrences
+     */
+    public LocalDate nthOccurrence(long k) {
+        if (k < 0) return null;
+        // The smallest index whose count of non-excluded indices up to it is k + 1.
+        long index = k;
+        while (true) {
+            long next = k + countExceptionsAtOrBelow(index);
+            if (next == index) break;
+            index = next;
+        }
+        return index < limit ? dateAt(index) : null;
+    }
+
+    /**
+     * Gets the first occurrence on or after a date.
+     *
+     * @param date the earliest date wanted
+     * @return the date of the occurrence, or null if the series ends before the date
+     */
+    public LocalDate firstOccurrenceOnOrAfter(LocalDate date) {
+        long index = nextIncludedIndex(unboundedIndexOnOrAfter(date));
+        return index < limit ? dateAt(index) : null;
+    }
+
+    /**
+     * Gets the occurrences within a range of dates.
+     *
+     * @param from the first date of the range, inclusive
+     * @param to   the last date of the range, inclusive
+     * @return the dates of the occurrences in order
+     */
+    public List<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (long index = nextIncludedIndex(unboundedIndexOnOrAfter(from)); index < limit;
+                index = nextIncludedIndex(index + 1)) {
+            LocalDate date = dateAt(index);
+            if (date.isAfter(to)) break;
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    /**
+     * Gets the number of occurrences, not counting excluded dates.
+     *
+     * @return the number of occurrences, or -1 if the series has no end
+     */
+    public long size() {
+        return isBounded() ? limit - exceptionIndices.length : -1;
+    }
+
+    /**
+     * Checks whether the series ends.
+     *
+     * @return true if the series has a count or an end date
+     */
+    public boolean isBounded() {
+        return limit != Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the date of the last occurrence.
+     *
+     * @return the last date, or null if the series has no end or no occurrences
+     */
+    public LocalDate getLastOccurrence() {
+        long size = size();
+        return size > 0 ? nthOccurrence(size - 1) : null;
+    }
+
+    /**
+     * Gets how the series repeats.
+     *
+     * @return the frequency
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Gets the number of weeks or months between repetitions.
+     *
+     * @return the interval
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the first date of the series.
+     *
+     * @return the start date
+     */
+    public LocalDate getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the last date an occurrence may fall on.
+     *
+     * @return the end date, or null if there is none
+     */
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Gets the occurrence limit.
+     *
+     * @return the maximum number of occurrences, or 0 for no limit
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the weekdays of the occurrences. Monthly rules by date have none.
+     *
+     * @return the weekdays in order
+     */
+    public DayOfWeek[] getDaysOfWeek() {
+        DayOfWeek[] days = new DayOfWeek[weekdays.length];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = DayOfWeek.of(weekdays[i]);
+        }
+        return days;
+    }
+
+    /**
+     * Gets the excluded dates.
+     *
+     * @return a copy of the excluded dates in order
+     */
+    public List<LocalDate> getExceptions() {
+        return new ArrayList<>(exceptions);
+    }
+
+    /**
+     * Checks whether another object is a rule with the same occurrences. Two rules are
+     * equal when their descriptions are, since {@link #toString()} lists every field that
+     * defines the rule.
+     *
+     * @param o the object to compare with
+     * @return true if the object is an equal rule
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof RecurrenceRule && toString().equals(o.toString()));
+    }
+
+    /**
+     * Computes a hash code from the rule's description.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    /**
+     * Describes the rule in the style of an iCalendar RRULE, such as
+     * <code>FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,FR;COUNT=10</code>.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=")
+            .append(frequency == Frequency.WEEKLY ? "WEEKLY" : "MONTHLY")
+            .append(";INTERVAL=").append(interval);
+        if (frequency == Frequency.MONTHLY_BY_DATE) {
+            rule.append(";BYMONTHDAY=").append(dayOfMonth);
+        } else {
+            rule.append(";BYDAY=");
+            if (frequency == Frequency.MONTHLY_BY_WEEKDAY) rule.append(ordinal);
+            for (int i = 0; i < weekdays.length; i++) {
+                if (i > 0) rule.append(',');
+                rule.append(DayOfWeek.of(weekdays[i]).name(), 0, 2);
+            }
+        }
+        rule.append(";DTSTART=").append(start);
+        if (count > 0) rule.append(";COUNT=").append(count);
+        if (until != null) rule.append(";UNTIL=").append(until);
+        if (!exceptions.isEmpty()) {
+            rule.append(";EXDATE=");
+            boolean first = true;
+            for (LocalDate date : exceptions) {
+                if (!first) rule.append(',');
+                rule.append(date);
+                first = false;
+            }
+        }
+        return rule.toString();
+    }
+
+    /**
+     * Gets the date of an occurrence number, ignoring exclusions and limits.
+     *
+     * @param index the occurrence number
+     * @return the date
+     */
+    private LocalDate dateAt(long index) {
+        return dateAtPosition(index + skip);
+    }
+
+    /**
+     * Gets the date at a position counted from the first period, including the positions
+     * before the start date.
+     *
+     * @param position the position
+     * @return the date
+     */
+    private LocalDate dateAtPosition(long position) {
+        long period = position / weekdaysPerPeriod();
+        if (frequency == Frequency.WEEKLY) {
+            int slot = (int) (position % weekdays.length);
+            return firstWeek().plusDays(period * interval * 7 + weekdays[slot] - 1);
+        }
+        YearMonth month = YearMonth.from(start).plusMonths(period * interval);
+        if (frequency == Frequency.MONTHLY_BY_DATE) {
+            return month.atDay(Math.min(dayOfMonth, month.lengthOfMonth()));
+        }
+        DayOfWeek day = DayOfWeek.of(weekdays[0]);
+        return month.atDay(1).with(ordinal > 0
+            ? TemporalAdjusters.dayOfWeekInMonth(ordinal, day)
+            : TemporalAdjusters.lastInMonth(day));
+    }
+
+    /**
+     * Finds the number of the first occurrence on or after a date, ignoring exclusions and limits.
+     *
+     * @param date the earliest date wanted
+     * @return the occurrence number
+     */
+    private long unboundedIndexOnOrAfter(LocalDate date) {
+        if (date.isBefore(start)) {
+            date = start;
+        }
+        long position;
+        if (frequency == Frequency.WEEKLY) {
+            long week = ChronoUnit.DAYS.between(firstWeek(), date) / 7;
+            long period = week / interval;
+            int slot = 0;
+            if (week % interval != 0) {
+                period++;
+            } else {
+                int day = date.getDayOfWeek().getValue();
+                while (slot < weekdays.length && weekdays[slot] < day) slot++;
+                if (slot == weekdays.length) {
+                    period++;
+                    slot = 0;
+                }
+            }
+            position = period * weekdays.length + slot;
+        } else {
+            long months = ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(date));
+            long period = (months + interval - 1) / interval;
+            position = period;
+            if (months % interval == 0 && dateAtPosition(position).isBefore(date)) {
+                position++;
+            }
+        }
+        return position - skip;
+    }
+
+    /**
+     * Skips excluded occurrence numbers.
+     *
+     * @param index an occurrence number
+     * @return the first occurrence number at or after it that is not excluded
+     */
+    private long nextIncludedIndex(long index) {
+        int i = Arrays.binarySearch(exceptionIndices, index);
+        while (i >= 0) {
+            index++;
+            i = i + 1 < exceptionIndices.length && exceptionIndices[i + 1] == index ? i + 1 : -1;
+        }
+        return index;
+    }
+
+    /**
+     * Counts the excluded occurrence numbers at or below a number.
+     *
+     * @param index the occurrence number
+     * @return the number of exclusions up to and including it
+     */
+    private long countExceptionsAtOrBelow(long index) {
+        int i = Arrays.binarySearch(exceptionIndices, index);
+        return i >= 0 ? i + 1 : -(i + 1);
+    }
+
+    /**
+     * Gets the number of positions in each period.
+     *
+     * @return the number of weekdays for weekly rules, otherwise 1
+     */
+    private int weekdaysPerPeriod() {
+        return frequency == Frequency.WEEKLY ? weekdays.length : 1;
+    }
+
+    /**
+     * Gets the Monday of the week the series starts in.
+     *
+     * @return the first Monday
+     */
+    private LocalDate firstWeek() {
+        return start.with(DayOfWeek.MONDAY);
+    }
+}
@@ -3,21 +3,20 @@ package model;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 
 /**
- * Extends Event to support repeating events on specific days between a start and end date.
+ * Extends Event to support repeating events. The dates of the occurrences are described
+ * by a {@link RecurrenceRule}; the times of day of the event's start and end are used for
+ * every occurrence.
  */
 public class RecurringEvent extends Event {
-    /** Days of the week when the event recurs. */
-    private DayOfWeek[] daysOfWeek;
-    /** Start date of the recurring event series. */
-    private LocalDate startDate;
-    /** End date of the recurring event series. */
-    private LocalDate endDate;
+    /** The dates on which the event takes place. */
+    private final RecurrenceRule rule;
 
     /**
-     * Constructs a recurring event.
+     * Constructs a recurring event on specific days of every week between two dates.
      *
      * @param title      the title of the event
      * @param startTime  the start time of each occurrence
@@ -29,30 +28,144 @@ public class RecurringEvent extends Event {
      */
     public RecurringEvent(String title, LocalDateTime startTime, LocalDateTime endTime, 
                          String location, DayOfWeek[] daysOfWeek, LocalDate startDate, LocalDate endDate) {
+        this(title, startTime, endTime, location, RecurrenceRule.weekly(startDate, 1, daysOfWeek).withUntil(endDate));
+    }
+
+    /**
+     * Constructs a recurring event following a recurrence rule.
+     *
+     * @param title     the title of the event
+     * @param startTime the start time of each occurrence
+     * @param endTime   the end time of each occurrence
+     * @param location  the location of the event
+     * @param rule      the dates of the occurrences
+     */
+    public RecurringEvent(String title, LocalDateTime startTime, LocalDateTime endTime,
+                         String location, RecurrenceRule rule) {
         super(title, startTime, endTime, location);
-        this.daysOfWeek = daysOfWeek;
-        this.startDate = startDate;
-        this.endDate = endDate;
+        this.rule = rule;
+    }
+
+    /**
+     * Gets the recurrence rule of the series.
+     *
+     * @return the rule
+     */
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    /**
+     * Gets the days of the week when the event recurs.
+     *
+     * @return the days, empty for rules repeating on a day of the month
+     */
+    public DayOfWeek[] getDaysOfWeek() {
+        return rule.getDaysOfWeek();
+    }
+
+    /**
+     * Gets the start date of the series.
+     *
+     * @return the first date of the series
+     */
+    public LocalDate getStartDate() {
+        return rule.getStart();
+    }
+
+    /**
+     * Gets the end date of the series.
+     *
+     * @return the end date of the rule, or its last occurrence, or null if the series has no end
+     */
+    public LocalDate getEndDate() {
+        return rule.getUntil() != null ? rule.getUntil() : rule.getLastOccurrence();
     }
 
     /**
-     * Generates all occurrences of this recurring event within the date range.
+     * Generates all occurrences of this recurring event.
      *
      * @return a list of Event objects representing each occurrence
+     * @throws IllegalStateException if the series has no end
      */
     public ArrayList<Event> generateOccurrences() {
+        requireBounded();
+        return generateOccurrences(rule.getStart(), getEndDate());
+    }
+
+    /**
+     * Generates the occurrences of this recurring event within a range of dates. The first
+     * occurrence in the range is computed directly, so the cost depends only on the size of
+     * the range and not on where it lies in the series.
+     *
+     * @param from the first date of the range, inclusive
+     * @param to   the last date of the range, inclusive
+     * @return a list of Event objects representing each occurrence in the range
+     */
+    public ArrayList<Event> generateOccurrences(LocalDate from, LocalDate to) {
+        ArrayList<Event> occurrences = new ArrayList<>();
+        for (LocalDate date : rule.occurrencesBetween(from, to)) {
+            LocalDateTime s = LocalDateTime.of(date, getStart().toLocalTime());
+            LocalDateTime e = LocalDateTime.of(date, getEnd().toLocalTime());
+            occurrences.add(new Event(getTitle(), s, e, getLocation()));
+        }
+        return occurrences;
+    }
+
+    /**
+     * Generates all occurrences of this recurring event as zoned events in the given zone.
+     * Each occurrence keeps the same wall-clock start and end time, even across daylight
+     * saving changes. Local times are converted with the zone's cached transition table,
+     * so no zone rule lookups are made per occurrence.
+     *
+     * @param zone the time zone of the occurrences
+     * @return a list of ZonedEvent objects representing each occurrence
+     * @throws IllegalStateException if the series has no end
+     */
+    public ArrayList<Event> generateOccurrences(ZoneId zone) {
+        requireBounded();
+        ZoneTransitionTable transitions = ZoneTransitionTable.of(zone);
+        long startOfDay = getStart().toLocalTime().toSecondOfDay();
+        long endOfDay = getEnd().toLocalTime().toSecondOfDay();
+
         ArrayList<Event> occurrences = new ArrayList<>();
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            for (DayOfWeek d : daysOfWeek) {
-                if (current.getDayOfWeek() == d) {
-                    LocalDateTime s = LocalDateTime.of(current, getStart().toLocalTime());
-                    LocalDateTime e = LocalDateTime.of(current, getEnd().toLocalTime());
-                    occurrences.add(new Event(getTitle(), s, e, getLocation()));
-                }
-            }
-            current = current.plusDays(1);
+        for (LocalDate date : rule.occurrencesBetween(rule.getStart(), getEndDate())) {
+            long s = transitions.toEpochSecond(date.toEpochDay() * 86400 + startOfDay);
+            long e = transitions.toEpochSecond(date.toEpochDay() * 86400 + endOfDay);
+            occurrences.add(new ZonedEvent(getTitle(), s, e, getLocation(), zone));
         }
         return occurrences;
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks that the series ends, so all of its occurrences can be generated.
+     *
+     * @throws IllegalStateException if the series has no end
+     */
+    private void requireBounded() {
+        if (!rule.isBounded()) {
+            throw new IllegalStateException("Recurring event '" + getTitle() + "' has no end; generate a range instead");
+        }
+    }
+
+    /**
+     * Checks whether another object is a recurring event with the same fields and rule.
+     *
+     * @param o the object to compare with
+     * @return true if the object describes the same series
+     */
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && rule.equals(((RecurringEvent) o).rule);
+    }
+
+    /**
+     * Computes a hash code from the event's fields and rule.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + rule.hashCode();
+    }
+}
@@ -0,0 +1,331 @@
+package model;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Raises reminders a fixed lead time before the events of a schedule start, on a thread of
+ * its own.
+ * <p>
+ * Pending reminders are held in a {@link HierarchicalTimingWheel}, so adding and cancelling
+ * one takes constant time however many are pending. The scheduler listens to the schedule
+ * and only touches the reminders of the events named in each change, so edits and removals
+ * never rescan the schedule. A {@link RecurringEvent} held by the schedule has only its next
+ * occurrence in the wheel; when that reminder fires, the following occurrence is looked up
+ * with {@link RecurrenceRule#firstOccurrenceOnOrAfter}, so series without an end cost no
+ * more than single events.
+ * <p>
+ * A reminder whose time has passed is still raised if its event has not started, such as
+ * for an event added a few minutes before it begins. Plain events are read in the clock's
+ * zone; zoned events remind at their own instant.
+ */
+public class ReminderScheduler implements ScheduleListener {
+    /** Length of one tick of the wheel, the precision of reminders. */
+    private static final long TICK_MILLIS = 1000;
+
+    /** The schedule whose events are reminded of. */
+    private final Schedule schedule;
+    /** How long before an event starts its reminder is raised. */
+    private final Duration leadTime;
+    /** Receives reminders on the reminder thread. */
+    private final Consumer<Reminder> handler;
+    /** Source of the current time. */
+    private final Clock clock;
+    /** Pending reminders. */
+    private final HierarchicalTimingWheel<Pending> wheel;
+    /** The pending reminder of each event, by identity. */
+    private final Map<Event, HierarchicalTimingWheel.Timer<Pending>> timers = new IdentityHashMap<>();
+    /** Thread raising the reminders. */
+    private Thread thread;
+    /** Whether the scheduler has been stopped. */
+    private boolean stopped;
+
+    /**
+     * A reminder that an event is about to start.
+     */
+    public static class Reminder {
+        /** The event held by the schedule. */
+        private final Event event;
+        /** When the event, or this occurrence of a series, starts. */
+        private final LocalDateTime start;
+        /** When this occurrence ends. */
+        private final LocalDateTime end;
+
+        /**
+         * Creates a reminder.
+         *
+         * @param event the event
+         * @param start when the occurrence starts
+         * @param end   when the occurrence ends
+         */
+        Reminder(Event event, LocalDateTime start, LocalDateTime end) {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Gets the event the reminder is for.
+         *
+         * @return the event held by the schedule; for a series, the recurring event
+         */
+        public Event getEvent() {
+            return event;
+        }
+
+        /**
+         * Gets when the event starts.
+         *
+         * @return the start of the occurrence reminded of
+         */
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        /**
+         * Gets when the event ends.
+         *
+         * @return the end of the occurrence reminded of
+         */
+        public LocalDateTime getEnd() {
+            return end;
+        }
+
+        /**
+         * Describes the reminder.
+         *
+         * @return the title, location and start of the event
+         */
+        @Override
+        public String toString() {
+            return event.getTitle() + " at " + event.getLocation() + " starts " + start;
+        }
+    }
+
+    /**
+     * The value held by a timer: an event and the occurrence reminded of.
+     */
+    private static class Pending {
+        /** The event held by the schedule. */
+        private final Event event;
+        /** Date of the occurrence of a series, or null for a single event. */
+        private final LocalDate occurrence;
+
+        /**
+         * Creates a pending reminder.
+         *
+         * @param event      the event
+         * @param occurrence the date of the occurrence of a series, or null
+         */
+        Pending(Event event, LocalDate occurrence) {
+            this.event = event;
+            this.occurrence = occurrence;
+        }
+    }
+
+    /**
+     * Creates a scheduler using the system clock. Call {@link #start} to begin.
+     *
+     * @param schedule the schedule whose events are reminded of
+     * @param leadTime how long before an event starts its reminder is raised
+     * @param handler  receives reminders on the reminder thread
+     */
+    public ReminderScheduler(Schedule schedule, Duration leadTime, Consumer<Reminder> handler) {
+        this(schedule, leadTime, handler, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a scheduler. Call {@link #start} to begin.
+     *
+     * @param schedule the schedule whose events are reminded of
+     * @param leadTime how long before an event starts its reminder is raised
+     * @param handler  receives reminders on the reminder thread
+     * @param clock    the source of the current time and the zone of plain events
+     */
+    public ReminderScheduler(Schedule schedule, Duration leadTime, Consumer<Reminder> handler, Clock clock) {
+        this.schedule = schedule;
+        this.leadTime = leadTime;
+        this.handler = handler;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(TICK_MILLIS, clock.millis());
+    }
+
+    /**
+     * Schedules reminders for the events already in the schedule, which takes one pass over
+     * them, then listens for changes and starts the reminder thread.
+     */
+    public void start() {
+        synchronized (schedule) {
+            synchronized (this) {
+                for (Event event : schedule.getEvents()) {
+                    add(event);
+                }
+            }
+            schedule.addScheduleListener(this);
+        }
+        thread = new Thread(this::run, "reminders-" + schedule.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops raising reminders and stops listening to the schedule.
+     */
+    public void stop() {
+        schedule.removeScheduleListener(this);
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Updates the reminders of the events named in a change.
+     *
+     * @param change the changes made to the schedule
+     */
+    @Override
+    public synchronized void scheduleChanged(ScheduleChange change) {
+        for (Event event : change.getRemoved()) {
+            wheel.cancel(timers.remove(event));
+        }
+        for (Event event : change.getArchived()) {
+            wheel.cancel(timers.remove(event));
+        }
+        for (ScheduleChange.Modification modification : change.getModified()) {
+            wheel.cancel(timers.remove(modification.getEvent()));
+            add(modification.getEvent());
+        }
+        for (Event event : change.getAdded()) {
+            add(event);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Gets the number of pending reminders.
+     *
+     * @return the reminder count
+     */
+    public synchronized int getPendingCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Schedules the next reminder of an event, if it has one that has not started.
+     *
+     * @param event the event
+     */
+    private void add(Event event) {
+        if (event == null || event.getStart() == null) return;
+        long now = clock.millis();
+        if (event instanceof RecurringEvent) {
+            scheduleOccurrence((RecurringEvent) event, LocalDate.now(clock).minusDays(1), now);
+        } else if (startMillis(event) > now) {
+            timers.put(event, wheel.schedule(startMillis(event) - leadTime.toMillis(), new Pending(event, null)));
+        }
+    }
+
+    /**
+     * Schedules the reminder of the first occurrence of a series, on or after a date, that
+     * has not started.
+     *
+     * @param series the series
+     * @param from   the earliest date to consider
+     * @param now    the current time in milliseconds
+     */
+    private void scheduleOccurrence(RecurringEvent series, LocalDate from, long now) {
+        LocalDate date = series.getRule().firstOccurrenceOnOrAfter(from);
+        while (date != null && occurrenceStart(series, date).atZone(clock.getZone()).toInstant().toEpochMilli() <= now) {
+            date = series.getRule().firstOccurrenceOnOrAfter(date.plusDays(1));
+        }
+        if (date == null) return;
+        long start = occurrenceStart(series, date).atZone(clock.getZone()).toInstant().toEpochMilli();
+        timers.put(series, wheel.schedule(start - leadTime.toMillis(), new Pending(series, date)));
+    }
+
+    /**
+     * Raises reminders as they come due until the scheduler is stopped.
+     */
+    private void run() {
+        List<Reminder> due = new ArrayList<>();
+        while (true) {
+            synchronized (this) {
+                try {
+                    while (!stopped && wheel.size() == 0) {
+                        wait();
+                    }
+                    long wait = wheel.getNextTickMillis() - clock.millis();
+                    if (!stopped && wait > 0) {
+                        wait(wait);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (stopped) return;
+                long now = clock.millis();
+                wheel.advance(now, pending -> due.add(expire(pending, now)));
+            }
+            for (Reminder reminder : due) {
+                try {
+                    handler.accept(reminder);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            due.clear();
+        }
+    }
+
+    /**
+     * Turns an expired timer into a reminder, and schedules the next occurrence of a series.
+     *
+     * @param pending the expired reminder
+     * @param now     the current time in milliseconds
+     * @return the reminder to raise
+     */
+    private Reminder expire(Pending pending, long now) {
+        Event event = pending.event;
+        timers.remove(event);
+        if (pending.occurrence == null) {
+            return new Reminder(event, event.getStart(), event.getEnd());
+        }
+        RecurringEvent series = (RecurringEvent) event;
+        scheduleOccurrence(series, pending.occurrence.plusDays(1), now);
+        LocalDateTime start = occurrenceStart(series, pending.occurrence);
+        return new Reminder(event, start, start.plus(Duration.between(series.getStart(), series.getEnd())));
+    }
+
+    /**
+     * Gets when an occurrence of a series starts.
+     *
+     * @param series the series
+     * @param date   the date of the occurrence
+     * @return the start of the occurrence
+     */
+    private static LocalDateTime occurrenceStart(RecurringEvent series, LocalDate date) {
+        return LocalDateTime.of(date, series.getStart().toLocalTime());
+    }
+
+    /**
+     * Gets when an event starts, in milliseconds.
+     *
+     * @param event the event
+     * @return the start as epoch milliseconds
+     */
+    private long startMillis(Event event) {
+        if (event instanceof ZonedEvent) {
+            return ((ZonedEvent) event).getStartEpochSecond() * 1000;
+        }
+        ZoneId zone = clock.getZone();
+        return event.getStart().atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,407 @@
+package model;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of which events occupy which rooms, across every schedule attached to it,
+ * so that a room cannot be booked twice for the same time even by different schedules.
+ * <p>
+ * Locations are normalised before use: case, surrounding space and runs of inner space
+ * are ignored, and aliases can map other spellings to a room's name. Each room has its own
+ * interval index, a tree of its bookings by start. Bookings made through {@link #reserve}
+ * never overlap, so the only booking that can clash with a new one is the last one starting
+ * before the new one ends, and a check takes O(log n) time for n bookings of the room.
+ * <p>
+ * Each room is locked on its own, so bookers of different rooms do not wait for each other.
+ * Events taken without checks, such as loaded or replicated events, are recorded even if
+ * they clash; clashing bookings are kept aside in a list that is checked as well, and is
+ * empty unless such events were taken. Events without a location or without a duration do
+ * not occupy a room.
+ */
+public class ResourceRegistry {
+    /** Rooms by normalised name. */
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    /** Normalised room names by normalised alias. */
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    /** Booking of each event, by identity, since events can be changed in place. */
+    private final Map<Event, Booking> bookings = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * A room and its bookings.
+     */
+    private static class Resource {
+        /** The room's normalised name, unique among rooms. */
+        private final String key;
+        /** The room's name as first written. */
+        private final String name;
+        /** Bookings that do not overlap each other, by start. */
+        private final TreeMap<Long, Booking> byStart = new TreeMap<>();
+        /** Bookings taken without checks that overlap a booking in {@link #byStart}. */
+        private final List<Booking> clashes = new ArrayList<>();
+
+        /**
+         * Creates a room without bookings.
+         *
+         * @param key  the room's normalised name
+         * @param name the room's name
+         */
+        Resource(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+
+        /**
+         * Finds a booking overlapping a time span.
+         *
+         * @param start  the start of the span in epoch seconds
+         * @param end    the end of the span in epoch seconds
+         * @param ignore a booking to leave out, or null
+         * @return an overlapping booking, or null if the room is free
+         */
+        Booking findOverlap(long start, long end, Booking ignore) {
+            Map.Entry<Long, Booking> before = byStart.lowerEntry(end);
+            if (before != null && before.getValue() == ignore) {
+                before = byStart.lowerEntry(before.getKey());
+            }
+            if (before != null && before.getValue().end > start) {
+                return before.getValue();
+            }
+            for (Booking clash : clashes) {
+                if (clash != ignore && clash.start < end && clash.end > start) return clash;
+            }
+            return null;
+        }
+
+        /**
+         * Adds a booking, keeping it aside if it overlaps another.
+         *
+         * @param booking the booking
+         */
+        void add(Booking booking) {
+            if (findOverlap(booking.start, booking.end, null) == null) {
+                byStart.put(booking.start, booking);
+            } else {
+                clashes.add(booking);
+            }
+        }
+
+        /**
+         * Removes a booking.
+         *
+         * @param booking the booking
+         */
+        void remove(Booking booking) {
+            if (byStart.get(booking.start) == booking) {
+                byStart.remove(booking.start);
+                promoteClashes();
+            } else {
+                clashes.remove(booking);
+            }
+        }
+
+        /**
+         * Moves bookings kept aside into the index once they no longer clash.
+         */
+        private void promoteClashes() {
+            for (Iterator<Booking> it = clashes.iterator(); it.hasNext(); ) {
+                Booking clash = it.next();
+                Map.Entry<Long, Booking> before = byStart.lowerEntry(clash.end);
+                if (before == null || before.getValue().end <= clash.start) {
+                    byStart.put(clash.start, clash);
+                    it.remove();
+                }
+            }
+        }
+
+        /**
+         * Counts the room's bookings.
+         *
+         * @return the number of bookings
+         */
+        int size() {
+            return byStart.size() + clashes.size();
+        }
+    }
+
+    /**
+     * The time an event occupies a room.
+     */
+    private static class Booking {
+        /** The room. */
+        private final Resource resource;
+        /** The schedule holding the event. */
+        private final Schedule owner;
+        /** The event. */
+        private final Event event;
+        /** Start in epoch seconds. */
+        private final long start;
+        /** End in epoch seconds. */
+        private final long end;
+
+        /**
+         * Creates a booking.
+         *
+         * @param resource the room
+         * @param owner    the schedule holding the event
+         * @param event    the event
+         * @param start    the start in epoch seconds
+         * @param end      the end in epoch seconds
+         */
+        Booking(Resource resource, Schedule owner, Event event, long start, long end) {
+            this.resource = resource;
+            this.owner = owner;
+            this.event = event;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Normalises a location so that different spellings of a room compare equal: surrounding
+     * space is removed, runs of inner space become one space and letters become lower case.
+     *
+     * @param location the location as written, or null
+     * @return the normalised location, or the empty string if there is none
+     */
+    public static String normalize(String location) {
+        if (location == null) return "";
+        StringBuilder normalized = new StringBuilder(location.length());
+        boolean space = false;
+        for (int i = 0; i < location.length(); i++) {
+            char c = location.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) normalized.append(' ');
+                normalized.append(c);
+                space = false;
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Makes another name refer to a room, such as a short name or a room number. Bookings
+     * already made under the other name are not moved, so aliases are best added first.
+     *
+     * @param alias the other name
+     * @param room  the room's name
+     */
+    public void addAlias(String alias, String room) {
+        String key = normalize(alias);
+        String target = resourceKey(room);
+        if (key.isEmpty() || target.isEmpty() || key.equals(target)) return;
+        resources.computeIfAbsent(target, k -> new Resource(k, room.trim()));
+        aliases.put(key, target);
+    }
+
+    /**
+     * Gets the key of the room a location refers to.
+     *
+     * @param location the location as written
+     * @return the normalised room name, following aliases, or the empty string if there is none
+     */
+    public String resourceKey(String location) {
+        String key = normalize(location);
+        return aliases.getOrDefault(key, key);
+    }
+
+    /**
+     * Books the room of an event if it is free for the event's time.
+     *
+     * @param owner the schedule the event is being added to
+     * @param event the event
+     * @return true if the room was booked or the event needs no room, false if the room is taken
+     */
+    public boolean reserve(Schedule owner, Event event) {
+        Resource resource = resourceFor(event);
+        if (resource == null) return true;
+        long start = startOf(event);
+        long end = endOf(event);
+        synchronized (resource) {
+            if (resource.findOverlap(start, end, null) != null) return false;
+            Booking booking = new Booking(resource, owner, event, start, end);
+            resource.add(booking);
+            bookings.put(event, booking);
+        }
+        return true;
+    }
+
+    /**
+     * Books the room of an event without checking it, for events already accepted elsewhere.
+     *
+     * @param owner the schedule holding the event
+     * @param event the event
+     */
+    public void track(Schedule owner, Event event) {
+        Resource resource = resourceFor(event);
+        if (resource == null) return;
+        Booking booking = new Booking(resource, owner, event, startOf(event), endOf(event));
+        synchronized (resource) {
+            resource.add(booking);
+            bookings.put(event, booking);
+        }
+    }
+
+    /**
+     * Moves an event's booking to new values, if the new room is free for the new time.
+     * The event's current booking does not count as a clash.
+     *
+     * @param owner     the schedule holding the event
+     * @param event     the event, still holding its current values
+     * @param newValues an event holding the new location, start and end
+     * @return true if the booking was moved, false if the new room is taken
+     */
+    public boolean rebook(Schedule owner, Event event, Event newValues) {
+        Booking current = bookings.get(event);
+        Resource target = resourceFor(newValues);
+        Resource source = current == null ? null : current.resource;
+        // Rooms are locked in order of their keys, which are unique, so that two moves in
+        // opposite directions cannot deadlock.
+        Resource first = source;
+        Resource second = target;
+        if (first == null || (second != null && second.key.compareTo(first.key) < 0)) {
+            first = target;
+            second = source;
+        }
+        Object firstLock = first == null ? new Object() : first;
+        Object secondLock = second == null || second == first ? firstLock : second;
+        synchronized (firstLock) {
+            synchronized (secondLock) {
+                if (target != null && target.findOverlap(startOf(newValues), endOf(newValues), current) != null) {
+                    return false;
+                }
+                if (current != null) {
+                    source.remove(current);
+                    bookings.remove(event);
+                }
+                if (target != null) {
+                    Booking moved = new Booking(target, owner, event, startOf(newValues), endOf(newValues));
+                    target.add(moved);
+                    bookings.put(event, moved);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees the room booked by an event.
+     *
+     * @param event the event
+     */
+    public void release(Event event) {
+        Booking booking = bookings.get(event);
+        if (booking == null) return;
+        synchronized (booking.resource) {
+            if (bookings.get(event) != booking) return;
+            booking.resource.remove(booking);
+            bookings.remove(event);
+        }
+    }
+
+    /**
+     * Frees every room booked by the events of a schedule.
+     *
+     * @param owner the schedule
+     */
+    public void releaseAll(Schedule owner) {
+        List<Event> owned = new ArrayList<>();
+        synchronized (bookings) {
+            for (Booking booking : bookings.values()) {
+                if (booking.owner == owner) owned.add(booking.event);
+            }
+        }
+        for (Event event : owned) {
+            release(event);
+        }
+    }
+
+    /**
+     * Finds an event that holds the room of another event at the same time.
+     *
+     * @param event the event to check
+     * @return a clashing event, or null if the room is free or the event needs no room
+     */
+    public Event findConflict(Event event) {
+        Resource resource = resourceFor(event);
+        if (resource == null) return null;
+        synchronized (resource) {
+            Booking clash = resource.findOverlap(startOf(event), endOf(event), bookings.get(event));
+            return clash == null ? null : clash.event;
+        }
+    }
+
+    /**
+     * Gets the name of every room that has been booked.
+     *
+     * @return the room names as first written
+     */
+    public List<String> getResourceNames() {
+        List<String> names = new ArrayList<>();
+        for (Resource resource : resources.values()) {
+            names.add(resource.name);
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Counts the bookings of a room.
+     *
+     * @param location the room, as written anywhere
+     * @return the number of bookings
+     */
+    public int getBookingCount(String location) {
+        Resource resource = resources.get(resourceKey(location));
+        if (resource == null) return 0;
+        synchronized (resource) {
+            return resource.size();
+        }
+    }
+
+    /**
+     * Gets the room an event occupies, creating it on first use.
+     *
+     * @param event the event
+     * @return the room, or null if the event has no location or no duration
+     */
+    private Resource resourceFor(Event event) {
+        if (event == null || event.getStart() == null || event.getEnd() == null) return null;
+        String key = resourceKey(event.getLocation());
+        if (key.isEmpty() || endOf(event) <= startOf(event)) return null;
+        return resources.computeIfAbsent(key, k -> new Resource(k, event.getLocation().trim()));
+    }
+
+    /**
+     * Gets the start of an event as an instant. Zoned events carry their own instant;
+     * plain events are read in the system zone, as the form enters them.
+     *
+     * @param event the event
+     * @return the start in epoch seconds
+     */
+    private static long startOf(Event event) {
+        if (event instanceof ZonedEvent) return ((ZonedEvent) event).getStartEpochSecond();
+        return event.getStart().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Gets the end of an event as an instant, read as by {@link #startOf}.
+     *
+     * @param event the event
+     * @return the end in epoch seconds
+     */
+    private static long endOf(Event event) {
+        if (event instanceof ZonedEvent) return ((ZonedEvent) event).getEndEpochSecond();
+        return event.getEnd().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+}
@@ -1,18 +1,61 @@
 package model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A collection of events representing a user's weekly schedule.
+ * Methods that read or change the event list are synchronized on the schedule,
+ * so it can be changed by a writer thread while other threads read it.
  */
 public class Schedule {
+    /** Largest difference between the wall-clock times of one instant in two time zones. */
+    static final Duration ZONE_SLACK = Duration.ofHours(26);
+    /** Number of events read at a time by {@link #iterateByStart()}. */
+    private static final int ITERATION_PAGE = 1024;
     /** The name of the schedule. */
     private String name;
     /** The list of events in the schedule. */
     private ArrayList<Event> events;
+    /** Word index over event titles and locations used for searching. */
+    private final EventIndex index;
+    /** Whether the word index is out of date and must be rebuilt before the next search. */
+    private boolean wordIndexStale;
+    /** Events grouped by start time, for range queries. */
+    private final TreeMap<LocalDateTime, List<Event>> startIndex;
+    /** Events grouped by lower-case location, for location queries. */
+    private final Map<String, List<Event>> locationIndex;
+    /** Listeners notified after every change. */
+    private final List<ScheduleListener> listeners;
+    /** Longest duration of any event ever indexed, bounding how far back an overlapping event can start. */
+    private Duration longestEvent = Duration.ZERO;
+    /** Counter increased on every change, used to tell whether cached views are current. */
+    private long version;
+    /** Registry of rooms shared with other schedules, or null if rooms are not checked. */
+    private ResourceRegistry resources;
+    /** Cold storage holding archived past events, or null if the schedule has none. */
+    private SegmentedEventStore archive;
+    /** Held while events are archived or the whole history is read, so that each sees the archive complete. */
+    private final Object archiveLock = new Object();
 
     /**
      * Creates a schedule with the given name.
@@ -22,6 +65,10 @@ public class Schedule {
     public Schedule(String name) {
         this.name = name;
         this.events = new ArrayList<>();
+        this.index = new EventIndex();
+        this.startIndex = new TreeMap<>();
+        this.locationIndex = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -30,39 +77,777 @@ public class Schedule {
      * @param newEvent the event to add
      * @return true if the event was added, false if it overlaps
      */
-    public boolean addEvent(Event newEvent) {
+    public synchronized boolean addEvent(Event newEvent) {
         if (newEvent == null) return false;
-        if (newEvent.isOverlapping(events)) {
+        if (newEvent.isOverlapping(conflictCandidates(newEvent))) {
             System.out.println("Event overlaps with an existing event.");
             return false;
         }
+        if (resources != null && !resources.reserve(this, newEvent)) {
+            return false;
+        }
         events.add(newEvent);
+        indexWords(newEvent);
+        indexStart(newEvent);
+        indexLocation(newEvent);
+        fireChange(ScheduleChange.added(newEvent, ++version));
         return true;
     }
 
+    /**
+     * Gets the events that could overlap an event, using the start-time index instead of
+     * scanning every event. The window reaches back by the longest event, and is widened on
+     * both sides by {@link #ZONE_SLACK} because zoned events in different zones are compared
+     * by instant while the index holds wall-clock times.
+     *
+     * @param event the event to check
+     * @return the events starting near enough to overlap it
+     */
+    private ArrayList<Event> conflictCandidates(Event event) {
+        ArrayList<Event> candidates = new ArrayList<>();
+        if (event.getStart() == null || event.getEnd() == null) return candidates;
+        LocalDateTime from = event.getStart().minus(longestEvent).minus(ZONE_SLACK);
+        LocalDateTime to = event.getEnd().plus(ZONE_SLACK);
+        if (!from.isBefore(to)) return candidates;
+        for (List<Event> sameStart : startIndex.subMap(from, true, to, false).values()) {
+            for (Event candidate : sameStart) {
+                if (candidate.getEnd() != null) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Adds events read from storage in one step, without checking them for overlaps, and
+     * notifies listeners with a single change. The word index is not updated; it is rebuilt
+     * on the next search, so loading a large schedule does not pay for indexing up front.
+     *
+     * @param loaded the events to add, assumed not to overlap each other or existing events
+     * @return the number of events added
+     */
+    public synchronized int loadEvents(Collection<? extends Event> loaded) {
+        List<Event> added = new ArrayList<>(loaded.size());
+        for (Event event : loaded) {
+            if (event == null) continue;
+            events.add(event);
+            indexStart(event);
+            indexLocation(event);
+            if (resources != null) resources.track(this, event);
+            added.add(event);
+        }
+        if (added.isEmpty()) return 0;
+        wordIndexStale = true;
+        fireChange(new ScheduleChange(added, List.of(), List.of(), ++version));
+        return added.size();
+    }
+
+    /**
+     * Applies changes made elsewhere, such as by another copy of the schedule: removes the
+     * given event objects and adds the new ones without checking them for overlaps, then
+     * notifies listeners with a single change.
+     *
+     * @param removed the events to remove, compared by identity
+     * @param added   the events to add
+     */
+    public synchronized void applyChanges(Collection<? extends Event> removed, Collection<? extends Event> added) {
+        List<Event> gone = new ArrayList<>();
+        if (!removed.isEmpty()) {
+            Set<Event> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+            targets.addAll(removed);
+            events.removeIf(e -> targets.contains(e) && gone.add(e));
+            for (Event event : gone) {
+                unindexWords(event);
+                unindexStart(event);
+                unindexLocation(event);
+                if (resources != null) resources.release(event);
+            }
+        }
+        List<Event> put = new ArrayList<>(added.size());
+        for (Event event : added) {
+            if (event == null) continue;
+            events.add(event);
+            indexWords(event);
+            indexStart(event);
+            indexLocation(event);
+            if (resources != null) resources.track(this, event);
+            put.add(event);
+        }
+        if (gone.isEmpty() && put.isEmpty()) return;
+        fireChange(new ScheduleChange(put, gone, List.of(), ++version));
+    }
+
     /**
      * Removes an event by its title (case-insensitive).
      *
      * @param title the title of the event to remove
      * @return true if the event was found and removed, false otherwise
      */
-    public boolean removeEvent(String title) {
+    public synchronized boolean removeEvent(String title) {
         for (int i = 0; i < events.size(); i++) {
             if (events.get(i).getTitle().equalsIgnoreCase(title)) {
-                events.remove(i);
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given event object from the schedule.
+     *
+     * @param event the event to remove
+     * @return true if the event was in the schedule and was removed, false otherwise
+     */
+    public synchronized boolean removeEvent(Event event) {
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i) == event) {
+                removeAt(i);
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Changes an event in place to the values of another event, if the new times
+     * do not overlap with any other event in the schedule.
+     *
+     * @param event     the event in the schedule to change
+     * @param newValues an event holding the new title, location, start and end
+     * @return true if the event was changed, false if it is not in the schedule or would overlap
+     */
+    public synchronized boolean updateEvent(Event event, Event newValues) {
+        if (event == null || newValues == null) return false;
+        ArrayList<Event> others = new ArrayList<>(events.size());
+        boolean found = false;
+        for (Event e : events) {
+            if (e == event) {
+                found = true;
+            } else {
+                others.add(e);
+            }
+        }
+        if (!found) return false;
+        if (newValues.isOverlapping(others)) {
+            System.out.println("Event overlaps with an existing event.");
+            return false;
+        }
+        if (resources != null && !resources.rebook(this, event, asUpdated(event, newValues))) {
+            return false;
+        }
+
+        Event previous = new Event(event);
+        unindexWords(event);
+        unindexStart(event);
+        unindexLocation(event);
+        event.setTitle(newValues.getTitle());
+        event.setLocation(newValues.getLocation());
+        event.setStart(newValues.getStart());
+        event.setEnd(newValues.getEnd());
+        indexWords(event);
+        indexStart(event);
+        indexLocation(event);
+        fireChange(ScheduleChange.modified(event, previous, ++version));
+        return true;
+    }
+
+    /**
+     * Gets the values an event will have once changed to new values. A zoned event keeps
+     * its zone and reads the new wall-clock times in it.
+     *
+     * @param event     the event to change
+     * @param newValues an event holding the new values
+     * @return an event holding the values the changed event will have
+     */
+    private static Event asUpdated(Event event, Event newValues) {
+        if (event instanceof ZonedEvent) {
+            return new ZonedEvent(newValues.getTitle(), newValues.getStart(), newValues.getEnd(),
+                newValues.getLocation(), ((ZonedEvent) event).getZone());
+        }
+        return newValues;
+    }
+
+    /**
+     * Removes the event at the given position and notifies listeners.
+     *
+     * @param i the position of the event to remove
+     */
+    private void removeAt(int i) {
+        Event removed = events.remove(i);
+        unindexWords(removed);
+        unindexStart(removed);
+        unindexLocation(removed);
+        if (resources != null) resources.release(removed);
+        fireChange(ScheduleChange.removed(removed, ++version));
+    }
+
+    /**
+     * Gets the events that start within the given range, ordered by start time. If the
+     * schedule has an archive, archived events in the range are included; they are read
+     * from disk when their month is not cached, and are read-only copies that the schedule
+     * does not hold. The schedule is locked only while its own events are collected, not
+     * while the archive is read.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the events starting in the range
+     */
+    public List<Event> getEventsBetween(LocalDateTime from, LocalDateTime to) {
+        List<Event> result = new ArrayList<>();
+        if (!from.isBefore(to)) return result;
+        SegmentedEventStore store;
+        synchronized (this) {
+            for (List<Event> sameStart : startIndex.subMap(from, true, to, false).values()) {
+                result.addAll(sameStart);
+            }
+            store = archive;
+        }
+        return store == null ? result : mergeByStart(withoutHeldAgain(store.getEventsBetween(from, to), result), result);
+    }
+
+    /**
+     * Gets the events that share any time with the given range, ordered by start time.
+     * Archived events are included as by {@link #getEventsBetween}.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the events overlapping the range
+     */
+    public List<Event> getEventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> result = new ArrayList<>();
+        if (!from.isBefore(to)) return result;
+        SegmentedEventStore store;
+        synchronized (this) {
+            for (List<Event> sameStart : startIndex.subMap(from.minus(longestEvent), true, to, false).values()) {
+                for (Event event : sameStart) {
+                    if (event.getEnd() != null && event.getEnd().isAfter(from)) {
+                        result.add(event);
+                    }
+                }
+            }
+            store = archive;
+        }
+        return store == null ? result : mergeByStart(withoutHeldAgain(store.getEventsOverlapping(from, to), result), result);
+    }
+
+    /**
+     * Drops the archived copies of events the schedule holds. A copy and its event are both
+     * seen while an archive run has written the event but not yet removed it, and when an
+     * event archived earlier is loaded again from an older save.
+     *
+     * @param archived archived events
+     * @param held     events held by the schedule
+     * @return the archived events without a held event of the same record, in their order
+     */
+    private static List<Event> withoutHeldAgain(List<Event> archived, List<Event> held) {
+        if (archived.isEmpty() || held.isEmpty()) return archived;
+        Map<String, Integer> heldAgain = new HashMap<>();
+        for (Event event : held) {
+            if (event.getStart() != null && event.getEnd() != null && !(event instanceof RecurringEvent)) {
+                heldAgain.merge(SegmentedEventStore.recordKey(event), 1, Integer::sum);
+            }
+        }
+        List<Event> kept = new ArrayList<>(archived.size());
+        for (Event event : archived) {
+            String key = SegmentedEventStore.recordKey(event);
+            Integer count = heldAgain.get(key);
+            if (count == null) {
+                kept.add(event);
+            } else if (count == 1) {
+                heldAgain.remove(key);
+            } else {
+                heldAgain.put(key, count - 1);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Merges two lists of events ordered by start time into one.
+     *
+     * @param first  the first list, usually archived events
+     * @param second the second list
+     * @return the events of both lists, ordered by start time
+     */
+    private static List<Event> mergeByStart(List<Event> first, List<Event> second) {
+        if (first.isEmpty()) return second;
+        List<Event> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() || j < second.size()) {
+            if (j == second.size() || (i < first.size() && !second.get(j).getStart().isBefore(first.get(i).getStart()))) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Sets the cold storage that past events are archived to. Range queries include the
+     * archived events from then on.
+     *
+     * @param archive the archive, or null to stop including archived events
+     */
+    public synchronized void setArchive(SegmentedEventStore archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Gets the cold storage that past events are archived to.
+     *
+     * @return the archive, or null if the schedule has none
+     */
+    public synchronized SegmentedEventStore getArchive() {
+        return archive;
+    }
+
+    /**
+     * Moves the events that ended at or before a time to the archive, freeing their memory
+     * and their rooms. Recurring events stay in the schedule, since their end is that of the
+     * first occurrence and later occurrences may still be to come. Listeners are notified
+     * with one change listing them as archived rather than removed, so that copies of the
+     * schedule elsewhere keep the events.
+     * <p>
+     * The events are chosen under the schedule's lock, written to the archive with the lock
+     * released, so that commands and readers are not held up by the disk, and then removed
+     * under the lock again. An event that was changed or removed while it was written stays
+     * as it now is, and its copy is taken out of the archive again. Events are written
+     * before they are removed, so a failed write loses nothing, and events the archive
+     * already holds, such as ones loaded again from an older save, are not written twice.
+     *
+     * @param cutoff the time at or before which events must have ended to be archived
+     * @return the number of events archived
+     * @throws IOException if the archive cannot be written
+     * @throws IllegalStateException if the schedule has no archive
+     */
+    public int archiveBefore(LocalDateTime cutoff) throws IOException {
+        synchronized (archiveLock) {
+            SegmentedEventStore store;
+            List<Event> finished = new ArrayList<>();
+            List<Event> copies = new ArrayList<>();
+            synchronized (this) {
+                store = archive;
+                if (store == null) {
+                    throw new IllegalStateException("Schedule '" + name + "' has no archive");
+                }
+                for (List<Event> sameStart : startIndex.headMap(cutoff, false).values()) {
+                    for (Event event : sameStart) {
+                        if (!(event instanceof RecurringEvent) && event.getEnd() != null && !event.getEnd().isAfter(cutoff)) {
+                            finished.add(event);
+                            copies.add(SegmentedEventStore.storedCopy(event));
+                        }
+                    }
+                }
+            }
+            if (finished.isEmpty()) return 0;
+
+            Set<String> alreadyArchived = new HashSet<>();
+            for (Event event : store.getEventsBetween(copies.get(0).getStart(), cutoff)) {
+                alreadyArchived.add(SegmentedEventStore.recordKey(event));
+            }
+            List<Event> toWrite = new ArrayList<>(copies.size());
+            for (Event copy : copies) {
+                if (!alreadyArchived.contains(SegmentedEventStore.recordKey(copy))) toWrite.add(copy);
+            }
+            store.appendAll(toWrite);
+
+            Set<Event> written = Collections.newSetFromMap(new IdentityHashMap<>());
+            written.addAll(toWrite);
+            List<Event> removed = new ArrayList<>(finished.size());
+            List<Event> orphaned = new ArrayList<>();
+            synchronized (this) {
+                for (int i = 0; i < finished.size(); i++) {
+                    Event event = finished.get(i);
+                    Event copy = copies.get(i);
+                    List<Event> sameStart = event.getStart() == null ? null : startIndex.get(event.getStart());
+                    boolean unchanged = sameStart != null && sameStart.stream().anyMatch(e -> e == event)
+                        && SegmentedEventStore.recordKey(event).equals(SegmentedEventStore.recordKey(copy));
+                    if (unchanged) {
+                        removed.add(event);
+                    } else if (written.contains(copy)) {
+                        orphaned.add(copy);
+                    }
+                }
+                if (!removed.isEmpty()) {
+                    Set<Event> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+                    targets.addAll(removed);
+                    events.removeIf(targets::contains);
+                    for (Event event : removed) {
+                        unindexWords(event);
+                        unindexStart(event);
+                        unindexLocation(event);
+                        if (resources != null) resources.release(event);
+                    }
+                    events.trimToSize();
+                    fireChange(ScheduleChange.archived(removed, ++version));
+                }
+            }
+            if (!orphaned.isEmpty()) {
+                store.removeAll(orphaned);
+            }
+            return removed.size();
+        }
+    }
+
+    /**
+     * Iterates over the events in order of start time, reading them a page at a time so
+     * that only one page is held in memory. The schedule is locked only while a page is
+     * read, so changes made during the iteration may or may not be seen; events starting
+     * before the last page read are never returned twice.
+     *
+     * @return an iterator over the events ordered by start time
+     */
+    public Iterator<Event> iterateByStart() {
+        return new Iterator<Event>() {
+            /** Events of the current page not yet returned. */
+            private Iterator<Event> page = List.<Event>of().iterator();
+            /** Start time of the last group of events read, or null before the first page. */
+            private LocalDateTime last;
+            /** Whether the last page reached the end of the schedule. */
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !exhausted) {
+                    page = readPage().iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page.next();
+            }
+
+            /**
+             * Reads the next groups of events with equal start times, about
+             * {@link #ITERATION_PAGE} events in all.
+             *
+             * @return the events of the page
+             */
+            private List<Event> readPage() {
+                List<Event> result = new ArrayList<>();
+                synchronized (Schedule.this) {
+                    Iterator<Map.Entry<LocalDateTime, List<Event>>> groups =
+                        (last == null ? startIndex : startIndex.tailMap(last, false)).entrySet().iterator();
+                    while (result.size() < ITERATION_PAGE && groups.hasNext()) {
+                        Map.Entry<LocalDateTime, List<Event>> group = groups.next();
+                        result.addAll(group.getValue());
+                        last = group.getKey();
+                    }
+                    exhausted = !groups.hasNext();
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Adds an event to the word index unless the index is waiting to be rebuilt.
+     *
+     * @param event the event to index
+     */
+    private void indexWords(Event event) {
+        if (!wordIndexStale) {
+            index.add(event);
+        }
+    }
+
+    /**
+     * Removes an event from the word index unless the index is waiting to be rebuilt.
+     *
+     * @param event the event to remove
+     */
+    private void unindexWords(Event event) {
+        if (!wordIndexStale) {
+            index.remove(event);
+        }
+    }
+
+    /**
+     * Rebuilds the word index from all events.
+     */
+    private void rebuildWordIndex() {
+        index.clear();
+        for (Event event : events) {
+            index.add(event);
+        }
+        wordIndexStale = false;
+    }
+
+    /**
+     * Adds an event to the start-time index.
+     *
+     * @param event the event to index
+     */
+    private void indexStart(Event event) {
+        if (event.getStart() == null) return;
+        startIndex.computeIfAbsent(event.getStart(), k -> new ArrayList<>(1)).add(event);
+        if (event.getEnd() != null) {
+            Duration duration = Duration.between(event.getStart(), event.getEnd());
+            if (duration.compareTo(longestEvent) > 0) {
+                longestEvent = duration;
+            }
+        }
+    }
+
+    /**
+     * Removes an event from the start-time index.
+     *
+     * @param event the event to remove
+     */
+    private void unindexStart(Event event) {
+        if (event.getStart() == null) return;
+        List<Event> sameStart = startIndex.get(event.getStart());
+        if (sameStart == null) return;
+        sameStart.removeIf(e -> e == event);
+        if (sameStart.isEmpty()) {
+            startIndex.remove(event.getStart());
+        }
+    }
+
+    /**
+     * Adds an event to the location index.
+     *
+     * @param event the event to index
+     */
+    private void indexLocation(Event event) {
+        locationIndex.computeIfAbsent(locationKey(event.getLocation()), k -> new ArrayList<>(4)).add(event);
+    }
+
+    /**
+     * Removes an event from the location index.
+     *
+     * @param event the event to remove
+     */
+    private void unindexLocation(Event event) {
+        String key = locationKey(event.getLocation());
+        List<Event> sameLocation = locationIndex.get(key);
+        if (sameLocation == null) return;
+        sameLocation.removeIf(e -> e == event);
+        if (sameLocation.isEmpty()) {
+            locationIndex.remove(key);
+        }
+    }
+
+    /**
+     * Normalises a location for the location index, so that locations differing only in
+     * case or surrounding spaces are the same.
+     *
+     * @param location the location, possibly null
+     * @return the index key
+     */
+    static String locationKey(String location) {
+        return location == null ? "" : location.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Starts a query over the events of the schedule.
+     *
+     * @return a query matching every event, to be narrowed with its methods
+     */
+    public ScheduleQuery query() {
+        return new ScheduleQuery(this);
+    }
+
+    /**
+     * Gets the start-time index for a query. The caller must hold the schedule's lock and
+     * must not change the index.
+     *
+     * @return the events grouped by start time
+     */
+    TreeMap<LocalDateTime, List<Event>> getStartIndex() {
+        return startIndex;
+    }
+
+    /**
+     * Gets the events at a location for a query. The caller must hold the schedule's lock
+     * and must not change the list.
+     *
+     * @param location the location, compared as by {@link #locationKey(String)}
+     * @return the events at the location, possibly empty
+     */
+    List<Event> getEventsAtLocation(String location) {
+        return locationIndex.getOrDefault(locationKey(location), List.of());
+    }
+
+    /**
+     * Gets the number of events for a query plan. The caller must hold the schedule's lock.
+     *
+     * @return the event count
+     */
+    int getEventCount() {
+        return events.size();
+    }
+
+    /**
+     * Gets the longest duration of any event indexed so far. The caller must hold the
+     * schedule's lock.
+     *
+     * @return the longest duration
+     */
+    Duration getLongestEvent() {
+        return longestEvent;
+    }
+
+    /**
+     * Gets the word index for a query, unless it is waiting to be rebuilt. The caller must
+     * hold the schedule's lock.
+     *
+     * @return the word index, or null if it is out of date
+     */
+    EventIndex getCurrentWordIndex() {
+        return wordIndexStale ? null : index;
+    }
+
+    /**
+     * Sets the registry that books the rooms of this schedule's events, so that a room
+     * cannot be taken by two schedules sharing the registry at the same time. The events
+     * already in the schedule are recorded without checks, and their bookings in any
+     * previous registry are freed.
+     *
+     * @param registry the registry, or null to stop checking rooms
+     */
+    public synchronized void setResourceRegistry(ResourceRegistry registry) {
+        if (resources != null) resources.releaseAll(this);
+        resources = registry;
+        if (registry != null) {
+            for (Event event : events) {
+                registry.track(this, event);
+            }
+        }
+    }
+
+    /**
+     * Gets the registry that books the rooms of this schedule's events.
+     *
+     * @return the registry, or null if rooms are not checked
+     */
+    public synchronized ResourceRegistry getResourceRegistry() {
+        return resources;
+    }
+
+    /**
+     * Finds the event holding an event's room at the same time, such as to tell the user
+     * why {@link #addEvent} refused the event.
+     *
+     * @param event the event to check
+     * @return the event booked in the same room at an overlapping time, in this or another
+     *         schedule, or null if the room is free or rooms are not checked
+     */
+    public synchronized Event findRoomConflict(Event event) {
+        return resources == null ? null : resources.findConflict(event);
+    }
+
+    /**
+     * Registers a listener to be notified after every change to the schedule.
+     *
+     * @param listener the listener to add
+     */
+    public void addScheduleListener(ScheduleListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeScheduleListener(ScheduleListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the current version of the schedule. The version increases on every change.
+     *
+     * @return the schedule version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Notifies all listeners of a change.
+     *
+     * @param change the change to report
+     */
+    private void fireChange(ScheduleChange change) {
+        for (ScheduleListener listener : listeners) {
+            try {
+                listener.scheduleChanged(change);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Gets all events in the schedule.
      *
-     * @return the list of events
+     * @return a copy of the list of events, safe to iterate while the schedule changes
      */
-    public ArrayList<Event> getEvents() {
-        return events;
+    public synchronized ArrayList<Event> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * Gets every event of the schedule's history: the archived events, ordered by start
+     * time, followed by the events the schedule holds. Use it to save, export or analyse
+     * the whole schedule; {@link #getEvents} holds only events not yet archived. Archived
+     * copies of events the schedule holds again, such as ones loaded from an older save,
+     * are left out. An archive run waits until the events are read, so none is missed or
+     * read twice.
+     * <p>
+     * Must not be called while holding the schedule's lock, which an archive run takes
+     * after its own.
+     *
+     * @return the events
+     * @throws UncheckedIOException if the archive cannot be read
+     * @throws IllegalStateException if the calling thread holds the schedule's lock
+     */
+    public List<Event> getAllEvents() {
+        if (Thread.holdsLock(this)) {
+            throw new IllegalStateException("getAllEvents must not be called while holding the schedule's lock");
+        }
+        synchronized (archiveLock) {
+            ArrayList<Event> hot;
+            SegmentedEventStore store;
+            synchronized (this) {
+                hot = new ArrayList<>(events);
+                store = archive;
+            }
+            if (store == null) return hot;
+            List<Event> archived;
+            try {
+                archived = store.readAll();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            List<Event> all = new ArrayList<>(withoutHeldAgain(archived, hot));
+            all.addAll(hot);
+            return all;
+        }
+    }
+
+    /**
+     * Searches event titles and locations for words starting with each word of the query.
+     * Safe to call from any thread.
+     *
+     * @param query the search text
+     * @return the matching events sorted by start time
+     */
+    public List<Event> search(String query) {
+        synchronized (this) {
+            if (wordIndexStale) {
+                rebuildWordIndex();
+            }
+        }
+        return index.search(query);
     }
 
     /**
@@ -80,7 +865,7 @@ public class Schedule {
      * @return a formatted string with all events
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder result = new StringBuilder("Schedule: " + name + "\n\n");
         if (events.isEmpty()) {
             result.append("No events scheduled.\n");
@@ -113,7 +898,7 @@ public class Schedule {
      * @param anyDate any date within the target week
      * @return a formatted string showing events grouped by day
      */
-    public String toWeeklyView(LocalDate anyDate) {
+    public synchronized String toWeeklyView(LocalDate anyDate) {
         LocalDate startOfWeek = getStartOfWeek(anyDate);
         LocalDate endOfWeek = startOfWeek.plusDays(6);
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEEE, MMM d");
@@ -0,0 +1,59 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Computes utilisation reports over large collections of events.
+ * Events are split into one partition per week, each partition is summarised in a
+ * single pass on the common fork/join pool, and the partial reports are merged in
+ * week order by the ordered parallel collect.
+ */
+public class ScheduleAnalytics {
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private ScheduleAnalytics() {
+    }
+
+    /**
+     * Builds a utilisation report for a schedule, archived events included.
+     *
+     * @param schedule the schedule to analyse
+     * @return the report
+     */
+    public static UtilisationReport analyze(Schedule schedule) {
+        return analyze(schedule.getAllEvents());
+    }
+
+    /**
+     * Builds a utilisation report for a collection of events.
+     *
+     * @param events the events to analyse, in any order
+     * @return the report
+     */
+    public static UtilisationReport analyze(Collection<Event> events) {
+        ConcurrentMap<LocalDate, List<Event>> byWeek = events.parallelStream()
+            .filter(e -> e != null && e.getStart() != null && e.getEnd() != null)
+            .collect(Collectors.groupingByConcurrent(e -> e.getStart().toLocalDate().with(DayOfWeek.MONDAY)));
+
+        List<Map.Entry<LocalDate, List<Event>>> partitions = new ArrayList<>(byWeek.entrySet());
+        partitions.sort(Map.Entry.comparingByKey());
+
+        return partitions.parallelStream()
+            .map(entry -> {
+                List<Event> week = entry.getValue();
+                week.sort(Comparator.comparing(Event::getStart));
+                return UtilisationReport.of(week);
+            })
+            .collect(UtilisationReport::new, UtilisationReport::merge, UtilisationReport::merge);
+    }
+}
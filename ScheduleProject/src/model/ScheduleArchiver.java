@@ -0,0 +1,153 @@
+package model;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Moves finished events out of a schedule into cold storage in the background, so that
+ * the schedule only holds events within a retention horizon of the present.
+ * <p>
+ * Each run archives the events that ended more than the retention horizon ago with
+ * {@link Schedule#archiveBefore}, then seals the archive's months before the horizon
+ * into compressed files. Archived events stay available through the schedule's range
+ * queries, read from the archive on demand.
+ */
+public class ScheduleArchiver {
+    /** Logger receiving a line for each run that archived events. */
+    private static final Logger LOGGER = Logger.getLogger(ScheduleArchiver.class.getName());
+    /** Retention horizon used unless another is set. */
+    public static final Duration DEFAULT_RETENTION = Duration.ofDays(90);
+    /** Time between runs used unless another is given. */
+    public static final Duration DEFAULT_PERIOD = Duration.ofHours(1);
+
+    /** The schedule whose events are archived. */
+    private final Schedule schedule;
+    /** The cold storage. */
+    private final SegmentedEventStore archive;
+    /** Source of the current time. */
+    private final Clock clock;
+    /** How long after they end events stay in the schedule. */
+    private volatile Duration retention;
+    /** Thread running the archiver, or null before {@link #start}. */
+    private ScheduledExecutorService executor;
+    /** Number of events archived since the archiver was created. */
+    private long archivedCount;
+
+    /**
+     * Creates an archiver and attaches the archive to the schedule, so that range
+     * queries include archived events. Call {@link #start} to archive in the background.
+     *
+     * @param schedule  the schedule whose events are archived
+     * @param archive   the cold storage
+     * @param retention how long after they end events stay in the schedule
+     */
+    public ScheduleArchiver(Schedule schedule, SegmentedEventStore archive, Duration retention) {
+        this(schedule, archive, retention, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates an archiver reading the time from a clock.
+     *
+     * @param schedule  the schedule whose events are archived
+     * @param archive   the cold storage
+     * @param retention how long after they end events stay in the schedule
+     * @param clock     the source of the current time
+     */
+    public ScheduleArchiver(Schedule schedule, SegmentedEventStore archive, Duration retention, Clock clock) {
+        this.schedule = schedule;
+        this.archive = archive;
+        this.clock = clock;
+        setRetention(retention);
+        schedule.setArchive(archive);
+    }
+
+    /**
+     * Sets how long after they end events stay in the schedule. The next run uses it.
+     *
+     * @param retention the retention horizon
+     */
+    public void setRetention(Duration retention) {
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Retention must not be negative");
+        }
+        this.retention = retention;
+    }
+
+    /**
+     * Gets how long after they end events stay in the schedule.
+     *
+     * @return the retention horizon
+     */
+    public Duration getRetention() {
+        return retention;
+    }
+
+    /**
+     * Archives in the background, first after a delay and then periodically.
+     *
+     * @param initialDelay how long to wait before the first run
+     * @param period       the time between runs
+     */
+    public synchronized void start(Duration initialDelay, Duration period) {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "archiver-" + schedule.getName());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                archiveNow();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, initialDelay.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops archiving in the background. A run in progress is finished.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Archives the events that ended before the retention horizon and seals the archive's
+     * months before it.
+     *
+     * @return the number of events archived
+     * @throws IOException if the archive cannot be written
+     */
+    public int archiveNow() throws IOException {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(retention);
+        int archived = schedule.archiveBefore(cutoff);
+        archive.sealBefore(YearMonth.from(cutoff));
+        if (archived > 0) {
+            synchronized (this) {
+                archivedCount += archived;
+            }
+            LOGGER.info("Archived " + archived + " events that ended before " + cutoff);
+        }
+        return archived;
+    }
+
+    /**
+     * Gets the number of events archived since the archiver was created.
+     *
+     * @return the archived count
+     */
+    public synchronized long getArchivedCount() {
+        return archivedCount;
+    }
+}
@@ -0,0 +1,378 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes a set of changes made to a schedule: the events that were added, removed
+ * and modified, together with the range of date-times that the changes affect.
+ * Events are compared by identity, so a change refers to the exact objects held by
+ * the schedule. Several changes can be merged into one with {@link #merge}.
+ * <p>
+ * Events moved to the schedule's archive are reported apart from removed ones, as
+ * {@link #getArchived archived} events: they were not deleted, so copies of the schedule
+ * elsewhere, totals and views should keep them, and they are not counted in the affected
+ * range.
+ */
+public class ScheduleChange {
+    /** Events added to the schedule. */
+    private final List<Event> added;
+    /** Events removed from the schedule. */
+    private final List<Event> removed;
+    /** Events whose fields were changed in place. */
+    private final List<Modification> modified;
+    /** Earliest date-time touched by the change, or null if the change is empty or only archives events. */
+    private final LocalDateTime rangeStart;
+    /** Latest date-time touched by the change, or null if the change is empty or only archives events. */
+    private final LocalDateTime rangeEnd;
+    /** Schedule version after the change was applied. */
+    private final long version;
+    /** Events moved to the schedule's archive; not counted as removed. */
+    private final List<Event> archived;
+    /** Copies of earlier values of removed events, kept so that the range covers them. */
+    private final List<Event> formerly;
+
+    /**
+     * An event that was changed in place, together with a copy of its previous values.
+     */
+    public static class Modification {
+        /** The event held by the schedule, with its new values. */
+        private final Event event;
+        /** A copy of the event taken before the change. */
+        private final Event previous;
+
+        /**
+         * Creates a modification record.
+         *
+         * @param event    the changed event
+         * @param previous a copy of the event before the change
+         */
+        public Modification(Event event, Event previous) {
+            this.event = event;
+            this.previous = previous;
+        }
+
+        /**
+         * Gets the changed event.
+         *
+         * @return the event held by the schedule
+         */
+        public Event getEvent() {
+            return event;
+        }
+
+        /**
+         * Gets the values the event had before the change.
+         *
+         * @return a copy of the event before the change
+         */
+        public Event getPrevious() {
+            return previous;
+        }
+    }
+
+    /**
+     * Creates a change set.
+     *
+     * @param added    events added to the schedule
+     * @param removed  events removed from the schedule
+     * @param modified events changed in place
+     * @param version  the schedule version after the change
+     */
+    public ScheduleChange(List<Event> added, List<Event> removed, List<Modification> modified, long version) {
+        this(added, removed, modified, version, List.of(), List.of());
+    }
+
+    /**
+     * Creates a change set whose range also covers values the events no longer hold, such
+     * as those of an event that was modified and then removed.
+     *
+     * @param added    events added to the schedule
+     * @param removed  events removed from the schedule
+     * @param modified events changed in place
+     * @param version  the schedule version after the change
+     * @param archived events moved to the archive
+     * @param formerly copies of earlier values of the events, counted in the range only
+     */
+    private ScheduleChange(List<Event> added, List<Event> removed, List<Modification> modified, long version,
+                           List<Event> archived, List<Event> formerly) {
+        this.archived = Collections.unmodifiableList(new ArrayList<>(archived));
+        this.formerly = Collections.unmodifiableList(new ArrayList<>(formerly));
+        this.added = Collections.unmodifiableList(new ArrayList<>(added));
+        this.removed = Collections.unmodifiableList(new ArrayList<>(removed));
+        this.modified = Collections.unmodifiableList(new ArrayList<>(modified));
+        this.version = version;
+
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        List<Event> touched = new ArrayList<>(this.added);
+        touched.addAll(this.removed);
+        for (Modification m : this.modified) {
+            touched.add(m.getEvent());
+            touched.add(m.getPrevious());
+        }
+        touched.addAll(formerly);
+        for (Event e : touched) {
+            if (e.getStart() != null && (start == null || e.getStart().isBefore(start))) start = e.getStart();
+            if (e.getEnd() != null && (end == null || e.getEnd().isAfter(end))) end = e.getEnd();
+        }
+        this.rangeStart = start;
+        this.rangeEnd = end;
+    }
+
+    /**
+     * Creates a change set for a single added event.
+     *
+     * @param event   the added event
+     * @param version the schedule version after the change
+     * @return the change set
+     */
+    public static ScheduleChange added(Event event, long version) {
+        return new ScheduleChange(List.of(event), List.of(), List.of(), version);
+    }
+
+    /**
+     * Creates a change set for a single removed event.
+     *
+     * @param event   the removed event
+     * @param version the schedule version after the change
+     * @return the change set
+     */
+    public static ScheduleChange removed(Event event, long version) {
+        return new ScheduleChange(List.of(), List.of(event), List.of(), version);
+    }
+
+    /**
+     * Creates a change set for events moved to the schedule's archive.
+     *
+     * @param events  the archived events
+     * @param version the schedule version after the change
+     * @return the change set
+     */
+    public static ScheduleChange archived(List<Event> events, long version) {
+        return new ScheduleChange(List.of(), List.of(), List.of(), version, events, List.of());
+    }
+
+    /**
+     * Creates a change set for a single event changed in place.
+     *
+     * @param event    the changed event
+     * @param previous a copy of the event before the change
+     * @param version  the schedule version after the change
+     * @return the change set
+     */
+    public static ScheduleChange modified(Event event, Event previous, long version) {
+        return new ScheduleChange(List.of(), List.of(), List.of(new Modification(event, previous)), version);
+    }
+
+    /**
+     * Gets the events added to the schedule.
+     *
+     * @return the added events
+     */
+    public List<Event> getAdded() {
+        return added;
+    }
+
+    /**
+     * Gets the events removed from the schedule.
+     *
+     * @return the removed events
+     */
+    public List<Event> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Gets the events moved to the schedule's archive. They are no longer held by the
+     * schedule but remain part of its history.
+     *
+     * @return the archived events
+     */
+    public List<Event> getArchived() {
+        return archived;
+    }
+
+    /**
+     * Gets the events changed in place.
+     *
+     * @return the modifications
+     */
+    public List<Modification> getModified() {
+        return modified;
+    }
+
+    /**
+     * Gets the earliest date-time affected by the change.
+     *
+     * @return the start of the affected range, or null if the change is empty or only archives events
+     */
+    public LocalDateTime getRangeStart() {
+        return rangeStart;
+    }
+
+    /**
+     * Gets the latest date-time affected by the change.
+     *
+     * @return the end of the affected range, or null if the change is empty or only archives events
+     */
+    public LocalDateTime getRangeEnd() {
+        return rangeEnd;
+    }
+
+    /**
+     * Gets the schedule version after the change.
+     *
+     * @return the schedule version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks whether the change moved events to the schedule's archive.
+     *
+     * @return true if any events were archived
+     */
+    public boolean isArchival() {
+        return !archived.isEmpty();
+    }
+
+    /**
+     * Gets the number of events the change reports as added, removed, modified or archived.
+     *
+     * @return the event count
+     */
+    public int size() {
+        return added.size() + removed.size() + modified.size() + archived.size();
+    }
+
+    /**
+     * Checks whether the change contains nothing.
+     *
+     * @return true if no events were added, removed, modified or archived
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && modified.isEmpty() && archived.isEmpty();
+    }
+
+    /**
+     * Checks whether the change touches any time between the given bounds.
+     *
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @return true if the affected range overlaps the given range
+     */
+    public boolean affects(LocalDateTime from, LocalDateTime to) {
+        if (rangeStart == null || rangeEnd == null) return false;
+        return rangeStart.isBefore(to) && !rangeEnd.isBefore(from);
+    }
+
+    /**
+     * Combines this change with a change that happened after it. An event added and then
+     * removed disappears from the result, and an event added and then modified is reported
+     * only as added. An event modified and then removed is reported only as removed, and the
+     * range still covers the values it had before it was modified. An event added and then
+     * archived disappears as well, since it was never shown as held; the other archived
+     * events of both changes are reported as archived.
+     *
+     * @param later the change that happened after this one
+     * @return the combined change
+     */
+    public ScheduleChange merge(ScheduleChange later) {
+        return new Builder().add(this).add(later).build();
+    }
+
+    /**
+     * Accumulates a sequence of changes into one, following the same rules as
+     * {@link ScheduleChange#merge}. Adding a change costs time proportional to that change
+     * only, so a burst of many small changes can be combined without copying the
+     * accumulated lists each time; {@link #build} then creates the combined change once.
+     */
+    public static class Builder {
+        /** Added events in order; entries removed again are set to null. */
+        private final List<Event> added = new ArrayList<>();
+        /** Position in {@link #added} of each event still reported as added. */
+        private final Map<Event, Integer> addedIndex = new IdentityHashMap<>();
+        /** Removed events in order. */
+        private final List<Event> removed = new ArrayList<>();
+        /** Modified events in the order they were first modified; may hold dropped events. */
+        private final List<Event> modifiedOrder = new ArrayList<>();
+        /** The first modification of each event still reported as modified. */
+        private final Map<Event, Modification> modified = new IdentityHashMap<>();
+        /** Archived events in order. */
+        private final List<Event> archived = new ArrayList<>();
+        /** Copies of earlier values of removed events. */
+        private final List<Event> formerly = new ArrayList<>();
+        /** Highest schedule version seen so far. */
+        private long version;
+
+        /**
+         * Adds a change that happened after all changes added so far.
+         *
+         * @param later the change to add
+         * @return this builder
+         */
+        public Builder add(ScheduleChange later) {
+            formerly.addAll(later.formerly);
+            for (Event e : later.removed) {
+                if (!dropAdded(e)) {
+                    Modification dropped = modified.remove(e);
+                    if (dropped != null) formerly.add(dropped.getPrevious());
+                    removed.add(e);
+                }
+            }
+            for (Event e : later.archived) {
+                if (!dropAdded(e)) archived.add(e);
+            }
+            for (Event e : later.added) {
+                addedIndex.put(e, added.size());
+                added.add(e);
+            }
+            for (Modification m : later.modified) {
+                Event e = m.getEvent();
+                if (addedIndex.containsKey(e) || modified.containsKey(e)) continue;
+                modified.put(e, m);
+                modifiedOrder.add(e);
+            }
+            version = Math.max(version, later.version);
+            return this;
+        }
+
+        /**
+         * Creates the change combining everything added so far.
+         *
+         * @return the combined change
+         */
+        public ScheduleChange build() {
+            List<Event> stillAdded = new ArrayList<>(addedIndex.size());
+            for (Event e : added) {
+                if (e != null) stillAdded.add(e);
+            }
+            List<Modification> modifications = new ArrayList<>(modified.size());
+            Map<Event, Boolean> listed = new IdentityHashMap<>();
+            for (Event e : modifiedOrder) {
+                Modification m = modified.get(e);
+                if (m != null && listed.put(e, Boolean.TRUE) == null) modifications.add(m);
+            }
+            return new ScheduleChange(stillAdded, removed, modifications, version, archived, formerly);
+        }
+
+        /**
+         * Stops reporting an event as added, if it is.
+         *
+         * @param e the event
+         * @return true if the event had been reported as added
+         */
+        private boolean dropAdded(Event e) {
+            Integer index = addedIndex.remove(e);
+            if (index == null) return false;
+            added.set(index, null);
+            return true;
+        }
+    }
+}
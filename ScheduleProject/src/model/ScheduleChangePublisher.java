@@ -0,0 +1,344 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Publishes the changes of a {@link Schedule} to {@link Flow.Subscriber}s, for consumers
+ * such as indexers, replicators or notification services that follow the schedule live.
+ * <p>
+ * Each subscriber has its own bounded buffer and receives changes on the executor only as
+ * far as it has requested them. The schedule's writer never waits for a subscriber: when a
+ * buffer is full, the publisher's {@link OverflowPolicy} decides what gives way. Conflated
+ * changes are bounded too, so a subscriber that stops reading is eventually dropped under
+ * every policy.
+ * <p>
+ * Events the schedule moves to its archive are passed on as {@link ScheduleChange#getArchived
+ * archived}, not removed, so subscribers can tell them from deletions and keep them.
+ */
+public class ScheduleChangePublisher implements Flow.Publisher<ScheduleChange>, ScheduleListener, AutoCloseable {
+    /**
+     * What happens when a change arrives for a subscriber whose buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** The subscriber is dropped and receives <code>onError</code>. */
+        DROP_SUBSCRIBER,
+        /** The oldest buffered change is discarded. */
+        DROP_OLDEST,
+        /**
+         * The change is merged into the newest buffered change, so no change is lost. Once
+         * the merged change reports more than {@value ScheduleChangePublisher#MAX_CONFLATED_EVENTS}
+         * events, the subscriber is dropped as with {@link #DROP_SUBSCRIBER}.
+         */
+        CONFLATE
+    }
+
+    /** Largest number of events a subscriber's conflated change may report before it is dropped. */
+    public static final int MAX_CONFLATED_EVENTS = 10_000;
+    /** The schedule whose changes are published. */
+    private final Schedule schedule;
+    /** Executor that delivers signals to subscribers. */
+    private final Executor executor;
+    /** Maximum number of undelivered changes per subscriber. */
+    private final int bufferCapacity;
+    /** What to do when a subscriber's buffer is full. */
+    private final OverflowPolicy policy;
+    /** Current subscriptions. */
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    /** Whether the publisher has been closed. */
+    private volatile boolean closed;
+
+    /**
+     * Creates a publisher that delivers on the common pool, buffers
+     * {@link Flow#defaultBufferSize()} changes per subscriber and conflates on overflow.
+     *
+     * @param schedule the schedule whose changes are published
+     */
+    public ScheduleChangePublisher(Schedule schedule) {
+        this(schedule, ForkJoinPool.commonPool(), Flow.defaultBufferSize(), OverflowPolicy.CONFLATE);
+    }
+
+    /**
+     * Creates a publisher and starts listening to the schedule.
+     *
+     * @param schedule       the schedule whose changes are published
+     * @param executor       the executor that delivers signals to subscribers
+     * @param bufferCapacity the maximum number of undelivered changes per subscriber
+     * @param policy         what to do when a subscriber's buffer is full
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ScheduleChangePublisher(Schedule schedule, Executor executor, int bufferCapacity, OverflowPolicy policy) {
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        this.schedule = schedule;
+        this.executor = executor;
+        this.bufferCapacity = bufferCapacity;
+        this.policy = policy;
+        schedule.addScheduleListener(this);
+    }
+
+    /**
+     * Adds a subscriber. It receives changes made after this call.
+     *
+     * @param subscriber the subscriber to add
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ScheduleChange> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        ChangeSubscription subscription = new ChangeSubscription(subscriber);
+        if (closed) {
+            subscription.complete();
+        } else {
+            subscriptions.add(subscription);
+        }
+        subscription.signal();
+    }
+
+    /**
+     * Queues a change for every subscriber. Called on the schedule's writer thread.
+     *
+     * @param change the changes that were made
+     */
+    @Override
+    public void scheduleChanged(ScheduleChange change) {
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.offer(change);
+        }
+    }
+
+    /**
+     * Gets the number of current subscribers.
+     *
+     * @return the subscriber count
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Stops listening to the schedule. Subscribers receive the changes already buffered,
+     * then <code>onComplete</code>.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        schedule.removeScheduleListener(this);
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.complete();
+            subscription.signal();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * The link between the publisher and one subscriber. Signals to the subscriber are
+     * delivered by at most one executor task at a time, so they are never concurrent.
+     */
+    private class ChangeSubscription implements Flow.Subscription, Runnable {
+        /** The subscriber. */
+        private final Flow.Subscriber<? super ScheduleChange> subscriber;
+        /** Changes not yet delivered. */
+        private final ArrayDeque<ScheduleChange> buffer = new ArrayDeque<>();
+        /** Changes conflated after the buffer filled up, delivered after it, or null. */
+        private ScheduleChange.Builder conflated;
+        /** Number of events reported by the changes in {@link #conflated}. */
+        private int conflatedEvents;
+        /** Number of changes requested but not yet delivered. */
+        private long demand;
+        /** Whether <code>onSubscribe</code> has been called. */
+        private boolean started;
+        /** Whether a delivery task is scheduled or running. */
+        private boolean running;
+        /** Whether the subscription has ended and no more signals may be sent. */
+        private boolean cancelled;
+        /** Whether <code>onComplete</code> should follow the buffered changes. */
+        private boolean completed;
+        /** Error to send in place of further changes, or null. */
+        private Throwable failure;
+
+        /**
+         * Creates a subscription.
+         *
+         * @param subscriber the subscriber
+         */
+        private ChangeSubscription(Flow.Subscriber<? super ScheduleChange> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Buffers a change, applying the overflow policy if the buffer is full.
+         *
+         * @param change the change to buffer
+         */
+        private void offer(ScheduleChange change) {
+            synchronized (this) {
+                if (cancelled || completed || failure != null) return;
+                if (conflated != null || buffer.size() >= bufferCapacity) {
+                    switch (policy) {
+                        case DROP_SUBSCRIBER:
+                            drop("Subscriber fell more than " + bufferCapacity + " changes behind and was dropped");
+                            break;
+                        case DROP_OLDEST:
+                            buffer.pollFirst();
+                            buffer.addLast(change);
+                            break;
+                        case CONFLATE:
+                            if (conflated == null) {
+                                ScheduleChange newest = buffer.pollLast();
+                                conflated = new ScheduleChange.Builder().add(newest);
+                                conflatedEvents = newest.size();
+                            }
+                            conflated.add(change);
+                            conflatedEvents += change.size();
+                            if (conflatedEvents > MAX_CONFLATED_EVENTS) {
+                                drop("Subscriber fell more than " + MAX_CONFLATED_EVENTS
+                                    + " events behind and was dropped");
+                            }
+                            break;
+                    }
+                } else {
+                    buffer.addLast(change);
+                }
+            }
+            signal();
+        }
+
+        /**
+         * Discards the undelivered changes and ends the subscription with an error. Called
+         * while holding this subscription's lock.
+         *
+         * @param message the reason sent to the subscriber
+         */
+        private void drop(String message) {
+            buffer.clear();
+            conflated = null;
+            failure = new IllegalStateException(message);
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Marks the subscription to complete once its buffer is drained.
+         */
+        private synchronized void complete() {
+            completed = true;
+        }
+
+        /**
+         * Adds to the number of changes the subscriber is ready to receive.
+         *
+         * @param n the number of additional changes
+         */
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) return;
+                if (n <= 0) {
+                    buffer.clear();
+                    conflated = null;
+                    failure = new IllegalArgumentException("Requested " + n + " changes; the request must be positive");
+                    subscriptions.remove(this);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            signal();
+        }
+
+        /**
+         * Ends the subscription and discards buffered changes.
+         */
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                buffer.clear();
+                conflated = null;
+            }
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Schedules a delivery task unless one is already scheduled or running.
+         */
+        private void signal() {
+            synchronized (this) {
+                if (running || cancelled) return;
+                running = true;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                e.printStackTrace();
+                cancel();
+            }
+        }
+
+        /**
+         * Delivers buffered changes while there is demand, then any terminal signal.
+         */
+        @Override
+        public void run() {
+            boolean subscribe;
+            synchronized (this) {
+                subscribe = !started;
+                started = true;
+            }
+            if (subscribe) {
+                try {
+                    subscriber.onSubscribe(this);
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                    cancel();
+                }
+            }
+            while (true) {
+                ScheduleChange next = null;
+                Throwable error = null;
+                boolean done = false;
+                synchronized (this) {
+                    if (cancelled) {
+                        running = false;
+                        return;
+                    }
+                    if (failure != null) {
+                        error = failure;
+                        cancelled = true;
+                    } else if (demand > 0 && !buffer.isEmpty()) {
+                        next = buffer.pollFirst();
+                        demand--;
+                    } else if (demand > 0 && conflated != null) {
+                        next = conflated.build();
+                        conflated = null;
+                        demand--;
+                    } else if (completed && buffer.isEmpty() && conflated == null) {
+                        done = true;
+                        cancelled = true;
+                    } else {
+                        running = false;
+                        return;
+                    }
+                }
+                try {
+                    if (error != null) {
+                        subscriber.onError(error);
+                    } else if (done) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onNext(next);
+                    }
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                    cancel();
+                }
+            }
+        }
+    }
+}
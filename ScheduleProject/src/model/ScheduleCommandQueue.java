@@ -0,0 +1,186 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Applies changes to a schedule on a single dedicated writer thread.
+ * Commands run in the order they were submitted. Commands that arrive close together
+ * are applied as one batch, and their results are handed back through the result
+ * executor in a single task (for the GUI this is <code>SwingUtilities::invokeLater</code>).
+ * The schedule's lock is taken for each command on its own, so readers such as painting
+ * or the server wait for at most one command, never for a whole batch. A command that
+ * throws is reported to its error handler through the same executor.
+ */
+public class ScheduleCommandQueue {
+    /** Maximum number of commands applied in one batch. */
+    private static final int MAX_BATCH_SIZE = 256;
+    /** The schedule that commands are applied to. */
+    private final Schedule schedule;
+    /** Executor that receives command results, such as the Swing event thread. */
+    private final Executor resultExecutor;
+    /** Commands waiting for the writer thread. */
+    private final BlockingQueue<Command<?>> pending;
+    /** The thread that applies all commands. */
+    private final Thread writerThread;
+    /** Whether the queue is still accepting commands. */
+    private volatile boolean running;
+
+    /**
+     * A queued change together with the callbacks that receive its result or failure.
+     *
+     * @param <T> the result type of the change
+     */
+    private static class Command<T> {
+        /** The change to apply to the schedule. */
+        private final Function<Schedule, T> mutation;
+        /** Receives the result of the change, may be null. */
+        private final Consumer<T> onResult;
+        /** Receives the exception if the change fails, may be null. */
+        private final Consumer<RuntimeException> onError;
+        /** The result once the change has been applied. */
+        private T result;
+        /** The exception thrown by the change, or null if it succeeded. */
+        private RuntimeException failure;
+
+        /**
+         * Creates a command.
+         *
+         * @param mutation the change to apply
+         * @param onResult the result callback, may be null
+         * @param onError  the error callback, may be null
+         */
+        Command(Function<Schedule, T> mutation, Consumer<T> onResult, Consumer<RuntimeException> onError) {
+            this.mutation = mutation;
+            this.onResult = onResult;
+            this.onError = onError;
+        }
+
+        /**
+         * Applies the change while holding the schedule's lock, and records its result.
+         *
+         * @param schedule the schedule to change
+         */
+        void apply(Schedule schedule) {
+            try {
+                synchronized (schedule) {
+                    result = mutation.apply(schedule);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Passes the recorded result to the result callback, or the exception to the error
+         * callback. A failure without an error callback is printed.
+         */
+        void deliver() {
+            if (failure != null) {
+                if (onError != null) {
+                    onError.accept(failure);
+                } else {
+                    failure.printStackTrace();
+                }
+            } else if (onResult != null) {
+                onResult.accept(result);
+            }
+        }
+    }
+
+    /**
+     * Creates a command queue and starts its writer thread.
+     *
+     * @param schedule       the schedule to apply commands to
+     * @param resultExecutor the executor that runs result callbacks
+     */
+    public ScheduleCommandQueue(Schedule schedule, Executor resultExecutor) {
+        this.schedule = schedule;
+        this.resultExecutor = resultExecutor;
+        this.pending = new LinkedBlockingQueue<>();
+        this.running = true;
+        this.writerThread = new Thread(this::processCommands, "schedule-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a change to the schedule. If the change throws, the exception is printed.
+     *
+     * @param mutation the change to apply on the writer thread
+     * @param onResult receives the result on the result executor, may be null
+     * @param <T>      the result type of the change
+     * @throws IllegalStateException if the queue has been shut down
+     */
+    public <T> void submit(Function<Schedule, T> mutation, Consumer<T> onResult) {
+        submit(mutation, onResult, null);
+    }
+
+    /**
+     * Queues a change to the schedule, with a callback for a change that fails.
+     *
+     * @param mutation the change to apply on the writer thread
+     * @param onResult receives the result on the result executor, may be null
+     * @param onError  receives the exception thrown by the change on the result executor,
+     *                 may be null to print it
+     * @param <T>      the result type of the change
+     * @throws IllegalStateException if the queue has been shut down
+     */
+    public <T> void submit(Function<Schedule, T> mutation, Consumer<T> onResult, Consumer<RuntimeException> onError) {
+        if (!running) {
+            throw new IllegalStateException("Command queue has been shut down.");
+        }
+        pending.add(new Command<>(mutation, onResult, onError));
+    }
+
+    /**
+     * Gets the schedule this queue writes to.
+     *
+     * @return the schedule
+     */
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Stops accepting commands and stops the writer thread once queued commands are applied.
+     */
+    public void shutdown() {
+        running = false;
+        pending.add(new Command<Void>(s -> null, null, null));
+    }
+
+    /**
+     * Main loop of the writer thread: takes a batch of commands, applies it and
+     * hands the results back.
+     */
+    private void processCommands() {
+        List<Command<?>> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+            for (Command<?> command : batch) {
+                command.apply(schedule);
+            }
+
+            List<Command<?>> applied = new ArrayList<>(batch);
+            resultExecutor.execute(() -> {
+                for (Command<?> command : applied) {
+                    command.deliver();
+                }
+            });
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package model;
+
+/**
+ * Receives notifications when events are added to, removed from or modified in a schedule.
+ */
+public interface ScheduleListener {
+    /**
+     * Called after the schedule has changed. Listeners registered directly on a
+     * {@link Schedule} are called on the thread that changed it while the schedule
+     * is locked, so they should return quickly.
+     *
+     * @param change the changes that were made
+     */
+    void scheduleChanged(ScheduleChange change);
+}
@@ -1,39 +1,102 @@
 package model;
 
+import java.io.BufferedOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.DayOfWeek;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.Comparator;
-import java.util.stream.Collectors;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * The <code>ScheduleManager</code> class manages a schedule instance and handles persistence-related 
  * operations like saving and exporting schedules to HTML files.
+ * <p>
+ * Every schedule added to the manager shares the manager's {@link ResourceRegistry}, so a
+ * room booked by an event in one schedule cannot be booked for the same time in another.
  */
 public class ScheduleManager {
+    /** Base path of the event store the schedule is saved to and loaded from at startup. */
+    public static final Path DEFAULT_STORE = Paths.get("schedule_store");
+    /** Directory of the month-by-month segment store that keeps the schedule's history. */
+    public static final Path DEFAULT_SEGMENT_DIRECTORY = Paths.get("schedule_segments");
+    /** Directory of the cold storage that finished events are archived to. */
+    public static final Path DEFAULT_ARCHIVE_DIRECTORY = Paths.get("schedule_archive");
+    /** Logger receiving a line for each export written. */
+    private static final Logger LOGGER = Logger.getLogger(ScheduleManager.class.getName());
     private Schedule currentSchedule;
+    /** Every schedule managed, in the order added. */
+    private final List<Schedule> schedules = new CopyOnWriteArrayList<>();
+    /** Room bookings shared by the managed schedules. */
+    private final ResourceRegistry resourceRegistry = new ResourceRegistry();
 
     /**
      * Constructs a new ScheduleManager with a default weekly schedule.
      */
     public ScheduleManager() {
-        currentSchedule = new Schedule("Weekly Schedule");
+        addSchedule(new Schedule("Weekly Schedule"));
     }
 
     /**
-     * Sets the current schedule to the specified schedule.
+     * Adds a schedule to the manager, books its rooms in the shared registry and makes it
+     * the current schedule.
      *
      * @param schedule the schedule to set as current
      */
     public void addSchedule(Schedule schedule) {
+        if (!schedules.contains(schedule)) {
+            schedules.add(schedule);
+            schedule.setResourceRegistry(resourceRegistry);
+        }
         currentSchedule = schedule;
     }
 
+    /**
+     * Removes a schedule from the manager and frees its rooms. If it was the current
+     * schedule, the first remaining schedule becomes current.
+     *
+     * @param schedule the schedule to remove
+     * @return true if the schedule was managed
+     */
+    public boolean removeSchedule(Schedule schedule) {
+        if (!schedules.remove(schedule)) return false;
+        schedule.setResourceRegistry(null);
+        if (currentSchedule == schedule) {
+            currentSchedule = schedules.isEmpty() ? null : schedules.get(0);
+        }
+        return true;
+    }
+
+    /**
+     * Returns every schedule managed.
+     *
+     * @return an unmodifiable view of the schedules, in the order added
+     */
+    public List<Schedule> getSchedules() {
+        return Collections.unmodifiableList(schedules);
+    }
+
+    /**
+     * Returns the registry of room bookings shared by the managed schedules.
+     *
+     * @return the resource registry
+     */
+    public ResourceRegistry getResourceRegistry() {
+        return resourceRegistry;
+    }
+
     /**
      * Returns the current schedule being managed.
      *
@@ -44,7 +107,8 @@ public class ScheduleManager {
     }
 
     /**
-     * Saves the current schedule by generating HTML files for each week.
+     * Saves the current schedule by generating HTML files for each week. Only the events the
+     * schedule holds are written; archived events stay in the archive.
      */
     public void saveSchedule() {
         try {
@@ -57,6 +121,101 @@ public class ScheduleManager {
         }
     }
 
+    /**
+     * Saves the current schedule as a single ZIP archive holding one HTML page per week.
+     * All pages link to one shared stylesheet stored once in the archive, and everything
+     * is streamed through a single output file.
+     *
+     * @param archivePath the archive file to write
+     * @throws IOException if there's an error writing the archive
+     */
+    public void saveScheduleArchive(Path archivePath) throws IOException {
+        Map<LocalDate, List<Event>> weeklyEvents = groupEventsByWeek(currentSchedule.getAllEvents());
+        Utf8Buffer page = new Utf8Buffer();
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archivePath)))) {
+            zip.setLevel(Deflater.BEST_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(WeeklyHtmlRenderer.STYLESHEET_NAME));
+            zip.write(Utf8Buffer.encode(WeeklyHtmlRenderer.STYLESHEET));
+            zip.closeEntry();
+
+            for (Map.Entry<LocalDate, List<Event>> weekEntry : weeklyEvents.entrySet()) {
+                page.reset();
+                WeeklyHtmlRenderer.render(page, weekEntry.getKey(), weekEntry.getValue(), false);
+                zip.putNextEntry(new ZipEntry(weeklyFileName(weekEntry.getKey())));
+                page.writeTo(zip);
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Builds the file name of a week's HTML page.
+     *
+     * @param weekStart the start date of the week (Monday)
+     * @return the file name
+     */
+    private static String weeklyFileName(LocalDate weekStart) {
+        return String.format("schedule_%s_to_%s.html",
+            weekStart.format(java.time.format.DateTimeFormatter.ISO_DATE),
+            weekStart.plusDays(6).format(java.time.format.DateTimeFormatter.ISO_DATE));
+    }
+
+    /**
+     * Streams the events of the current schedule to a file, one event per line.
+     *
+     * @param file   the file to write
+     * @param format the line format
+     * @throws IOException if there's an error writing the file
+     */
+    public void exportEvents(Path file, EventExporter.Format format) throws IOException {
+        try (EventExporter exporter = new EventExporter(format, Files.newOutputStream(file))) {
+            exporter.export(currentSchedule);
+            LOGGER.info("Exported " + exporter.getCount() + " events to " + file);
+        }
+    }
+
+    /**
+     * Writes a utilisation report of the current schedule to a CSV file.
+     *
+     * @param fileName the file to write
+     * @throws IOException if there's an error writing the file
+     */
+    public void exportAnalytics(String fileName) throws IOException {
+        UtilisationReport report = ScheduleAnalytics.analyze(currentSchedule);
+        try (FileWriter writer = new FileWriter(fileName)) {
+            report.writeCsv(writer);
+        }
+    }
+
+    /**
+     * Writes the current schedule to a memory-mapped event store, replacing any existing store.
+     * Only the events the schedule holds are written, since the store is loaded back into the
+     * schedule at startup; archived events stay in the archive.
+     *
+     * @param base the base path of the store files
+     * @throws IOException if there's an error writing the store
+     */
+    public void exportEventStore(Path base) throws IOException {
+        try (MappedEventStore store = MappedEventStore.create(base, currentSchedule.getEvents())) {
+            LOGGER.info("Wrote " + store.size() + " events to " + base);
+        }
+    }
+
+    /**
+     * Writes the current schedule to a month-by-month segment store, replacing the segments
+     * in the directory. Months before the current one are sealed and compressed.
+     *
+     * @param directory the directory of the segment files
+     * @throws IOException if there's an error writing the segments
+     */
+    public void exportSegmentedStore(Path directory) throws IOException {
+        try (SegmentedEventStore store = SegmentedEventStore.create(directory, currentSchedule.getAllEvents(),
+                SegmentedEventStore.DEFAULT_MEMORY_BUDGET)) {
+            LOGGER.info("Wrote " + store.size() + " events in " + store.getSegmentCount()
+                + " monthly segments to " + directory);
+        }
+    }
+
     /**
      * Creates the directory for storing weekly schedules if it doesn't exist.
      */
@@ -90,107 +249,16 @@ public class ScheduleManager {
      * @throws IOException if there's an error writing the files
      */
     private void generateWeeklyFiles(Map<LocalDate, List<Event>> weeklyEvents) throws IOException {
+        Utf8Buffer page = new Utf8Buffer();
         for (Map.Entry<LocalDate, List<Event>> weekEntry : weeklyEvents.entrySet()) {
             LocalDate weekStart = weekEntry.getKey();
-            LocalDate weekEnd = weekStart.plusDays(6);
-            String fileName = String.format("weekly_schedules/schedule_%s_to_%s.html", 
-                weekStart.format(java.time.format.DateTimeFormatter.ISO_DATE),
-                weekEnd.format(java.time.format.DateTimeFormatter.ISO_DATE));
-
-            try (FileWriter writer = new FileWriter(fileName)) {
-                writer.write(generateWeeklyHtml(weekStart, weekEntry.getValue()));
-            }
-        }
-    }
+            Path file = Paths.get("weekly_schedules", weeklyFileName(weekStart));
 
-    /**
-     * Generates HTML content for a week's schedule.
-     *
-     * @param weekStart the start date of the week (Monday)
-     * @param events the list of events for the week
-     * @return the generated HTML as a string
-     */
-    private String generateWeeklyHtml(LocalDate weekStart, List<Event> events) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>\n<html>\n<head>\n");
-        html.append("<meta charset='UTF-8'>\n");
-        html.append("<style>\n");
-        html.append("body { font-family: Arial, sans-serif; margin: 20px; }\n");
-        html.append(".schedule-container { max-width: 1200px; margin: 0 auto; }\n");
-        html.append(".day-schedule { margin-bottom: 30px; }\n");
-        html.append("h2 { color: #333; text-align: center; margin-bottom: 20px; }\n");
-        html.append("h3 { color: #666; margin: 15px 0; }\n");
-        html.append("table { border-collapse: collapse; width: 100%; table-layout: fixed; }\n");
-        html.append("th, td { border: 1px solid #ddd; padding: 12px; text-align: left; }\n");
-        html.append("th { background-color: #DEB8B8; color: black; font-weight: bold; }\n");
-        html.append("tr:nth-child(even) { background-color: #f5f0f0; }\n");
-        html.append(".time-column { width: 20%; }\n");
-        html.append(".event-column { width: 50%; }\n");
-        html.append(".location-column { width: 30%; }\n");
-        html.append("td { white-space: normal; word-wrap: break-word; overflow-wrap: break-word; }\n");
-        html.append("</style>\n</head>\n<body>\n");
-        
-        html.append("<div class='schedule-container'>\n");
-        html.append("<h2>Weekly Schedule: ")
-           .append(weekStart.format(java.time.format.DateTimeFormatter.ofPattern("MMM d, yyyy")))
-           .append(" to ")
-           .append(weekStart.plusDays(6).format(java.time.format.DateTimeFormatter.ofPattern("MMM d, yyyy")))
-           .append("</h2>\n");
-
-        for (int i = 0; i < 7; i++) {
-            LocalDate currentDate = weekStart.plusDays(i);
-            html.append(generateDayTable(currentDate, events));
-        }
-        
-        html.append("</div>\n");
-        html.append("</body>\n</html>");
-        return html.toString();
-    }
-
-    /**
-     * Generates HTML table for a single day's events.
-     *
-     * @param date the date to generate the table for
-     * @param events the list of all events (will be filtered by date)
-     * @return the generated HTML table as a string
-     */
-    private String generateDayTable(LocalDate date, List<Event> events) {
-        StringBuilder html = new StringBuilder();
-        html.append("<div class='day-schedule'>\n");
-        html.append("<h3>").append(date.getDayOfWeek()).append(" - ")
-            .append(date.format(java.time.format.DateTimeFormatter.ofPattern("MMM d, yyyy")))
-            .append("</h3>\n");
-        
-        html.append("<table>\n");
-        html.append("<tr>\n");
-        html.append("<th class='time-column'>Time</th>\n");
-        html.append("<th class='event-column'>Event</th>\n");
-        html.append("<th class='location-column'>Location</th>\n");
-        html.append("</tr>\n");
-        
-        List<Event> dayEvents = events.stream()
-            .filter(e -> e.getStart().toLocalDate().equals(date))
-            .sorted(Comparator.comparing(Event::getStart))
-            .collect(Collectors.toList());
-        
-        if (dayEvents.isEmpty()) {
-            html.append("<tr><td colspan='3' style='text-align: center;'>No events scheduled</td></tr>\n");
-        } else {
-            for (Event event : dayEvents) {
-                html.append("<tr>\n");
-                html.append("<td class='time-column'>")
-                    .append(event.getStart().format(java.time.format.DateTimeFormatter.ofPattern("h:mm a")))
-                    .append(" - ")
-                    .append(event.getEnd().format(java.time.format.DateTimeFormatter.ofPattern("h:mm a")))
-                    .append("</td>\n");
-                html.append("<td class='event-column'>").append(event.getTitle()).append("</td>\n");
-                html.append("<td class='location-column'>").append(event.getLocation()).append("</td>\n");
-                html.append("</tr>\n");
+            page.reset();
+            WeeklyHtmlRenderer.render(page, weekStart, weekEntry.getValue(), true);
+            try (OutputStream out = Files.newOutputStream(file)) {
+                page.writeTo(out);
             }
         }
-        
-        html.append("</table>\n");
-        html.append("</div>\n");
-        return html.toString();
     }
-}
\ No newline at end of file
+}
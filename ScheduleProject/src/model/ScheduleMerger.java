@@ -0,0 +1,235 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Merges events from several schedules or sorted event streams into one stream ordered by
+ * start time, in a single pass. Identical events, as decided by {@link Event#equals}, are
+ * passed on once; events that overlap an earlier merged event are reported as conflicts
+ * but still passed on.
+ * <p>
+ * Only the next event of each source, the events sharing the current start time and the
+ * events still running at the current start time are held in memory, so merging very
+ * large schedules needs memory in proportion to the number of sources rather than the
+ * number of events.
+ */
+public class ScheduleMerger {
+    /** The sources, each ordered by start time. */
+    private final List<Iterator<? extends Event>> sources = new ArrayList<>();
+    /** Receives each pair of overlapping events, the earlier one first. */
+    private BiConsumer<Event, Event> conflictHandler = (earlier, later) -> { };
+    /** Number of events passed on by the last merge. */
+    private long merged;
+    /** Number of duplicate events dropped by the last merge. */
+    private long duplicates;
+    /** Number of conflicts found by the last merge. */
+    private long conflicts;
+
+    /**
+     * Adds a schedule as a source. Its events are read a page at a time when merging.
+     *
+     * @param schedule the schedule to merge
+     */
+    public void addSource(Schedule schedule) {
+        sources.add(schedule.iterateByStart());
+    }
+
+    /**
+     * Adds a stream of events as a source.
+     *
+     * @param events the events, ordered by start time
+     */
+    public void addSource(Iterator<? extends Event> events) {
+        sources.add(events);
+    }
+
+    /**
+     * Sets what is done with each pair of overlapping events found while merging.
+     *
+     * @param conflictHandler receives the earlier and the later event of each conflict
+     */
+    public void setConflictHandler(BiConsumer<Event, Event> conflictHandler) {
+        this.conflictHandler = conflictHandler;
+    }
+
+    /**
+     * Merges the sources, passing each distinct event on in order of start time. Events
+     * without a start or end are skipped. The sources are used up by the merge.
+     *
+     * @param out receives the merged events
+     * @return the number of events passed on
+     * @throws IllegalStateException if a source is not ordered by start time
+     */
+    public long merge(Consumer<? super Event> out) {
+        merged = 0;
+        duplicates = 0;
+        conflicts = 0;
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, sources.size()));
+        for (int i = 0; i < sources.size(); i++) {
+            Head head = new Head(i, sources.get(i));
+            if (head.advance()) heads.add(head);
+        }
+        Set<Event> sameStart = new HashSet<>();
+        LocalDateTime currentStart = null;
+        PriorityQueue<Event> active = new PriorityQueue<>(Comparator.comparing(ScheduleMerger::releaseTime));
+
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            Event event = head.event;
+            if (head.advance()) heads.add(head);
+
+            if (!event.getStart().equals(currentStart)) {
+                currentStart = event.getStart();
+                sameStart.clear();
+                while (!active.isEmpty() && !releaseTime(active.peek()).isAfter(currentStart)) {
+                    active.poll();
+                }
+            }
+            if (!sameStart.add(event)) {
+                duplicates++;
+                continue;
+            }
+            for (Event running : active) {
+                if (running.overlaps(event)) {
+                    conflicts++;
+                    conflictHandler.accept(running, event);
+                }
+            }
+            active.add(event);
+            out.accept(event);
+            merged++;
+        }
+        sources.clear();
+        return merged;
+    }
+
+    /**
+     * Merges schedules into another schedule, which is usually new and empty. Conflicting
+     * events are all kept. The returned merger holds the counts of the merge for the
+     * caller to report.
+     *
+     * @param target    the schedule receiving the merged events
+     * @param schedules the schedules to merge
+     * @return the merger, whose counts describe the merge
+     */
+    public static ScheduleMerger merge(Schedule target, Schedule... schedules) {
+        ScheduleMerger merger = new ScheduleMerger();
+        for (Schedule schedule : schedules) {
+            merger.addSource(schedule);
+        }
+        List<Event> batch = new ArrayList<>();
+        merger.merge(event -> {
+            batch.add(event);
+            if (batch.size() >= 4096) {
+                target.loadEvents(batch);
+                batch.clear();
+            }
+        });
+        target.loadEvents(batch);
+        return merger;
+    }
+
+    /**
+     * Gets the number of events passed on by the last merge.
+     *
+     * @return the merged event count
+     */
+    public long getMergedCount() {
+        return merged;
+    }
+
+    /**
+     * Gets the number of duplicate events dropped by the last merge.
+     *
+     * @return the duplicate count
+     */
+    public long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /**
+     * Gets the number of conflicting pairs found by the last merge.
+     *
+     * @return the conflict count
+     */
+    public long getConflictCount() {
+        return conflicts;
+    }
+
+    /**
+     * Gets the start time from which an event can no longer overlap later events. Zoned
+     * events are compared by instant, so they are kept for {@link Schedule#ZONE_SLACK}
+     * longer, in case a later event in another zone overlaps them.
+     *
+     * @param event the event
+     * @return the wall-clock time from which the event can be forgotten
+     */
+    private static LocalDateTime releaseTime(Event event) {
+        return event instanceof ZonedEvent ? event.getEnd().plus(Schedule.ZONE_SLACK) : event.getEnd();
+    }
+
+    /**
+     * The next unmerged event of one source.
+     */
+    private static class Head implements Comparable<Head> {
+        /** Position of the source, used to order events with equal starts. */
+        private final int source;
+        /** The rest of the source. */
+        private final Iterator<? extends Event> events;
+        /** The next event of the source. */
+        private Event event;
+
+        /**
+         * Creates a head with no event yet.
+         *
+         * @param source the position of the source
+         * @param events the events of the source
+         */
+        private Head(int source, Iterator<? extends Event> events) {
+            this.source = source;
+            this.events = events;
+        }
+
+        /**
+         * Moves to the source's next event that has a start and end.
+         *
+         * @return false if the source is used up
+         * @throws IllegalStateException if the next event starts before the current one
+         */
+        private boolean advance() {
+            while (events.hasNext()) {
+                Event next = events.next();
+                if (next == null || next.getStart() == null || next.getEnd() == null) continue;
+                if (event != null && next.getStart().isBefore(event.getStart())) {
+                    throw new IllegalStateException("Source " + source + " is not ordered by start time: "
+                        + next.getStart() + " follows " + event.getStart());
+                }
+                event = next;
+                return true;
+            }
+            event = null;
+            return false;
+        }
+
+        /**
+         * Orders heads by the start of their next event, then by source.
+         *
+         * @param other the head to compare with
+         * @return a negative number, zero or a positive number
+         */
+        @Override
+        public int compareTo(Head other) {
+            int byStart = event.getStart().compareTo(other.event.getStart());
+            return byStart != 0 ? byStart : Integer.compare(source, other.source);
+        }
+    }
+}
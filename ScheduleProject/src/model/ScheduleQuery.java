@@ -0,0 +1,379 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A query over the events of a {@link Schedule}, built by chaining conditions:
+ * <pre>
+ * schedule.query().between(monday, saturday).at("Room 101").titleStartsWith("lec")
+ *     .orderBy(ScheduleQuery.Order.START).limit(10).list();
+ * </pre>
+ * When the query runs, a planner estimates how many events each usable index would yield
+ * (the start-time index for a time range, the location index for a location, the word index
+ * for a title prefix) and reads only the candidates of the most selective one; the other
+ * conditions are checked on each candidate. When the candidates come from the start-time
+ * index and the results are ordered by start time, reading stops as soon as enough events
+ * for the offset and limit have matched.
+ * <p>
+ * Only events with both a start and an end are matched. A query may be run more than once;
+ * each run sees the schedule as it is at that moment.
+ */
+public class ScheduleQuery {
+    /** Orders in which results can be returned. */
+    public enum Order {
+        /** Earliest start first. */
+        START,
+        /** Latest start first. */
+        START_DESCENDING,
+        /** By title ignoring case, then by start. */
+        TITLE,
+        /** Shortest first, then by start. */
+        DURATION
+    }
+
+    /** Ways the planner can find candidate events. */
+    public enum Plan {
+        /** Events starting near the time range, from the start-time index. */
+        TIME_INDEX,
+        /** Events at the location, from the location index. */
+        LOCATION_INDEX,
+        /** Events with a word starting like the title prefix, from the word index. */
+        TITLE_INDEX,
+        /** Every event. */
+        FULL_SCAN
+    }
+
+    /** The schedule to query. */
+    private final Schedule schedule;
+    /** Start of the time range, inclusive, or null for no range. */
+    private LocalDateTime from;
+    /** End of the time range, exclusive. */
+    private LocalDateTime to;
+    /** Location the events must be at, or null for any. */
+    private String location;
+    /** Start the titles must have, ignoring case, or null for any. */
+    private String titlePrefix;
+    /** Shortest duration allowed, or null for no minimum. */
+    private Duration minDuration;
+    /** Longest duration allowed, or null for no maximum. */
+    private Duration maxDuration;
+    /** Order of the results. */
+    private Order order = Order.START;
+    /** Number of matching events skipped before the results. */
+    private int offset;
+    /** Maximum number of results. */
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * Creates a query matching every event. Use {@link Schedule#query()}.
+     *
+     * @param schedule the schedule to query
+     */
+    ScheduleQuery(Schedule schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Keeps only events sharing time with a range.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return this query
+     */
+    public ScheduleQuery between(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Both ends of the range are required");
+        }
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Keeps only events at a location, ignoring case and surrounding spaces.
+     *
+     * @param location the location
+     * @return this query
+     */
+    public ScheduleQuery at(String location) {
+        this.location = location;
+        return this;
+    }
+
+    /**
+     * Keeps only events whose title starts with the given text, ignoring case.
+     *
+     * @param prefix the start of the title
+     * @return this query
+     */
+    public ScheduleQuery titleStartsWith(String prefix) {
+        this.titlePrefix = prefix;
+        return this;
+    }
+
+    /**
+     * Keeps only events lasting at least a duration.
+     *
+     * @param duration the shortest duration allowed
+     * @return this query
+     */
+    public ScheduleQuery minDuration(Duration duration) {
+        this.minDuration = duration;
+        return this;
+    }
+
+    /**
+     * Keeps only events lasting at most a duration.
+     *
+     * @param duration the longest duration allowed
+     * @return this query
+     */
+    public ScheduleQuery maxDuration(Duration duration) {
+        this.maxDuration = duration;
+        return this;
+    }
+
+    /**
+     * Sets the order of the results.
+     *
+     * @param order the order
+     * @return this query
+     */
+    public ScheduleQuery orderBy(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Skips a number of matching events before the results.
+     *
+     * @param offset the number of events to skip
+     * @return this query
+     */
+    public ScheduleQuery offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Limits the number of results.
+     *
+     * @param limit the maximum number of results
+     * @return this query
+     */
+    public ScheduleQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Runs the query.
+     *
+     * @return the matching events in the chosen order, after the offset and up to the limit
+     */
+    public List<Event> list() {
+        if (limit == 0 || (from != null && !from.isBefore(to))) return new ArrayList<>();
+        long wanted = (long) offset + limit;
+        List<Event> matches = new ArrayList<>();
+        synchronized (schedule) {
+            Plan plan = plan();
+            if ((plan == Plan.TIME_INDEX || plan == Plan.FULL_SCAN)
+                    && (order == Order.START || order == Order.START_DESCENDING)) {
+                NavigableMap<LocalDateTime, List<Event>> groups = plan == Plan.TIME_INDEX
+                    ? timeWindow() : schedule.getStartIndex();
+                if (order == Order.START_DESCENDING) {
+                    groups = groups.descendingMap();
+                }
+                for (List<Event> sameStart : groups.values()) {
+                    for (Event event : sameStart) {
+                        if (matches(event)) {
+                            matches.add(event);
+                            if (matches.size() >= wanted) return page(matches);
+                        }
+                    }
+                }
+                return page(matches);
+            }
+            for (Event event : candidates(plan)) {
+                if (matches(event)) {
+                    matches.add(event);
+                }
+            }
+        }
+        matches.sort(comparator());
+        return page(matches);
+    }
+
+    /**
+     * Gets the plan the query would run with now.
+     *
+     * @return the index the candidates would come from
+     */
+    public Plan explain() {
+        synchronized (schedule) {
+            return plan();
+        }
+    }
+
+    /**
+     * Picks the index expected to yield the fewest candidates. On a tie the start-time
+     * index is preferred, since it allows stopping early.
+     *
+     * @return the plan
+     */
+    private Plan plan() {
+        Plan best = Plan.FULL_SCAN;
+        long bestEstimate = schedule.getEventCount();
+        if (from != null) {
+            long estimate = estimateTimeCandidates();
+            if (estimate <= bestEstimate) {
+                best = Plan.TIME_INDEX;
+                bestEstimate = estimate;
+            }
+        }
+        if (location != null) {
+            long estimate = schedule.getEventsAtLocation(location).size();
+            if (estimate < bestEstimate) {
+                best = Plan.LOCATION_INDEX;
+                bestEstimate = estimate;
+            }
+        }
+        String word = titleWord();
+        EventIndex index = schedule.getCurrentWordIndex();
+        if (word != null && index != null) {
+            long estimate = index.countPrefix(word);
+            if (estimate < bestEstimate) {
+                best = Plan.TITLE_INDEX;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Estimates the events in the time window by assuming events are spread evenly between
+     * the first and last start.
+     *
+     * @return the estimated number of candidates from the start-time index
+     */
+    private long estimateTimeCandidates() {
+        TreeMap<LocalDateTime, List<Event>> startIndex = schedule.getStartIndex();
+        if (startIndex.isEmpty()) return 0;
+        double span = Duration.between(startIndex.firstKey(), startIndex.lastKey()).getSeconds() + 1;
+        double window = Duration.between(from.minus(schedule.getLongestEvent()), to).getSeconds();
+        return (long) Math.ceil(schedule.getEventCount() * Math.min(1.0, window / span));
+    }
+
+    /**
+     * Gets the groups of the start-time index that can overlap the time range.
+     *
+     * @return the groups by start time
+     */
+    private NavigableMap<LocalDateTime, List<Event>> timeWindow() {
+        return schedule.getStartIndex().subMap(from.minus(schedule.getLongestEvent()), true, to, false);
+    }
+
+    /**
+     * Collects the candidates of a plan.
+     *
+     * @param plan the plan
+     * @return the candidate events
+     */
+    private Collection<Event> candidates(Plan plan) {
+        switch (plan) {
+            case LOCATION_INDEX:
+                return schedule.getEventsAtLocation(location);
+            case TITLE_INDEX:
+                return schedule.getCurrentWordIndex().findPrefix(titleWord());
+            default:
+                List<Event> events = new ArrayList<>();
+                for (List<Event> sameStart : (plan == Plan.TIME_INDEX ? timeWindow() : schedule.getStartIndex()).values()) {
+                    events.addAll(sameStart);
+                }
+                return events;
+        }
+    }
+
+    /**
+     * Gets the word of the title prefix that the word index can look up. Every title
+     * starting with the prefix has a word starting with the prefix's first word.
+     *
+     * @return the first word of the prefix in lower case, or null if it has none
+     */
+    private String titleWord() {
+        if (titlePrefix == null) return null;
+        String[] words = EventIndex.tokenize(titlePrefix);
+        return words.length == 0 ? null : words[0];
+    }
+
+    /**
+     * Checks every condition of the query.
+     *
+     * @param event the event
+     * @return true if the event matches
+     */
+    private boolean matches(Event event) {
+        LocalDateTime start = event.getStart();
+        LocalDateTime end = event.getEnd();
+        if (start == null || end == null) return false;
+        if (from != null && !(start.isBefore(to) && end.isAfter(from))) return false;
+        if (location != null && !Schedule.locationKey(event.getLocation()).equals(Schedule.locationKey(location))) {
+            return false;
+        }
+        if (titlePrefix != null && (event.getTitle() == null
+                || !event.getTitle().regionMatches(true, 0, titlePrefix, 0, titlePrefix.length()))) {
+            return false;
+        }
+        if (minDuration != null || maxDuration != null) {
+            Duration duration = Duration.between(start, end);
+            if (minDuration != null && duration.compareTo(minDuration) < 0) return false;
+            if (maxDuration != null && duration.compareTo(maxDuration) > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the comparator of the chosen order.
+     *
+     * @return the comparator
+     */
+    private Comparator<Event> comparator() {
+        Comparator<Event> byStart = Comparator.comparing(Event::getStart);
+        switch (order) {
+            case START_DESCENDING:
+                return byStart.reversed();
+            case TITLE:
+                return Comparator.comparing((Event e) -> e.getTitle() == null ? "" : e.getTitle(),
+                    String.CASE_INSENSITIVE_ORDER).thenComparing(byStart);
+            case DURATION:
+                return Comparator.comparing((Event e) -> Duration.between(e.getStart(), e.getEnd()))
+                    .thenComparing(byStart);
+            default:
+                return byStart;
+        }
+    }
+
+    /**
+     * Applies the offset and limit.
+     *
+     * @param matches the matching events in order
+     * @return the events after the offset, up to the limit
+     */
+    private List<Event> page(List<Event> matches) {
+        int first = Math.min(offset, matches.size());
+        int last = (int) Math.min(matches.size(), (long) offset + limit);
+        return new ArrayList<>(matches.subList(first, last));
+    }
+}
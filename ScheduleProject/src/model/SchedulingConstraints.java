@@ -0,0 +1,94 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Limits on where the {@link AutoScheduler} may place tasks: a range of dates, the
+ * earliest start and latest end time on each day, and a maximum number of tasks per day.
+ */
+public class SchedulingConstraints {
+    /** First day tasks may be placed on. */
+    private final LocalDate firstDate;
+    /** Last day tasks may be placed on. */
+    private final LocalDate lastDate;
+    /** Earliest time of day a task may start. */
+    private final LocalTime earliestStart;
+    /** Latest time of day a task may end. */
+    private final LocalTime latestEnd;
+    /** Maximum number of tasks placed on one day. */
+    private final int maxPerDay;
+
+    /**
+     * Creates a set of scheduling constraints.
+     *
+     * @param firstDate     the first day tasks may be placed on
+     * @param lastDate      the last day tasks may be placed on, inclusive
+     * @param earliestStart the earliest time of day a task may start
+     * @param latestEnd     the latest time of day a task may end
+     * @param maxPerDay     the maximum number of tasks on one day
+     * @throws IllegalArgumentException if the dates or times are in the wrong order or maxPerDay is not positive
+     */
+    public SchedulingConstraints(LocalDate firstDate, LocalDate lastDate, LocalTime earliestStart,
+                                 LocalTime latestEnd, int maxPerDay) {
+        if (lastDate.isBefore(firstDate)) {
+            throw new IllegalArgumentException("Last date is before first date.");
+        }
+        if (!earliestStart.isBefore(latestEnd)) {
+            throw new IllegalArgumentException("Earliest start must be before latest end.");
+        }
+        if (maxPerDay < 1) {
+            throw new IllegalArgumentException("At least one task per day must be allowed.");
+        }
+        this.firstDate = firstDate;
+        this.lastDate = lastDate;
+        this.earliestStart = earliestStart;
+        this.latestEnd = latestEnd;
+        this.maxPerDay = maxPerDay;
+    }
+
+    /**
+     * Gets the first day tasks may be placed on.
+     *
+     * @return the first date
+     */
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    /**
+     * Gets the last day tasks may be placed on.
+     *
+     * @return the last date, inclusive
+     */
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    /**
+     * Gets the earliest time of day a task may start.
+     *
+     * @return the earliest start time
+     */
+    public LocalTime getEarliestStart() {
+        return earliestStart;
+    }
+
+    /**
+     * Gets the latest time of day a task may end.
+     *
+     * @return the latest end time
+     */
+    public LocalTime getLatestEnd() {
+        return latestEnd;
+    }
+
+    /**
+     * Gets the maximum number of tasks placed on one day.
+     *
+     * @return the daily limit
+     */
+    public int getMaxPerDay() {
+        return maxPerDay;
+    }
+}
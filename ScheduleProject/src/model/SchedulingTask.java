@@ -0,0 +1,76 @@
+package model;
+
+import java.time.Duration;
+
+/**
+ * A piece of work the {@link AutoScheduler} should fit into free time, such as
+ * "30 study sessions of 90 minutes in the library".
+ */
+public class SchedulingTask {
+    /** Title given to each placed session. */
+    private final String title;
+    /** Location given to each placed session. */
+    private final String location;
+    /** Length of each session. */
+    private final Duration duration;
+    /** Number of sessions to place. */
+    private final int count;
+
+    /**
+     * Creates a task.
+     *
+     * @param title    the title of each session
+     * @param location the location of each session
+     * @param duration the length of each session
+     * @param count    the number of sessions to place
+     * @throws IllegalArgumentException if the duration or count is not positive
+     */
+    public SchedulingTask(String title, String location, Duration duration, int count) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive.");
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive.");
+        }
+        this.title = title;
+        this.location = location;
+        this.duration = duration;
+        this.count = count;
+    }
+
+    /**
+     * Gets the title of each session.
+     *
+     * @return the title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the location of each session.
+     *
+     * @return the location
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Gets the length of each session.
+     *
+     * @return the duration
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the number of sessions to place.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,762 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An event store that splits events into one segment per calendar month, so that years
+ * of history can be kept without holding them in memory. Segments are read from disk when
+ * a query first touches their month and are kept in memory in least-recently-used order;
+ * when the loaded segments exceed the memory budget the least recently used ones are
+ * dropped. Queries for the current month therefore stay in memory however much history
+ * the store holds.
+ * <p>
+ * Months before the current one are sealed: their events are sorted and written to a
+ * compressed, read-only <code>yyyy-MM.seg.gz</code> file. Events added to a month after it
+ * was sealed go to a small <code>yyyy-MM.seg</code> file next to it, and are folded into
+ * the compressed file the next time the month is sealed. Sealed files are never changed
+ * in place; they are replaced whole. The event counts and longest durations of sealed
+ * segments are kept in a manifest, so opening the store reads only the unsealed files.
+ * <p>
+ * A zoned event keeps its start and end instants and its zone, and is read back as a
+ * {@link ZonedEvent}; a plain event keeps its wall-clock times. Segments hold the events
+ * starting in their month by wall clock, and queries compare wall-clock times, as the
+ * schedule does.
+ */
+public class SegmentedEventStore implements EventStore {
+    /** Estimated heap size of one loaded event in bytes, used to measure loaded segments. */
+    static final int ESTIMATED_EVENT_BYTES = 160;
+    /** Default memory budget for loaded segments in bytes. */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+    /** Suffix of files holding unsealed events. */
+    private static final String OPEN_SUFFIX = ".seg";
+    /** Suffix of sealed, compressed files. */
+    private static final String SEALED_SUFFIX = ".seg.gz";
+    /** Name of the manifest listing sealed segments. */
+    private static final String MANIFEST = "segments.manifest";
+    /** Directory holding the segment files. */
+    private final Path directory;
+    /** Maximum estimated size of the loaded segments in bytes. */
+    private final long memoryBudget;
+    /** Every segment in the store, by month. */
+    private final TreeMap<YearMonth, Segment> segments = new TreeMap<>();
+    /** Events of the loaded segments, least recently used first. */
+    private final LinkedHashMap<YearMonth, List<Event>> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    /** Estimated size of the loaded segments in bytes. */
+    private long loadedBytes;
+    /** Number of segments read from disk since the store was opened. */
+    private long loadCount;
+    /** Number of segments dropped from memory since the store was opened. */
+    private long evictionCount;
+
+    /**
+     * Opens a store, reading the manifest and the unsealed segment files.
+     *
+     * @param directory    the directory holding the segment files
+     * @param memoryBudget the maximum estimated size of loaded segments in bytes
+     * @throws IOException if the directory cannot be read
+     */
+    private SegmentedEventStore(Path directory, long memoryBudget) throws IOException {
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+        Files.createDirectories(directory);
+        readManifest();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + OPEN_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                YearMonth month = YearMonth.parse(name.substring(0, name.length() - OPEN_SUFFIX.length()));
+                Segment segment = segmentOf(month);
+                for (Event event : readRecords(file, false)) {
+                    segment.count(event);
+                    segment.pending++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a store, creating the directory if needed, and seals the months before the
+     * current one.
+     *
+     * @param directory    the directory holding the segment files
+     * @param memoryBudget the maximum estimated size of loaded segments in bytes
+     * @return the opened store
+     * @throws IOException if the directory cannot be read or a segment cannot be sealed
+     */
+    public static SegmentedEventStore open(Path directory, long memoryBudget) throws IOException {
+        SegmentedEventStore store = new SegmentedEventStore(directory, memoryBudget);
+        store.sealBefore(YearMonth.now());
+        return store;
+    }
+
+    /**
+     * Creates a new store holding the given events, replacing any segment files in the
+     * directory, and seals the months before the current one.
+     *
+     * @param directory    the directory to hold the segment files
+     * @param events       the events to store, in any order
+     * @param memoryBudget the maximum estimated size of loaded segments in bytes
+     * @return the new store
+     * @throws IOException if the files cannot be written
+     */
+    public static SegmentedEventStore create(Path directory, Collection<Event> events, long memoryBudget)
+        throws IOException {
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{seg,gz,manifest}")) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+        }
+        SegmentedEventStore store = new SegmentedEventStore(directory, memoryBudget);
+        TreeMap<YearMonth, List<Event>> byMonth = new TreeMap<>();
+        for (Event event : events) {
+            if (event.getStart() == null || event.getEnd() == null) continue;
+            byMonth.computeIfAbsent(YearMonth.from(event.getStart()), k -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<YearMonth, List<Event>> month : byMonth.entrySet()) {
+            Segment segment = store.segmentOf(month.getKey());
+            try (DataOutputStream out = openWriter(store.openFile(month.getKey()))) {
+                for (Event event : month.getValue()) {
+                    writeRecord(out, event);
+                    segment.count(event);
+                    segment.pending++;
+                }
+            }
+        }
+        store.sealBefore(YearMonth.now());
+        return store;
+    }
+
+    /**
+     * Adds an event to the segment of its start month. Sealed segments are not changed;
+     * the event is kept beside them until the month is sealed again.
+     *
+     * @param event the event to add
+     * @throws IOException if the segment file cannot be written
+     */
+    @Override
+    public synchronized void append(Event event) throws IOException {
+        appendAll(List.of(event));
+    }
+
+    /**
+     * Adds events to the segments of their start months, flushing each segment file once
+     * at the end rather than after every event.
+     *
+     * @param added the events to add
+     * @throws IOException if a segment file cannot be written
+     */
+    public synchronized void appendAll(Collection<? extends Event> added) throws IOException {
+        Map<YearMonth, Segment> written = new TreeMap<>();
+        for (Event event : added) {
+            if (event.getStart() == null || event.getEnd() == null) continue;
+            YearMonth month = YearMonth.from(event.getStart());
+            Segment segment = segmentOf(month);
+            if (segment.writer == null) {
+                segment.writer = openWriter(openFile(month));
+            }
+            writeRecord(segment.writer, event);
+            written.put(month, segment);
+            segment.count(event);
+            segment.pending++;
+            List<Event> events = loaded.get(month);
+            if (events != null) {
+                events.add(insertionPoint(events, event.getStart(), true), event);
+                loadedBytes += ESTIMATED_EVENT_BYTES;
+                evictOver(month);
+            }
+        }
+        for (Segment segment : written.values()) {
+            segment.writer.flush();
+        }
+    }
+
+    /**
+     * Removes stored events, such as ones archived by mistake. Each given event removes one
+     * stored event with the same record, as described by {@link #recordKey}. Each month that
+     * loses events is rewritten and sealed.
+     *
+     * @param removed the events to remove
+     * @return the number of events removed
+     * @throws IOException if a segment cannot be rewritten
+     */
+    public synchronized int removeAll(Collection<? extends Event> removed) throws IOException {
+        Map<YearMonth, List<String>> keysByMonth = new TreeMap<>();
+        for (Event event : removed) {
+            if (event.getStart() == null || event.getEnd() == null) continue;
+            YearMonth month = YearMonth.from(event.getStart());
+            if (segments.containsKey(month)) {
+                keysByMonth.computeIfAbsent(month, k -> new ArrayList<>()).add(recordKey(event));
+            }
+        }
+        int total = 0;
+        for (Map.Entry<YearMonth, List<String>> month : keysByMonth.entrySet()) {
+            List<Event> events = load(month.getKey());
+            List<String> keys = month.getValue();
+            int before = events.size();
+            for (Iterator<Event> it = events.iterator(); it.hasNext() && !keys.isEmpty(); ) {
+                if (keys.remove(recordKey(it.next()))) it.remove();
+            }
+            int count = before - events.size();
+            if (count == 0) continue;
+            Segment segment = segments.get(month.getKey());
+            segment.events -= count;
+            loadedBytes -= (long) count * ESTIMATED_EVENT_BYTES;
+            seal(segment, events);
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the events that start within the given range. The events are shared with the
+     * store's cache and must not be changed.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the events starting in the range, ordered by start time
+     */
+    @Override
+    public synchronized List<Event> getEventsBetween(LocalDateTime from, LocalDateTime to) {
+        List<Event> result = new ArrayList<>();
+        if (!from.isBefore(to)) return result;
+        for (YearMonth month : segments.subMap(YearMonth.from(from), true, YearMonth.from(to.minusNanos(1)), true).keySet()) {
+            List<Event> events = load(month);
+            for (int i = insertionPoint(events, from, false); i < events.size(); i++) {
+                if (!events.get(i).getStart().isBefore(to)) break;
+                result.add(events.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the events that share any time with the given range. Earlier months are read
+     * only as far back as the longest stored event could reach. The events are shared with
+     * the store's cache and must not be changed.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the events overlapping the range, ordered by start time
+     */
+    public synchronized List<Event> getEventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> result = new ArrayList<>();
+        if (!from.isBefore(to)) return result;
+        for (Event event : getEventsBetween(from.minusSeconds(longestSeconds()), to)) {
+            if (event.getEnd().isAfter(from)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether any stored event overlaps the given span.
+     *
+     * @param start the start of the span
+     * @param end   the end of the span
+     * @return true if a stored event shares any time with the span
+     */
+    @Override
+    public synchronized boolean hasConflict(LocalDateTime start, LocalDateTime end) {
+        return !getEventsOverlapping(start, end).isEmpty();
+    }
+
+    /**
+     * Gets the number of stored events.
+     *
+     * @return the event count
+     */
+    @Override
+    public synchronized long size() {
+        long total = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.events;
+        }
+        return total;
+    }
+
+    /**
+     * Reads every stored event, for saving or analysing the whole history. Segments that
+     * are not in memory are read without being kept, so the cache is left as it was.
+     *
+     * @return the events, ordered by start time
+     * @throws IOException if a segment cannot be read
+     */
+    public synchronized List<Event> readAll() throws IOException {
+        List<Event> all = new ArrayList<>((int) Math.min(size(), Integer.MAX_VALUE));
+        for (Segment segment : segments.values()) {
+            List<Event> events = loaded.get(segment.month);
+            if (events == null) {
+                events = readSegment(segment);
+                events.sort(Comparator.comparing(Event::getStart));
+            }
+            all.addAll(events);
+        }
+        return all;
+    }
+
+    /**
+     * Seals every month before the given one that has unsealed events: its events are
+     * sorted and written to a new compressed file that replaces the old one.
+     *
+     * @param month the first month left unsealed
+     * @return the number of segments sealed
+     * @throws IOException if a segment cannot be written
+     */
+    public synchronized int sealBefore(YearMonth month) throws IOException {
+        int sealedSegments = 0;
+        for (Segment segment : segments.headMap(month, false).values()) {
+            if (segment.pending == 0) continue;
+            List<Event> events = new ArrayList<>(loaded.containsKey(segment.month)
+                ? loaded.get(segment.month) : readSegment(segment));
+            events.sort(Comparator.comparing(Event::getStart));
+            seal(segment, events);
+            sealedSegments++;
+        }
+        return sealedSegments;
+    }
+
+    /**
+     * Writes all events of a segment to a new compressed file that replaces the old one,
+     * and deletes its unsealed file.
+     *
+     * @param segment the segment
+     * @param events  every event of the segment, ordered by start time
+     * @throws IOException if the file cannot be written
+     */
+    private void seal(Segment segment, List<Event> events) throws IOException {
+        if (segment.writer != null) {
+            segment.writer.close();
+            segment.writer = null;
+        }
+        Path sealed = sealedFile(segment.month);
+        Path temporary = sealed.resolveSibling(sealed.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temporary), 1 << 16)))) {
+            for (Event event : events) {
+                writeRecord(out, event);
+            }
+        }
+        Files.move(temporary, sealed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(openFile(segment.month));
+        segment.sealed = true;
+        segment.pending = 0;
+        writeManifest();
+    }
+
+    /**
+     * Gets the number of segments held in memory.
+     *
+     * @return the loaded segment count
+     */
+    public synchronized int getLoadedSegmentCount() {
+        return loaded.size();
+    }
+
+    /**
+     * Gets the estimated size of the segments held in memory.
+     *
+     * @return the estimated size in bytes
+     */
+    public synchronized long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    /**
+     * Gets the number of segments in the store.
+     *
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Gets how often segments were read from disk and dropped from memory.
+     *
+     * @return the loads and evictions since the store was opened
+     */
+    public synchronized String getCacheStatistics() {
+        return loadCount + " loads, " + evictionCount + " evictions, " + loaded.size() + " of "
+            + segments.size() + " segments in memory (" + (loadedBytes >> 10) + " KB)";
+    }
+
+    /**
+     * Closes the files of unsealed segments and drops the loaded segments.
+     *
+     * @throws IOException if a segment file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            if (segment.writer != null) {
+                segment.writer.close();
+                segment.writer = null;
+            }
+        }
+        loaded.clear();
+        loadedBytes = 0;
+    }
+
+    /**
+     * Gets the events of a month, reading the segment if it is not in memory and then
+     * dropping least recently used segments until the budget is met.
+     *
+     * @param month the month
+     * @return the events of the month, ordered by start time
+     */
+    private List<Event> load(YearMonth month) {
+        List<Event> events = loaded.get(month);
+        if (events != null) return events;
+        try {
+            events = readSegment(segments.get(month));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        events.sort(Comparator.comparing(Event::getStart));
+        loaded.put(month, events);
+        loadedBytes += (long) events.size() * ESTIMATED_EVENT_BYTES;
+        loadCount++;
+        evictOver(month);
+        return events;
+    }
+
+    /**
+     * Drops least recently used segments while the loaded segments exceed the budget.
+     *
+     * @param keep the month just used, which is never dropped
+     */
+    private void evictOver(YearMonth keep) {
+        Iterator<Map.Entry<YearMonth, List<Event>>> oldest = loaded.entrySet().iterator();
+        while (loadedBytes > memoryBudget && oldest.hasNext()) {
+            Map.Entry<YearMonth, List<Event>> entry = oldest.next();
+            if (entry.getKey().equals(keep)) continue;
+            loadedBytes -= (long) entry.getValue().size() * ESTIMATED_EVENT_BYTES;
+            oldest.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Reads all events of a segment from its sealed and unsealed files.
+     *
+     * @param segment the segment
+     * @return the events in file order
+     * @throws IOException if a file cannot be read
+     */
+    private List<Event> readSegment(Segment segment) throws IOException {
+        List<Event> events = new ArrayList<>((int) segment.events);
+        if (segment.sealed) {
+            events.addAll(readRecords(sealedFile(segment.month), true));
+        }
+        if (segment.pending > 0) {
+            if (segment.writer != null) segment.writer.flush();
+            events.addAll(readRecords(openFile(segment.month), false));
+        }
+        return events;
+    }
+
+    /**
+     * Gets the longest duration of any stored event.
+     *
+     * @return the duration in seconds
+     */
+    private long longestSeconds() {
+        long longest = 0;
+        for (Segment segment : segments.values()) {
+            longest = Math.max(longest, segment.longestSeconds);
+        }
+        return longest;
+    }
+
+    /**
+     * Gets the segment of a month, adding an empty one if there is none.
+     *
+     * @param month the month
+     * @return the segment
+     */
+    private Segment segmentOf(YearMonth month) {
+        return segments.computeIfAbsent(month, Segment::new);
+    }
+
+    /**
+     * Gets the file of a month's unsealed events.
+     *
+     * @param month the month
+     * @return the file path
+     */
+    private Path openFile(YearMonth month) {
+        return directory.resolve(month + OPEN_SUFFIX);
+    }
+
+    /**
+     * Gets the sealed file of a month.
+     *
+     * @param month the month
+     * @return the file path
+     */
+    private Path sealedFile(YearMonth month) {
+        return directory.resolve(month + SEALED_SUFFIX);
+    }
+
+    /**
+     * Reads the manifest of sealed segments, if there is one. Each line holds the month,
+     * the event count and the longest duration in seconds.
+     *
+     * @throws IOException if the manifest cannot be read
+     */
+    private void readManifest() throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) return;
+        try (BufferedReader in = Files.newBufferedReader(manifest)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.trim().split(" ");
+                if (fields.length != 3) continue;
+                Segment segment = segmentOf(YearMonth.parse(fields[0]));
+                segment.sealed = true;
+                segment.events = Long.parseLong(fields[1]);
+                segment.longestSeconds = Long.parseLong(fields[2]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the manifest with the current list of sealed segments.
+     *
+     * @throws IOException if the manifest cannot be written
+     */
+    private void writeManifest() throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary)) {
+            for (Segment segment : segments.values()) {
+                if (!segment.sealed) continue;
+                out.write(segment.month + " " + (segment.events - segment.pending) + " " + segment.longestSeconds);
+                out.newLine();
+            }
+        }
+        Files.move(temporary, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Finds where events starting at a time begin or end in a sorted list.
+     *
+     * @param events the events, ordered by start time
+     * @param time   the time to look for
+     * @param after  true to find the position after events starting at the time, false for before
+     * @return the position
+     */
+    private static int insertionPoint(List<Event> events, LocalDateTime time, boolean after) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = events.get(mid).getStart().compareTo(time);
+            if (cmp < 0 || (after && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Opens an unsealed segment file for appending records.
+     *
+     * @param file the file
+     * @return the output stream
+     * @throws IOException if the file cannot be opened
+     */
+    private static DataOutputStream openWriter(Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Writes one event record: the start and end, then the zone, title and location. A zoned
+     * event's start and end are instants in epoch seconds; a plain event's are its wall-clock
+     * times read as UTC, and its zone is empty.
+     *
+     * @param out   the stream to write to
+     * @param event the event
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeRecord(DataOutputStream out, Event event) throws IOException {
+        if (event instanceof ZonedEvent) {
+            ZonedEvent zoned = (ZonedEvent) event;
+            out.writeLong(zoned.getStartEpochSecond());
+            out.writeLong(zoned.getEndEpochSecond());
+            writeString(out, zoned.getZone().getId());
+        } else {
+            out.writeLong(event.getStart().toEpochSecond(ZoneOffset.UTC));
+            out.writeLong(event.getEnd().toEpochSecond(ZoneOffset.UTC));
+            writeString(out, "");
+        }
+        writeString(out, event.getTitle());
+        writeString(out, event.getLocation());
+    }
+
+    /**
+     * Writes a string as its length followed by its UTF-8 bytes, so that strings of any
+     * length can be stored.
+     *
+     * @param out   the stream to write to
+     * @param value the string, or null for the empty string
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the stream to read from
+     * @return the string
+     * @throws IOException if the stream cannot be read
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Describes the values a record keeps of an event, to recognise stored copies of it.
+     *
+     * @param event the event
+     * @return the title, location, zone, start and end as stored, joined into one string
+     */
+    static String recordKey(Event event) {
+        String times = event instanceof ZonedEvent
+            ? ((ZonedEvent) event).getZone().getId() + '\u0000' + ((ZonedEvent) event).getStartEpochSecond()
+                + '\u0000' + ((ZonedEvent) event).getEndEpochSecond()
+            : "\u0000" + event.getStart().toEpochSecond(ZoneOffset.UTC) + '\u0000' + event.getEnd().toEpochSecond(ZoneOffset.UTC);
+        return (event.getTitle() == null ? "" : event.getTitle()) + '\u0000'
+            + (event.getLocation() == null ? "" : event.getLocation()) + '\u0000' + times;
+    }
+
+    /**
+     * Copies an event as the store keeps it: a zoned event with its instants and zone, and
+     * any other event as a plain event.
+     *
+     * @param event the event
+     * @return the copy
+     */
+    static Event storedCopy(Event event) {
+        if (event instanceof ZonedEvent) {
+            ZonedEvent zoned = (ZonedEvent) event;
+            return new ZonedEvent(zoned.getTitle(), zoned.getStartEpochSecond(), zoned.getEndEpochSecond(),
+                zoned.getLocation(), zoned.getZone());
+        }
+        return new Event(event.getTitle(), event.getStart(), event.getEnd(), event.getLocation());
+    }
+
+    /**
+     * Reads every record of a segment file. A record cut off at the end of an unsealed
+     * file, left by an interrupted write, is ignored.
+     *
+     * @param file       the file
+     * @param compressed whether the file is compressed
+     * @return the events in file order
+     * @throws IOException if the file cannot be read
+     */
+    private static List<Event> readRecords(Path file, boolean compressed) throws IOException {
+        List<Event> events = new ArrayList<>();
+        if (!Files.exists(file)) return events;
+        InputStream raw = Files.newInputStream(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                compressed ? new GZIPInputStream(raw, 1 << 16) : raw))) {
+            while (true) {
+                try {
+                    long start = in.readLong();
+                    long end = in.readLong();
+                    String zone = readString(in);
+                    String title = readString(in);
+                    String location = readString(in);
+                    events.add(zone.isEmpty()
+                        ? new Event(title, LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC),
+                            LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC), location)
+                        : new ZonedEvent(title, start, end, location, ZoneId.of(zone)));
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * The events of one month: how many there are, where they are kept and, for unsealed
+     * events, the open file they are appended to.
+     */
+    private static class Segment {
+        /** The month of the segment. */
+        private final YearMonth month;
+        /** Number of events, sealed and unsealed. */
+        private long events;
+        /** Number of events not yet in the sealed file. */
+        private long pending;
+        /** Longest duration of the segment's events in seconds. */
+        private long longestSeconds;
+        /** Whether the month has a sealed file. */
+        private boolean sealed;
+        /** Stream appending to the unsealed file, or null if not open. */
+        private DataOutputStream writer;
+
+        /**
+         * Creates an empty segment.
+         *
+         * @param month the month of the segment
+         */
+        private Segment(YearMonth month) {
+            this.month = month;
+        }
+
+        /**
+         * Counts an event in the segment's totals.
+         *
+         * @param event the event
+         */
+        private void count(Event event) {
+            events++;
+            longestSeconds = Math.max(longestSeconds,
+                event.getEnd().toEpochSecond(ZoneOffset.UTC) - event.getStart().toEpochSecond(ZoneOffset.UTC));
+        }
+    }
+}
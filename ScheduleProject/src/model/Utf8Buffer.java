@@ -0,0 +1,375 @@
+package model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that text is written into as UTF-8. Characters are encoded
+ * directly into the buffer, so writing a string does not create an intermediate byte
+ * array. The buffer can be reset and reused for the next document.
+ */
+public class Utf8Buffer {
+    /** Hexadecimal digits, for escape sequences. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    /** The encoded bytes. */
+    private byte[] bytes;
+    /** Number of bytes written. */
+    private int length;
+
+    /**
+     * Constructs an empty buffer with a default capacity.
+     */
+    public Utf8Buffer() {
+        this(8192);
+    }
+
+    /**
+     * Constructs an empty buffer.
+     *
+     * @param capacity the initial capacity in bytes
+     */
+    public Utf8Buffer(int capacity) {
+        bytes = new byte[Math.max(16, capacity)];
+    }
+
+    /**
+     * Encodes a string to UTF-8 once, for text that is written many times.
+     *
+     * @param text the text to encode
+     * @return the encoded bytes
+     */
+    public static byte[] encode(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends pre-encoded bytes.
+     *
+     * @param data the bytes to append
+     * @return this buffer
+     */
+    public Utf8Buffer write(byte[] data) {
+        ensureCapacity(data.length);
+        System.arraycopy(data, 0, bytes, length, data.length);
+        length += data.length;
+        return this;
+    }
+
+    /**
+     * Appends a single ASCII character.
+     *
+     * @param c the character, which must be below 128
+     * @return this buffer
+     */
+    public Utf8Buffer writeAscii(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Appends text encoded as UTF-8.
+     *
+     * @param text the text to append
+     * @return this buffer
+     */
+    public Utf8Buffer write(CharSequence text) {
+        int count = text.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (length == bytes.length) ensureCapacity(count - i);
+                bytes[length++] = (byte) c;
+            } else {
+                i = writeNonAscii(text, i);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends text encoded as UTF-8 with the HTML special characters
+     * <code>&amp; &lt; &gt; &quot; '</code> replaced by character references.
+     *
+     * @param text the text to append, or null to append nothing
+     * @return this buffer
+     */
+    public Utf8Buffer writeHtmlEscaped(CharSequence text) {
+        if (text == null) return this;
+        int count = text.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': writeReference("&amp;"); break;
+                case '<': writeReference("&lt;"); break;
+                case '>': writeReference("&gt;"); break;
+                case '"': writeReference("&quot;"); break;
+                case '\'': writeReference("&#39;"); break;
+                default:
+                    if (c < 0x80) {
+                        ensureCapacity(1);
+                        bytes[length++] = (byte) c;
+                    } else {
+                        i = writeNonAscii(text, i);
+                    }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends text encoded as UTF-8 with the characters that JSON strings do not allow
+     * written as escape sequences. The surrounding quotes are not written.
+     *
+     * @param text the text to append, or null to append nothing
+     * @return this buffer
+     */
+    public Utf8Buffer writeJsonEscaped(CharSequence text) {
+        if (text == null) return this;
+        int count = text.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                ensureCapacity(2);
+                bytes[length++] = '\\';
+                bytes[length++] = (byte) c;
+            } else if (c < 0x20) {
+                ensureCapacity(6);
+                bytes[length++] = '\\';
+                bytes[length++] = 'u';
+                bytes[length++] = '0';
+                bytes[length++] = '0';
+                bytes[length++] = (byte) HEX_DIGITS[c >> 4];
+                bytes[length++] = (byte) HEX_DIGITS[c & 0xF];
+            } else if (c < 0x80) {
+                ensureCapacity(1);
+                bytes[length++] = (byte) c;
+            } else {
+                i = writeNonAscii(text, i);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends text as one CSV field. Fields containing a comma, quote or line break are
+     * quoted, with quotes inside doubled.
+     *
+     * @param text the text to append, or null for an empty field
+     * @return this buffer
+     */
+    public Utf8Buffer writeCsvField(CharSequence text) {
+        if (text == null) return this;
+        int count = text.length();
+        boolean quote = false;
+        for (int i = 0; i < count && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return write(text);
+        }
+        writeAscii('"');
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                ensureCapacity(2);
+                bytes[length++] = '"';
+                bytes[length++] = '"';
+            } else if (c < 0x80) {
+                ensureCapacity(1);
+                bytes[length++] = (byte) c;
+            } else {
+                i = writeNonAscii(text, i);
+            }
+        }
+        return writeAscii('"');
+    }
+
+    /**
+     * Appends a date in ISO format, such as <code>2024-01-31</code>, without creating a string.
+     *
+     * @param date the date to append
+     * @return this buffer
+     */
+    public Utf8Buffer writeIsoDate(LocalDate date) {
+        writePadded(date.getYear(), 4).writeAscii('-');
+        writePadded(date.getMonthValue(), 2).writeAscii('-');
+        return writePadded(date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Appends a date-time in ISO format to the second, such as <code>2024-01-31T09:30:00</code>,
+     * without creating a string.
+     *
+     * @param dateTime the date-time to append
+     * @return this buffer
+     */
+    public Utf8Buffer writeIsoDateTime(LocalDateTime dateTime) {
+        writeIsoDate(dateTime.toLocalDate()).writeAscii('T');
+        writePadded(dateTime.getHour(), 2).writeAscii(':');
+        writePadded(dateTime.getMinute(), 2).writeAscii(':');
+        return writePadded(dateTime.getSecond(), 2);
+    }
+
+    /**
+     * Appends a decimal integer without creating a string.
+     *
+     * @param value the value to append
+     * @return this buffer
+     */
+    public Utf8Buffer writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            return write(Long.toString(value));
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int low = start, high = length - 1; low < high; low++, high--) {
+            byte swap = bytes[low];
+            bytes[low] = bytes[high];
+            bytes[high] = swap;
+        }
+        return this;
+    }
+
+    /**
+     * Appends a non-negative integer padded with leading zeros.
+     *
+     * @param value  the value to append
+     * @param digits the minimum number of digits
+     * @return this buffer
+     */
+    public Utf8Buffer writePadded(int value, int digits) {
+        int width = 1;
+        for (int rest = value / 10; rest != 0; rest /= 10) {
+            width++;
+        }
+        width = Math.max(width, digits);
+        ensureCapacity(width);
+        int end = length + width;
+        for (int i = end - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+        return this;
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return the length in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Discards the contents so the buffer can be reused.
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Writes the contents to a stream.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Copies the contents into a new array.
+     *
+     * @return the bytes written so far
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Decodes the contents as a string.
+     *
+     * @return the text written so far
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends an ASCII character reference.
+     *
+     * @param reference the reference, such as <code>&amp;amp;</code>
+     */
+    private void writeReference(String reference) {
+        ensureCapacity(reference.length());
+        for (int i = 0; i < reference.length(); i++) {
+            bytes[length++] = (byte) reference.charAt(i);
+        }
+    }
+
+    /**
+     * Appends the character at an index as two to four UTF-8 bytes.
+     *
+     * @param text  the text being written
+     * @param index the index of a character of 128 or above
+     * @return the index of the last character consumed
+     */
+    private int writeNonAscii(CharSequence text, int index) {
+        ensureCapacity(4);
+        char c = text.charAt(index);
+        if (c < 0x800) {
+            bytes[length++] = (byte) (0xC0 | (c >> 6));
+            bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            return index;
+        }
+        if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(index + 1));
+            bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+            bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 1;
+        }
+        if (Character.isSurrogate(c)) {
+            // Unpaired surrogates cannot be encoded and become '?', as String.getBytes does.
+            bytes[length++] = '?';
+            return index;
+        }
+        bytes[length++] = (byte) (0xE0 | (c >> 12));
+        bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[length++] = (byte) (0x80 | (c & 0x3F));
+        return index;
+    }
+
+    /**
+     * Grows the buffer so that at least the given number of bytes fit after the current end.
+     *
+     * @param extra the number of bytes about to be written
+     */
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
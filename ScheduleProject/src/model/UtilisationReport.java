@@ -0,0 +1,286 @@
+package model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregated utilisation figures for a set of events: busy minutes per hour of the day,
+ * minutes and event counts per location, gaps between busy periods and load per week.
+ * <p>
+ * A report is built for one time-ordered partition of events at a time, and partial
+ * reports of consecutive partitions are combined with {@link #merge}. Gaps are measured
+ * between the end of one busy period and the start of the next, including the gap
+ * across the boundary of two merged partitions.
+ */
+public class UtilisationReport {
+    /** Busy minutes for each hour of the day, 0 to 23. */
+    private final long[] minutesByHour;
+    /** Busy minutes per location. */
+    private final Map<String, Long> minutesByLocation;
+    /** Number of events per location. */
+    private final Map<String, Long> eventsByLocation;
+    /** Busy minutes per week, keyed by the Monday of the week. */
+    private final TreeMap<LocalDate, Long> minutesByWeek;
+    /** Number of events in the report. */
+    private long eventCount;
+    /** Total busy minutes in the report. */
+    private long totalMinutes;
+    /** Number of gaps between busy periods. */
+    private long gapCount;
+    /** Sum of all gaps in minutes. */
+    private long gapMinutes;
+    /** Earliest event start in the report, or null if it is empty. */
+    private LocalDateTime firstStart;
+    /** Latest event end in the report, or null if it is empty. */
+    private LocalDateTime lastEnd;
+
+    /**
+     * Creates an empty report.
+     */
+    public UtilisationReport() {
+        this.minutesByHour = new long[24];
+        this.minutesByLocation = new HashMap<>();
+        this.eventsByLocation = new HashMap<>();
+        this.minutesByWeek = new TreeMap<>();
+    }
+
+    /**
+     * Builds a report for one partition of events in a single pass.
+     *
+     * @param events the events of the partition, sorted by start time
+     * @return the partial report
+     */
+    static UtilisationReport of(List<Event> events) {
+        UtilisationReport report = new UtilisationReport();
+        for (Event event : events) {
+            report.add(event);
+        }
+        return report;
+    }
+
+    /**
+     * Adds one event to the report. Events must be added in order of start time.
+     *
+     * @param event the event to add
+     */
+    private void add(Event event) {
+        LocalDateTime start = event.getStart();
+        LocalDateTime end = event.getEnd();
+        if (start == null || end == null || end.isBefore(start)) return;
+
+        long minutes = ChronoUnit.MINUTES.between(start, end);
+        eventCount++;
+        totalMinutes += minutes;
+        String location = event.getLocation() == null ? "" : event.getLocation();
+        minutesByLocation.merge(location, minutes, Long::sum);
+        eventsByLocation.merge(location, 1L, Long::sum);
+        minutesByWeek.merge(start.toLocalDate().with(DayOfWeek.MONDAY), minutes, Long::sum);
+
+        LocalDateTime cursor = start;
+        while (cursor.isBefore(end)) {
+            LocalDateTime nextHour = cursor.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime sliceEnd = end.isBefore(nextHour) ? end : nextHour;
+            minutesByHour[cursor.getHour()] += ChronoUnit.MINUTES.between(cursor, sliceEnd);
+            cursor = sliceEnd;
+        }
+
+        if (lastEnd == null) {
+            firstStart = start;
+            lastEnd = end;
+        } else {
+            if (start.isAfter(lastEnd)) {
+                gapCount++;
+                gapMinutes += ChronoUnit.MINUTES.between(lastEnd, start);
+            }
+            if (end.isAfter(lastEnd)) lastEnd = end;
+        }
+    }
+
+    /**
+     * Adds the report of the partition that follows this one in time into this report.
+     *
+     * @param later the report of the later partition
+     * @return this report, now covering both partitions
+     */
+    public UtilisationReport merge(UtilisationReport later) {
+        for (int hour = 0; hour < 24; hour++) {
+            minutesByHour[hour] += later.minutesByHour[hour];
+        }
+        later.minutesByLocation.forEach((k, v) -> minutesByLocation.merge(k, v, Long::sum));
+        later.eventsByLocation.forEach((k, v) -> eventsByLocation.merge(k, v, Long::sum));
+        later.minutesByWeek.forEach((k, v) -> minutesByWeek.merge(k, v, Long::sum));
+        eventCount += later.eventCount;
+        totalMinutes += later.totalMinutes;
+        gapCount += later.gapCount;
+        gapMinutes += later.gapMinutes;
+
+        if (later.lastEnd == null) return this;
+        if (lastEnd == null) {
+            firstStart = later.firstStart;
+            lastEnd = later.lastEnd;
+        } else {
+            if (later.firstStart.isAfter(lastEnd)) {
+                gapCount++;
+                gapMinutes += ChronoUnit.MINUTES.between(lastEnd, later.firstStart);
+            }
+            if (later.lastEnd.isAfter(lastEnd)) lastEnd = later.lastEnd;
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of events in the report.
+     *
+     * @return the event count
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Gets the total busy minutes.
+     *
+     * @return the total busy minutes
+     */
+    public long getTotalMinutes() {
+        return totalMinutes;
+    }
+
+    /**
+     * Gets the busy minutes in one hour of the day, summed over all days.
+     *
+     * @param hour the hour of the day, 0 to 23
+     * @return the busy minutes in that hour
+     */
+    public long getMinutesInHour(int hour) {
+        return minutesByHour[hour];
+    }
+
+    /**
+     * Gets the hours of the day ordered from busiest to quietest.
+     *
+     * @param limit the maximum number of hours to return
+     * @return the busiest hours of the day
+     */
+    public List<Integer> getBusiestHours(int limit) {
+        List<Integer> hours = new ArrayList<>();
+        for (int hour = 0; hour < 24; hour++) {
+            hours.add(hour);
+        }
+        hours.sort((a, b) -> Long.compare(minutesByHour[b], minutesByHour[a]));
+        return hours.subList(0, Math.min(limit, hours.size()));
+    }
+
+    /**
+     * Gets the busy minutes per location.
+     *
+     * @return an unmodifiable map from location to busy minutes
+     */
+    public Map<String, Long> getMinutesByLocation() {
+        return Collections.unmodifiableMap(minutesByLocation);
+    }
+
+    /**
+     * Gets the number of events per location.
+     *
+     * @return an unmodifiable map from location to event count
+     */
+    public Map<String, Long> getEventsByLocation() {
+        return Collections.unmodifiableMap(eventsByLocation);
+    }
+
+    /**
+     * Gets the busy minutes of each week that has events.
+     *
+     * @return an unmodifiable map from the Monday of each week to its busy minutes
+     */
+    public Map<LocalDate, Long> getMinutesByWeek() {
+        return Collections.unmodifiableMap(minutesByWeek);
+    }
+
+    /**
+     * Counts how many weeks fall into each load bucket. Bucket <i>i</i> holds weeks
+     * with at least <i>i</i> times the bucket size in busy hours, and less than the next.
+     *
+     * @param bucketHours the width of each bucket in hours
+     * @return a map from the lower bound of each bucket in hours to the number of weeks
+     */
+    public Map<Long, Long> getWeeklyLoadHistogram(int bucketHours) {
+        TreeMap<Long, Long> histogram = new TreeMap<>();
+        for (long minutes : minutesByWeek.values()) {
+            long bucket = minutes / 60 / bucketHours * bucketHours;
+            histogram.merge(bucket, 1L, Long::sum);
+        }
+        return histogram;
+    }
+
+    /**
+     * Gets the average gap between consecutive busy periods.
+     *
+     * @return the average gap in minutes, or 0 if there are no gaps
+     */
+    public double getAverageGapMinutes() {
+        return gapCount == 0 ? 0 : (double) gapMinutes / gapCount;
+    }
+
+    /**
+     * Writes the report as CSV with the columns <code>section,key,value</code>.
+     *
+     * @param writer the writer to write to; it is not closed
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("section,key,value\n");
+        writeRow(writer, "summary", "events", eventCount);
+        writeRow(writer, "summary", "busy_minutes", totalMinutes);
+        writeRow(writer, "summary", "gaps", gapCount);
+        writer.write("summary,average_gap_minutes," + String.format(Locale.ROOT, "%.2f", getAverageGapMinutes()) + "\n");
+        for (int hour = 0; hour < 24; hour++) {
+            writeRow(writer, "hour_minutes", String.format("%02d:00", hour), minutesByHour[hour]);
+        }
+        for (Map.Entry<String, Long> entry : new TreeMap<>(minutesByLocation).entrySet()) {
+            writeRow(writer, "location_minutes", entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Long> entry : new TreeMap<>(eventsByLocation).entrySet()) {
+            writeRow(writer, "location_events", entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<LocalDate, Long> entry : minutesByWeek.entrySet()) {
+            writeRow(writer, "week_minutes", entry.getKey().toString(), entry.getValue());
+        }
+    }
+
+    /**
+     * Writes one CSV row, quoting the key when needed.
+     *
+     * @param writer  the writer to write to
+     * @param section the section name
+     * @param key     the row key
+     * @param value   the row value
+     * @throws IOException if writing fails
+     */
+    private static void writeRow(Writer writer, String section, String key, long value) throws IOException {
+        writer.write(section);
+        writer.write(',');
+        if (key.indexOf(',') >= 0 || key.indexOf('"') >= 0 || key.indexOf('\n') >= 0) {
+            writer.write('"');
+            writer.write(key.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(key);
+        }
+        writer.write(',');
+        writer.write(Long.toString(value));
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,126 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Renders one week of events as an HTML page. The page layout is a single shared
+ * {@link HtmlTemplate} compiled once; every title, location and date is HTML-escaped.
+ */
+public class WeeklyHtmlRenderer {
+    /** Name of the shared stylesheet file linked from pages that do not inline it. */
+    public static final String STYLESHEET_NAME = "schedule.css";
+    /** Stylesheet shared by all weekly schedule pages. */
+    public static final String STYLESHEET =
+        "body { font-family: Arial, sans-serif; margin: 20px; }\n" +
+        ".schedule-container { max-width: 1200px; margin: 0 auto; }\n" +
+        ".day-schedule { margin-bottom: 30px; }\n" +
+        "h2 { color: #333; text-align: center; margin-bottom: 20px; }\n" +
+        "h3 { color: #666; margin: 15px 0; }\n" +
+        "table { border-collapse: collapse; width: 100%; table-layout: fixed; }\n" +
+        "th, td { border: 1px solid #ddd; padding: 12px; text-align: left; }\n" +
+        "th { background-color: #DEB8B8; color: black; font-weight: bold; }\n" +
+        "tr:nth-child(even) { background-color: #f5f0f0; }\n" +
+        ".time-column { width: 20%; }\n" +
+        ".event-column { width: 50%; }\n" +
+        ".location-column { width: 30%; }\n" +
+        "td { white-space: normal; word-wrap: break-word; overflow-wrap: break-word; }\n";
+    /** The weekly page template. */
+    private static final HtmlTemplate TEMPLATE = new HtmlTemplate(
+        "{{@head}}\n" +
+        "<!DOCTYPE html>\n<html>\n<head>\n" +
+        "<meta charset='UTF-8'>\n" +
+        "{{@inline-style}}\n" +
+        "<style>\n" + STYLESHEET + "</style>\n" +
+        "{{@linked-style}}\n" +
+        "<link rel='stylesheet' href='" + STYLESHEET_NAME + "'>\n" +
+        "{{@body}}\n" +
+        "</head>\n<body>\n" +
+        "<div class='schedule-container'>\n" +
+        "<h2>Weekly Schedule: {{from}} to {{to}}</h2>\n" +
+        "{{@day}}\n" +
+        "<div class='day-schedule'>\n" +
+        "<h3>{{dayOfWeek}} - {{date}}</h3>\n" +
+        "<table>\n" +
+        "<tr>\n" +
+        "<th class='time-column'>Time</th>\n" +
+        "<th class='event-column'>Event</th>\n" +
+        "<th class='location-column'>Location</th>\n" +
+        "</tr>\n" +
+        "{{@event}}\n" +
+        "<tr>\n" +
+        "<td class='time-column'>{{start}} - {{end}}</td>\n" +
+        "<td class='event-column'>{{title}}</td>\n" +
+        "<td class='location-column'>{{location}}</td>\n" +
+        "</tr>\n" +
+        "{{@no-events}}\n" +
+        "<tr><td colspan='3' style='text-align: center;'>No events scheduled</td></tr>\n" +
+        "{{@day-end}}\n" +
+        "</table>\n" +
+        "</div>\n" +
+        "{{@page-end}}\n" +
+        "</div>\n" +
+        "</body>\n</html>");
+    /** Fragment that opens the page. */
+    private static final HtmlTemplate.Fragment HEAD = TEMPLATE.fragment("head");
+    /** Fragment with the embedded stylesheet. */
+    private static final HtmlTemplate.Fragment INLINE_STYLE = TEMPLATE.fragment("inline-style");
+    /** Fragment that links to the shared stylesheet. */
+    private static final HtmlTemplate.Fragment LINKED_STYLE = TEMPLATE.fragment("linked-style");
+    /** Fragment with the page heading. */
+    private static final HtmlTemplate.Fragment BODY = TEMPLATE.fragment("body");
+    /** Fragment that opens a day's table. */
+    private static final HtmlTemplate.Fragment DAY = TEMPLATE.fragment("day");
+    /** Fragment for one event row. */
+    private static final HtmlTemplate.Fragment EVENT = TEMPLATE.fragment("event");
+    /** Fragment for a day without events. */
+    private static final HtmlTemplate.Fragment NO_EVENTS = TEMPLATE.fragment("no-events");
+    /** Fragment that closes a day's table. */
+    private static final HtmlTemplate.Fragment DAY_END = TEMPLATE.fragment("day-end");
+    /** Fragment that closes the page. */
+    private static final HtmlTemplate.Fragment PAGE_END = TEMPLATE.fragment("page-end");
+    /** Format of the dates in headings. */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy");
+    /** Format of event times. */
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("h:mm a");
+
+    /**
+     * Renders a week's page.
+     *
+     * @param out          the buffer to write the page to
+     * @param weekStart    the start date of the week (Monday)
+     * @param events       the events of the week, in any order
+     * @param inlineStyles true to embed the stylesheet, false to link to {@value #STYLESHEET_NAME}
+     */
+    public static void render(Utf8Buffer out, LocalDate weekStart, List<Event> events, boolean inlineStyles) {
+        HEAD.render(out);
+        (inlineStyles ? INLINE_STYLE : LINKED_STYLE).render(out);
+        BODY.render(out, weekStart.format(DATE_FORMAT), weekStart.plusDays(6).format(DATE_FORMAT));
+
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparing(Event::getStart));
+        int next = 0;
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = weekStart.plusDays(i);
+            DAY.render(out, date.getDayOfWeek().toString(), date.format(DATE_FORMAT));
+            while (next < sorted.size() && sorted.get(next).getStart().toLocalDate().isBefore(date)) {
+                next++;
+            }
+            int first = next;
+            while (next < sorted.size() && sorted.get(next).getStart().toLocalDate().equals(date)) {
+                Event event = sorted.get(next++);
+                EVENT.render(out, event.getStart().format(TIME_FORMAT),
+                    event.getEnd() == null ? "" : event.getEnd().format(TIME_FORMAT),
+                    event.getTitle(), event.getLocation());
+            }
+            if (next == first) {
+                NO_EVENTS.render(out);
+            }
+            DAY_END.render(out);
+        }
+        PAGE_END.render(out);
+    }
+}
@@ -0,0 +1,193 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A precomputed table of the UTC offset changes of one time zone, used to convert
+ * between local date-times and epoch seconds with a binary search over plain arrays.
+ * Tables are built once per zone for the years {@value #FIRST_YEAR} to
+ * {@value #LAST_YEAR} and cached; conversions outside that range fall back to
+ * {@link ZoneRules}.
+ * <p>
+ * Local times that fall into a gap, such as 2:30 on the night clocks spring forward,
+ * are moved later by the length of the gap. Local times that occur twice when clocks
+ * fall back use the earlier offset. Both match {@link java.time.ZonedDateTime#of}.
+ */
+public class ZoneTransitionTable {
+    /** First year covered by the precomputed transitions. */
+    private static final int FIRST_YEAR = 1900;
+    /** Last year covered by the precomputed transitions. */
+    private static final int LAST_YEAR = 2200;
+    /** Tables already built, by zone. */
+    private static final ConcurrentMap<ZoneId, ZoneTransitionTable> CACHE = new ConcurrentHashMap<>();
+    /** The zone described by this table. */
+    private final ZoneId zone;
+    /** The zone's rules, used outside the covered range. */
+    private final ZoneRules rules;
+    /** Epoch second of each transition, in increasing order. */
+    private final long[] transitionEpochs;
+    /** Offset in seconds before each transition. */
+    private final int[] offsetsBefore;
+    /** Offset in seconds after each transition. */
+    private final int[] offsetsAfter;
+    /** Offset in seconds before the first transition. */
+    private final int initialOffset;
+    /** First epoch second covered by the table. */
+    private final long coveredFrom;
+    /** Epoch second after the last second covered by the table. */
+    private final long coveredTo;
+
+    /**
+     * Builds the table for a zone.
+     *
+     * @param zone the time zone
+     */
+    private ZoneTransitionTable(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.coveredFrom = LocalDateTime.of(FIRST_YEAR, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        this.coveredTo = LocalDateTime.of(LAST_YEAR + 1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+        List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        if (!rules.isFixedOffset()) {
+            ZoneOffsetTransition next = rules.nextTransition(Instant.ofEpochSecond(coveredFrom));
+            while (next != null && next.toEpochSecond() < coveredTo) {
+                transitions.add(next);
+                next = rules.nextTransition(next.getInstant());
+            }
+        }
+        int count = transitions.size();
+        this.transitionEpochs = new long[count];
+        this.offsetsBefore = new int[count];
+        this.offsetsAfter = new int[count];
+        for (int i = 0; i < count; i++) {
+            ZoneOffsetTransition t = transitions.get(i);
+            transitionEpochs[i] = t.toEpochSecond();
+            offsetsBefore[i] = t.getOffsetBefore().getTotalSeconds();
+            offsetsAfter[i] = t.getOffsetAfter().getTotalSeconds();
+        }
+        this.initialOffset = rules.getOffset(Instant.ofEpochSecond(coveredFrom)).getTotalSeconds();
+    }
+
+    /**
+     * Gets the cached table for a zone, building it on first use.
+     *
+     * @param zone the time zone
+     * @return the transition table
+     */
+    public static ZoneTransitionTable of(ZoneId zone) {
+        return CACHE.computeIfAbsent(zone, ZoneTransitionTable::new);
+    }
+
+    /**
+     * Gets the zone described by this table.
+     *
+     * @return the time zone
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Gets the UTC offset in effect at an instant.
+     *
+     * @param epochSecond the instant in epoch seconds
+     * @return the offset in seconds
+     */
+    public int offsetAt(long epochSecond) {
+        if (epochSecond < coveredFrom || epochSecond >= coveredTo) {
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        int i = lastTransitionAtOrBefore(epochSecond);
+        return i < 0 ? initialOffset : offsetsAfter[i];
+    }
+
+    /**
+     * Converts a local date-time to epoch seconds.
+     *
+     * @param local the local date-time in this zone
+     * @return the instant in epoch seconds
+     */
+    public long toEpochSecond(LocalDateTime local) {
+        return toEpochSecond(local.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * Converts a local date-time, given as seconds since 1970-01-01T00:00 local time,
+     * to epoch seconds without creating any objects.
+     *
+     * @param localSecond the local date-time as local epoch seconds
+     * @return the instant in epoch seconds
+     */
+    public long toEpochSecond(long localSecond) {
+        if (localSecond < coveredFrom + 86400 || localSecond >= coveredTo - 86400) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC);
+            return local.atZone(zone).toEpochSecond();
+        }
+        // Find the last transition whose local-time window starts at or before the local time.
+        int low = 0;
+        int high = transitionEpochs.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long windowStart = transitionEpochs[mid] + Math.min(offsetsBefore[mid], offsetsAfter[mid]);
+            if (windowStart <= localSecond) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) return localSecond - initialOffset;
+
+        long before = transitionEpochs[found] + offsetsBefore[found];
+        long after = transitionEpochs[found] + offsetsAfter[found];
+        if (offsetsAfter[found] > offsetsBefore[found]) {
+            // Gap: times before the new local time are moved later by the gap length.
+            return localSecond < after ? localSecond - offsetsBefore[found] : localSecond - offsetsAfter[found];
+        }
+        // Overlap: ambiguous times keep the earlier offset.
+        return localSecond < before ? localSecond - offsetsBefore[found] : localSecond - offsetsAfter[found];
+    }
+
+    /**
+     * Converts epoch seconds to the local date-time in this zone.
+     *
+     * @param epochSecond the instant in epoch seconds
+     * @return the local date-time
+     */
+    public LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.ofTotalSeconds(offsetAt(epochSecond)));
+    }
+
+    /**
+     * Finds the last transition at or before an instant.
+     *
+     * @param epochSecond the instant in epoch seconds
+     * @return the transition index, or -1 if the instant is before the first transition
+     */
+    private int lastTransitionAtOrBefore(long epochSecond) {
+        int low = 0;
+        int high = transitionEpochs.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (transitionEpochs[mid] <= epochSecond) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,157 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * An event pinned to a time zone. The start and end are stored as epoch seconds together
+ * with the zone, so the event refers to one unambiguous moment even across daylight saving
+ * changes. The local date-times reported by {@link #getStart()} and {@link #getEnd()} are
+ * the wall-clock times in the event's zone.
+ * <p>
+ * Two zoned events are compared with plain <code>long</code> comparisons. A zoned event
+ * compared with an ordinary event is compared in the zoned event's wall-clock time.
+ */
+public class ZonedEvent extends Event {
+    /** The time zone of the event. */
+    private final ZoneId zone;
+    /** Cached conversion table for the zone. */
+    private final ZoneTransitionTable transitions;
+    /** The start of the event in epoch seconds. */
+    private long startEpochSecond;
+    /** The end of the event in epoch seconds. */
+    private long endEpochSecond;
+
+    /**
+     * Constructs a zoned event from wall-clock times in the given zone.
+     *
+     * @param title    the title of the event
+     * @param start    the local start time in the zone
+     * @param end      the local end time in the zone
+     * @param location the location of the event
+     * @param zone     the time zone of the event
+     */
+    public ZonedEvent(String title, LocalDateTime start, LocalDateTime end, String location, ZoneId zone) {
+        this(title, ZoneTransitionTable.of(zone).toEpochSecond(start),
+            ZoneTransitionTable.of(zone).toEpochSecond(end), location, zone);
+    }
+
+    /**
+     * Constructs a zoned event from epoch seconds.
+     *
+     * @param title            the title of the event
+     * @param startEpochSecond the start of the event in epoch seconds
+     * @param endEpochSecond   the end of the event in epoch seconds
+     * @param location         the location of the event
+     * @param zone             the time zone of the event
+     */
+    public ZonedEvent(String title, long startEpochSecond, long endEpochSecond, String location, ZoneId zone) {
+        super(title, null, null, location);
+        this.zone = zone;
+        this.transitions = ZoneTransitionTable.of(zone);
+        this.startEpochSecond = startEpochSecond;
+        this.endEpochSecond = endEpochSecond;
+        super.setStart(transitions.toLocalDateTime(startEpochSecond));
+        super.setEnd(transitions.toLocalDateTime(endEpochSecond));
+    }
+
+    /**
+     * Gets the time zone of the event.
+     *
+     * @return the zone
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Gets the start of the event.
+     *
+     * @return the start in epoch seconds
+     */
+    public long getStartEpochSecond() {
+        return startEpochSecond;
+    }
+
+    /**
+     * Gets the end of the event.
+     *
+     * @return the end in epoch seconds
+     */
+    public long getEndEpochSecond() {
+        return endEpochSecond;
+    }
+
+    /**
+     * Gets the start of the event as wall-clock time in another zone.
+     *
+     * @param otherZone the zone to express the start in
+     * @return the local start time in that zone
+     */
+    public LocalDateTime getStartIn(ZoneId otherZone) {
+        return ZoneTransitionTable.of(otherZone).toLocalDateTime(startEpochSecond);
+    }
+
+    /**
+     * Sets the start time from a wall-clock time in the event's zone.
+     *
+     * @param start the new local start time
+     */
+    @Override
+    public void setStart(LocalDateTime start) {
+        startEpochSecond = transitions.toEpochSecond(start);
+        super.setStart(transitions.toLocalDateTime(startEpochSecond));
+    }
+
+    /**
+     * Sets the end time from a wall-clock time in the event's zone.
+     *
+     * @param end the new local end time
+     */
+    @Override
+    public void setEnd(LocalDateTime end) {
+        endEpochSecond = transitions.toEpochSecond(end);
+        super.setEnd(transitions.toLocalDateTime(endEpochSecond));
+    }
+
+    /**
+     * Checks if this event overlaps another, by instant when both are zoned.
+     *
+     * @param other the event to compare with
+     * @return true if the two events share any time
+     */
+    @Override
+    protected boolean overlaps(Event other) {
+        if (other instanceof ZonedEvent) {
+            ZonedEvent that = (ZonedEvent) other;
+            return startEpochSecond < that.endEpochSecond && endEpochSecond > that.startEpochSecond;
+        }
+        return getStart().isBefore(other.getEnd()) && getEnd().isAfter(other.getStart());
+    }
+
+    /**
+     * Checks whether another object is a zoned event with the same title, location,
+     * instants and zone.
+     *
+     * @param o the object to compare with
+     * @return true if the object describes the same event
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!super.equals(o)) return false;
+        ZonedEvent that = (ZonedEvent) o;
+        return startEpochSecond == that.startEpochSecond
+            && endEpochSecond == that.endEpochSecond
+            && zone.equals(that.zone);
+    }
+
+    /**
+     * Computes a hash code from the event's fields and zone.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + zone.hashCode();
+    }
+}